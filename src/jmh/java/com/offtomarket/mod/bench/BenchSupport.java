@@ -0,0 +1,84 @@
+package com.offtomarket.mod.bench;
+
+import com.offtomarket.mod.data.NeedLevel;
+import com.offtomarket.mod.data.TownData;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.Items;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Shared fixtures for the JMH benchmarks.
+ *
+ * Benchmarks that need real {@code ItemStack}s (pricing, sale checks) call
+ * {@link #bootstrap()}, which runs the vanilla registry bootstrap outside of
+ * FML. Benchmarks that only move ids around (demand tracking, NBT round-trips)
+ * use {@link #standInId(int)} instead and never touch a registry, so they run
+ * even where the bootstrap does not.
+ */
+public final class BenchSupport {
+
+    private static boolean bootstrapped = false;
+
+    private BenchSupport() {}
+
+    /** Bootstrap the vanilla registries once per fork. */
+    public static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        bootstrapped = true;
+    }
+
+    /**
+     * Vanilla items used as a representative shipment mix. Requires
+     * {@link #bootstrap()} (touching {@code Items} any earlier fails).
+     */
+    public static Item[] items() {
+        return new Item[] {
+                Items.WHEAT, Items.BREAD, Items.COBBLESTONE, Items.OAK_LOG, Items.COAL,
+                Items.IRON_INGOT, Items.GOLD_INGOT, Items.DIAMOND, Items.EMERALD, Items.LEATHER,
+                Items.IRON_SWORD, Items.DIAMOND_PICKAXE, Items.BLAZE_ROD, Items.ENDER_PEARL, Items.CAKE,
+                Items.BONE
+        };
+    }
+
+    /** Id of a stand-in item that exists in no registry. */
+    public static ResourceLocation standInId(int index) {
+        return new ResourceLocation("offtomarket_bench", "item_" + index);
+    }
+
+    /**
+     * Synthetic towns at distances 1..10 with need levels spread over
+     * {@link #items()}. Requires {@link #bootstrap()}.
+     */
+    public static List<TownData> towns(int count, long seed) {
+        Random rand = new Random(seed);
+        NeedLevel[] levels = NeedLevel.values();
+        TownData.TownType[] types = TownData.TownType.values();
+        Item[] items = items();
+        List<TownData> towns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, NeedLevel> needLevels = new HashMap<>();
+            for (Item item : items) {
+                if (rand.nextInt(3) == 0) {
+                    needLevels.put(ForgeRegistries.ITEMS.getKey(item).toString(), levels[rand.nextInt(levels.length)]);
+                }
+            }
+            Set<ResourceLocation> none = new HashSet<>();
+            towns.add(new TownData("bench_town_" + i, "Bench Town " + i, "", 1 + (i % 10),
+                    types[i % types.length], none, none, none, 1, needLevels, new HashMap<>()));
+        }
+        return towns;
+    }
+}
@@ -0,0 +1,84 @@
+package com.offtomarket.mod.block.entity;
+
+import com.offtomarket.mod.bench.BenchSupport;
+import com.offtomarket.mod.data.DemandTracker;
+import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.data.Shipment;
+import com.offtomarket.mod.data.TownData;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.registries.ForgeRegistries;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One sale-check pass of {@code processMarketSales} over every shipment at
+ * market, via {@link TradingPostBlockEntity#rollItemSales}. Sold flags are
+ * cleared before each call so every pass rolls every item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketSalesBenchmark {
+
+    @Param({"4", "32"})
+    public int shipments;
+
+    @Param({"9"})
+    public int itemsPerShipment;
+
+    private final List<Shipment> atMarket = new ArrayList<>();
+    private final List<TownData> shipmentTowns = new ArrayList<>();
+    private final DemandTracker demand = new DemandTracker();
+    private final Random rand = new Random(5L);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchSupport.bootstrap();
+        Item[] items = BenchSupport.items();
+        List<TownData> towns = BenchSupport.towns(8, 42L);
+        for (int s = 0; s < shipments; s++) {
+            TownData town = towns.get(s % towns.size());
+            List<Shipment.ShipmentItem> shipmentItems = new ArrayList<>(itemsPerShipment);
+            for (int i = 0; i < itemsPerShipment; i++) {
+                Item item = items[rand.nextInt(items.length)];
+                ItemStack stack = new ItemStack(item);
+                int fair = PriceCalculator.calculateFinalValue(stack, PriceCalculator.getBaseValue(stack), town);
+                // Prices around fair value, some over the ceiling so the no-sale branch is covered too
+                int price = Math.max(1, (int) (fair * (0.8 + rand.nextDouble() * 1.6)));
+                shipmentItems.add(new Shipment.ShipmentItem(ForgeRegistries.ITEMS.getKey(item),
+                        1 + rand.nextInt(16), price, stack.getHoverName().getString()));
+                demand.recordSupply(town.getId(), ForgeRegistries.ITEMS.getKey(item).toString(), rand.nextInt(20));
+            }
+            Shipment shipment = new Shipment(new UUID(rand.nextLong(), rand.nextLong()), town.getId(),
+                    shipmentItems, 0L, 1200L);
+            shipment.setStatus(Shipment.Status.AT_MARKET);
+            atMarket.add(shipment);
+            shipmentTowns.add(town);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void unsell() {
+        for (Shipment shipment : atMarket) {
+            for (Shipment.ShipmentItem item : shipment.getItems()) item.setSold(false);
+        }
+    }
+
+    @Benchmark
+    public int saleCheckPass() {
+        int earnings = 0;
+        for (int i = 0; i < atMarket.size(); i++) {
+            earnings += TradingPostBlockEntity.rollItemSales(atMarket.get(i), shipmentTowns.get(i), demand, 1.5, rand);
+        }
+        return earnings;
+    }
+}
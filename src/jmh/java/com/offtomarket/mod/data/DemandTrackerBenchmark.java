@@ -0,0 +1,89 @@
+package com.offtomarket.mod.data;
+
+import com.offtomarket.mod.bench.BenchSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DemandTracker} lookups (one per unsold item per sale check) and the
+ * periodic decay pass. Uses stand-in item ids; no registries involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DemandTrackerBenchmark {
+
+    @Param({"8", "32"})
+    public int towns;
+
+    @Param({"64", "512"})
+    public int itemsPerTown;
+
+    private DemandTracker tracker;
+    private String[] townIds;
+    private String[] itemIds;
+    private String[] lookupTowns;
+    private String[] lookupItems;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        townIds = new String[towns];
+        for (int t = 0; t < towns; t++) townIds[t] = "bench_town_" + t;
+        itemIds = new String[itemsPerTown];
+        for (int i = 0; i < itemsPerTown; i++) itemIds[i] = BenchSupport.standInId(i).toString();
+
+        // Pre-drawn (town, item) pairs, one in four for an item that was never shipped
+        Random rand = new Random(7L);
+        lookupTowns = new String[4096];
+        lookupItems = new String[4096];
+        for (int i = 0; i < lookupTowns.length; i++) {
+            lookupTowns[i] = townIds[rand.nextInt(towns)];
+            lookupItems[i] = rand.nextInt(4) == 0
+                    ? BenchSupport.standInId(itemsPerTown + i).toString()
+                    : itemIds[rand.nextInt(itemsPerTown)];
+        }
+        tracker = filledTracker();
+    }
+
+    private DemandTracker filledTracker() {
+        DemandTracker filled = new DemandTracker();
+        Random rand = new Random(11L);
+        for (String town : townIds) {
+            for (String item : itemIds) filled.recordSupply(town, item, 1 + rand.nextInt(40));
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public double demandMultiplier() {
+        int i = next++ & (lookupTowns.length - 1);
+        return tracker.getDemandMultiplier(lookupTowns[i], lookupItems[i]);
+    }
+
+    /** A fresh, fully populated tracker for every decay call (built outside the measurement). */
+    @State(Scope.Thread)
+    public static class Full {
+        DemandTracker tracker;
+
+        @Setup(Level.Invocation)
+        public void fill(DemandTrackerBenchmark bench) {
+            tracker = bench.filledTracker();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Measurement(iterations = 200)
+    @Warmup(iterations = 50)
+    public DemandTracker decay(Full full) {
+        full.tracker.decay();
+        return full.tracker;
+    }
+}
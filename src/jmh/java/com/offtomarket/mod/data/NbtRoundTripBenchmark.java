@@ -0,0 +1,128 @@
+package com.offtomarket.mod.data;
+
+import com.offtomarket.mod.bench.BenchSupport;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtIo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NBT save/load of the trading state: single {@link Shipment}s and
+ * {@link MarketListing}s as written into the post's tags, and the whole
+ * {@link TradingData} as written to and read back from disk. Uses stand-in
+ * item ids; no registries involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NbtRoundTripBenchmark {
+
+    /** Shipments (and 4× as many listings) in the shared state. */
+    @Param({"10", "100"})
+    public int shipments;
+
+    private Shipment shipment;
+    private CompoundTag shipmentTag;
+    private MarketListing listing;
+    private CompoundTag listingTag;
+    private TradingData data;
+    private byte[] dataBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random rand = new Random(3L);
+        shipment = shipment(rand, 0L);
+        shipmentTag = shipment.save();
+        listing = listing(rand, 0);
+        listingTag = listing.save();
+
+        ListTag shipmentList = new ListTag();
+        for (int i = 0; i < shipments; i++) shipmentList.add(shipment(rand, i * 100L).save());
+        ListTag listingList = new ListTag();
+        for (int i = 0; i < shipments * 4; i++) listingList.add(listing(rand, i).save());
+        CompoundTag hot = new CompoundTag();
+        hot.putInt("TraderLevel", 5);
+        hot.put("Shipments", shipmentList);
+        hot.put("Listings", listingList);
+        ListTag history = new ListTag();
+        for (int i = 0; i < 10; i++) history.add(shipment(rand, i).save());
+        CompoundTag historySection = new CompoundTag();
+        historySection.put("History", history);
+
+        data = new TradingData();
+        data.putSections(Map.of(TradingData.Section.HOT, hot, TradingData.Section.HISTORY, historySection));
+        dataBytes = write(data);
+    }
+
+    private static Shipment shipment(Random rand, long departure) {
+        List<Shipment.ShipmentItem> items = new ArrayList<>(9);
+        for (int i = 0; i < 9; i++) {
+            CompoundTag nbt = null;
+            if (rand.nextInt(4) == 0) {
+                nbt = new CompoundTag();
+                nbt.putString("StoredEnchantments", "sharpness");
+                nbt.putInt("Level", 1 + rand.nextInt(5));
+            }
+            items.add(new Shipment.ShipmentItem(BenchSupport.standInId(rand.nextInt(200)),
+                    1 + rand.nextInt(64), 1 + rand.nextInt(500), "Stand-in Item " + i, nbt));
+        }
+        return new Shipment(new UUID(rand.nextLong(), rand.nextLong()), "bench_town_" + rand.nextInt(16),
+                items, departure, departure + 2400);
+    }
+
+    private static MarketListing listing(Random rand, int index) {
+        return new MarketListing("bench_town_" + rand.nextInt(16), BenchSupport.standInId(index),
+                "Stand-in Item " + index, 1 + rand.nextInt(64), 1 + rand.nextInt(500), index,
+                rand.nextInt(5) == 0, 10 + rand.nextInt(21));
+    }
+
+    private static byte[] write(TradingData data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        NbtIo.writeCompressed(data.save(new CompoundTag()), out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public CompoundTag shipmentSave() {
+        return shipment.save();
+    }
+
+    @Benchmark
+    public Shipment shipmentLoad() {
+        return Shipment.load(shipmentTag);
+    }
+
+    @Benchmark
+    public CompoundTag listingSave() {
+        return listing.save();
+    }
+
+    @Benchmark
+    public MarketListing listingLoad() {
+        return MarketListing.load(listingTag);
+    }
+
+    /** Serialize the shared state the way the world save does (compressed NBT). */
+    @Benchmark
+    public byte[] tradingDataSave() throws IOException {
+        return write(data);
+    }
+
+    @Benchmark
+    public TradingData tradingDataLoad() throws IOException {
+        return TradingData.load(NbtIo.readCompressed(new ByteArrayInputStream(dataBytes)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.offtomarket.mod.data;
+
+import com.offtomarket.mod.bench.BenchSupport;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.alchemy.PotionUtils;
+import net.minecraft.world.item.alchemy.Potions;
+import net.minecraft.world.item.enchantment.Enchantments;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PriceCalculator} lookups used by every sale check, listing refresh
+ * and price tooltip.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceCalculatorBenchmark {
+
+    @Param({"16", "64"})
+    public int towns;
+
+    private ItemStack plain;
+    private ItemStack potion;
+    private ItemStack enchanted;
+    private ItemStack[] mix;
+    private List<TownData> townList;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchSupport.bootstrap();
+        plain = new ItemStack(Items.DIAMOND);
+        potion = PotionUtils.setPotion(new ItemStack(Items.POTION), Potions.STRONG_REGENERATION);
+        enchanted = new ItemStack(Items.DIAMOND_SWORD);
+        enchanted.enchant(Enchantments.SHARPNESS, 3);
+        enchanted.enchant(Enchantments.UNBREAKING, 2);
+
+        Item[] items = BenchSupport.items();
+        mix = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) mix[i] = new ItemStack(items[i]);
+        townList = BenchSupport.towns(towns, 42L);
+
+        // Warm the per-item cache for the cached cases
+        PriceCalculator.getValueTier(plain);
+        PriceCalculator.getValueTier(enchanted);
+        for (ItemStack stack : mix) PriceCalculator.getValueTier(stack);
+    }
+
+    /** Empties the base tier cache before every call, so each call classifies from scratch. */
+    @State(Scope.Thread)
+    public static class ColdCache {
+        @Setup(Level.Invocation)
+        public void clear() {
+            PriceCalculator.clearBaseTiers();
+        }
+    }
+
+    @Benchmark
+    public PriceCalculator.ValueTier valueTierCached() {
+        return PriceCalculator.getValueTier(plain);
+    }
+
+    @Benchmark
+    public PriceCalculator.ValueTier valueTierUncached(ColdCache cold) {
+        return PriceCalculator.getValueTier(plain);
+    }
+
+    @Benchmark
+    public PriceCalculator.ValueTier valueTierPotion() {
+        return PriceCalculator.getValueTier(potion);
+    }
+
+    @Benchmark
+    public PriceCalculator.ValueTier valueTierEnchanted() {
+        return PriceCalculator.getValueTier(enchanted);
+    }
+
+    /** Fair value of the whole item mix at every town, as a listing refresh would. */
+    @Benchmark
+    public void finalValueAcrossTowns(Blackhole bh) {
+        for (TownData town : townList) {
+            for (ItemStack stack : mix) {
+                bh.consume(PriceCalculator.calculateFinalValue(stack, PriceCalculator.getBaseValue(stack), town));
+            }
+        }
+    }
+}
@@ -3,21 +3,33 @@ package com.offtomarket.mod;
 import com.mojang.logging.LogUtils;
 import com.offtomarket.mod.config.ModConfig;
 import com.offtomarket.mod.config.ModdedItemConfig;
+import com.offtomarket.mod.content.ContentReloadListener;
 import com.offtomarket.mod.content.CustomMenuLoader;
 import com.offtomarket.mod.content.TownLoader;
+import com.offtomarket.mod.data.ClassificationCache;
 import com.offtomarket.mod.data.ModCompatibility;
 import com.offtomarket.mod.data.SupplyDemandManager;
+import com.offtomarket.mod.data.TradeJournal;
+import com.offtomarket.mod.debug.ActionRecorder;
 import com.offtomarket.mod.debug.DebugCommands;
 import com.offtomarket.mod.debug.DebugHooks;
+import com.offtomarket.mod.network.MarketSyncCodec;
 import com.offtomarket.mod.network.ModNetwork;
 import com.offtomarket.mod.registry.ModBlockEntities;
 import com.offtomarket.mod.registry.ModBlocks;
 import com.offtomarket.mod.registry.ModItems;
 import com.offtomarket.mod.registry.ModMenuTypes;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.AddReloadListenerEvent;
 import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.registries.ForgeRegistries;
@@ -57,12 +69,15 @@ public class OffToMarket {
         LOGGER.info("Off to Market - Trading Deluxe initializing!");
         event.enqueueWork(() -> {
             ModNetwork.register();
-            ModdedItemConfig.loadAllConfigs();
 
             // Load towns from JSON definitions (overrides any hardcoded fallbacks)
             TownLoader.loadAll();
             // Load custom menu definitions for /otm menu open <id>
             CustomMenuLoader.loadAll();
+            // Config additions go on top of the JSON towns, so load them last
+            ModdedItemConfig.loadAllConfigs();
+            // Servers reload all of the above from datapacks; this is what clients start with
+            ContentReloadListener.captureBaseline();
 
             // Initialize mod compatibility - discovers items from other mods
             ModCompatibility.initialize();
@@ -82,6 +97,43 @@ public class OffToMarket {
         }
     }
 
+    @SubscribeEvent
+    public void onAddReloadListeners(AddReloadListenerEvent event) {
+        event.addListener(new ContentReloadListener());
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            ContentReloadListener.syncOnLogin(player);
+        }
+    }
+
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        // Sync string tables are per connection; a reconnect starts from scratch
+        MarketSyncCodec.forget(event.getEntity().getUUID());
+    }
+
+    @SubscribeEvent
+    public void onServerStopped(ServerStoppedEvent event) {
+        MarketSyncCodec.clearAll();
+        // Don't let this world's datapack towns carry over into the next one
+        ContentReloadListener.restoreBaseline();
+        // Persist price tiers computed this session so the next launch can skip them
+        ClassificationCache.saveTiers();
+        TradeJournal.close();
+        ActionRecorder.stop();
+    }
+
+    @SubscribeEvent
+    public void onLevelSave(LevelEvent.Save event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel && serverLevel.dimension() == Level.OVERWORLD) {
+            TradeJournal.flushOpen();
+            ActionRecorder.flush();
+        }
+    }
+
     @SubscribeEvent
     public void onRegisterCommands(RegisterCommandsEvent event) {
         DebugCommands.register(event.getDispatcher());
@@ -2,6 +2,7 @@ package com.offtomarket.mod.block.entity;
 
 import com.offtomarket.mod.data.MailNote;
 import com.offtomarket.mod.menu.MailboxMenu;
+import com.offtomarket.mod.network.MailboxDeltaPacket;
 import com.offtomarket.mod.registry.ModBlockEntities;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -20,86 +21,189 @@ import net.minecraft.world.level.block.state.BlockState;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Block entity for the Mailbox. Stores a list of MailNote objects.
  * Notes are added by the TradingPostBlockEntity when events occur,
  * and read/deleted by the player through the MailboxMenu/Screen.
+ *
+ * Notes live in a fixed-size ring, oldest first, with an index by id and a
+ * running unread count, so adding (and evicting the oldest), reading and
+ * deleting a note never scan or shift the whole list. Deleted notes leave an
+ * empty slot that is compacted away the next time the ring fills up.
+ * Watching clients get a {@link MailboxDeltaPacket} per change rather than
+ * the whole mailbox.
  */
 public class MailboxBlockEntity extends BlockEntity implements MenuProvider {
 
-    private final List<MailNote> notes = new ArrayList<>();
     public static final int MAX_NOTES = 100; // prevent unbounded growth
 
+    /** Slots {@code head .. head + used - 1} (mod MAX_NOTES), oldest first; null where a note was deleted. */
+    private final MailNote[] ring = new MailNote[MAX_NOTES];
+    private int head = 0;
+    private int used = 0;
+    /** Slot of each stored note. */
+    private final Map<UUID, Integer> slotById = new HashMap<>();
+    private int unreadCount = 0;
+
+    /** Notes in order, rebuilt on demand after a change. */
+    @Nullable
+    private List<MailNote> view;
+
     public MailboxBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.MAILBOX.get(), pos, state);
     }
 
     // ==================== Note Management ====================
 
+    /** Notes, oldest first (read-only). */
     public List<MailNote> getNotes() {
-        return notes;
+        if (view == null) {
+            List<MailNote> notes = new ArrayList<>(slotById.size());
+            for (int i = 0; i < used; i++) {
+                MailNote note = ring[(head + i) % MAX_NOTES];
+                if (note != null) notes.add(note);
+            }
+            view = Collections.unmodifiableList(notes);
+        }
+        return view;
     }
 
     public int getUnreadCount() {
-        int count = 0;
-        for (MailNote note : notes) {
-            if (!note.isRead()) count++;
-        }
-        return count;
+        return unreadCount;
     }
 
     /**
      * Add a new note to the mailbox. Oldest notes are removed if at capacity.
      */
     public void addNote(MailNote note) {
-        while (notes.size() >= MAX_NOTES) {
-            notes.remove(0); // Remove oldest
-        }
-        notes.add(note);
-        syncToClient();
+        if (!insert(note)) return;
+        setChanged();
+        MailboxDeltaPacket.sendAdded(this, note);
     }
 
     /**
      * Mark a note as read by its UUID.
      */
     public void markRead(UUID noteId) {
-        for (MailNote note : notes) {
-            if (note.getId().equals(noteId)) {
-                note.markRead();
-                syncToClient();
-                return;
-            }
-        }
+        if (!setRead(noteId)) return;
+        setChanged();
+        MailboxDeltaPacket.sendRead(this, noteId);
     }
 
     /**
      * Delete a note by its UUID.
      */
     public void deleteNote(UUID noteId) {
-        notes.removeIf(n -> n.getId().equals(noteId));
-        syncToClient();
+        if (!remove(noteId)) return;
+        setChanged();
+        MailboxDeltaPacket.sendDeleted(this, List.of(noteId));
     }
 
     /**
      * Delete all read notes.
      */
     public void deleteAllRead() {
-        notes.removeIf(MailNote::isRead);
-        syncToClient();
+        List<UUID> deleted = new ArrayList<>();
+        for (MailNote note : getNotes()) {
+            if (note.isRead()) deleted.add(note.getId());
+        }
+        if (deleted.isEmpty()) return;
+        for (UUID id : deleted) remove(id);
+        setChanged();
+        MailboxDeltaPacket.sendDeleted(this, deleted);
     }
 
-    // ==================== Sync ====================
+    // ==================== Ring ====================
 
-    public void syncToClient() {
-        setChanged();
-        if (level != null && !level.isClientSide()) {
-            level.sendBlockUpdated(worldPosition, getBlockState(), getBlockState(), 3);
+    /** Append a note, evicting the oldest when full. False if a note with that id is already here. */
+    private boolean insert(MailNote note) {
+        if (slotById.containsKey(note.getId())) return false;
+        if (used == MAX_NOTES) {
+            if (slotById.size() < MAX_NOTES) {
+                compact();
+            } else {
+                remove(ring[head].getId());
+            }
+        }
+        // Drop empty slots at the front so the oldest note always sits at head
+        while (used > 0 && ring[head] == null) {
+            head = (head + 1) % MAX_NOTES;
+            used--;
         }
+        int slot = (head + used) % MAX_NOTES;
+        ring[slot] = note;
+        used++;
+        slotById.put(note.getId(), slot);
+        if (!note.isRead()) unreadCount++;
+        view = null;
+        return true;
+    }
+
+    private boolean setRead(UUID noteId) {
+        Integer slot = slotById.get(noteId);
+        if (slot == null || ring[slot].isRead()) return false;
+        ring[slot].markRead();
+        unreadCount--;
+        return true;
+    }
+
+    private boolean remove(UUID noteId) {
+        Integer slot = slotById.remove(noteId);
+        if (slot == null) return false;
+        if (!ring[slot].isRead()) unreadCount--;
+        ring[slot] = null;
+        view = null;
+        return true;
+    }
+
+    /** Close the gaps left by deleted notes, keeping their order. */
+    private void compact() {
+        MailNote[] live = getNotes().toArray(new MailNote[0]);
+        Arrays.fill(ring, null);
+        slotById.clear();
+        head = 0;
+        used = live.length;
+        for (int i = 0; i < live.length; i++) {
+            ring[i] = live[i];
+            slotById.put(live[i].getId(), i);
+        }
+        view = null;
+    }
+
+    private void clear() {
+        Arrays.fill(ring, null);
+        slotById.clear();
+        head = 0;
+        used = 0;
+        unreadCount = 0;
+        view = null;
+    }
+
+    // ==================== Sync ====================
+
+    /** Client-side: apply a change sent by the server. */
+    public void applyAdded(MailNote note) {
+        insert(note);
+    }
+
+    /** Client-side: mark a note read (also used to show it read before the server confirms). */
+    public void applyRead(UUID noteId) {
+        setRead(noteId);
+    }
+
+    /** Client-side: drop deleted notes. */
+    public void applyDeleted(List<UUID> noteIds) {
+        for (UUID id : noteIds) remove(id);
     }
 
+    /** Full state still travels in the update tag when a client starts tracking the chunk. */
     @Override
     public CompoundTag getUpdateTag() {
         CompoundTag tag = super.getUpdateTag();
@@ -118,7 +222,7 @@ public class MailboxBlockEntity extends BlockEntity implements MenuProvider {
     protected void saveAdditional(CompoundTag tag) {
         super.saveAdditional(tag);
         ListTag noteList = new ListTag();
-        for (MailNote note : notes) {
+        for (MailNote note : getNotes()) {
             noteList.add(note.save());
         }
         tag.put("Notes", noteList);
@@ -127,11 +231,11 @@ public class MailboxBlockEntity extends BlockEntity implements MenuProvider {
     @Override
     public void load(CompoundTag tag) {
         super.load(tag);
-        notes.clear();
+        clear();
         if (tag.contains("Notes", Tag.TAG_LIST)) {
             ListTag noteList = tag.getList("Notes", Tag.TAG_COMPOUND);
             for (int i = 0; i < noteList.size(); i++) {
-                notes.add(MailNote.load(noteList.getCompound(i)));
+                insert(MailNote.load(noteList.getCompound(i)));
             }
         }
     }
@@ -5,6 +5,8 @@ import com.offtomarket.mod.data.TownData;
 import com.offtomarket.mod.data.TownRegistry;
 import com.offtomarket.mod.debug.DebugConfig;
 import com.offtomarket.mod.menu.MarketBoardMenu;
+import com.offtomarket.mod.network.ListingStockPacket;
+import com.offtomarket.mod.network.MarketSyncPacket;
 import com.offtomarket.mod.registry.ModBlockEntities;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -14,6 +16,8 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
@@ -35,14 +39,96 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
     public static final int REFRESH_COOLDOWN_TICKS = 6000;
 
     private final List<MarketListing> listings = new ArrayList<>();
+    /** One shared read-only view, so callers can compare it by identity across frames. */
+    private final List<MarketListing> listingsView = Collections.unmodifiableList(listings);
     private int refreshTimer = 0;
 
+    /** Bumped whenever the listings are replaced, so client views know to rebuild. */
+    private int listingsRevision = 0;
+
+    /** Position of each listing in {@link #listings} by id. */
+    private final Map<UUID, Integer> indexById = new HashMap<>();
+
+    /**
+     * Board version, set by the server and bumped on every change to the
+     * listings (refresh or sale). Each sync carries it, so clients apply stock
+     * updates in order and buyers can quote the board they bought from.
+     */
+    private int version = 0;
+
     public MarketBoardBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.MARKET_BOARD.get(), pos, state);
     }
 
+    /** Read-only view; purchases change stock through {@link #takeStock(Map)}. */
     public List<MarketListing> getListings() {
-        return listings;
+        return listingsView;
+    }
+
+    /** Changes whenever the listing contents are replaced (sync, load or refresh). */
+    public int getListingsRevision() {
+        return listingsRevision;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /** The listing with this id, or null once it has sold out or the board was refreshed. */
+    @Nullable
+    public MarketListing getListing(UUID id) {
+        Integer index = indexById.get(id);
+        return index != null ? listings.get(index) : null;
+    }
+
+    /**
+     * Compare-and-set stock decrement over several listings at once: takes
+     * each quantity only if every listing is still on the board with at least
+     * that much stock, otherwise changes nothing and returns false. Sold-out
+     * listings are removed. Tracking clients get the new stock counts in one
+     * {@link ListingStockPacket} rather than the whole list.
+     */
+    public boolean takeStock(Map<UUID, Integer> quantities) {
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            MarketListing listing = getListing(entry.getKey());
+            if (listing == null || entry.getValue() <= 0 || listing.getCount() < entry.getValue()) return false;
+        }
+
+        List<ListingStockPacket.Stock> changes = new ArrayList<>(quantities.size());
+        boolean removed = false;
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            int index = indexById.get(entry.getKey());
+            MarketListing listing = listings.get(index);
+            int left = listing.getCount() - entry.getValue();
+            // Sold-out listings are nulled here and dropped below, so indices stay valid meanwhile
+            listings.set(index, left > 0 ? listing.withCount(left) : null);
+            removed |= left == 0;
+            changes.add(new ListingStockPacket.Stock(entry.getKey(), left));
+        }
+        if (removed) {
+            listings.removeIf(Objects::isNull);
+            reindex();
+        }
+
+        version++;
+        listingsRevision++;
+        setChanged();
+        if (level instanceof ServerLevel serverLevel) {
+            ListingStockPacket.sendToTracking(serverLevel, worldPosition, version, changes);
+        }
+        return true;
+    }
+
+    /** {@link #takeStock(Map)} for a single listing. */
+    public boolean takeStock(UUID id, int quantity) {
+        return takeStock(Map.of(id, quantity));
+    }
+
+    private void reindex() {
+        indexById.clear();
+        for (int i = 0; i < listings.size(); i++) {
+            indexById.put(listings.get(i).getId(), i);
+        }
     }
 
     /** Returns remaining cooldown ticks before refresh is allowed. */
@@ -66,6 +152,9 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
             listings.addAll(MarketListing.generateListings(town, gameTime, rand));
         }
         refreshTimer = REFRESH_COOLDOWN_TICKS;
+        reindex();
+        version++;
+        listingsRevision++;
         syncToClient();
     }
 
@@ -76,7 +165,7 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
                 be.refreshListings(); // auto-refresh when cooldown completes; also resets timer
             } else if (be.refreshTimer % 20 == 0) {
                 // Sync timer to client once per second so the countdown displays live
-                be.syncToClient();
+                be.syncTimerToClient();
             }
         } else if (be.listings.isEmpty()) {
             // First-time placement or world load with no listings: generate immediately
@@ -86,17 +175,57 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
 
     // ==================== Client Sync ====================
 
+    /**
+     * Sends the refresh timer via the block update and the listings via
+     * {@link MarketSyncPacket}. Call after any change to the listings.
+     */
     public void syncToClient() {
+        syncTimerToClient();
+        if (level instanceof ServerLevel serverLevel) {
+            MarketSyncPacket.sendToTracking(serverLevel, worldPosition, version, listings, List.of());
+        }
+    }
+
+    /** Sends only the block update tag (refresh timer), leaving listings untouched. */
+    public void syncTimerToClient() {
         setChanged();
         if (level != null && !level.isClientSide()) {
             level.sendBlockUpdated(worldPosition, getBlockState(), getBlockState(), 3);
         }
     }
 
+    /** Client-side: replace listings with the contents of a {@link MarketSyncPacket}. */
+    public void applyMarketSync(List<MarketListing> synced, int syncedVersion) {
+        listings.clear();
+        listings.addAll(synced);
+        reindex();
+        version = syncedVersion;
+        listingsRevision++;
+    }
+
+    /**
+     * Client-side: apply the stock counts from a {@link ListingStockPacket}.
+     * Updates older than the last full sync are ignored.
+     */
+    public void applyStockUpdate(int newVersion, List<ListingStockPacket.Stock> changes) {
+        if (newVersion <= version) return;
+        for (ListingStockPacket.Stock change : changes) {
+            Integer index = indexById.get(change.listingId());
+            if (index == null) continue;
+            MarketListing listing = listings.get(index);
+            listings.set(index, change.count() > 0 ? listing.withCount(change.count()) : null);
+        }
+        listings.removeIf(Objects::isNull);
+        reindex();
+        version = newVersion;
+        listingsRevision++;
+    }
+
+    /** Listings travel in {@link MarketSyncPacket}, so the update tag only carries the timer. */
     @Override
     public CompoundTag getUpdateTag() {
         CompoundTag tag = super.getUpdateTag();
-        saveAdditional(tag);
+        tag.putInt("RefreshTimer", refreshTimer);
         return tag;
     }
 
@@ -115,6 +244,9 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
     @Nullable
     @Override
     public AbstractContainerMenu createMenu(int containerId, Inventory inv, Player player) {
+        if (player instanceof ServerPlayer serverPlayer) {
+            MarketSyncPacket.sendTo(serverPlayer, worldPosition, version, listings, List.of());
+        }
         return new MarketBoardMenu(containerId, inv, this);
     }
 
@@ -124,6 +256,7 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
     protected void saveAdditional(CompoundTag tag) {
         super.saveAdditional(tag);
         tag.putInt("RefreshTimer", refreshTimer);
+        tag.putInt("Version", version);
 
         ListTag listingsList = new ListTag();
         for (MarketListing ml : listings) {
@@ -137,10 +270,15 @@ public class MarketBoardBlockEntity extends BlockEntity implements MenuProvider
         super.load(tag);
         refreshTimer = tag.getInt("RefreshTimer");
 
+        // Client update tags omit listings (see getUpdateTag); keep what the sync packet delivered
+        if (!tag.contains("Listings")) return;
         listings.clear();
         ListTag listingsList = tag.getList("Listings", Tag.TAG_COMPOUND);
         for (int i = 0; i < listingsList.size(); i++) {
             listings.add(MarketListing.load(listingsList.getCompound(i)));
         }
+        reindex();
+        version = tag.getInt("Version");
+        listingsRevision++;
     }
 }
@@ -1,8 +1,11 @@
 package com.offtomarket.mod.block.entity;
 
+import com.offtomarket.mod.data.EarningsRanking;
 import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.debug.TickProfiler;
 import com.offtomarket.mod.menu.TradingLedgerMenu;
 import com.offtomarket.mod.registry.ModBlockEntities;
+import com.offtomarket.mod.util.Wallet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.NonNullList;
@@ -160,14 +163,18 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
     /** Max entries kept in the history list. */
     private static final int MAX_HISTORY_ENTRIES = 20;
     private final List<LedgerShipmentRecord> shipmentHistory = new ArrayList<>();
+    /** Revenue per town over the records in {@link #shipmentHistory}, kept ranked for the Income tab. */
+    private final EarningsRanking incomeByTown = new EarningsRanking();
 
     /**
      * Record a shipment event. Call from TradingPostBlockEntity before clearing the bin.
      */
     public void recordShipment(long gameTime, String townDisplayName, int totalItems, int totalValue) {
         shipmentHistory.add(0, new LedgerShipmentRecord(gameTime, townDisplayName, totalItems, totalValue));
-        if (shipmentHistory.size() > MAX_HISTORY_ENTRIES) {
-            shipmentHistory.subList(MAX_HISTORY_ENTRIES, shipmentHistory.size()).clear();
+        incomeByTown.add(townDisplayName, totalValue, 1, totalItems);
+        while (shipmentHistory.size() > MAX_HISTORY_ENTRIES) {
+            LedgerShipmentRecord dropped = shipmentHistory.remove(shipmentHistory.size() - 1);
+            incomeByTown.subtract(dropped.townDisplayName, dropped.totalValue, 1, dropped.totalItems);
         }
         setChanged();
         syncToClient();
@@ -177,7 +184,18 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
         return java.util.Collections.unmodifiableList(shipmentHistory);
     }
 
+    public EarningsRanking getIncomeByTown() {
+        return incomeByTown;
+    }
+
     private int craftingTaxPercent = 15;   // extra % for crafted items
+
+    /**
+     * Bumped whenever prices or settings may have changed (every sync, and every
+     * load — which on the client means every server update). Screens use it to
+     * invalidate memoized prices.
+     */
+    private int settingsRevision = 0;
     private int minMarkupPercent = 0;      // minimum markup % over fair value
     private AutoPriceMode autoPriceMode = AutoPriceMode.AUTO_FAIR;
 
@@ -252,6 +270,8 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
 
     // ==================== Settings Accessors ====================
 
+    public int getSettingsRevision() { return settingsRevision; }
+
     public int getCraftingTaxPercent() { return craftingTaxPercent; }
     public void setCraftingTaxPercent(int percent) {
         this.craftingTaxPercent = Math.max(0, Math.min(100, percent));
@@ -324,10 +344,9 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
 
     public boolean upgradeCaravanWeight(Player player) {
         int cost = getNextCaravanUpgradeCost();
-        if (!TradingPostBlockEntity.hasEnoughCoins(player, cost)) {
+        if (!Wallet.of(player).pay(cost)) {
             return false;
         }
-        TradingPostBlockEntity.deductCoins(player, cost);
         caravanWeightUpgradeLevel++;
         syncToClient();
         return true;
@@ -906,6 +925,7 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
     // ==================== Client Sync ====================
 
     public void syncToClient() {
+        settingsRevision++;
         setChanged();
         if (level != null && !level.isClientSide()) {
             level.sendBlockUpdated(worldPosition, getBlockState(), getBlockState(), 3);
@@ -914,8 +934,11 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
 
     @Override
     public CompoundTag getUpdateTag() {
+        // The block update packet is built here, so this is where a ledger sync costs time
+        long start = TickProfiler.start();
         CompoundTag tag = super.getUpdateTag();
         saveAdditional(tag);
+        TickProfiler.stop(TickProfiler.LEDGER_SYNC, start);
         return tag;
     }
 
@@ -1017,6 +1040,7 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
     @Override
     public void load(CompoundTag tag) {
         super.load(tag);
+        settingsRevision++;
         items = NonNullList.withSize(BIN_SIZE, ItemStack.EMPTY);
         ContainerHelper.loadAllItems(tag, items);
 
@@ -1089,6 +1113,12 @@ public class TradingLedgerBlockEntity extends BlockEntity implements Container,
                 shipmentHistory.add(LedgerShipmentRecord.load(histList.getCompound(i)));
             }
         }
+        // History is capped at MAX_HISTORY_ENTRIES, so rebuilding here is cheap and
+        // spares the Income tab from aggregating and sorting every frame
+        incomeByTown.clear();
+        for (LedgerShipmentRecord rec : shipmentHistory) {
+            incomeByTown.add(rec.townDisplayName, rec.totalValue, 1, rec.totalItems);
+        }
 
     }
 }
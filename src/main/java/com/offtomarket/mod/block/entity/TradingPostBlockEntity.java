@@ -2,14 +2,19 @@ package com.offtomarket.mod.block.entity;
 
 import com.offtomarket.mod.block.MailboxBlock;
 import com.offtomarket.mod.data.*;
+import com.offtomarket.mod.debug.ActionRecorder;
 import com.offtomarket.mod.debug.DebugConfig;
-import com.offtomarket.mod.item.CoinItem;
+import com.offtomarket.mod.debug.DebugHooks;
+import com.offtomarket.mod.debug.TickProfiler;
 import com.offtomarket.mod.item.CoinType;
 import com.offtomarket.mod.menu.TradingPostMenu;
+import com.offtomarket.mod.network.MarketSyncPacket;
 import com.offtomarket.mod.registry.ModBlockEntities;
 import com.offtomarket.mod.registry.ModItems;
+import com.offtomarket.mod.sim.ActionLog;
 import com.offtomarket.mod.util.SoundHelper;
 import com.offtomarket.mod.util.ToastHelper;
+import com.offtomarket.mod.util.Wallet;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -30,6 +35,7 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 
 import javax.annotation.Nullable;
 import java.util.*;
@@ -69,7 +75,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     // Market listings
     private final List<MarketListing> marketListings = new ArrayList<>();
 
-    // Completed shipment history (newest first, capped)
+    // Recent completed shipments (newest first, capped); the full history is in the TradeJournal
     private final List<CompoundTag> shipmentHistory = new ArrayList<>();
     private static final int MAX_HISTORY = 50;
 
@@ -77,7 +83,18 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     private long lifetimeEarnings = 0;       // total coins ever earned (copper pieces)
     private int totalShipmentsSent = 0;      // total shipments completed
     private final Map<String, Long> earningsByTown = new HashMap<>();    // townId → total earnings
-    private final Map<String, Long> earningsByItem = new HashMap<>();    // item display name → total earnings
+    private final Map<String, Long> earningsByItem = new HashMap<>();    // item registry id → total earnings
+    private final Map<String, Integer> shipmentsByTown = new HashMap<>(); // townId → shipments completed
+    // Ranked views of the maps above, kept in order as shipments are archived.
+    // Clients only receive the top rows (see getUpdateTag).
+    private final EarningsRanking townRanking = new EarningsRanking();
+    private final EarningsRanking itemRanking = new EarningsRanking();
+    private static final int MAX_RANKED_ROWS = 50;
+    // Earnings per day, rolled up to weeks and months (bounded; keyed by town id / item id)
+    private final EarningsTimeSeries townSeries = new EarningsTimeSeries();
+    private final EarningsTimeSeries itemSeries = new EarningsTimeSeries();
+    // Client copy of the per-period totals (see getUpdateTag)
+    private CompoundTag earningsTrend = new CompoundTag();
 
     // Dynamic demand tracking
     private final DemandTracker demandTracker = new DemandTracker();
@@ -105,6 +122,8 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
 
     // Prevents recursive propagation when syncing linked posts
     private boolean isSyncing = false;
+    /** Shared-state sections changed since the last push to TradingData (HOT is always pushed). */
+    private final EnumSet<TradingData.Section> dirtySections = EnumSet.noneOf(TradingData.Section.class);
 
     public TradingPostBlockEntity(BlockPos pos, BlockState state) {
         super(ModBlockEntities.TRADING_POST.get(), pos, state);
@@ -115,6 +134,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     public int getTraderLevel() { return traderLevel; }
     public int getTraderXp() { return traderXp; }
     public String getSelectedTownId() { return selectedTownId; }
+    public int getSaleCheckTimer() { return saleCheckTimer; }
     public int getMinDistance() { return minDistance; }
     public int getMaxDistance() { return maxDistance; }
     public List<Shipment> getActiveShipments() { return activeShipments; }
@@ -127,6 +147,21 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     public int getTotalShipmentsSent() { return totalShipmentsSent; }
     public Map<String, Long> getEarningsByTown() { return Collections.unmodifiableMap(earningsByTown); }
     public Map<String, Long> getEarningsByItem() { return Collections.unmodifiableMap(earningsByItem); }
+    public EarningsRanking getTownRanking() { return townRanking; }
+    public EarningsRanking getItemRanking() { return itemRanking; }
+    public EarningsTimeSeries getTownSeries() { return townSeries; }
+    public EarningsTimeSeries getItemSeries() { return itemSeries; }
+
+    /**
+     * Total earnings per period at the given resolution, oldest first, ending
+     * with the current period. Clients read the totals sent in the update tag.
+     */
+    public long[] getEarningsTrend(EarningsTimeSeries.Resolution res) {
+        if (level != null && !level.isClientSide) {
+            return townSeries.totals(res, EarningsTimeSeries.dayOf(level.getGameTime()), res.getRetention());
+        }
+        return earningsTrend.getLongArray(res.getTagName());
+    }
     public List<BuyOrder> getActiveBuyOrders() { return activeBuyOrders; }
     public List<Quest> getActiveQuests() { return activeQuests; }
     public long getLastQuestRefreshDay() { return lastQuestRefreshDay; }
@@ -163,6 +198,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     public void addReputation(String townId, int amount) {
         int current = townReputation.getOrDefault(townId, 0);
         townReputation.put(townId, Math.max(-1000, Math.min(1000, current + amount)));
+        dirtySections.add(TradingData.Section.STATS);
         syncToClient();
     }
     
@@ -219,16 +255,60 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     }
 
     public int getXpForNextLevel() {
+        return getXpForNextLevel(traderLevel);
+    }
+
+    /** Trader XP needed to advance from the given level. */
+    public static int getXpForNextLevel(int traderLevel) {
         return DebugConfig.getBaseXpToLevel() * traderLevel;
     }
 
     // ==================== Linked Post Sync ====================
 
+    /** Encode one section of the shared (global) trader state for TradingData. */
+    private CompoundTag saveSharedSection(TradingData.Section section) {
+        return switch (section) {
+            case HOT -> saveHotState();
+            case HISTORY -> saveHistoryState();
+            case STATS -> saveStatsState();
+        };
+    }
+
     /**
-     * Save all shared (global) trader state to a CompoundTag.
-     * This is pushed to TradingData so all posts stay in sync.
+     * Load sections pulled from TradingData. History is applied before stats,
+     * since old worlds derive per-town shipment counts from the history.
      */
-    public CompoundTag saveSharedState() {
+    private void loadSharedSections(Map<TradingData.Section, CompoundTag> sections) {
+        CompoundTag hot = sections.get(TradingData.Section.HOT);
+        if (hot != null) loadHotState(hot);
+        CompoundTag history = sections.get(TradingData.Section.HISTORY);
+        if (history != null) loadHistoryState(history);
+        CompoundTag stats = sections.get(TradingData.Section.STATS);
+        if (stats != null) loadStatsState(stats);
+    }
+
+    /** Encode the sections this post has to push: always HOT, plus any marked dirty. */
+    private Map<TradingData.Section, CompoundTag> saveChangedSections() {
+        Map<TradingData.Section, CompoundTag> changed = new EnumMap<>(TradingData.Section.class);
+        changed.put(TradingData.Section.HOT, saveHotState());
+        for (TradingData.Section section : dirtySections) {
+            changed.put(section, saveSharedSection(section));
+        }
+        dirtySections.clear();
+        return changed;
+    }
+
+    private Map<TradingData.Section, CompoundTag> saveAllSections() {
+        Map<TradingData.Section, CompoundTag> all = new EnumMap<>(TradingData.Section.class);
+        for (TradingData.Section section : TradingData.Section.values()) {
+            all.put(section, saveSharedSection(section));
+        }
+        dirtySections.clear();
+        return all;
+    }
+
+    /** Trader progress and everything in flight. Changes on almost every sync. */
+    private CompoundTag saveHotState() {
         CompoundTag tag = new CompoundTag();
         tag.putInt("TraderLevel", traderLevel);
         tag.putInt("TraderXp", traderXp);
@@ -244,10 +324,6 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         for (MarketListing ml : marketListings) listingsList.add(ml.save());
         tag.put("Listings", listingsList);
 
-        ListTag historyList = new ListTag();
-        for (CompoundTag h : shipmentHistory) historyList.add(h.copy());
-        tag.put("History", historyList);
-
         tag.put("Demand", demandTracker.save());
 
         ListTag buyOrderList = new ListTag();
@@ -266,7 +342,21 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         ListTag diplomatList = new ListTag();
         for (DiplomatRequest dr : activeDiplomatRequests) diplomatList.add(dr.save());
         tag.put("Diplomats", diplomatList);
+        return tag;
+    }
 
+    /** Recent shipment records. Records are never modified once archived, so they are shared, not copied. */
+    private CompoundTag saveHistoryState() {
+        CompoundTag tag = new CompoundTag();
+        ListTag historyList = new ListTag();
+        historyList.addAll(shipmentHistory);
+        tag.put("History", historyList);
+        return tag;
+    }
+
+    /** Lifetime totals, earnings maps and reputation. */
+    private CompoundTag saveStatsState() {
+        CompoundTag tag = new CompoundTag();
         tag.putLong("LifetimeEarnings", lifetimeEarnings);
         tag.putInt("TotalShipments", totalShipmentsSent);
         CompoundTag townEarningsTag = new CompoundTag();
@@ -279,21 +369,23 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             itemEarningsTag.putLong(e.getKey(), e.getValue());
         }
         tag.put("EarningsByItem", itemEarningsTag);
+        CompoundTag townShipmentsTag = new CompoundTag();
+        for (Map.Entry<String, Integer> e : shipmentsByTown.entrySet()) {
+            townShipmentsTag.putInt(e.getKey(), e.getValue());
+        }
+        tag.put("ShipmentsByTown", townShipmentsTag);
+        tag.put("TownSeries", townSeries.save());
+        tag.put("ItemSeries", itemSeries.save());
 
         CompoundTag repTag = new CompoundTag();
         for (Map.Entry<String, Integer> e : townReputation.entrySet()) {
             repTag.putInt(e.getKey(), e.getValue());
         }
         tag.put("TownReputation", repTag);
-
         return tag;
     }
 
-    /**
-     * Load shared (global) trader state from a CompoundTag.
-     * Called when pulling state from TradingData into this block entity.
-     */
-    public void loadSharedState(CompoundTag tag) {
+    private void loadHotState(CompoundTag tag) {
         traderLevel = tag.getInt("TraderLevel");
         if (traderLevel < 1) traderLevel = 1;
         traderXp = tag.getInt("TraderXp");
@@ -313,14 +405,6 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             marketListings.add(MarketListing.load(listingsList.getCompound(i)));
         }
 
-        shipmentHistory.clear();
-        if (tag.contains("History")) {
-            ListTag historyList = tag.getList("History", Tag.TAG_COMPOUND);
-            for (int i = 0; i < historyList.size(); i++) {
-                shipmentHistory.add(historyList.getCompound(i));
-            }
-        }
-
         if (tag.contains("Demand")) {
             demandTracker.load(tag.getCompound("Demand"));
         }
@@ -359,7 +443,19 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 activeDiplomatRequests.add(DiplomatRequest.load(diplomatList.getCompound(i)));
             }
         }
+    }
 
+    private void loadHistoryState(CompoundTag tag) {
+        shipmentHistory.clear();
+        if (tag.contains("History")) {
+            ListTag historyList = tag.getList("History", Tag.TAG_COMPOUND);
+            for (int i = 0; i < historyList.size(); i++) {
+                shipmentHistory.add(historyList.getCompound(i));
+            }
+        }
+    }
+
+    private void loadStatsState(CompoundTag tag) {
         lifetimeEarnings = tag.getLong("LifetimeEarnings");
         totalShipmentsSent = tag.getInt("TotalShipments");
         earningsByTown.clear();
@@ -376,6 +472,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 earningsByItem.put(key, itemEarnings.getLong(key));
             }
         }
+        loadShipmentsByTown(tag);
+        rebuildRankings();
+        townSeries.load(tag.getCompound("TownSeries"));
+        itemSeries.load(tag.getCompound("ItemSeries"));
 
         townReputation.clear();
         if (tag.contains("TownReputation")) {
@@ -400,10 +500,15 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             data.register(worldPosition);
             if (data.isEmpty()) {
                 // First post to load — push our state as the canonical shared state (migration)
-                data.setSharedState(saveSharedState());
+                data.putSections(saveAllSections());
             } else {
                 // Pull shared state from TradingData to sync with other posts
-                loadSharedState(data.getSharedState());
+                loadSharedSections(data.getSections());
+                dirtySections.clear();
+                if (data.isLegacy()) {
+                    // Re-store the old combined tag as separate sections
+                    data.putSections(saveAllSections());
+                }
             }
         }
     }
@@ -417,23 +522,24 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         if (level != null && !level.isClientSide() && level instanceof ServerLevel serverLevel) {
             TradingData data = TradingData.get(serverLevel);
             // Push our current state so it persists even after this post is gone
-            data.setSharedState(saveSharedState());
+            data.putSections(saveChangedSections());
             data.unregister(worldPosition);
         }
         super.setRemoved();
     }
 
     /**
-     * Push shared state to TradingData and sync all other loaded Trading Posts.
+     * Push changed shared state to TradingData and sync all other loaded Trading Posts.
      * Called after any shared state mutation to keep all posts consistent.
+     * Only the HOT section and sections marked dirty are encoded and loaded.
      */
     private void propagateToOtherPosts() {
         if (level == null || level.isClientSide()) return;
         if (!(level instanceof ServerLevel serverLevel)) return;
 
         TradingData data = TradingData.get(serverLevel);
-        CompoundTag sharedTag = saveSharedState();
-        data.setSharedState(sharedTag);
+        Map<TradingData.Section, CompoundTag> changed = saveChangedSections();
+        data.putSections(changed);
 
         isSyncing = true;
         try {
@@ -441,9 +547,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 if (pos.equals(worldPosition)) continue;
                 BlockEntity be = level.getBlockEntity(pos);
                 if (be instanceof TradingPostBlockEntity other) {
-                    other.loadSharedState(sharedTag);
+                    other.loadSharedSections(changed);
                     other.setChanged();
                     level.sendBlockUpdated(pos, other.getBlockState(), other.getBlockState(), 3);
+                    other.sendMarketSync();
                 }
             }
         } finally {
@@ -506,6 +613,14 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 gameTime, arrivalTime
         );
         activeShipments.add(shipment);
+        if (ActionRecorder.isRecording()) {
+            List<ActionLog.Stack> logged = new ArrayList<>(shipmentItems.size());
+            for (Shipment.ShipmentItem si : shipmentItems) {
+                logged.add(new ActionLog.Stack(si.getItemId().toString(), si.getCount(), si.getPricePerItem()));
+            }
+            ActionRecorder.record(new ActionLog.ShipmentSent(gameTime, shipment.getId(), town.getId(),
+                    arrivalTime, logged));
+        }
 
         // Record supply for demand tracking
         for (Shipment.ShipmentItem si : shipmentItems) {
@@ -557,6 +672,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     int returnTicks = town.getTravelTimeTicks(DebugConfig.getTicksPerDistance());
                     shipment.setReturnArrivalTime(gameTime + returnTicks);
                     shipment.setStatus(Shipment.Status.RETURNING);
+                    if (ActionRecorder.isRecording()) {
+                        ActionRecorder.record(new ActionLog.ShipmentReturned(gameTime, shipmentId,
+                                shipment.getReturnArrivalTime()));
+                    }
                     syncToClient();
                     return true;
                 }
@@ -640,10 +759,8 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     public boolean buyFromMarket(Player player, MarketListing listing) {
         int totalCost = listing.getTotalPrice();
         FinanceTableBlockEntity ft = findNearbyFinanceTable(level, worldPosition);
-        if (!hasEnoughCoins(player, totalCost, ft)) return false;
-
-        // Deduct coins (draws from Finance Table if player inventory runs short)
-        deductCoins(player, totalCost, ft);
+        // Pay (draws from Finance Table if player inventory runs short)
+        if (!Wallet.of(player, ft).pay(totalCost)) return false;
 
         // Give item to player
         net.minecraft.world.item.Item item = net.minecraftforge.registries.ForgeRegistries.ITEMS.getValue(listing.getItemId());
@@ -671,18 +788,11 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     }
 
     // ==================== Coin Utilities ====================
+    // Thin wrappers over Wallet; callers that check and then pay should take one
+    // Wallet and call pay() instead, which reads the inventory once.
 
     public static boolean hasEnoughCoins(Player player, int copperAmount) {
-        int total = 0;
-        for (int i = 0; i < player.getInventory().getContainerSize(); i++) {
-            ItemStack stack = player.getInventory().getItem(i);
-            if (stack.getItem() instanceof CoinItem coin) {
-                total += coin.getValue() * stack.getCount();
-            }
-        }
-        // Include coin bag contents
-        total += getCoinBagValue(player);
-        return total >= copperAmount;
+        return Wallet.of(player).canAfford(copperAmount);
     }
 
     /**
@@ -690,11 +800,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
      */
     public static int getCoinBagValue(Player player) {
         ItemStack bagStack = findCoinBag(player);
-        if (bagStack.isEmpty()) return 0;
-        CompoundTag tag = bagStack.getTag();
-        if (tag == null || !tag.contains("CoinBag")) return 0;
-        CompoundTag bagTag = tag.getCompound("CoinBag");
-        return bagTag.getInt("Gold") * 100 + bagTag.getInt("Silver") * 10 + bagTag.getInt("Copper");
+        return bagStack.isEmpty() ? 0 : Wallet.readBag(bagStack);
     }
 
     /**
@@ -710,81 +816,9 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         return ItemStack.EMPTY;
     }
 
+    /** Take copper from the player's coins, then their coin bag. Does nothing if they cannot cover it. */
     public static void deductCoins(Player player, int copperAmount) {
-        int remaining = copperAmount;
-
-        // Deduct from inventory coins first (copper, then silver, then gold)
-        for (CoinType type : new CoinType[]{CoinType.COPPER, CoinType.SILVER, CoinType.GOLD}) {
-            for (int i = 0; i < player.getInventory().getContainerSize() && remaining > 0; i++) {
-                ItemStack stack = player.getInventory().getItem(i);
-                if (stack.getItem() instanceof CoinItem coin && coin.getCoinType() == type) {
-                    int coinValue = coin.getValue();
-                    int coinsNeeded = remaining / coinValue;
-                    int toRemove = Math.min(coinsNeeded, stack.getCount());
-
-                    if (toRemove > 0) {
-                        stack.shrink(toRemove);
-                        remaining -= toRemove * coinValue;
-                    }
-
-                    // If we still need coins and this stack can cover remaining with change
-                    if (remaining > 0 && !stack.isEmpty() && coinValue > remaining) {
-                        stack.shrink(1);
-                        int change = coinValue - remaining;
-                        remaining = 0;
-                        giveChange(player, change);
-                    }
-                }
-            }
-        }
-
-        // If still remaining, deduct from coin bag
-        if (remaining > 0) {
-            deductFromCoinBag(player, remaining);
-        }
-    }
-
-    /**
-     * Deduct a copper amount from the player's coin bag.
-     * Converts denominations as needed.
-     */
-    private static void deductFromCoinBag(Player player, int copperAmount) {
-        ItemStack bagStack = findCoinBag(player);
-        if (bagStack.isEmpty()) return;
-        CompoundTag tag = bagStack.getOrCreateTag();
-        CompoundTag bagTag = tag.contains("CoinBag") ? tag.getCompound("CoinBag") : new CompoundTag();
-
-        int gold = bagTag.getInt("Gold");
-        int silver = bagTag.getInt("Silver");
-        int copper = bagTag.getInt("Copper");
-
-        // Convert everything to copper for simplicity, deduct, repack
-        int totalCopper = gold * 100 + silver * 10 + copper;
-        totalCopper -= copperAmount;
-        if (totalCopper < 0) totalCopper = 0;
-
-        int newGold = totalCopper / 100;
-        int newSilver = (totalCopper % 100) / 10;
-        int newCopper = totalCopper % 10;
-
-        CompoundTag newBagTag = new CompoundTag();
-        if (newGold > 0) newBagTag.putInt("Gold", newGold);
-        if (newSilver > 0) newBagTag.putInt("Silver", newSilver);
-        if (newCopper > 0) newBagTag.putInt("Copper", newCopper);
-        tag.put("CoinBag", newBagTag);
-    }
-
-    private static void giveChange(Player player, int copperAmount) {
-        if (copperAmount <= 0) return;
-
-        int gp = copperAmount / CoinType.GOLD.getValue();
-        copperAmount %= CoinType.GOLD.getValue();
-        int sp = copperAmount / CoinType.SILVER.getValue();
-        copperAmount %= CoinType.SILVER.getValue();
-
-        if (gp > 0) player.getInventory().add(new ItemStack(ModItems.GOLD_COIN.get(), gp));
-        if (sp > 0) player.getInventory().add(new ItemStack(ModItems.SILVER_COIN.get(), sp));
-        if (copperAmount > 0) player.getInventory().add(new ItemStack(ModItems.COPPER_COIN.get(), copperAmount));
+        Wallet.of(player).pay(copperAmount);
     }
 
     /**
@@ -793,44 +827,18 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
      */
     public static boolean hasEnoughCoins(Player player, int copperAmount,
             @Nullable FinanceTableBlockEntity financeTable) {
-        int total = 0;
-        for (int i = 0; i < player.getInventory().getContainerSize(); i++) {
-            ItemStack stack = player.getInventory().getItem(i);
-            if (stack.getItem() instanceof CoinItem coin) {
-                total += coin.getValue() * stack.getCount();
-            }
-        }
-        total += getCoinBagValue(player);
-        if (financeTable != null) total += financeTable.getBalance();
-        return total >= copperAmount;
+        return Wallet.of(player, financeTable).canAfford(copperAmount);
     }
 
     /**
      * Deduct copper from the player, drawing from a connected Finance Table if the
      * player's own coins are insufficient. Pass null for financeTable to deduct from
-     * player only (same as the single-arg overload).
+     * player only (same as the single-arg overload). Does nothing if the total
+     * cannot cover it.
      */
     public static void deductCoins(Player player, int copperAmount,
             @Nullable FinanceTableBlockEntity financeTable) {
-        if (financeTable == null) {
-            deductCoins(player, copperAmount);
-            return;
-        }
-        // Determine how much the player can cover from inventory + coin bag
-        int playerTotal = 0;
-        for (int i = 0; i < player.getInventory().getContainerSize(); i++) {
-            ItemStack stack = player.getInventory().getItem(i);
-            if (stack.getItem() instanceof CoinItem coin) {
-                playerTotal += coin.getValue() * stack.getCount();
-            }
-        }
-        playerTotal += getCoinBagValue(player);
-
-        int fromPlayer = Math.min(playerTotal, copperAmount);
-        int fromBank   = copperAmount - fromPlayer;
-
-        if (fromPlayer > 0) deductCoins(player, fromPlayer);
-        if (fromBank   > 0) financeTable.setBalance(Math.max(0, financeTable.getBalance() - fromBank));
+        Wallet.of(player, financeTable).pay(copperAmount);
     }
 
     /**
@@ -857,9 +865,84 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
      */
     public void addBuyOrder(BuyOrder order) {
         activeBuyOrders.add(order);
+        if (ActionRecorder.isRecording()) {
+            ActionRecorder.record(new ActionLog.Purchase(order.getOrderTime(), order.getTownId(),
+                    order.getItemId().toString(), order.getCount(), order.getTotalPaid(), order.getArrivalTime()));
+        }
         syncToClient();
     }
 
+    // ==================== Cart Checkout ====================
+
+    /** One cart line: a listing by id and how many to buy. */
+    public record CartLine(UUID listingId, int quantity) {}
+
+    public record CheckoutResult(Outcome outcome, int orderCount, int totalCost) {
+        public enum Outcome { OK, EMPTY, STALE, NOT_ENOUGH_COINS }
+
+        static CheckoutResult of(Outcome outcome) {
+            return new CheckoutResult(outcome, 0, 0);
+        }
+    }
+
+    /**
+     * Buy a whole Market Board cart as one transaction. Lines name listings by
+     * their stable id, and the stock is taken with one compare-and-set
+     * ({@link MarketBoardBlockEntity#takeStock(Map)}): if any listing is gone or
+     * no longer has the stock asked for, the whole cart is rejected as STALE and
+     * nothing is charged. Other players' purchases of the same listings do not
+     * get in the way as long as enough stock is left. Otherwise the cart is paid
+     * for in one payment, all buy orders are added together, and this post syncs
+     * once; the board sends its watchers only the changed stock counts.
+     */
+    public CheckoutResult checkoutCart(Player player, MarketBoardBlockEntity board, List<CartLine> lines) {
+        // Merge lines for the same listing so its stock is only checked once
+        Map<UUID, Integer> wanted = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            if (line.quantity() > 0) wanted.merge(line.listingId(), line.quantity(), Integer::sum);
+        }
+        if (wanted.isEmpty()) return CheckoutResult.of(CheckoutResult.Outcome.EMPTY);
+
+        List<MarketListing> bought = new ArrayList<>(wanted.size());
+        int totalCost = 0;
+        for (Map.Entry<UUID, Integer> entry : wanted.entrySet()) {
+            MarketListing listing = board.getListing(entry.getKey());
+            if (listing == null || listing.getCount() < entry.getValue()) {
+                return CheckoutResult.of(CheckoutResult.Outcome.STALE);
+            }
+            bought.add(listing);
+            totalCost += listing.getPricePerItem() * entry.getValue();
+        }
+
+        // Plan the payment before taking stock, and pay only once the stock is ours
+        Wallet wallet = Wallet.of(player, findNearbyFinanceTable(level, worldPosition));
+        if (!wallet.canAfford(totalCost)) return CheckoutResult.of(CheckoutResult.Outcome.NOT_ENOUGH_COINS);
+        if (!board.takeStock(wanted)) return CheckoutResult.of(CheckoutResult.Outcome.STALE);
+        wallet.pay(totalCost);
+
+        long gameTime = level != null ? level.getGameTime() : 0;
+        boolean recording = ActionRecorder.isRecording();
+        for (MarketListing listing : bought) {
+            int qty = wanted.get(listing.getId());
+            TownData town = TownRegistry.getTown(listing.getTownId());
+            int travelTicks = town != null
+                    ? town.getTravelTimeTicks(DebugConfig.getTicksPerDistance())
+                    : 200;
+
+            BuyOrder order = new BuyOrder(UUID.randomUUID(), listing.getTownId(), listing.getItemId(),
+                    listing.getItemDisplayName(), qty, listing.getPricePerItem() * qty,
+                    gameTime, gameTime + travelTicks, listing.getItemNbt());
+            activeBuyOrders.add(order);
+            if (recording) {
+                ActionRecorder.record(new ActionLog.Purchase(gameTime, order.getTownId(),
+                        order.getItemId().toString(), qty, order.getTotalPaid(), order.getArrivalTime()));
+            }
+        }
+
+        syncToClient();
+        return new CheckoutResult(CheckoutResult.Outcome.OK, bought.size(), totalCost);
+    }
+
     /**
      * Collect an arrived buy order, giving the items to the player.
      */
@@ -924,6 +1007,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     Shipment.ShipmentItem item = items.get(itemIndex);
                     if (!item.isSold()) { // Can only adjust unsold items
                         item.setPricePerItem(newPrice);
+                        if (ActionRecorder.isRecording() && level != null) {
+                            ActionRecorder.record(new ActionLog.PriceAdjusted(level.getGameTime(), shipmentId,
+                                    itemIndex, newPrice));
+                        }
                         syncToClient();
                     }
                 }
@@ -945,6 +1032,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     long currentTime = level != null ? level.getGameTime() : 0;
                     shipment.setReturnArrivalTime(currentTime + travelTime);
                     shipment.setStatus(Shipment.Status.RETURNING);
+                    if (ActionRecorder.isRecording()) {
+                        ActionRecorder.record(new ActionLog.ShipmentReturned(currentTime, shipmentId,
+                                shipment.getReturnArrivalTime()));
+                    }
                     syncToClient();
                 }
                 break;
@@ -1084,6 +1175,12 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                                         formatTravelTime(travelTicks) + "...")
                                         .withStyle(ChatFormatting.YELLOW));
                     }
+                    if (ActionRecorder.isRecording()) {
+                        ActionRecorder.record(new ActionLog.QuestDelivered(level != null ? level.getGameTime() : 0,
+                                quest.getTownId(), quest.getRequiredItemId().toString(), delivered, completed,
+                                quest.getRewardCoins(), quest.getRewardXp(), quest.getRewardReputation(),
+                                quest.getRewardArrivalTime()));
+                    }
                     syncToClient();
                 }
                 return delivered;
@@ -1115,13 +1212,13 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         int maxTotal = 5;
         if (activeQuests.size() >= maxTotal) return;
 
-        List<TownData> towns = new java.util.ArrayList<>(TownRegistry.getAvailableTowns(traderLevel));
+        List<TownData> towns = new java.util.ArrayList<>(
+                TownRegistry.getTownsInRange(minDistance, maxDistance, traderLevel));
         java.util.Random rand = new java.util.Random();
         java.util.Collections.shuffle(towns, rand);
 
         for (TownData town : towns) {
             if (activeQuests.size() >= maxTotal) break;
-            if (town.getDistance() < minDistance || town.getDistance() > maxDistance) continue;
 
             // Check if we already have a quest from this town
             boolean hasTownQuest = activeQuests.stream()
@@ -1144,10 +1241,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
 
         int cost = worker.getHireCost();
         FinanceTableBlockEntity ft = findNearbyFinanceTable(level, worldPosition);
-        if (!hasEnoughCoins(player, cost, ft)) return false;
+        if (!Wallet.of(player, ft).pay(cost)) return false;
 
-        deductCoins(player, cost, ft);
         worker.setHired(true);
+        recordWorker(worker);
         syncToClient();
         return true;
     }
@@ -1161,13 +1258,22 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
 
         int refund = worker.getFireRefund();
         if (refund > 0) {
-            giveChange(player, refund);
+            Wallet.giveCoins(player, refund);
         }
         worker.setHired(false);
+        recordWorker(worker);
         syncToClient();
         return true;
     }
 
+    /** Log a worker's hired state and level to the action recorder, if it is on. */
+    public void recordWorker(Worker worker) {
+        if (ActionRecorder.isRecording() && level != null) {
+            ActionRecorder.record(new ActionLog.WorkerChanged(level.getGameTime(), worker.getType(),
+                    worker.isHired(), worker.getLevel()));
+        }
+    }
+
     /**
      * Get the negotiation bonus (multiplier) if negotiator is hired.
      */
@@ -1204,7 +1310,15 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
      * Bookkeeper reduces the per-trip cost of all workers (including itself if perk unlocked).
      */
     public int applyWorkerCosts(int earnings) {
-        double costReduction = getBookkeeperCostReduction();
+        return applyWorkerCosts(earnings, negotiator, tradingCart, bookkeeper);
+    }
+
+    /**
+     * Per-trip worker costs for the given crew (shared with the economy simulator).
+     * Hired workers are credited with the trip.
+     */
+    public static int applyWorkerCosts(int earnings, Worker negotiator, Worker tradingCart, Worker bookkeeper) {
+        double costReduction = bookkeeper.isHired() ? bookkeeper.getCostReductionBonus() : 0.0;
         int totalCosts = 0;
         int costsBeforeReduction = 0;
 
@@ -1352,6 +1466,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         request.setPricing(proposedPrice, premiumAmount);
 
         activeDiplomatRequests.add(request);
+        if (ActionRecorder.isRecording()) {
+            ActionRecorder.record(new ActionLog.DiplomatSent(gameTime, townId, itemId.toString(), count,
+                    proposedPrice));
+        }
         syncToClient();
         return true;
     }
@@ -1365,7 +1483,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             if (req.getId().equals(requestId) && req.getStatus() == DiplomatRequest.Status.DISCUSSING) {
                 int cost = req.getProposedPrice();
                 FinanceTableBlockEntity ft = findNearbyFinanceTable(level, worldPosition);
-                if (!hasEnoughCoins(player, cost, ft)) {
+                if (!Wallet.of(player, ft).pay(cost)) {
                     // Not enough coins - decline automatically
                     req.setStatus(DiplomatRequest.Status.DECLINED);
                     TownData costTown = TownRegistry.getTown(req.getTownId());
@@ -1380,8 +1498,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     syncToClient();
                     return false;
                 }
-                
-                deductCoins(player, cost, ft);
+
                 req.setStatus(DiplomatRequest.Status.WAITING_FOR_GOODS);
                 syncToClient();
                 return true;
@@ -1470,6 +1587,63 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         }
     }
 
+    // ==================== Admin ====================
+
+    /** Add coins to the uncollected balance (/otm grant coins). */
+    public void adminGrantCoins(int amount) {
+        if (amount <= 0) return;
+        pendingCoins += amount;
+        syncToClient();
+    }
+
+    /** Set the trader level directly, resetting XP (/otm setlevel). */
+    public void adminSetTraderLevel(int newLevel) {
+        traderLevel = Math.max(1, newLevel);
+        traderXp = 0;
+        syncToClient();
+    }
+
+    /**
+     * Move every in-transit shipment to market now (/otm deliver).
+     * Returns the number of shipments moved.
+     */
+    public int adminDeliverAll(long gameTime) {
+        int count = 0;
+        for (Shipment s : activeShipments) {
+            if (s.getStatus() == Shipment.Status.IN_TRANSIT) {
+                s.setStatus(Shipment.Status.AT_MARKET);
+                s.setMarketListedTime(gameTime);
+                count++;
+            }
+        }
+        if (count > 0) syncToClient();
+        return count;
+    }
+
+    /**
+     * Sell every unsold item of every shipment at market now (/otm sell).
+     * Returns the number of shipments sold.
+     */
+    public int adminSellAll(long gameTime) {
+        int count = 0;
+        for (Shipment s : activeShipments) {
+            if (s.getStatus() != Shipment.Status.AT_MARKET) continue;
+            int earnings = 0;
+            for (Shipment.ShipmentItem item : s.getItems()) {
+                if (!item.isSold()) {
+                    item.setSold(true);
+                    earnings += item.getTotalPrice();
+                }
+            }
+            s.setTotalEarnings(s.getTotalEarnings() + earnings);
+            s.setSoldTime(gameTime);
+            s.setStatus(Shipment.Status.SOLD);
+            count++;
+        }
+        if (count > 0) syncToClient();
+        return count;
+    }
+
     // ==================== Server Tick ====================
 
     public static void serverTick(Level level, BlockPos pos, BlockState state,
@@ -1492,12 +1666,13 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         // Check for sales periodically (outside the shipment loop)
         boolean checkSales = false;
         be.saleCheckTimer++;
-        DebugConfig.WATCH_SALE_TIMER = be.saleCheckTimer;
+        if (DebugConfig.DEBUG_ENABLED) DebugHooks.watchPost(be);
         if (be.saleCheckTimer >= DebugConfig.getSaleCheckInterval()) {
             be.saleCheckTimer = 0;
             checkSales = true;
         }
 
+        long phase = TickProfiler.start();
         for (Shipment shipment : be.activeShipments) {
             switch (shipment.getStatus()) {
                 case IN_TRANSIT:
@@ -1520,7 +1695,9 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     if (checkSales) {
                         TownData town = TownRegistry.getTown(shipment.getTownId());
                         if (town != null) {
+                            long sales = TickProfiler.start();
                             be.processMarketSales(shipment, town, gameTime);
+                            TickProfiler.stop(TickProfiler.POST_SALES, sales);
                         }
                     }
                     break;
@@ -1580,11 +1757,14 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     break;
             }
         }
+        TickProfiler.stop(TickProfiler.POST_SHIPMENTS, phase);
 
         // Tick demand decay
+        phase = TickProfiler.start();
         if (be.demandTracker.tick()) {
             changed = true;
         }
+        TickProfiler.stop(TickProfiler.POST_DEMAND, phase);
 
         // Dawn-based market refresh (once per Minecraft day at sunrise).
         // Use getDayTime() (not getGameTime()) so that sleeping — which advances
@@ -1592,6 +1772,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         // triggers the daily refresh correctly.
         long dayTime = level.getDayTime() % 24000;
         long dayNumber = level.getDayTime() / 24000;
+        phase = TickProfiler.start();
         if (be.lastRefreshDay < 0 || be.marketListings.isEmpty()) {
             // First time or empty: do initial refresh
             be.lastRefreshDay = dayNumber;
@@ -1606,8 +1787,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                             .withStyle(ChatFormatting.GOLD));
             changed = true;
         }
+        TickProfiler.stop(TickProfiler.POST_REFRESH, phase);
 
         // Process buy orders (IN_TRANSIT → ARRIVED)
+        phase = TickProfiler.start();
         for (BuyOrder order : be.activeBuyOrders) {
             if (order.getStatus() == BuyOrder.Status.IN_TRANSIT
                     && gameTime >= order.getArrivalTime()) {
@@ -1621,7 +1804,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             }
         }
 
+        TickProfiler.stop(TickProfiler.POST_BUY_ORDERS, phase);
+
         // Process diplomat requests through stages
+        phase = TickProfiler.start();
         List<DiplomatRequest> failedRequests = new ArrayList<>();
         for (DiplomatRequest req : be.activeDiplomatRequests) {
             switch (req.getStatus()) {
@@ -1688,8 +1874,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             }
         }
         be.activeDiplomatRequests.removeAll(failedRequests);
+        TickProfiler.stop(TickProfiler.POST_DIPLOMATS, phase);
 
         // Quest reward arrival check — DELIVERING quests whose rewards have arrived
+        phase = TickProfiler.start();
         for (Quest quest : be.activeQuests) {
             if (quest.getStatus() == Quest.Status.DELIVERING
                     && quest.getRewardArrivalTime() > 0
@@ -1751,17 +1939,35 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             be.refreshQuests(gameTime);
             changed = true;
         }
+        TickProfiler.stop(TickProfiler.POST_QUESTS, phase);
 
         if (changed) {
+            phase = TickProfiler.start();
             be.syncToClient();
+            TickProfiler.stop(TickProfiler.POST_SYNC, phase);
         }
     }
 
     private void processMarketSales(Shipment shipment, TownData town, long gameTime) {
-        Random rand = new Random();
-        boolean allSold = true;
-        int earnings = 0;
+        resolveMarketSales(shipment, town, demandTracker, gameTime, new Random());
+        if (shipment.getStatus() == Shipment.Status.RETURNING) {
+            notifyNearbyPlayers(level, worldPosition, Component.literal(
+                    "\u00A7e[Market] \u00A77Shipment to " + shipment.getTownId()
+                    + " auto-returning after " + (DebugConfig.getMaxMarketTime() / 20 / 60) + " minutes"));
+            syncToClient();
+        } else if (shipment.getStatus() == Shipment.Status.SOLD) {
+            syncToClient();
+        }
+    }
 
+    /**
+     * One sale-check pass for a shipment at market. Rolls each unsold item,
+     * then marks the shipment SOLD once everything has sold, or starts its
+     * return once it has sat at market for the maximum time. Touches no level,
+     * so the economy simulator runs the same rules.
+     */
+    public static void resolveMarketSales(Shipment shipment, TownData town, DemandTracker demand,
+                                          long gameTime, Random rand) {
         long timeAtMarket = shipment.getTimeAtMarket(gameTime);
         int maxMarketTime = DebugConfig.getMaxMarketTime();
         double timeRatio = Math.min(1.0, (double) timeAtMarket / maxMarketTime);
@@ -1781,22 +1987,43 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             if (anyUnsold) {
                 // Initiate return — unsold items travel back, sold items' earnings are preserved
                 long travelTime = shipment.getArrivalTime() - shipment.getDepartureTime();
-                long currentTime = level != null ? level.getGameTime() : 0;
-                shipment.setReturnArrivalTime(currentTime + travelTime);
+                shipment.setReturnArrivalTime(gameTime + travelTime);
                 shipment.setStatus(Shipment.Status.RETURNING);
-                notifyNearbyPlayers(level, worldPosition, Component.literal(
-                        "\u00A7e[Market] \u00A77Shipment to " + shipment.getTownId()
-                        + " auto-returning after " + (maxMarketTime / 20 / 60) + " minutes"));
-                syncToClient();
             } else {
                 // All items were already sold naturally
                 shipment.setSoldTime(gameTime);
                 shipment.setStatus(Shipment.Status.SOLD);
-                syncToClient();
             }
             return;
         }
 
+        int earnings = rollItemSales(shipment, town, demand, escalation, rand);
+        boolean allSold = true;
+        for (Shipment.ShipmentItem item : shipment.getItems()) {
+            if (!item.isSold()) {
+                allSold = false;
+                break;
+            }
+        }
+
+        if (earnings > 0) {
+            shipment.setTotalEarnings(shipment.getTotalEarnings() + earnings);
+        }
+
+        if (allSold) {
+            shipment.setSoldTime(gameTime);
+            shipment.setStatus(Shipment.Status.SOLD);
+        }
+    }
+
+    /**
+     * Roll one sale check for each unsold item of a shipment at market, marking
+     * the ones that sell. Returns the copper they earned. Package-private so the
+     * JMH benchmarks can drive it without a level.
+     */
+    static int rollItemSales(Shipment shipment, TownData town, DemandTracker demand,
+                             double escalation, Random rand) {
+        int earnings = 0;
         for (Shipment.ShipmentItem item : shipment.getItems()) {
             if (item.isSold()) continue;
 
@@ -1812,11 +2039,10 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
 
             if (saleSpeed <= 0.0) {
                 // Price exceeds max ceiling - this item will not sell
-                allSold = false;
                 continue;
             }
 
-            double demandMult = demandTracker.getDemandMultiplier(
+            double demandMult = demand.getDemandMultiplier(
                     shipment.getTownId(), item.getItemId().toString());
 
             double saleChance = DebugConfig.getBaseSaleChance() * saleSpeed * escalation * demandMult;
@@ -1827,31 +2053,17 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 earnings += item.getTotalPrice();
                 // Record the sale in global supply/demand tracking
                 SupplyDemandManager.recordSale(town, item.getItemId().toString(), item.getCount());
-            } else {
-                allSold = false;
             }
         }
 
-        if (earnings > 0) {
-            shipment.setTotalEarnings(shipment.getTotalEarnings() + earnings);
-        }
-
-        if (allSold) {
-            shipment.setSoldTime(gameTime);
-            shipment.setStatus(Shipment.Status.SOLD);
-            syncToClient();
-        }
+        return earnings;
     }
 
     private void refreshMarketListings(long gameTime) {
         marketListings.clear();
         Random rand = new Random();
-        List<TownData> availableTowns = TownRegistry.getAvailableTowns(traderLevel);
-
-        for (TownData town : availableTowns) {
-            if (town.getDistance() >= minDistance && town.getDistance() <= maxDistance) {
-                marketListings.addAll(MarketListing.generateListings(town, gameTime, rand));
-            }
+        for (TownData town : TownRegistry.getTownsInRange(minDistance, maxDistance, traderLevel)) {
+            marketListings.addAll(MarketListing.generateListings(town, gameTime, rand));
         }
     }
 
@@ -1868,6 +2080,7 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
      * Deliver a mail note to all Mailbox block entities within a 32-block radius.
      */
     private static void deliverNoteToNearbyMailboxes(Level level, BlockPos pos, MailNote note) {
+        long start = TickProfiler.start();
         int radius = 32;
         for (int x = -radius; x <= radius; x++) {
             for (int y = -radius; y <= radius; y++) {
@@ -1876,12 +2089,14 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                     if (level.getBlockState(check).getBlock() instanceof MailboxBlock) {
                         BlockEntity be = level.getBlockEntity(check);
                         if (be instanceof MailboxBlockEntity mailbox) {
-                            mailbox.addNote(note);
+                            // Each mailbox keeps its own copy, so reading it in one leaves the others unread
+                            mailbox.addNote(note.copy());
                         }
                     }
                 }
             }
         }
+        TickProfiler.stop(TickProfiler.MAILBOX_DELIVERY, start);
     }
 
     private static String formatCoins(int copperPieces) {
@@ -1917,16 +2132,52 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         setChanged();
         if (level != null && !level.isClientSide()) {
             level.sendBlockUpdated(worldPosition, getBlockState(), getBlockState(), 3);
+            sendMarketSync();
             if (!isSyncing) {
                 propagateToOtherPosts();
             }
         }
     }
 
+    /**
+     * Send listings and shipments to tracking players via {@link MarketSyncPacket}.
+     * These lists are kept out of the update tag to avoid re-sending them as NBT.
+     */
+    private void sendMarketSync() {
+        if (level instanceof ServerLevel serverLevel) {
+            MarketSyncPacket.sendToTracking(serverLevel, worldPosition, marketListings, activeShipments);
+        }
+    }
+
+    /** Client-side: replace listings and shipments with the contents of a {@link MarketSyncPacket}. */
+    public void applyMarketSync(List<MarketListing> listings, List<Shipment> shipments) {
+        marketListings.clear();
+        marketListings.addAll(listings);
+        activeShipments.clear();
+        activeShipments.addAll(shipments);
+    }
+
     @Override
     public CompoundTag getUpdateTag() {
         CompoundTag tag = super.getUpdateTag();
         saveAdditional(tag);
+        // Sent separately in the compact MarketSyncPacket format
+        tag.remove("Listings");
+        tag.remove("Shipments");
+        // No screen reads the post's recent window; Past Orders pages the TradeJournal
+        tag.remove("History");
+        // Clients only render the top rows, so ship those instead of the full maps
+        tag.remove("EarningsByTown");
+        tag.remove("EarningsByItem");
+        tag.remove("ShipmentsByTown");
+        tag.put("TownRanking", townRanking.saveTop(MAX_RANKED_ROWS));
+        tag.put("ItemRanking", itemRanking.saveTop(MAX_RANKED_ROWS));
+        // Trend displays only need per-period totals, not every key
+        tag.remove("TownSeries");
+        tag.remove("ItemSeries");
+        if (level != null) {
+            tag.put("EarningsTrend", townSeries.saveTrend(EarningsTimeSeries.dayOf(level.getGameTime())));
+        }
         return tag;
     }
 
@@ -1945,6 +2196,9 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     @Nullable
     @Override
     public AbstractContainerMenu createMenu(int containerId, Inventory inv, Player player) {
+        if (player instanceof ServerPlayer serverPlayer) {
+            MarketSyncPacket.sendTo(serverPlayer, worldPosition, marketListings, activeShipments);
+        }
         return new TradingPostMenu(containerId, inv, this);
     }
 
@@ -2025,6 +2279,13 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             itemEarnings.putLong(entry.getKey(), entry.getValue());
         }
         tag.put("EarningsByItem", itemEarnings);
+        CompoundTag townShipments = new CompoundTag();
+        for (Map.Entry<String, Integer> entry : shipmentsByTown.entrySet()) {
+            townShipments.putInt(entry.getKey(), entry.getValue());
+        }
+        tag.put("ShipmentsByTown", townShipments);
+        tag.put("TownSeries", townSeries.save());
+        tag.put("ItemSeries", itemSeries.save());
         
         // Town reputation
         CompoundTag repTag = new CompoundTag();
@@ -2053,16 +2314,21 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             ledgerSlot = ItemStack.of(tag.getCompound("Ledger"));
         }
 
-        activeShipments.clear();
-        ListTag shipmentList = tag.getList("Shipments", Tag.TAG_COMPOUND);
-        for (int i = 0; i < shipmentList.size(); i++) {
-            activeShipments.add(Shipment.load(shipmentList.getCompound(i)));
+        // Client update tags omit shipments/listings (see getUpdateTag); keep the synced copies
+        if (tag.contains("Shipments")) {
+            activeShipments.clear();
+            ListTag shipmentList = tag.getList("Shipments", Tag.TAG_COMPOUND);
+            for (int i = 0; i < shipmentList.size(); i++) {
+                activeShipments.add(Shipment.load(shipmentList.getCompound(i)));
+            }
         }
 
-        marketListings.clear();
-        ListTag listingsList = tag.getList("Listings", Tag.TAG_COMPOUND);
-        for (int i = 0; i < listingsList.size(); i++) {
-            marketListings.add(MarketListing.load(listingsList.getCompound(i)));
+        if (tag.contains("Listings")) {
+            marketListings.clear();
+            ListTag listingsList = tag.getList("Listings", Tag.TAG_COMPOUND);
+            for (int i = 0; i < listingsList.size(); i++) {
+                marketListings.add(MarketListing.load(listingsList.getCompound(i)));
+            }
         }
 
         shipmentHistory.clear();
@@ -2132,6 +2398,17 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
                 earningsByItem.put(key, itemEarnings.getLong(key));
             }
         }
+        loadShipmentsByTown(tag);
+        if (tag.contains("TownRanking")) {
+            // Client update tag: take the server's precomputed top rows as-is
+            townRanking.loadTop(tag.getCompound("TownRanking"));
+            itemRanking.loadTop(tag.getCompound("ItemRanking"));
+        } else {
+            rebuildRankings();
+        }
+        townSeries.load(tag.getCompound("TownSeries"));
+        itemSeries.load(tag.getCompound("ItemSeries"));
+        earningsTrend = tag.getCompound("EarningsTrend");
         
         // Town reputation
         townReputation.clear();
@@ -2146,10 +2423,13 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
     // ==================== Shipment History ====================
 
     /**
-     * Archive a completed shipment into the history ledger.
-     * Stores the most recent 50 shipments (newest first).
+     * Archive a completed shipment: append it to the world's
+     * {@link TradeJournal} and keep the most recent {@value #MAX_HISTORY}
+     * here (newest first).
      */
     private void archiveShipment(Shipment shipment) {
+        dirtySections.add(TradingData.Section.HISTORY);
+        dirtySections.add(TradingData.Section.STATS);
         CompoundTag record = new CompoundTag();
         TownData town = TownRegistry.getTown(shipment.getTownId());
         String townName = town != null ? town.getDisplayName() : shipment.getTownId();
@@ -2162,6 +2442,9 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         lifetimeEarnings += earnings;
         totalShipmentsSent++;
         earningsByTown.merge(shipment.getTownId(), (long) earnings, Long::sum);
+        shipmentsByTown.merge(shipment.getTownId(), 1, Integer::sum);
+        long day = level != null ? EarningsTimeSeries.dayOf(level.getGameTime()) : 0;
+        townSeries.record(day, shipment.getTownId(), earnings);
 
         boolean anySold = false, anyUnsold = false;
         ListTag items = new ListTag();
@@ -2174,14 +2457,18 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
             items.add(itemTag);
             if (si.isSold()) {
                 anySold = true;
-                // Track per-item earnings
+                // Track per-item earnings (keyed by registry id; names are localized)
                 int itemEarnings = si.getPricePerItem() * si.getCount();
-                earningsByItem.merge(si.getDisplayName(), (long) itemEarnings, Long::sum);
+                String itemKey = si.getItemId().toString();
+                earningsByItem.merge(itemKey, (long) itemEarnings, Long::sum);
+                itemRanking.add(itemKey, itemEarnings, 0, si.getCount());
+                itemSeries.record(day, itemKey, itemEarnings);
             } else {
                 anyUnsold = true;
             }
         }
         record.put("Items", items);
+        townRanking.add(shipment.getTownId(), earnings, 1, 0);
 
         String outcome;
         if (anySold && !anyUnsold) outcome = "SOLD";
@@ -2189,9 +2476,61 @@ public class TradingPostBlockEntity extends BlockEntity implements MenuProvider
         else outcome = "PARTIAL";
         record.putString("Outcome", outcome);
 
+        if (level != null && level.getServer() != null) {
+            int itemCount = 0;
+            for (Shipment.ShipmentItem si : shipment.getItems()) itemCount += si.getCount();
+            TradeJournal.get(level.getServer()).append(new TradeJournal.Entry(level.getGameTime(),
+                    shipment.getTownId(), townName, itemCount, earnings, TradeJournal.Outcome.valueOf(outcome)));
+        }
+
         shipmentHistory.add(0, record); // newest first
         while (shipmentHistory.size() > MAX_HISTORY) {
             shipmentHistory.remove(shipmentHistory.size() - 1);
         }
     }
+
+    /**
+     * Load per-town shipment counts. Worlds saved before these were tracked
+     * fall back to counting the town's entries in the (capped) history.
+     */
+    private void loadShipmentsByTown(CompoundTag tag) {
+        shipmentsByTown.clear();
+        if (tag.contains("ShipmentsByTown")) {
+            CompoundTag townShipments = tag.getCompound("ShipmentsByTown");
+            for (String key : townShipments.getAllKeys()) {
+                shipmentsByTown.put(key, townShipments.getInt(key));
+            }
+            return;
+        }
+        for (String townId : earningsByTown.keySet()) {
+            TownData town = TownRegistry.getTown(townId);
+            String displayName = town != null ? town.getDisplayName() : townId;
+            int count = 0;
+            for (CompoundTag record : shipmentHistory) {
+                if (displayName.equals(record.getString("Town"))) count++;
+            }
+            shipmentsByTown.put(townId, Math.max(1, count));
+        }
+    }
+
+    /**
+     * Rebuild both rankings from the earnings maps (after loading).
+     * Entries are added highest first so no row has to move.
+     */
+    private void rebuildRankings() {
+        townRanking.clear();
+        for (Map.Entry<String, Long> e : sortedByValue(earningsByTown)) {
+            townRanking.add(e.getKey(), e.getValue(), shipmentsByTown.getOrDefault(e.getKey(), 0), 0);
+        }
+        itemRanking.clear();
+        for (Map.Entry<String, Long> e : sortedByValue(earningsByItem)) {
+            itemRanking.add(e.getKey(), e.getValue(), 0, 0);
+        }
+    }
+
+    private static List<Map.Entry<String, Long>> sortedByValue(Map<String, Long> map) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(map.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return entries;
+    }
 }
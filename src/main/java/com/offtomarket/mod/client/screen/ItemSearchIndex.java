@@ -0,0 +1,170 @@
+package com.offtomarket.mod.client.screen;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lowercase trigram index over every registered item (client-side).
+ *
+ * The diplomat request search used to walk the whole item registry and build an
+ * ItemStack per item on every keystroke. This index resolves each item's display
+ * name once per language, then answers queries from trigram posting lists so only
+ * a handful of candidates need a real {@code contains} check.
+ *
+ * Query syntax:
+ * <ul>
+ *   <li>{@code iron} — matches display names or registry ids containing "iron"</li>
+ *   <li>{@code @create} — every item from a mod whose id starts with "create"</li>
+ *   <li>{@code @create gear} — both of the above combined</li>
+ * </ul>
+ */
+public final class ItemSearchIndex {
+
+    /** Result cap used by the diplomat request search. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    private static ItemSearchIndex instance;
+
+    private final String languageCode;
+    private final ResourceLocation[] ids;
+    private final String[] names;      // lowercase display names
+    private final String[] idStrings;  // lowercase "namespace:path"
+    private final String[] namespaces;
+    /** Trigram → ascending item indices whose name or id contains it. */
+    private final Object2ObjectOpenHashMap<String, int[]> trigrams;
+
+    private ItemSearchIndex(String languageCode) {
+        this.languageCode = languageCode;
+
+        List<ResourceLocation> idList = new ArrayList<>();
+        List<String> nameList = new ArrayList<>();
+        for (Item item : ForgeRegistries.ITEMS) {
+            ResourceLocation rl = ForgeRegistries.ITEMS.getKey(item);
+            if (rl == null) continue;
+            idList.add(rl);
+            nameList.add(new ItemStack(item).getHoverName().getString().toLowerCase(Locale.ROOT));
+        }
+
+        int n = idList.size();
+        ids = idList.toArray(new ResourceLocation[0]);
+        names = nameList.toArray(new String[0]);
+        idStrings = new String[n];
+        namespaces = new String[n];
+
+        Object2ObjectOpenHashMap<String, IntArrayList> building = new Object2ObjectOpenHashMap<>();
+        for (int i = 0; i < n; i++) {
+            idStrings[i] = ids[i].toString().toLowerCase(Locale.ROOT);
+            namespaces[i] = ids[i].getNamespace();
+            addTrigrams(building, names[i], i);
+            addTrigrams(building, idStrings[i], i);
+        }
+
+        trigrams = new Object2ObjectOpenHashMap<>(building.size());
+        building.forEach((gram, list) -> trigrams.put(gram, list.toIntArray()));
+    }
+
+    private static void addTrigrams(Object2ObjectOpenHashMap<String, IntArrayList> map, String text, int index) {
+        for (int j = 0; j + 3 <= text.length(); j++) {
+            IntArrayList list = map.computeIfAbsent(text.substring(j, j + 3), k -> new IntArrayList());
+            // Items are added in index order, so a duplicate can only be the last entry
+            if (list.isEmpty() || list.getInt(list.size() - 1) != index) {
+                list.add(index);
+            }
+        }
+    }
+
+    /**
+     * Get the index for the current client language, building it on first use
+     * or after the language changes.
+     */
+    public static ItemSearchIndex get() {
+        String lang = Minecraft.getInstance().getLanguageManager().getSelected().getCode();
+        if (instance == null || !instance.languageCode.equals(lang)) {
+            instance = new ItemSearchIndex(lang);
+        }
+        return instance;
+    }
+
+    /**
+     * Find items matching the query, best matches first: name prefix, then a
+     * word inside the name, then anywhere in the name, then registry id only.
+     * Ties keep registry order. An empty query returns nothing.
+     */
+    public List<ResourceLocation> search(String rawQuery, int limit) {
+        String query = rawQuery == null ? "" : rawQuery.toLowerCase(Locale.ROOT).trim();
+        String modFilter = null;
+        if (query.startsWith("@")) {
+            int space = query.indexOf(' ');
+            modFilter = space < 0 ? query.substring(1) : query.substring(1, space);
+            query = space < 0 ? "" : query.substring(space + 1).trim();
+        }
+        if (query.isEmpty() && (modFilter == null || modFilter.isEmpty())) return List.of();
+
+        // Rank buckets: 0 = name prefix, 1 = word start, 2 = name contains, 3 = id contains
+        IntArrayList[] buckets = new IntArrayList[4];
+        for (int b = 0; b < buckets.length; b++) buckets[b] = new IntArrayList();
+
+        int[] candidates = candidatesFor(query);
+        int count = candidates == null ? ids.length : candidates.length;
+        for (int c = 0; c < count; c++) {
+            int i = candidates == null ? c : candidates[c];
+            if (modFilter != null && !namespaces[i].startsWith(modFilter)) continue;
+            int rank = rank(i, query);
+            if (rank >= 0) buckets[rank].add(i);
+            // Prefix matches can't be displaced, so stop once they alone fill the page
+            if (buckets[0].size() >= limit) break;
+        }
+
+        List<ResourceLocation> results = new ArrayList<>(Math.min(limit, 32));
+        for (IntArrayList bucket : buckets) {
+            for (int b = 0; b < bucket.size() && results.size() < limit; b++) {
+                results.add(ids[bucket.getInt(b)]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Candidate item indices for the query, or null when the query is too short
+     * to use the trigram index and every item must be checked.
+     */
+    @Nullable
+    private int[] candidatesFor(String query) {
+        if (query.length() < 3) return null;
+        // The rarest trigram bounds the candidate set; contains() verifies the rest
+        int[] best = null;
+        for (int j = 0; j + 3 <= query.length(); j++) {
+            int[] postings = trigrams.get(query.substring(j, j + 3));
+            if (postings == null) return new int[0];
+            if (best == null || postings.length < best.length) best = postings;
+        }
+        return best;
+    }
+
+    private int rank(int i, String query) {
+        if (query.isEmpty()) return 2;
+        String name = names[i];
+        int at = name.indexOf(query);
+        if (at == 0) return 0;
+        if (at > 0) {
+            if (name.charAt(at - 1) == ' ') return 1;
+            // A later occurrence may still start a word ("stone" in "cobblestone stone slab")
+            return name.contains(" " + query) ? 1 : 2;
+        }
+        return idStrings[i].contains(query) ? 3 : -1;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+}
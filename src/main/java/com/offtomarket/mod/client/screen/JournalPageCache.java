@@ -0,0 +1,73 @@
+package com.offtomarket.mod.client.screen;
+
+import com.offtomarket.mod.data.TradeJournal;
+import com.offtomarket.mod.network.ModNetwork;
+import com.offtomarket.mod.network.RequestJournalPagePacket;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Client-side cache of trade journal pages for the Past Orders tab.
+ *
+ * Rows are addressed newest first. Missing pages are requested from the
+ * server once and filled in when the answer arrives; until then
+ * {@link #get} returns null and the screen shows a placeholder. Since a new
+ * shipment shifts every row down by one, any page from a different journal
+ * size is dropped.
+ */
+public final class JournalPageCache {
+
+    private static final Int2ObjectOpenHashMap<List<TradeJournal.Entry>> pages = new Int2ObjectOpenHashMap<>();
+    private static final IntOpenHashSet requested = new IntOpenHashSet();
+    /** Journal size the cached pages belong to, or -1 before the first answer. */
+    private static long total = -1;
+
+    private JournalPageCache() {}
+
+    /** Forget everything and fetch the newest page (screen opened). */
+    public static void reset() {
+        pages.clear();
+        requested.clear();
+        total = -1;
+        request(0);
+    }
+
+    /** Number of journal entries, or -1 while still unknown. */
+    public static long getTotal() {
+        return total;
+    }
+
+    /** Row {@code index} (0 = newest), or null while its page is loading. */
+    @Nullable
+    public static TradeJournal.Entry get(int index) {
+        if (index < 0 || (total >= 0 && index >= total)) return null;
+        int page = index / TradeJournal.PAGE_SIZE;
+        List<TradeJournal.Entry> entries = pages.get(page);
+        if (entries == null) {
+            request(page);
+            return null;
+        }
+        int row = index % TradeJournal.PAGE_SIZE;
+        return row < entries.size() ? entries.get(row) : null;
+    }
+
+    /** Store a page received from the server. */
+    public static void accept(TradeJournal.Page page) {
+        if (page.total() != total) {
+            pages.clear();
+            requested.clear();
+            total = page.total();
+        }
+        pages.put(page.page(), page.entries());
+        requested.remove(page.page());
+    }
+
+    private static void request(int page) {
+        if (requested.add(page)) {
+            ModNetwork.CHANNEL.sendToServer(new RequestJournalPagePacket(page));
+        }
+    }
+}
@@ -345,7 +345,7 @@ public class MailboxScreen extends AbstractContainerScreen<MailboxMenu> {
         // Update button states
         deleteBtn.active = selectedNoteId != null;
         MailboxBlockEntity be = menu.getBlockEntity();
-        deleteAllReadBtn.active = be != null && be.getNotes().stream().anyMatch(MailNote::isRead);
+        deleteAllReadBtn.active = be != null && be.getNotes().size() > be.getUnreadCount();
     }
 
     // ==================== Mouse Handling ====================
@@ -376,7 +376,7 @@ public class MailboxScreen extends AbstractContainerScreen<MailboxMenu> {
                     if (!note.isRead()) {
                         ModNetwork.CHANNEL.send(PacketDistributor.SERVER.noArg(),
                                 new MarkNoteReadPacket(be.getBlockPos(), note.getId()));
-                        note.markRead(); // Update client-side immediately
+                        be.applyRead(note.getId()); // Update client-side immediately
                     }
                     return true;
                 }
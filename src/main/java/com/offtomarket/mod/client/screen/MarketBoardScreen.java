@@ -6,6 +6,7 @@ import com.offtomarket.mod.OffToMarket;
 import com.offtomarket.mod.block.FinanceTableBlock;
 import com.offtomarket.mod.block.entity.FinanceTableBlockEntity;
 import com.offtomarket.mod.block.entity.MarketBoardBlockEntity;
+import com.offtomarket.mod.client.screen.MarketListingIndex.SortMode;
 import com.offtomarket.mod.data.MarketListing;
 import com.offtomarket.mod.data.NeedLevel;
 import com.offtomarket.mod.data.TownData;
@@ -16,6 +17,7 @@ import com.offtomarket.mod.menu.MarketBoardMenu;
 import com.offtomarket.mod.network.CartCheckoutPacket;
 import com.offtomarket.mod.network.ModNetwork;
 import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.components.EditBox;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.client.renderer.GameRenderer;
 import net.minecraft.network.chat.Component;
@@ -29,8 +31,11 @@ import net.minecraftforge.registries.ForgeRegistries;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
 import net.minecraft.core.BlockPos;
 
 public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu> {
@@ -41,32 +46,38 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
     private static final int VISIBLE_LISTINGS = 14;
 
     /** Persists cart entries across screen close/reopen (client-side, keyed by block position). */
-    private static final Map<BlockPos, List<int[]>> SAVED_CARTS = new HashMap<>();
+    private static final Map<BlockPos, Map<UUID, Integer>> SAVED_CARTS = new HashMap<>();
 
     /** Row index (0-based within visible rows) the mouse is currently hovering, or -1. */
     private int hoveredRow = -1;
 
     /** Sort state */
-    private enum SortMode { NONE, NAME, TOWN, QTY, PRICE }
     private SortMode sortMode = SortMode.NONE;
     private boolean sortAscending = true;
 
+    /** Cached sorted/filtered row order, rebuilt only when listings, sort or filters change. */
+    private final MarketListingIndex listingView = new MarketListingIndex();
+    private EditBox searchBox;
+
+    /** Hover tooltip lines, keyed on listing index, listing, coin balance and listings revision. */
+    private final ScreenMemo<List<Component>> tooltipMemo = new ScreenMemo<>();
+
     private final Inventory playerInv;
 
     // ==================== Cart System ====================
 
     /** Entry in the shopping cart. */
     private static class CartEntry {
-        final int listingIndex;   // index into MarketBoardBlockEntity.getListings()
+        final UUID listingId;
         int quantity;
         final String itemName;
         final String townId;
         final int pricePerItem;
-        final int maxCount;
+        int maxCount; // listing stock, lowered as stock updates arrive
 
-        CartEntry(int listingIndex, int quantity, String itemName, String townId,
+        CartEntry(UUID listingId, int quantity, String itemName, String townId,
                   int pricePerItem, int maxCount) {
-            this.listingIndex = listingIndex;
+            this.listingId = listingId;
             this.quantity = quantity;
             this.itemName = itemName;
             this.townId = townId;
@@ -82,9 +93,12 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
     private int cartScrollOffset = 0;
     private static final int VISIBLE_CART_ROWS = 13;
     private int hoveredCartRow = -1;
+    /** Listings revision the cart was last checked against (see {@link #syncCartWithStock}). */
+    private int cartStockRevision = Integer.MIN_VALUE;
 
     // Quantity selection overlay
-    private int selectedListingIndex = -1;  // -1 = no overlay shown
+    @Nullable
+    private UUID selectedListingId = null;  // null = no overlay shown
     private int selectedQuantity = 1;
     private int selectedMaxQty = 1;
     private String selectedItemName = "";
@@ -151,6 +165,18 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         cartScrollDownBtn = addRenderableWidget(new Button(x + 366, y + 183, 14, 14,
                 Component.literal("v"), btn -> cartScrollOffset++));
 
+        // Listing search box (wood-themed background drawn in renderBg)
+        searchBox = new EditBox(this.font, x + 264, y + 203, 112, 10,
+                Component.literal("Search listings..."));
+        searchBox.setMaxLength(40);
+        searchBox.setBordered(false);
+        searchBox.setTextColor(0xFFEEDDCC);
+        searchBox.setResponder(text -> {
+            listingView.setTextFilter(text);
+            scrollOffset = 0;
+        });
+        addRenderableWidget(searchBox);
+
         // ==== Quantity overlay buttons ====
 
         int overlayX = x + OVL_X;
@@ -178,32 +204,30 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
 
         addToCartBtn = addRenderableWidget(new Button(overlayX + 12, overlayY + 72, 84, 18,
                 Component.literal("Add to Cart"), btn -> {
-            if (selectedListingIndex >= 0) {
-                addToCart(selectedListingIndex, selectedQuantity);
-                selectedListingIndex = -1;
+            if (selectedListingId != null) {
+                addToCart(selectedListingId, selectedQuantity);
+                selectedListingId = null;
                 updateButtonVisibility();
             }
         }));
 
         cancelQtyBtn = addRenderableWidget(new Button(overlayX + 104, overlayY + 72, 84, 18,
                 Component.literal("Cancel"), btn -> {
-            selectedListingIndex = -1;
+            selectedListingId = null;
             updateButtonVisibility();
         }));
 
         // Restore previously saved cart for this market board
         MarketBoardBlockEntity be = menu.getBlockEntity();
         if (be != null) {
-            List<int[]> saved = SAVED_CARTS.get(be.getBlockPos());
-            if (saved != null && !saved.isEmpty()) {
-                List<MarketListing> listings = be.getListings();
-                for (int[] entry : saved) {
-                    int li = entry[0], qty = entry[1];
-                    if (li >= 0 && li < listings.size()) {
-                        MarketListing ml = listings.get(li);
-                        cart.add(new CartEntry(li, qty, ml.getItemDisplayName(),
-                                ml.getTownId(), ml.getPricePerItem(), ml.getCount()));
-                    }
+            Map<UUID, Integer> saved = SAVED_CARTS.get(be.getBlockPos());
+            if (saved != null) {
+                for (Map.Entry<UUID, Integer> entry : saved.entrySet()) {
+                    // Drop lines whose listing sold out or was refreshed away while the screen was closed
+                    MarketListing ml = be.getListing(entry.getKey());
+                    if (ml == null) continue;
+                    cart.add(new CartEntry(ml.getId(), Math.min(entry.getValue(), ml.getCount()),
+                            ml.getItemDisplayName(), ml.getTownId(), ml.getPricePerItem(), ml.getCount()));
                 }
             }
         }
@@ -219,8 +243,8 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
             if (cart.isEmpty()) {
                 SAVED_CARTS.remove(be.getBlockPos());
             } else {
-                List<int[]> toSave = new ArrayList<>();
-                for (CartEntry e : cart) toSave.add(new int[]{e.listingIndex, e.quantity});
+                Map<UUID, Integer> toSave = new LinkedHashMap<>();
+                for (CartEntry e : cart) toSave.put(e.listingId, e.quantity);
                 SAVED_CARTS.put(be.getBlockPos(), toSave);
             }
         }
@@ -228,15 +252,18 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
     }
 
     private void updateButtonVisibility() {
-        boolean listing = !showingCart && selectedListingIndex < 0;
-        boolean cartView = showingCart && selectedListingIndex < 0;
-        boolean qtyOverlay = selectedListingIndex >= 0;
+        boolean listing = !showingCart && selectedListingId == null;
+        boolean cartView = showingCart && selectedListingId == null;
+        boolean qtyOverlay = selectedListingId != null;
 
         scrollUpBtn.visible = listing;
         scrollDownBtn.visible = listing;
+        searchBox.setVisible(listing);
+        searchBox.active = listing;
+        if (!listing) searchBox.setFocus(false);
         // refreshBtn removed — market board auto-refreshes; timer shown in title bar
 
-        // cartToggleBtn not a widget; visibility tracked via selectedListingIndex check in mouseClicked
+        // cartToggleBtn not a widget; visibility tracked via selectedListingId check in mouseClicked
 
         checkoutBtn.visible = cartView && !cart.isEmpty();
         clearCartBtn.visible = cartView && !cart.isEmpty();
@@ -254,27 +281,72 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
     @Override
     protected void containerTick() {
         super.containerTick();
+        syncCartWithStock();
     }
 
     // ==================== Cart Logic ====================
 
-    private void addToCart(int listingIndex, int quantity) {
+    private void addToCart(UUID listingId, int quantity) {
+        MarketBoardBlockEntity be = menu.getBlockEntity();
+        if (be == null) return;
+        MarketListing listing = be.getListing(listingId);
+        if (listing == null) {
+            notifyListingGone();
+            return;
+        }
+        int stock = listing.getCount();
+
         // Check if already in cart for this listing
         for (CartEntry entry : cart) {
-            if (entry.listingIndex == listingIndex) {
-                entry.quantity = Math.min(entry.maxCount, entry.quantity + quantity);
+            if (entry.listingId.equals(listingId)) {
+                entry.maxCount = stock;
+                entry.quantity = Math.min(stock, entry.quantity + quantity);
                 return;
             }
         }
 
+        cart.add(new CartEntry(listingId, Math.min(stock, quantity), listing.getItemDisplayName(),
+                listing.getTownId(), listing.getPricePerItem(), stock));
+    }
+
+    /**
+     * Follow stock changes from the server: clamp cart lines and the open
+     * quantity overlay to what is left, and drop lines whose listing sold out
+     * or was refreshed away. One over-stock line would otherwise make the
+     * server reject the whole cart at checkout.
+     */
+    private void syncCartWithStock() {
         MarketBoardBlockEntity be = menu.getBlockEntity();
-        if (be == null) return;
-        List<MarketListing> listings = be.getListings();
-        if (listingIndex >= listings.size()) return;
+        if (be == null || be.getListingsRevision() == cartStockRevision) return;
+        cartStockRevision = be.getListingsRevision();
+
+        boolean removed = cart.removeIf(entry -> {
+            MarketListing listing = be.getListing(entry.listingId);
+            if (listing == null) return true;
+            entry.maxCount = listing.getCount();
+            entry.quantity = Math.min(entry.quantity, entry.maxCount);
+            return entry.quantity <= 0;
+        });
 
-        MarketListing listing = listings.get(listingIndex);
-        cart.add(new CartEntry(listingIndex, quantity, listing.getItemDisplayName(),
-                listing.getTownId(), listing.getPricePerItem(), listing.getCount()));
+        if (selectedListingId != null) {
+            MarketListing selected = be.getListing(selectedListingId);
+            if (selected == null) {
+                selectedListingId = null;
+                notifyListingGone();
+                removed = true;
+            } else {
+                selectedMaxQty = Math.min(selectedMaxQty, selected.getCount());
+                selectedQuantity = Math.min(selectedQuantity, selectedMaxQty);
+            }
+        }
+        if (removed) updateButtonVisibility();
+    }
+
+    private void notifyListingGone() {
+        if (minecraft != null && minecraft.player != null) {
+            minecraft.player.displayClientMessage(
+                    Component.literal("That listing is no longer available.").withStyle(ChatFormatting.RED), true);
+        }
     }
 
     private int getCartTotal() {
@@ -286,6 +358,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
     }
 
     private void doCheckout() {
+        syncCartWithStock();
         if (cart.isEmpty()) return;
         MarketBoardBlockEntity be = menu.getBlockEntity();
         if (be == null) return;
@@ -297,7 +370,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         // Build packet entries
         List<CartCheckoutPacket.CartEntry> entries = new ArrayList<>();
         for (CartEntry ce : cart) {
-            entries.add(new CartCheckoutPacket.CartEntry(ce.listingIndex, ce.quantity));
+            entries.add(new CartCheckoutPacket.CartEntry(ce.listingId, ce.quantity));
         }
 
         ModNetwork.CHANNEL.send(PacketDistributor.SERVER.noArg(),
@@ -356,29 +429,21 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
 
     // ==================== Sort Helpers ====================
 
-    private List<Integer> getSortedIndices(List<MarketListing> listings) {
-        List<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < listings.size(); i++) indices.add(i);
-        if (sortMode == SortMode.NONE) return indices;
-
-        indices.sort((a, b) -> {
-            int cmp = switch (sortMode) {
-                case NAME -> listings.get(a).getItemDisplayName().compareToIgnoreCase(
-                        listings.get(b).getItemDisplayName());
-                case TOWN -> {
-                    TownData townA = TownRegistry.getTown(listings.get(a).getTownId());
-                    TownData townB = TownRegistry.getTown(listings.get(b).getTownId());
-                    String nameA = townA != null ? townA.getDisplayName() : listings.get(a).getTownId();
-                    String nameB = townB != null ? townB.getDisplayName() : listings.get(b).getTownId();
-                    yield nameA.compareToIgnoreCase(nameB);
-                }
-                case QTY -> Integer.compare(listings.get(a).getCount(), listings.get(b).getCount());
-                case PRICE -> Integer.compare(listings.get(a).getPricePerItem(), listings.get(b).getPricePerItem());
-                default -> 0;
-            };
-            return sortAscending ? cmp : -cmp;
-        });
-        return indices;
+    /** Bring the cached row order up to date and return it. */
+    private MarketListingIndex refreshIndex(@Nullable MarketBoardBlockEntity be) {
+        if (be == null) {
+            listingView.update(List.of(), 0, sortMode, sortAscending);
+        } else {
+            listingView.update(be.getListings(), be.getListingsRevision(), sortMode, sortAscending);
+        }
+        return listingView;
+    }
+
+    private String getTownFilterLabel() {
+        String townId = listingView.getTownFilter();
+        if (townId == null) return "Town: All";
+        TownData town = TownRegistry.getTown(townId);
+        return "Town: " + (town != null ? town.getDisplayName() : townId);
     }
 
     private void drawSortHeader(PoseStack ps, String label, int x, int y, SortMode mode) {
@@ -429,7 +494,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         drawInsetPanel(poseStack, x + 4, y + 3, 376, 14);
 
         // Cart toggle tab (right side of title bar, Trading Post style)
-        if (selectedListingIndex < 0) {
+        if (selectedListingId == null) {
             int tx = x + 312;
             int ty = y + 3;
             if (showingCart) {
@@ -447,6 +512,11 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         // Coin balance strip at the bottom
         drawInsetPanel(poseStack, x + 4, y + 200, 376, 14);
 
+        // Search box background (listing view only)
+        if (!showingCart && selectedListingId == null) {
+            drawInsetPanel(poseStack, x + 260, y + 201, 118, 12);
+        }
+
         if (showingCart) {
             renderCartBg(poseStack, x, y, mouseX, mouseY);
         } else {
@@ -460,7 +530,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
 
         // Compute hover row
         hoveredRow = -1;
-        if (selectedListingIndex < 0) {
+        if (selectedListingId == null) {
             int relMouseX = mouseX - x;
             int relMouseY = mouseY - y;
             if (relMouseX >= 5 && relMouseX <= 363 && relMouseY >= 31 && relMouseY < 31 + VISIBLE_LISTINGS * 11) {
@@ -471,7 +541,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         // Alternating rows with hover
         MarketBoardBlockEntity be = menu.getBlockEntity();
         List<MarketListing> listings = be != null ? be.getListings() : List.of();
-        List<Integer> sorted = getSortedIndices(listings);
+        MarketListingIndex sorted = refreshIndex(be);
 
         for (int i = 0; i < VISIBLE_LISTINGS; i++) {
             int rowY = y + 31 + i * 11;
@@ -572,7 +642,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         }
 
         // Cart toggle tab label
-        if (selectedListingIndex < 0) {
+        if (selectedListingId == null) {
             String cartLabel = "Cart (" + cart.size() + ")";
             int cartColor = showingCart ? 0xFFD700 : 0x888888;
             drawCenteredString(poseStack, this.font, cartLabel, 339, showingCart ? 6 : 7, cartColor);
@@ -600,6 +670,19 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         // Coin balance strip label
         int balance = getPlayerCoinBalance();
         this.font.draw(poseStack, "\u00A77Coin Balance: " + formatCoinText(balance), 7, 203, 0xFFDD88);
+
+        // Town filter toggle (left-click cycles, right-click clears)
+        if (!showingCart && selectedListingId == null) {
+            String townLabel = getTownFilterLabel();
+            while (this.font.width(townLabel) > 100 && townLabel.length() > 8) {
+                townLabel = townLabel.substring(0, townLabel.length() - 1);
+            }
+            int townColor = listingView.getTownFilter() != null ? 0xFFD700 : 0xAAAAAA;
+            this.font.draw(poseStack, townLabel, 156, 203, townColor);
+            if (searchBox.getValue().isEmpty() && !searchBox.isFocused()) {
+                this.font.draw(poseStack, "Search...", 264, 203, 0x776655);
+            }
+        }
     }
 
     private void renderListingLabels(PoseStack poseStack) {
@@ -607,7 +690,8 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         if (be == null) return;
 
         List<MarketListing> listings = be.getListings();
-        int maxScroll = Math.max(0, listings.size() - VISIBLE_LISTINGS);
+        MarketListingIndex sorted = refreshIndex(be);
+        int maxScroll = Math.max(0, sorted.size() - VISIBLE_LISTINGS);
         scrollOffset = Math.min(scrollOffset, maxScroll);
 
         if (listings.isEmpty()) {
@@ -622,10 +706,13 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         drawSortHeader(poseStack, "Qty", 234, 22, SortMode.QTY);
         drawSortHeader(poseStack, "Price Ea.", 260, 22, SortMode.PRICE);
 
+        if (sorted.size() == 0) {
+            this.font.draw(poseStack, "No listings match your filter.", 10, 50, 0x888888);
+        }
+
         int balance = getPlayerCoinBalance();
         int yOff = 33;
         int displayed = 0;
-        List<Integer> sorted = getSortedIndices(listings);
 
         for (int d = scrollOffset; d < sorted.size() && displayed < VISIBLE_LISTINGS; d++, displayed++) {
             int actualIdx = sorted.get(d);
@@ -637,7 +724,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
             boolean canAfford = balance >= priceEach;
 
             // Check if already in cart
-            boolean inCart = isInCart(actualIdx);
+            boolean inCart = isInCart(listing.getId());
 
             String itemName = listing.getItemDisplayName();
             if (this.font.width(itemName) > 120) {
@@ -698,10 +785,12 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         }
 
         // Count + scroll indicator
-        String countText = listings.size() + " listings";
-        if (listings.size() > VISIBLE_LISTINGS) {
+        String countText = sorted.isFiltered()
+                ? sorted.size() + " of " + listings.size() + " listings"
+                : listings.size() + " listings";
+        if (sorted.size() > VISIBLE_LISTINGS) {
             countText += "  (" + (scrollOffset + 1) + "-" +
-                    Math.min(scrollOffset + VISIBLE_LISTINGS, listings.size()) + ")";
+                    Math.min(scrollOffset + VISIBLE_LISTINGS, sorted.size()) + ")";
         }
         this.font.draw(poseStack, countText, 8, 188, 0x666666);
 
@@ -793,9 +882,9 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
 
     // ==================== Utilities ====================
 
-    private boolean isInCart(int listingIndex) {
+    private boolean isInCart(UUID listingId) {
         for (CartEntry entry : cart) {
-            if (entry.listingIndex == listingIndex) return true;
+            if (entry.listingId.equals(listingId)) return true;
         }
         return false;
     }
@@ -808,7 +897,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         super.render(poseStack, mouseX, mouseY, partialTick);
 
         // Render quantity overlay AFTER super.render() so it draws on top of all item icons
-        if (selectedListingIndex >= 0) {
+        if (selectedListingId != null) {
             renderQtyOverlayBg(poseStack, this.leftPos, this.topPos);
             // renderLabels is pre-translated by (leftPos, topPos); replicate that here
             poseStack.pushPose();
@@ -820,16 +909,19 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         renderTooltip(poseStack, mouseX, mouseY);
 
         // Listing tooltip on hover (not showing cart or overlay)
-        if (!showingCart && selectedListingIndex < 0 && hoveredRow >= 0) {
+        if (!showingCart && selectedListingId == null && hoveredRow >= 0) {
             MarketBoardBlockEntity be = menu.getBlockEntity();
             if (be != null) {
                 List<MarketListing> listings = be.getListings();
-                List<Integer> sorted = getSortedIndices(listings);
+                MarketListingIndex sorted = refreshIndex(be);
                 int sortedIdx = scrollOffset + hoveredRow;
                 if (sortedIdx >= 0 && sortedIdx < sorted.size()) {
                     int actualIdx = sorted.get(sortedIdx);
                     MarketListing listing = listings.get(actualIdx);
-                    renderListingTooltip(poseStack, listing, mouseX, mouseY);
+                    int balance = getPlayerCoinBalance();
+                    List<Component> tooltip = tooltipMemo.get(actualIdx, listing, balance,
+                            be.getListingsRevision(), () -> buildListingTooltip(listing, balance));
+                    renderComponentTooltip(poseStack, tooltip, mouseX, mouseY);
                 }
             }
         }
@@ -844,7 +936,8 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         }
     }
 
-    private void renderListingTooltip(PoseStack ps, MarketListing listing, int mouseX, int mouseY) {
+    /** Tooltip lines for a listing; memoized per listing and balance by the caller. */
+    private List<Component> buildListingTooltip(MarketListing listing, int balance) {
         List<Component> tooltip = new ArrayList<>();
 
         tooltip.add(Component.literal(listing.getItemDisplayName())
@@ -860,7 +953,6 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         tooltip.add(Component.literal("Qty: " + listing.getCount() + "  |  Total: " + formatCoinText(listing.getTotalPrice()))
                 .withStyle(ChatFormatting.GRAY));
 
-        int balance = getPlayerCoinBalance();
         int priceEach = listing.getPricePerItem();
         if (balance >= priceEach) {
             int canBuy = Math.min(balance / priceEach, listing.getCount());
@@ -914,7 +1006,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
             }
         }
 
-        renderComponentTooltip(ps, tooltip, mouseX, mouseY);
+        return tooltip;
     }
 
     private void renderCartEntryTooltip(PoseStack ps, CartEntry entry, int mouseX, int mouseY) {
@@ -951,16 +1043,24 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
             double relY = mouseY - y;
 
             // Cart toggle tab click (right side of title bar)
-            if (selectedListingIndex < 0 && relX >= 312 && relX < 366 && relY >= 3 && relY < 17) {
+            if (selectedListingId == null && relX >= 312 && relX < 366 && relY >= 3 && relY < 17) {
                 showingCart = !showingCart;
-                selectedListingIndex = -1;
+                selectedListingId = null;
                 updateButtonVisibility();
                 return true;
             }
 
+            // Town filter toggle in the bottom strip: cycle to the next town
+            if (!showingCart && selectedListingId == null
+                    && relX >= 154 && relX < 258 && relY >= 200 && relY < 214) {
+                listingView.setTownFilter(listingView.nextTownFilter());
+                scrollOffset = 0;
+                return true;
+            }
+
             // If quantity overlay is showing, don't allow other clicks
             // (buttons handle overlay interaction)
-            if (selectedListingIndex >= 0) {
+            if (selectedListingId != null) {
                 return super.mouseClicked(mouseX, mouseY, button);
             }
 
@@ -999,7 +1099,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
                 MarketBoardBlockEntity be = menu.getBlockEntity();
                 if (be != null) {
                     List<MarketListing> listings = be.getListings();
-                    List<Integer> sorted = getSortedIndices(listings);
+                    MarketListingIndex sorted = refreshIndex(be);
 
                     if (relX >= 5 && relX <= 363 && relY >= 31 && relY < 31 + VISIBLE_LISTINGS * 11) {
                         int row = (int) ((relY - 31) / 11);
@@ -1012,7 +1112,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
 
                             if (balance >= listing.getPricePerItem()) {
                                 // Open quantity overlay
-                                selectedListingIndex = actualIdx;
+                                selectedListingId = listing.getId();
                                 selectedMaxQty = Math.min(listing.getCount(),
                                         balance / listing.getPricePerItem());
                                 selectedQuantity = 1;
@@ -1026,12 +1126,46 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
                 }
             }
         }
+        if (button == 1 && !showingCart && selectedListingId == null) {
+            double relX = mouseX - this.leftPos;
+            double relY = mouseY - this.topPos;
+            // Right-click the town filter to show all towns again
+            if (relX >= 154 && relX < 258 && relY >= 200 && relY < 214) {
+                listingView.setTownFilter(null);
+                scrollOffset = 0;
+                return true;
+            }
+        }
         return super.mouseClicked(mouseX, mouseY, button);
     }
 
+    @Override
+    public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        if (searchBox != null && searchBox.isFocused()) {
+            if (keyCode == 256) { // GLFW_KEY_ESCAPE — drop focus instead of closing
+                searchBox.setFocus(false);
+                return true;
+            }
+            if (searchBox.keyPressed(keyCode, scanCode, modifiers)) {
+                return true;
+            }
+            // Prevent 'E' (inventory key) from closing screen while typing
+            return true;
+        }
+        return super.keyPressed(keyCode, scanCode, modifiers);
+    }
+
+    @Override
+    public boolean charTyped(char codePoint, int modifiers) {
+        if (searchBox != null && searchBox.isFocused() && searchBox.charTyped(codePoint, modifiers)) {
+            return true;
+        }
+        return super.charTyped(codePoint, modifiers);
+    }
+
     @Override
     public boolean mouseScrolled(double mouseX, double mouseY, double delta) {
-        if (selectedListingIndex >= 0) return true; // block scrolling during overlay
+        if (selectedListingId != null) return true; // block scrolling during overlay
 
         if (showingCart) {
             int maxScroll = Math.max(0, cart.size() - VISIBLE_CART_ROWS);
@@ -1045,7 +1179,7 @@ public class MarketBoardScreen extends AbstractContainerScreen<MarketBoardMenu>
         } else {
             MarketBoardBlockEntity be = menu.getBlockEntity();
             if (be != null) {
-                int maxScroll = Math.max(0, be.getListings().size() - VISIBLE_LISTINGS);
+                int maxScroll = Math.max(0, refreshIndex(be).size() - VISIBLE_LISTINGS);
                 if (delta > 0 && scrollOffset > 0) {
                     scrollOffset--;
                     return true;
@@ -0,0 +1,201 @@
+package com.offtomarket.mod.client.screen;
+
+import com.offtomarket.mod.data.MarketListing;
+import com.offtomarket.mod.data.TownData;
+import com.offtomarket.mod.data.TownRegistry;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Cached sorted + filtered view over a Market Board's listings (client-side).
+ *
+ * The Market Board screen asks for row order several times per frame (background,
+ * labels, hover tooltip, clicks). This index keeps the order in a primitive int
+ * array and only re-sorts when the listings, sort mode or direction change.
+ * Text and town filters narrow the current view in place when the new filter is
+ * stricter than the old one (e.g. typing another character).
+ */
+public class MarketListingIndex {
+
+    /** Column the listings are sorted by. */
+    public enum SortMode { NONE, NAME, TOWN, QTY, PRICE }
+
+    // Source identity — a new list or revision means the listings changed
+    @Nullable
+    private List<MarketListing> source;
+    private int sourceRevision = Integer.MIN_VALUE;
+
+    private SortMode sortMode = SortMode.NONE;
+    private boolean ascending = true;
+
+    // Per-listing keys, computed once per listings revision
+    private String[] itemNames = new String[0];   // lowercase, for filtering
+    private String[] itemIds = new String[0];     // lowercase registry ids, for filtering
+    private String[] townNames = new String[0];   // display names, for sorting
+    private String[] listingTowns = new String[0]; // town ids, for filtering
+    private final List<String> townIds = new ArrayList<>();
+
+    /** All listing indices in sort order. */
+    private int[] sorted = new int[0];
+    /** Indices passing the current filters, in sort order (first viewSize entries valid). */
+    private int[] view = new int[0];
+    private int viewSize = 0;
+
+    private String textFilter = "";
+    @Nullable
+    private String townFilter = null;
+
+    private boolean sortDirty = true;
+    private boolean filterDirty = true;
+
+    /**
+     * Bring the index up to date. Cheap when nothing changed, so it is safe to call
+     * from every render and input path.
+     */
+    public void update(List<MarketListing> listings, int revision, SortMode mode, boolean asc) {
+        if (listings != source || revision != sourceRevision) {
+            source = listings;
+            sourceRevision = revision;
+            rebuildKeys();
+            sortDirty = true;
+        }
+        if (mode != sortMode || asc != ascending) {
+            sortMode = mode;
+            ascending = asc;
+            sortDirty = true;
+        }
+        if (sortDirty) {
+            resort();
+            sortDirty = false;
+            filterDirty = true;
+        }
+        if (filterDirty) {
+            applyFilters(sorted, sorted.length);
+            filterDirty = false;
+        }
+    }
+
+    /** Set the text filter (matched against item name and registry id). */
+    public void setTextFilter(String query) {
+        String q = query == null ? "" : query.toLowerCase(Locale.ROOT).trim();
+        if (q.equals(textFilter)) return;
+        boolean narrowing = q.startsWith(textFilter);
+        textFilter = q;
+        refilter(narrowing);
+    }
+
+    /** Set the town filter; null shows every town. */
+    public void setTownFilter(@Nullable String townId) {
+        if (Objects.equals(townId, townFilter)) return;
+        boolean narrowing = townFilter == null;
+        townFilter = townId;
+        refilter(narrowing);
+    }
+
+    @Nullable
+    public String getTownFilter() { return townFilter; }
+
+    public boolean isFiltered() { return townFilter != null || !textFilter.isEmpty(); }
+
+    /** Number of rows in the filtered view. */
+    public int size() { return viewSize; }
+
+    /** Listing index (into the source list) shown at the given row of the filtered view. */
+    public int get(int row) { return view[row]; }
+
+    /** Distinct town ids present in the listings, ordered by display name. */
+    public List<String> getTownIds() { return townIds; }
+
+    /** The town after the current filter in {@link #getTownIds()}, or null to wrap back to "all". */
+    @Nullable
+    public String nextTownFilter() {
+        if (townIds.isEmpty()) return null;
+        if (townFilter == null) return townIds.get(0);
+        int i = townIds.indexOf(townFilter);
+        return i < 0 || i + 1 >= townIds.size() ? null : townIds.get(i + 1);
+    }
+
+    // ==================== Internals ====================
+
+    /**
+     * Re-apply the filters to the current order. Runs on the keys from the last
+     * {@link #update}; if the live source list has since changed size (sync or
+     * sold-out listing), the keys are stale and the work waits for update().
+     */
+    private void refilter(boolean narrowing) {
+        if (sortDirty || filterDirty || source == null || source.size() != sorted.length) {
+            filterDirty = true; // picked up by the next update()
+        } else if (narrowing) {
+            applyFilters(view, viewSize);
+        } else {
+            applyFilters(sorted, sorted.length);
+        }
+    }
+
+    private void rebuildKeys() {
+        int n = source.size();
+        itemNames = new String[n];
+        itemIds = new String[n];
+        townNames = new String[n];
+        listingTowns = new String[n];
+        Map<String, String> townNameCache = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            MarketListing ml = source.get(i);
+            itemNames[i] = ml.getItemDisplayName().toLowerCase(Locale.ROOT);
+            itemIds[i] = ml.getItemId().toString();
+            listingTowns[i] = ml.getTownId();
+            townNames[i] = townNameCache.computeIfAbsent(ml.getTownId(), id -> {
+                TownData town = TownRegistry.getTown(id);
+                return town != null ? town.getDisplayName() : id;
+            });
+        }
+
+        townIds.clear();
+        townIds.addAll(townNameCache.keySet());
+        townIds.sort((a, b) -> townNameCache.get(a).compareToIgnoreCase(townNameCache.get(b)));
+        if (townFilter != null && !townNameCache.containsKey(townFilter)) {
+            townFilter = null; // filtered town no longer listed
+        }
+
+        sorted = new int[n];
+        view = new int[n];
+    }
+
+    private void resort() {
+        int n = sorted.length;
+        for (int i = 0; i < n; i++) sorted[i] = i;
+        if (sortMode == SortMode.NONE || n < 2) return;
+
+        List<MarketListing> listings = source;
+        // mergeSort is stable, so equal keys keep board order in both directions
+        IntArrays.mergeSort(sorted, (a, b) -> {
+            int cmp = switch (sortMode) {
+                case NAME -> listings.get(a).getItemDisplayName().compareToIgnoreCase(
+                        listings.get(b).getItemDisplayName());
+                case TOWN -> townNames[a].compareToIgnoreCase(townNames[b]);
+                case QTY -> Integer.compare(listings.get(a).getCount(), listings.get(b).getCount());
+                case PRICE -> Integer.compare(listings.get(a).getPricePerItem(), listings.get(b).getPricePerItem());
+                default -> 0;
+            };
+            return ascending ? cmp : -cmp;
+        });
+    }
+
+    /** Filter the first {@code count} entries of {@code from} into {@link #view}. May alias view. */
+    private void applyFilters(int[] from, int count) {
+        int out = 0;
+        for (int i = 0; i < count; i++) {
+            int idx = from[i];
+            if (matches(idx)) view[out++] = idx;
+        }
+        viewSize = out;
+    }
+
+    private boolean matches(int idx) {
+        if (townFilter != null && !townFilter.equals(listingTowns[idx])) return false;
+        if (textFilter.isEmpty()) return true;
+        return itemNames[idx].contains(textFilter) || itemIds[idx].contains(textFilter);
+    }
+}
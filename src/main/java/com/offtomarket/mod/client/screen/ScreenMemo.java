@@ -0,0 +1,68 @@
+package com.offtomarket.mod.client.screen;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Per-screen memo for values derived from a slot's contents (prices, breakdowns,
+ * tooltip lines). Entries are keyed on slot and re-computed only when the
+ * fingerprint of what is in the slot or the caller's settings version changes,
+ * so render code can ask for the same value every frame without re-pricing.
+ *
+ * @param <V> the memoized value type
+ */
+final class ScreenMemo<V> {
+
+    private static final class Entry<V> {
+        Object identity;
+        int count;
+        int extra;
+        int version;
+        V value;
+    }
+
+    private final Int2ObjectOpenHashMap<Entry<V>> entries = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * Value for an item stack in a slot. The stack is fingerprinted by item,
+     * count and NBT, so a changed stack in the same slot is re-computed.
+     */
+    V get(int slot, ItemStack stack, int version, Supplier<V> compute) {
+        CompoundTag tag = stack.getTag();
+        return get(slot, stack.getItem(), stack.getCount(), tag != null ? tag.hashCode() : 0, version, compute);
+    }
+
+    /**
+     * Value for an arbitrary key object in a slot (compared by identity), plus
+     * an extra int that also invalidates the entry when it changes.
+     */
+    V get(int slot, Object identity, int extra, int version, Supplier<V> compute) {
+        return get(slot, identity, 0, extra, version, compute);
+    }
+
+    private V get(int slot, Object identity, int count, int extra, int version, Supplier<V> compute) {
+        Entry<V> e = entries.get(slot);
+        if (e != null && e.identity == identity && e.count == count
+                && e.extra == extra && e.version == version) {
+            return e.value;
+        }
+        if (e == null) {
+            e = new Entry<>();
+            entries.put(slot, e);
+        }
+        e.identity = identity;
+        e.count = count;
+        e.extra = extra;
+        e.version = version;
+        e.value = Objects.requireNonNull(compute.get());
+        return e.value;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+}
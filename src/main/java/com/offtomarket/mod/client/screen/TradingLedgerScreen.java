@@ -3,7 +3,9 @@ package com.offtomarket.mod.client.screen;
 import com.mojang.blaze3d.systems.RenderSystem;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.offtomarket.mod.block.entity.TradingLedgerBlockEntity;
+import com.offtomarket.mod.data.EarningsRanking;
 import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.data.TradeJournal;
 import com.offtomarket.mod.menu.TradingLedgerMenu;
 import com.offtomarket.mod.network.ModNetwork;
 import com.offtomarket.mod.network.SetPricePacket;
@@ -54,6 +56,11 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
     private final List<Integer> filteredSlots = new ArrayList<>();
     private int listScrollOffset = 0;
 
+    // ---- Memoized pricing (keyed on slot, stack and ledger settings revision) ----
+    private final ScreenMemo<Integer> listPriceMemo = new ScreenMemo<>();
+    private final ScreenMemo<Integer> baseValueMemo = new ScreenMemo<>();
+    private final ScreenMemo<PriceCalculator.PriceBreakdown> breakdownMemo = new ScreenMemo<>();
+
     // ---- List layout ----
     private static final int LIST_LEFT = 6;
     private static final int LIST_TOP = 36;
@@ -211,6 +218,7 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
     private void switchTab(int tab) {
         activeTab = tab;
         historyScrollOffset = 0;
+        if (tab == 2) JournalPageCache.reset();
         incomeScrollOffset = 0;
         updateTabVisibility();
     }
@@ -370,8 +378,10 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
                         isSelected ? 0xFFD700 : 0xCCCCCC);
 
                 // Price (right-aligned, using CoinRenderer)
-                int price = be.getEffectivePriceForSlot(slot);
-                if (price <= 0) price = PriceCalculator.getBaseValue(stack);
+                int price = listPriceMemo.get(slot, stack, be.getSettingsRevision(), () -> {
+                    int p = be.getEffectivePriceForSlot(slot);
+                    return p > 0 ? p : PriceCalculator.getBaseValue(stack);
+                });
                 int priceW = CoinRenderer.getCompactCoinValueWidth(this.font, price);
                 CoinRenderer.renderCompactCoinValue(poseStack, this.font,
                         listX + LIST_WIDTH - priceW - 2, rowY + 3, price);
@@ -536,7 +546,8 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
 
         // Summary: price breakdown for selected item
         if (hasItem) {
-            int baseValue = PriceCalculator.getBaseValue(inspectStack);
+            int baseValue = baseValueMemo.get(selectedSlot, inspectStack, cbe.getSettingsRevision(),
+                    () -> PriceCalculator.getBaseValue(inspectStack));
             int modifiedPrice = cbe.getEffectivePrice(inspectStack, baseValue);
             int maxPrice = PriceCalculator.getMaxPrice(inspectStack);
             String est = TradingLedgerBlockEntity.getEstimatedMarketTime(
@@ -555,12 +566,13 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
     private void renderHistoryLabels(PoseStack poseStack) {
         drawCenteredString(poseStack, this.font, "\u00A7lPast Orders", 280, 21, 0xFFD700);
 
-        TradingLedgerBlockEntity be = menu.getBlockEntity();
-        if (be == null) return;
-
-        java.util.List<TradingLedgerBlockEntity.LedgerShipmentRecord> history = be.getShipmentHistory();
-
-        if (history.isEmpty()) {
+        // Rows come from the world's trade journal, fetched page by page
+        long total = JournalPageCache.getTotal();
+        if (total < 0) {
+            this.font.draw(poseStack, "Loading...", 184, 42, 0x666666);
+            return;
+        }
+        if (total == 0) {
             this.font.draw(poseStack, "No shipments yet.", 184, 42, 0x666666);
             this.font.draw(poseStack, "Ship items from the Trading Post", 184, 54, 0x555555);
             this.font.draw(poseStack, "to record orders here.", 184, 66, 0x555555);
@@ -576,26 +588,31 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
         int startY = 40;
         int bottomY = 220;
         int visibleRows = (bottomY - startY) / rowH;  // ~15
-        int maxScroll = Math.max(0, history.size() - visibleRows);
+        int maxScroll = (int) Math.max(0, Math.min(Integer.MAX_VALUE, total - visibleRows));
         historyScrollOffset = Math.min(historyScrollOffset, maxScroll);
 
         long nowTicks = this.minecraft != null && this.minecraft.level != null
                 ? this.minecraft.level.getGameTime() : 0;
 
-        for (int i = 0; i < visibleRows && (historyScrollOffset + i) < history.size(); i++) {
-            TradingLedgerBlockEntity.LedgerShipmentRecord rec = history.get(historyScrollOffset + i);
+        for (int i = 0; i < visibleRows && (historyScrollOffset + i) < total; i++) {
             int ry = startY + i * rowH;
+            TradeJournal.Entry rec = JournalPageCache.get(historyScrollOffset + i);
+            if (rec == null) {
+                this.font.draw(poseStack, "...", 184, ry, 0x555555);
+                continue;
+            }
 
-            String tName = rec.townDisplayName;
+            String tName = rec.townName();
             while (this.font.width(tName) > 65 && tName.length() > 3)
                 tName = tName.substring(0, tName.length() - 1);
-            if (!tName.equals(rec.townDisplayName)) tName += "..";
+            if (!tName.equals(rec.townName())) tName += "..";
             this.font.draw(poseStack, tName, 184, ry, 0xCCAA66);
 
-            this.font.draw(poseStack, rec.totalItems + "x", 256, ry, 0xAAAAAA);
-            this.font.draw(poseStack, formatCoinText(rec.totalValue), 296, ry, 0x88CC88);
+            this.font.draw(poseStack, rec.items() + "x", 256, ry, 0xAAAAAA);
+            int valueColor = rec.outcome() == TradeJournal.Outcome.RETURNED ? 0x888888 : 0x88CC88;
+            this.font.draw(poseStack, formatCoinText(rec.earnings()), 296, ry, valueColor);
 
-            long deltaTicks = nowTicks - rec.gameTime;
+            long deltaTicks = nowTicks - rec.gameTime();
             String when;
             if (deltaTicks < 20 * 60) when = "< 1 min";
             else if (deltaTicks < 20 * 3600) when = (deltaTicks / (20 * 60)) + " min";
@@ -623,17 +640,10 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
             return;
         }
 
-        // Aggregate totals
-        long totalRevenue = 0;
-        int totalItems = 0;
-        java.util.Map<String, Long> revenueByTown = new java.util.LinkedHashMap<>();
-        java.util.Map<String, Integer> itemsByTown = new java.util.LinkedHashMap<>();
-        for (TradingLedgerBlockEntity.LedgerShipmentRecord rec : history) {
-            totalRevenue += rec.totalValue;
-            totalItems += rec.totalItems;
-            revenueByTown.merge(rec.townDisplayName, (long) rec.totalValue, Long::sum);
-            itemsByTown.merge(rec.townDisplayName, rec.totalItems, Integer::sum);
-        }
+        // Totals and per-town rows are maintained by the block entity as history changes
+        EarningsRanking income = be.getIncomeByTown();
+        long totalRevenue = income.getGrandTotal();
+        int totalItems = income.getGrandItems();
 
         // Summary row
         int sy = 34;
@@ -647,9 +657,7 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
         int startY = sy + 36;
         int bottomY = 220;
         int visibleRows = (bottomY - startY) / rowH;
-        java.util.List<java.util.Map.Entry<String, Long>> townEntries =
-                new java.util.ArrayList<>(revenueByTown.entrySet());
-        townEntries.sort((a, b) -> Long.compare(b.getValue(), a.getValue())); // sort by revenue desc
+        java.util.List<EarningsRanking.Row> townEntries = income.top(Integer.MAX_VALUE); // revenue desc
         int maxScroll = Math.max(0, townEntries.size() - visibleRows);
         incomeScrollOffset = Math.min(incomeScrollOffset, maxScroll);
 
@@ -658,16 +666,15 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
         this.font.draw(poseStack, "Items", 350, startY - 9, 0xBBAAAA);
 
         for (int i = 0; i < visibleRows && (incomeScrollOffset + i) < townEntries.size(); i++) {
-            java.util.Map.Entry<String, Long> entry = townEntries.get(incomeScrollOffset + i);
+            EarningsRanking.Row entry = townEntries.get(incomeScrollOffset + i);
             int ry = startY + i * rowH;
             String tName = entry.getKey();
             while (this.font.width(tName) > 88 && tName.length() > 3)
                 tName = tName.substring(0, tName.length() - 1);
             if (!tName.equals(entry.getKey())) tName += "..";
             this.font.draw(poseStack, tName, 184, ry, 0xCCAA66);
-            this.font.draw(poseStack, formatCoinText((int) Math.min(entry.getValue(), Integer.MAX_VALUE)), 284, ry, 0xAACCAA);
-            Integer items = itemsByTown.get(entry.getKey());
-            this.font.draw(poseStack, items != null ? String.valueOf(items) : "-", 350, ry, 0x888888);
+            this.font.draw(poseStack, formatCoinText((int) Math.min(entry.getTotal(), Integer.MAX_VALUE)), 284, ry, 0xAACCAA);
+            this.font.draw(poseStack, String.valueOf(entry.getItems()), 350, ry, 0x888888);
         }
 
         if (incomeScrollOffset > 0) this.font.draw(poseStack, "\u25B2", 370, startY, 0x6B5A3E);
@@ -717,7 +724,8 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
 
         // ---- Price breakdown (y=58 to y=86) ----
         int taxPercent = be.getCraftingTaxPercent();
-        PriceCalculator.PriceBreakdown bd = PriceCalculator.getBreakdown(stack, null, taxPercent);
+        PriceCalculator.PriceBreakdown bd = breakdownMemo.get(selectedSlot, stack, be.getSettingsRevision(),
+                () -> PriceCalculator.getBreakdown(stack, null, taxPercent));
 
         this.font.draw(poseStack, "Base: " + formatCoinText(bd.materialCost()), 184, 58, 0xAAAAAA);
 
@@ -907,7 +915,7 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
             TradingLedgerBlockEntity be = menu.getBlockEntity();
             if (be != null) {
                 int histVisible = (220 - 40) / 12;
-                int maxHistScroll = Math.max(0, be.getShipmentHistory().size() - histVisible);
+                long maxHistScroll = Math.max(0, JournalPageCache.getTotal() - histVisible);
                 if (delta > 0 && historyScrollOffset > 0) { historyScrollOffset--; return true; }
                 if (delta < 0 && historyScrollOffset < maxHistScroll) { historyScrollOffset++; return true; }
             }
@@ -919,8 +927,7 @@ public class TradingLedgerScreen extends AbstractContainerScreen<TradingLedgerMe
             if (be != null) {
                 int incomeSY = 34 + 36;
                 int incomeVisible = (220 - incomeSY) / 11;
-                int maxIncomeScroll = Math.max(0, (int) be.getShipmentHistory().stream()
-                        .map(r -> r.townDisplayName).distinct().count() - incomeVisible);
+                int maxIncomeScroll = Math.max(0, be.getIncomeByTown().size() - incomeVisible);
                 if (delta > 0 && incomeScrollOffset > 0) { incomeScrollOffset--; return true; }
                 if (delta < 0 && incomeScrollOffset < maxIncomeScroll) { incomeScrollOffset++; return true; }
             }
@@ -26,6 +26,7 @@ import net.minecraftforge.registries.ForgeRegistries;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -93,6 +94,9 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
     private List<Integer> cachedSortedRequests = null;
     private int cachedRequestsKey = -1;
 
+    /** Item display names by earnings key, resolved once per key; cleared in init(). */
+    private final Map<String, String> itemLabels = new HashMap<>();
+
     /** Invalidate all three sort caches (call after a toggle action). */
     private void invalidateSortCaches() {
         cachedActivityKey = -1;
@@ -157,6 +161,7 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
     @Override
     protected void init() {
         super.init();
+        itemLabels.clear();
         int x = this.leftPos;
         int y = this.topPos;
 
@@ -465,25 +470,15 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
 
     /**
      * Update the filtered item list based on the search box text.
-     * Searches all registered items by display name.
+     * Matches display names and registry ids via {@link ItemSearchIndex};
+     * prefix the query with @modid to search within one mod.
      */
     private void updateRequestFilteredItems() {
-        requestFilteredItems.clear();
         requestListScroll = 0;
         hoveredRequestItem = -1;
 
-        String query = requestSearchBox != null ? requestSearchBox.getValue().toLowerCase().trim() : "";
-        if (query.isEmpty()) return; // don't show anything with empty search
-
-        for (Item item : ForgeRegistries.ITEMS) {
-            ResourceLocation rl = ForgeRegistries.ITEMS.getKey(item);
-            if (rl == null) continue;
-            String name = new ItemStack(item).getHoverName().getString().toLowerCase();
-            if (name.contains(query)) {
-                requestFilteredItems.add(rl);
-                if (requestFilteredItems.size() >= 100) break; // cap results
-            }
-        }
+        String query = requestSearchBox != null ? requestSearchBox.getValue() : "";
+        requestFilteredItems = ItemSearchIndex.get().search(query, ItemSearchIndex.DEFAULT_LIMIT);
     }
 
     private List<TownData> getAvailableTowns() {
@@ -1386,14 +1381,14 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
         // ── Best Towns (stacked, full width, y=57–137) ───────────────
         // Section header at y=60, separator at y=68 (bg), col headers at y=70, rows from y=81
         this.font.draw(ps, "\u00A7lBest Towns", 8, 60, OtmGuiTheme.TEXT_TITLE);
+        String trend = earningsTrendText(be);
+        this.font.draw(ps, trend, 374 - this.font.width(trend), 60, OtmGuiTheme.TEXT_MUTED);
         this.font.draw(ps, "Town",     8,   70, OtmGuiTheme.TEXT_COL_HEADER);
         this.font.draw(ps, "Total",   220,  70, OtmGuiTheme.TEXT_COL_HEADER);
         this.font.draw(ps, "Avg/Ship", 314, 70, OtmGuiTheme.TEXT_COL_HEADER);
 
-        Map<String, Long> townEarnings = be.getEarningsByTown();
-        List<Map.Entry<String, Long>> sortedTowns = townEarnings.entrySet().stream()
-                .sorted(Comparator.<Map.Entry<String, Long>, Long>comparing(Map.Entry::getValue).reversed())
-                .toList();
+        // Rankings arrive pre-sorted from the server (top rows only)
+        List<EarningsRanking.Row> sortedTowns = be.getTownRanking().top(Integer.MAX_VALUE);
 
         int maxTownScroll = Math.max(0, sortedTowns.size() - VISIBLE_INCOME_ROWS);
         incomeTownScroll = Math.min(incomeTownScroll, maxTownScroll);
@@ -1401,13 +1396,13 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
         int rowY = 81;
         int displayed = 0;
         for (int i = incomeTownScroll; displayed < VISIBLE_INCOME_ROWS && i < sortedTowns.size(); i++, displayed++) {
-            Map.Entry<String, Long> entry = sortedTowns.get(i);
+            EarningsRanking.Row entry = sortedTowns.get(i);
             TownData town = TownRegistry.getTown(entry.getKey());
             String townName = OtmGuiTheme.truncate(this.font,
                     town != null ? town.getDisplayName() : entry.getKey(), 200);
             this.font.draw(ps, townName, 8, rowY, OtmGuiTheme.TEXT_NAME);
-            this.font.draw(ps, formatCoinText((int) Math.min(entry.getValue(), Integer.MAX_VALUE)), 220, rowY, 0xFFFFFF);
-            long avg = entry.getValue() / Math.max(1, countShipmentsForTown(be, entry.getKey()));
+            this.font.draw(ps, formatCoinText((int) Math.min(entry.getTotal(), Integer.MAX_VALUE)), 220, rowY, 0xFFFFFF);
+            long avg = entry.getAverage();
             this.font.draw(ps, formatCoinText((int) Math.min(avg, Integer.MAX_VALUE)), 314, rowY, 0xFFFFFF);
             rowY += 9;
         }
@@ -1424,10 +1419,7 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
         this.font.draw(ps, "Item",  8,   150, OtmGuiTheme.TEXT_COL_HEADER);
         this.font.draw(ps, "Total", 314, 150, OtmGuiTheme.TEXT_COL_HEADER);
 
-        Map<String, Long> itemEarnings = be.getEarningsByItem();
-        List<Map.Entry<String, Long>> sortedItems = itemEarnings.entrySet().stream()
-                .sorted(Comparator.<Map.Entry<String, Long>, Long>comparing(Map.Entry::getValue).reversed())
-                .toList();
+        List<EarningsRanking.Row> sortedItems = be.getItemRanking().top(Integer.MAX_VALUE);
 
         int maxItemScroll = Math.max(0, sortedItems.size() - VISIBLE_INCOME_ROWS);
         incomeItemScroll = Math.min(incomeItemScroll, maxItemScroll);
@@ -1435,10 +1427,10 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
         rowY = 160;
         displayed = 0;
         for (int i = incomeItemScroll; displayed < VISIBLE_INCOME_ROWS && i < sortedItems.size(); i++, displayed++) {
-            Map.Entry<String, Long> entry = sortedItems.get(i);
-            String name = OtmGuiTheme.truncate(this.font, entry.getKey(), 290);
+            EarningsRanking.Row entry = sortedItems.get(i);
+            String name = OtmGuiTheme.truncate(this.font, itemLabel(entry.getKey()), 290);
             this.font.draw(ps, name, 8, rowY, OtmGuiTheme.TEXT_NAME);
-            this.font.draw(ps, formatCoinText((int) Math.min(entry.getValue(), Integer.MAX_VALUE)), 314, rowY, 0xFFFFFF);
+            this.font.draw(ps, formatCoinText((int) Math.min(entry.getTotal(), Integer.MAX_VALUE)), 314, rowY, 0xFFFFFF);
             rowY += 9;
         }
         if (sortedItems.size() > VISIBLE_INCOME_ROWS) {
@@ -1449,16 +1441,40 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
         }
     }
 
-    private int countShipmentsForTown(TradingPostBlockEntity be, String townId) {
-        TownData td = TownRegistry.getTown(townId);
-        String displayName = td != null ? td.getDisplayName() : townId;
-        int count = 0;
-        for (net.minecraft.nbt.CompoundTag record : be.getShipmentHistory()) {
-            if (displayName.equals(record.getString("Town"))) {
-                count++;
-            }
+    /** "Today … Week … Month …" from the time-series totals, with the week-over-week change. */
+    private String earningsTrendText(TradingPostBlockEntity be) {
+        long[] days = be.getEarningsTrend(EarningsTimeSeries.Resolution.DAY);
+        long[] weeks = be.getEarningsTrend(EarningsTimeSeries.Resolution.WEEK);
+        long[] months = be.getEarningsTrend(EarningsTimeSeries.Resolution.MONTH);
+        long today = days.length > 0 ? days[days.length - 1] : 0;
+        long week = weeks.length > 0 ? weeks[weeks.length - 1] : 0;
+        long lastWeek = weeks.length > 1 ? weeks[weeks.length - 2] : 0;
+        long month = months.length > 0 ? months[months.length - 1] : 0;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Today ").append(formatCoinText((int) Math.min(today, Integer.MAX_VALUE)));
+        sb.append("\u00A77  Week ").append(formatCoinText((int) Math.min(week, Integer.MAX_VALUE)));
+        if (lastWeek > 0) {
+            long pct = (week - lastWeek) * 100 / lastWeek;
+            sb.append(pct >= 0 ? " \u00A7a\u25B2" : " \u00A7c\u25BC").append(Math.abs(pct)).append('%');
+        }
+        sb.append("\u00A77  Month ").append(formatCoinText((int) Math.min(month, Integer.MAX_VALUE)));
+        return sb.toString();
+    }
+
+    /** Display name for an item earnings key, cached per key. */
+    private String itemLabel(String key) {
+        return itemLabels.computeIfAbsent(key, TradingPostScreen::resolveItemLabel);
+    }
+
+    /** Resolve an item earnings key (registry id; older saves used the display name). */
+    private static String resolveItemLabel(String key) {
+        ResourceLocation rl = ResourceLocation.tryParse(key);
+        if (rl != null && ForgeRegistries.ITEMS.containsKey(rl)) {
+            Item item = ForgeRegistries.ITEMS.getValue(rl);
+            if (item != null) return new ItemStack(item).getHoverName().getString();
         }
-        return Math.max(1, count);
+        return key;
     }
 
     // ==================== Towns Tab ====================
@@ -2241,7 +2257,7 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
                     && !requestSearchBox.getValue().isEmpty()) {
                 this.font.draw(poseStack, "No items found.", 8, 66, 0x888888);
             } else if (requestFilteredItems.isEmpty()) {
-                this.font.draw(poseStack, "Type to search for items...", 8, 66, 0x888888);
+                this.font.draw(poseStack, "Type to search for items (@mod to filter)...", 8, 66, 0x888888);
             }
 
             for (int i = 0; i < VISIBLE_REQUEST_ITEMS; i++) {
@@ -3081,7 +3097,7 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
             if (be != null) {
                 // Left half: scroll Best Towns; right half: scroll Top Items
                 if (mouseX < this.leftPos + 191) {
-                    int maxScroll = Math.max(0, be.getEarningsByTown().size() - VISIBLE_INCOME_ROWS);
+                    int maxScroll = Math.max(0, be.getTownRanking().size() - VISIBLE_INCOME_ROWS);
                     if (delta > 0 && incomeTownScroll > 0) {
                         incomeTownScroll--;
                         return true;
@@ -3090,7 +3106,7 @@ public class TradingPostScreen extends AbstractContainerScreen<TradingPostMenu>
                         return true;
                     }
                 } else {
-                    int maxScroll = Math.max(0, be.getEarningsByItem().size() - VISIBLE_INCOME_ROWS);
+                    int maxScroll = Math.max(0, be.getItemRanking().size() - VISIBLE_INCOME_ROWS);
                     if (delta > 0 && incomeItemScroll > 0) {
                         incomeItemScroll--;
                         return true;
@@ -49,51 +49,88 @@ import java.util.*;
 public class ModdedItemConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final String CONFIG_FOLDER = "offtomarket/items";
-    private static final List<String> loadedMods = new ArrayList<>();
+    private static volatile List<String> loadedMods = Collections.emptyList();
     private static boolean initialized = false;
 
+    /** The folder holding the modded item override files (config/offtomarket/items). */
+    public static Path getConfigPath() {
+        return FMLPaths.CONFIGDIR.get().resolve(CONFIG_FOLDER);
+    }
+
     /**
      * Load all modded item configurations from the config folder.
-     * Called during mod initialization.
+     * Called during mod initialization, after the JSON towns are registered.
      */
     public static void loadAllConfigs() {
         if (initialized) return;
         initialized = true;
-        
-        Path configPath = FMLPaths.CONFIGDIR.get().resolve(CONFIG_FOLDER);
-        
+
+        // Apply to copies and publish them together, so nothing reads a half-applied town
+        Map<String, TownData> towns = new LinkedHashMap<>();
+        for (TownData town : TownRegistry.getStaticTowns().values()) {
+            towns.put(town.getId(), town.copyDefinition());
+        }
+        applyConfigs(readConfigs(), towns);
+        TownRegistry.publish(towns);
+    }
+
+    /**
+     * Read and parse every config file (file name → root object), in file name
+     * order. Only does file IO, so the datapack reload listener runs it off-thread.
+     */
+    public static Map<String, JsonObject> readConfigs() {
+        Path configPath = getConfigPath();
+        Map<String, JsonObject> configs = new LinkedHashMap<>();
+
         // Create the config folder and example file if it doesn't exist
         try {
             Files.createDirectories(configPath);
             createExampleConfig(configPath);
         } catch (IOException e) {
             OffToMarket.LOGGER.error("Failed to create modded items config folder", e);
-            return;
+            return configs;
         }
         
         // Load all JSON files in the folder
         File[] files = configPath.toFile().listFiles((dir, name) -> name.endsWith(".json"));
-        if (files == null) return;
+        if (files == null) return configs;
+        Arrays.sort(files, Comparator.comparing(File::getName));
         
         for (File file : files) {
             try {
-                loadConfigFile(file);
+                String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+                configs.put(file.getName(), JsonParser.parseString(content).getAsJsonObject());
             } catch (Exception e) {
                 OffToMarket.LOGGER.error("Failed to load modded item config: " + file.getName(), e);
             }
         }
-        
-        OffToMarket.LOGGER.info("Loaded {} modded item config(s): {}", loadedMods.size(), loadedMods);
+        return configs;
     }
 
     /**
-     * Load a single config file.
+     * Apply parsed configs to a set of towns. The reload listener passes towns
+     * that are not published yet, so players never see a half-applied config.
      */
-    private static void loadConfigFile(File file) throws IOException {
-        String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
-        JsonObject root = JsonParser.parseString(content).getAsJsonObject();
+    public static void applyConfigs(Map<String, JsonObject> configs, Map<String, TownData> towns) {
+        List<String> mods = new ArrayList<>();
+        for (Map.Entry<String, JsonObject> entry : configs.entrySet()) {
+            try {
+                applyConfigFile(entry.getKey(), entry.getValue(), towns, mods);
+            } catch (Exception e) {
+                OffToMarket.LOGGER.error("Failed to load modded item config: " + entry.getKey(), e);
+            }
+        }
+        loadedMods = Collections.unmodifiableList(mods);
         
-        String modId = root.has("modId") ? root.get("modId").getAsString() : file.getName().replace(".json", "");
+        OffToMarket.LOGGER.info("Loaded {} modded item config(s): {}", mods.size(), mods);
+    }
+
+    /**
+     * Apply a single config file.
+     */
+    private static void applyConfigFile(String fileName, JsonObject root, Map<String, TownData> towns,
+                                        List<String> mods) {
+        String modId = root.has("modId") ? root.get("modId").getAsString() : fileName.replace(".json", "");
         
         // Check if the mod is loaded
         boolean modLoaded = isModLoaded(modId);
@@ -106,26 +143,25 @@ public class ModdedItemConfig {
         if (root.has("townAdditions")) {
             JsonObject townAdditions = root.getAsJsonObject("townAdditions");
             for (String townId : townAdditions.keySet()) {
-                processTownAdditions(townId, townAdditions.getAsJsonObject(townId));
+                processTownAdditions(towns.get(townId), townId, townAdditions.getAsJsonObject(townId));
             }
         }
         
         // Process global items (added to all towns)
         if (root.has("globalItems")) {
             JsonObject globalItems = root.getAsJsonObject("globalItems");
-            processGlobalItems(globalItems);
+            processGlobalItems(globalItems, towns.values());
         }
         
         if (!modId.equals("example")) {
-            loadedMods.add(modId);
+            mods.add(modId);
         }
     }
 
     /**
      * Process additions for a specific town.
      */
-    private static void processTownAdditions(String townId, JsonObject additions) {
-        TownData town = TownRegistry.getTown(townId);
+    private static void processTownAdditions(TownData town, String townId, JsonObject additions) {
         if (town == null) {
             OffToMarket.LOGGER.warn("Unknown town '{}' in modded item config", townId);
             return;
@@ -161,6 +197,8 @@ public class ModdedItemConfig {
             }
         }
         
+        town.invalidateQuestPool();
+
         // Set specific need levels
         if (additions.has("needLevels")) {
             JsonObject needLevels = additions.getAsJsonObject("needLevels");
@@ -179,15 +217,16 @@ public class ModdedItemConfig {
     /**
      * Process global items that apply to all towns.
      */
-    private static void processGlobalItems(JsonObject globalItems) {
+    private static void processGlobalItems(JsonObject globalItems, Collection<TownData> towns) {
         // Universal needs - add to all towns
         if (globalItems.has("universalNeeds")) {
             for (JsonElement elem : globalItems.getAsJsonArray("universalNeeds")) {
                 String itemId = elem.getAsString();
                 if (isItemValid(itemId)) {
                     ResourceLocation rl = new ResourceLocation(itemId);
-                    for (TownData town : TownRegistry.getAllTowns()) {
+                    for (TownData town : towns) {
                         town.getNeeds().add(rl);
+                        town.invalidateQuestPool();
                     }
                 }
             }
@@ -199,8 +238,9 @@ public class ModdedItemConfig {
                 String itemId = elem.getAsString();
                 if (isItemValid(itemId)) {
                     ResourceLocation rl = new ResourceLocation(itemId);
-                    for (TownData town : TownRegistry.getAllTowns()) {
+                    for (TownData town : towns) {
                         town.getSurplus().add(rl);
+                        town.invalidateQuestPool();
                     }
                 }
             }
@@ -298,29 +338,22 @@ public class ModdedItemConfig {
      * Get list of loaded mod configs.
      */
     public static List<String> getLoadedMods() {
-        return Collections.unmodifiableList(loadedMods);
+        return loadedMods;
     }
 
     /**
      * API method for other mods to register items programmatically.
+     * The town is changed copy-on-write, so readers never see it half-updated.
      */
     public static void registerTownItem(String townId, String itemId, ItemCategory category, NeedLevel level) {
-        TownData town = TownRegistry.getTown(townId);
-        if (town == null) {
+        if (TownRegistry.getTown(townId) == null) {
             OffToMarket.LOGGER.warn("Cannot register item: unknown town '{}'", townId);
             return;
         }
         
         ResourceLocation rl = new ResourceLocation(itemId);
-        switch (category) {
-            case NEED -> town.getNeeds().add(rl);
-            case SURPLUS -> town.getSurplus().add(rl);
-            case SPECIALTY -> town.getSpecialtyItems().add(rl);
-        }
-        
-        if (level != null) {
-            town.setNeedLevel(itemId, level);
-        }
+        TownRegistry.modifyTowns(town -> town.getId().equals(townId),
+                town -> addItem(town, rl, itemId, category, level));
     }
 
     /**
@@ -328,15 +361,19 @@ public class ModdedItemConfig {
      */
     public static void registerGlobalItem(String itemId, ItemCategory category, NeedLevel level) {
         ResourceLocation rl = new ResourceLocation(itemId);
-        for (TownData town : TownRegistry.getAllTowns()) {
-            switch (category) {
-                case NEED -> town.getNeeds().add(rl);
-                case SURPLUS -> town.getSurplus().add(rl);
-                case SPECIALTY -> town.getSpecialtyItems().add(rl);
-            }
-            if (level != null) {
-                town.setNeedLevel(itemId, level);
-            }
+        TownRegistry.modifyTowns(town -> true, town -> addItem(town, rl, itemId, category, level));
+    }
+
+    private static void addItem(TownData town, ResourceLocation rl, String itemId,
+                                ItemCategory category, NeedLevel level) {
+        switch (category) {
+            case NEED -> town.getNeeds().add(rl);
+            case SURPLUS -> town.getSurplus().add(rl);
+            case SPECIALTY -> town.getSpecialtyItems().add(rl);
+        }
+        town.invalidateQuestPool();
+        if (level != null) {
+            town.setNeedLevel(itemId, level);
         }
     }
 
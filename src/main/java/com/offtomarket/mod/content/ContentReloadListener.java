@@ -0,0 +1,226 @@
+package com.offtomarket.mod.content;
+
+import com.google.gson.JsonObject;
+import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.config.ModdedItemConfig;
+import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.data.TownData;
+import com.offtomarket.mod.data.TownRegistry;
+import com.offtomarket.mod.network.ContentSyncPacket;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.packs.resources.Resource;
+import net.minecraft.server.packs.resources.ResourceManager;
+import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
+import net.minecraft.util.profiling.ProfilerFiller;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Loads towns, custom menus and the modded item config files from the active
+ * datapacks on world load and on every /reload.
+ *
+ * Files are read and parsed in {@link #prepare} on the reload worker thread.
+ * {@link #apply} then builds the complete new town set (hardcoded defaults,
+ * datapack towns, config additions) before publishing it to
+ * {@link TownRegistry} in a single swap, so the server never sees a partly
+ * loaded set. Only towns and menus whose definition changed are sent to
+ * connected clients; players logging in later get everything that differs
+ * from what the mod jar ships with.
+ *
+ * Datapack files live in data/&lt;namespace&gt;/towns/*.json and
+ * data/&lt;namespace&gt;/custom_menus/*.json. Files starting with "_" (the
+ * index and templates) are skipped. Towns registered at runtime through the
+ * {@link ModdedItemConfig} API are rebuilt from scratch on reload.
+ */
+public class ContentReloadListener extends SimplePreparableReloadListener<ContentReloadListener.Prepared> {
+
+    private static final String TOWNS_DIR = "towns";
+    private static final String MENUS_DIR = "custom_menus";
+
+    /** Parsed content, produced off-thread and applied on the server thread. */
+    public record Prepared(Map<String, TownData> towns,
+                           Map<String, CustomMenuDefinition> menus,
+                           Map<String, JsonObject> itemConfigs) {}
+
+    // Content as loaded from the mod jar at startup — what every client starts with
+    private static Map<String, TownData> baselineTowns = Map.of();
+    private static Map<String, CustomMenuDefinition> baselineMenus = Map.of();
+
+    // What a joining player needs on top of the baseline, refreshed on every apply
+    private static volatile ContentSyncPacket loginSync = null;
+
+    /** False until the first apply, so the price tiers preloaded from disk survive world load. */
+    private static boolean appliedOnce = false;
+    /** Client side: whether the registries currently hold content pushed by a remote server. */
+    private static boolean holdsServerContent = false;
+
+    /**
+     * Remember the startup content (classpath towns and menus). Called at the
+     * end of common setup.
+     */
+    public static void captureBaseline() {
+        baselineTowns = TownRegistry.getStaticTowns();
+        baselineMenus = CustomMenuRegistry.getMenus();
+    }
+
+    // ==================== Reload ====================
+
+    @Override
+    protected Prepared prepare(ResourceManager resourceManager, ProfilerFiller profiler) {
+        profiler.startTick();
+        profiler.push("offtomarket_content");
+
+        Map<String, TownData> towns = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : list(resourceManager, TOWNS_DIR).entrySet()) {
+            try (Reader reader = entry.getValue().openAsReader()) {
+                TownData town = TownLoader.parseTown(reader, entry.getKey().toString());
+                if (town != null) towns.put(town.getId(), town);
+            } catch (Exception e) {
+                OffToMarket.LOGGER.error("[TownLoader] Failed to load town file '{}': {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        Map<String, CustomMenuDefinition> menus = new LinkedHashMap<>();
+        for (Map.Entry<ResourceLocation, Resource> entry : list(resourceManager, MENUS_DIR).entrySet()) {
+            try (Reader reader = entry.getValue().openAsReader()) {
+                CustomMenuDefinition def = CustomMenuLoader.parseMenu(reader, entry.getKey().toString());
+                if (def != null) menus.put(def.id, def);
+            } catch (Exception e) {
+                OffToMarket.LOGGER.error("[CustomMenuLoader] Failed to load menu '{}': {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        Map<String, JsonObject> itemConfigs = ModdedItemConfig.readConfigs();
+
+        profiler.pop();
+        profiler.endTick();
+        return new Prepared(towns, menus, itemConfigs);
+    }
+
+    /** JSON files under data/&lt;namespace&gt;/&lt;dir&gt;/, sorted by location so load order is stable. */
+    private static SortedMap<ResourceLocation, Resource> list(ResourceManager resourceManager, String dir) {
+        return new TreeMap<>(resourceManager.listResources(dir, rl -> {
+            String path = rl.getPath();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            return fileName.endsWith(".json") && !fileName.startsWith("_");
+        }));
+    }
+
+    @Override
+    protected void apply(Prepared prepared, ResourceManager resourceManager, ProfilerFiller profiler) {
+        // Build the complete new town set before anything can see it
+        Map<String, TownData> previousTowns = TownRegistry.getStaticTowns();
+        Map<String, TownData> towns = TownRegistry.createDefaultTowns();
+        towns.putAll(prepared.towns());
+        ModdedItemConfig.applyConfigs(prepared.itemConfigs(), towns);
+
+        // Supply and demand is runtime state; carry it over for towns that survive
+        for (TownData town : towns.values()) {
+            TownData old = previousTowns.get(town.getId());
+            if (old != null) {
+                town.getSupplyLevels().putAll(old.getSupplyLevels());
+                town.getPreviousSupplyLevels().putAll(old.getPreviousSupplyLevels());
+            }
+        }
+
+        Map<String, CustomMenuDefinition> previousMenus = CustomMenuRegistry.getMenus();
+        Map<String, CustomMenuDefinition> menus = prepared.menus();
+
+        ContentSyncPacket delta = diff(previousTowns, towns, previousMenus, menus);
+        loginSync = diff(baselineTowns, towns, baselineMenus, menus);
+
+        TownRegistry.publish(towns);
+        CustomMenuRegistry.publish(menus);
+
+        // Tags were rebound, so tag-based price tiers may no longer hold. The
+        // first apply is world load, where the tiers came from the disk cache.
+        if (appliedOnce) PriceCalculator.clearBaseTiers();
+        appliedOnce = true;
+
+        OffToMarket.LOGGER.info("[TownLoader] Loaded {} town(s) and {} menu(s) from datapacks ({} town(s), {} menu(s) changed)",
+                prepared.towns().size(), menus.size(), delta.getTownChangeCount(), delta.getMenuChangeCount());
+
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null && !delta.isEmpty()) {
+            ContentSyncPacket.sendToAll(delta);
+        }
+    }
+
+    /** Towns and menus in {@code next} that differ from {@code prev}, plus the ids that were removed. */
+    private static ContentSyncPacket diff(Map<String, TownData> prevTowns, Map<String, TownData> nextTowns,
+                                          Map<String, CustomMenuDefinition> prevMenus,
+                                          Map<String, CustomMenuDefinition> nextMenus) {
+        List<TownData> changedTowns = new ArrayList<>();
+        for (TownData town : nextTowns.values()) {
+            TownData old = prevTowns.get(town.getId());
+            if (old == null || !old.sameDefinition(town)) changedTowns.add(town);
+        }
+        List<String> removedTowns = new ArrayList<>();
+        for (String id : prevTowns.keySet()) {
+            if (!nextTowns.containsKey(id)) removedTowns.add(id);
+        }
+
+        List<String> changedMenus = new ArrayList<>();
+        for (CustomMenuDefinition def : nextMenus.values()) {
+            CustomMenuDefinition old = prevMenus.get(def.id);
+            String json = CustomMenuLoader.toJson(def);
+            if (old == null || !CustomMenuLoader.toJson(old).equals(json)) changedMenus.add(json);
+        }
+        List<String> removedMenus = new ArrayList<>();
+        for (String id : prevMenus.keySet()) {
+            if (!nextMenus.containsKey(id)) removedMenus.add(id);
+        }
+        return new ContentSyncPacket(changedTowns, removedTowns, changedMenus, removedMenus);
+    }
+
+    // ==================== Client sync ====================
+
+    /** Send a joining player everything that differs from the jar's built-in content. */
+    public static void syncOnLogin(ServerPlayer player) {
+        ContentSyncPacket packet = loginSync;
+        if (packet != null && !packet.isEmpty()) {
+            ContentSyncPacket.sendTo(player, packet);
+        }
+    }
+
+    /**
+     * Apply towns and menus pushed by a remote server on top of the client's
+     * current registries (client side).
+     */
+    public static void applyRemote(List<TownData> towns, List<String> removedTowns,
+                                   List<CustomMenuDefinition> menus, List<String> removedMenus) {
+        Map<String, TownData> nextTowns = new LinkedHashMap<>(TownRegistry.getStaticTowns());
+        removedTowns.forEach(nextTowns::remove);
+        for (TownData town : towns) nextTowns.put(town.getId(), town);
+        TownRegistry.publish(nextTowns);
+
+        Map<String, CustomMenuDefinition> nextMenus = new LinkedHashMap<>(CustomMenuRegistry.getMenus());
+        removedMenus.forEach(nextMenus::remove);
+        for (CustomMenuDefinition def : menus) nextMenus.put(def.id, def);
+        CustomMenuRegistry.publish(nextMenus);
+
+        holdsServerContent = true;
+    }
+
+    /** Client side: drop server-pushed content when leaving a server. */
+    public static void onClientLoggedOut() {
+        if (holdsServerContent) {
+            holdsServerContent = false;
+            restoreBaseline();
+        }
+    }
+
+    /**
+     * Put the startup content back. Called when the server stops, so a
+     * singleplayer world doesn't leak its datapack towns into the next one.
+     */
+    public static void restoreBaseline() {
+        TownRegistry.publish(baselineTowns);
+        CustomMenuRegistry.publish(baselineMenus);
+        loginSync = null;
+    }
+}
@@ -6,6 +6,7 @@ import com.offtomarket.mod.OffToMarket;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
@@ -77,15 +78,33 @@ public class CustomMenuLoader {
                 OffToMarket.LOGGER.warn("[CustomMenuLoader] Menu file not found: {}", path);
                 return null;
             }
-            CustomMenuDefinition def = GSON.fromJson(
-                    new InputStreamReader(is, StandardCharsets.UTF_8), CustomMenuDefinition.class);
-            if (def == null || def.id == null || def.id.isBlank()) {
-                OffToMarket.LOGGER.warn("[CustomMenuLoader] Menu at {} has no 'id' — skipped.", path);
-                return null;
-            }
-            def.id = def.id.trim().toLowerCase(Locale.ROOT);
-            return def;
+            return parseMenu(new InputStreamReader(is, StandardCharsets.UTF_8), path);
+        }
+    }
+
+    /**
+     * Parse one menu JSON document (also used off-thread by the datapack reload listener).
+     *
+     * @return the definition, or null if it has no id
+     */
+    public static CustomMenuDefinition parseMenu(Reader reader, String srcPath) {
+        CustomMenuDefinition def = GSON.fromJson(reader, CustomMenuDefinition.class);
+        if (def == null || def.id == null || def.id.isBlank()) {
+            OffToMarket.LOGGER.warn("[CustomMenuLoader] Menu at {} has no 'id' — skipped.", srcPath);
+            return null;
         }
+        def.id = def.id.trim().toLowerCase(Locale.ROOT);
+        return def;
+    }
+
+    /** Serialize a definition back to JSON (used to diff and sync menus to clients). */
+    public static String toJson(CustomMenuDefinition def) {
+        return GSON.toJson(def);
+    }
+
+    /** Read a definition written by {@link #toJson}. */
+    public static CustomMenuDefinition fromJson(String json) {
+        return GSON.fromJson(json, CustomMenuDefinition.class);
     }
 
     // Internal index POJO
@@ -3,23 +3,38 @@ package com.offtomarket.mod.content;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Holds all loaded custom menu definitions, keyed by their {@code id}.
  *
- * Populated at startup by {@link CustomMenuLoader#loadAll()}.
+ * Populated at startup by {@link CustomMenuLoader#loadAll()} and replaced
+ * wholesale by {@link ContentReloadListener} on datapack reload.
  * Query with {@link #get(String)} in the /otm menu open command handler.
  */
 public final class CustomMenuRegistry {
 
-    private static final Map<String, CustomMenuDefinition> MENUS = new LinkedHashMap<>();
+    /** Swapped as a whole on every change so readers never see a half-built map. */
+    private static volatile Map<String, CustomMenuDefinition> menus = Collections.emptyMap();
 
     private CustomMenuRegistry() {}
 
     /** Register a loaded menu definition. Overwrites any existing entry with the same id. */
-    public static void register(CustomMenuDefinition def) {
-        MENUS.put(def.id, def);
+    public static synchronized void register(CustomMenuDefinition def) {
+        Map<String, CustomMenuDefinition> next = new LinkedHashMap<>(menus);
+        next.put(def.id, def);
+        menus = Collections.unmodifiableMap(next);
+    }
+
+    /** Replace every registered menu at once. */
+    public static synchronized void publish(Map<String, CustomMenuDefinition> newMenus) {
+        menus = Collections.unmodifiableMap(new LinkedHashMap<>(newMenus));
+    }
+
+    /** The current menus by id (read-only). */
+    public static Map<String, CustomMenuDefinition> getMenus() {
+        return menus;
     }
 
     /**
@@ -29,16 +44,16 @@ public final class CustomMenuRegistry {
      * @return the definition, or {@code null} if not found
      */
     public static CustomMenuDefinition get(String id) {
-        return MENUS.get(id == null ? null : id.toLowerCase());
+        return menus.get(id == null ? null : id.toLowerCase(Locale.ROOT));
     }
 
     /** All registered custom menu IDs (for command auto-complete). */
     public static Collection<String> getAllIds() {
-        return Collections.unmodifiableSet(MENUS.keySet());
+        return menus.keySet();
     }
 
     /** The full registry map (unmodifiable). */
     public static Collection<CustomMenuDefinition> getAll() {
-        return Collections.unmodifiableCollection(MENUS.values());
+        return menus.values();
     }
 }
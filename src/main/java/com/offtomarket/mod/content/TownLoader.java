@@ -11,12 +11,18 @@ import net.minecraft.resources.ResourceLocation;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * Loads town definitions from JSON files at mod startup.
  *
+ * On a server the same files are re-read from the active datapacks by
+ * {@link ContentReloadListener} on world load and every /reload, so a datapack
+ * can add or replace towns in data/&lt;namespace&gt;/towns/ without being listed
+ * in _index.json. The classpath index is still what clients start with.
+ *
  * Towns live in: src/main/resources/data/offtomarket/towns/
  *   _index.json        — lists every town filename to load
  *   _template.json     — blank template; copy and rename to add a new town
@@ -81,11 +87,21 @@ public class TownLoader {
                 OffToMarket.LOGGER.warn("[TownLoader] Town file not found at classpath: {}", path);
                 return null;
             }
-            TownDefinition def = GSON.fromJson(new InputStreamReader(is, StandardCharsets.UTF_8), TownDefinition.class);
-            return buildTownData(def, path);
+            return parseTown(new InputStreamReader(is, StandardCharsets.UTF_8), path);
         }
     }
 
+    /**
+     * Parse one town JSON document. Touches no shared state, so the datapack
+     * reload listener calls it from its background prepare step.
+     *
+     * @return the town, or null if the definition has no id
+     */
+    public static TownData parseTown(Reader reader, String srcPath) {
+        TownDefinition def = GSON.fromJson(reader, TownDefinition.class);
+        return buildTownData(def, srcPath);
+    }
+
     private static TownData buildTownData(TownDefinition def, String srcPath) {
         if (def == null || def.id == null || def.id.isBlank()) {
             OffToMarket.LOGGER.warn("[TownLoader] Skipping {} — missing or empty 'id' field.", srcPath);
@@ -156,8 +172,8 @@ public class TownLoader {
                 def.description != null ? def.description : "",
                 Math.min(10, Math.max(1, def.distance)),
                 type,
-                Collections.emptySet(),   // legacy needs set — now expressed via needLevels
-                Collections.emptySet(),   // legacy surplus set — now expressed via needLevels
+                new HashSet<>(),   // legacy needs set — now expressed via needLevels (config files may add to it)
+                new HashSet<>(),   // legacy surplus set — now expressed via needLevels (config files may add to it)
                 specialtyItems,
                 Math.max(1, def.minTraderLevel),
                 needLevels,
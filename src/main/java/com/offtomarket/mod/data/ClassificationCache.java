@@ -0,0 +1,213 @@
+package com.offtomarket.mod.data;
+
+import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.config.ModdedItemConfig;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.fml.loading.FMLPaths;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * On-disk cache of item classification results (config/offtomarket/cache/classification.nbt).
+ *
+ * Holds the {@link ModCompatibility} category of every modded item and the
+ * {@link PriceCalculator} base tiers computed so far. The file is keyed on a
+ * fingerprint of the item registry, the loaded mod versions and the
+ * config/offtomarket/items override files; if any of those change the cache is
+ * ignored, everything is recomputed and the file is rewritten.
+ *
+ * Dynamic towns are not stored — they are rebuilt from the cached categories,
+ * which is cheap once classification is skipped. Datapack tag changes are not
+ * part of the fingerprint; bump {@link #FORMAT_VERSION} or delete the file if a
+ * pack retags items.
+ */
+public final class ClassificationCache {
+
+    /** Bump when the classification rules or file layout change to invalidate old caches. */
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE = "offtomarket/cache/classification.nbt";
+
+    @Nullable
+    private static String fingerprint;
+    /** Categories last loaded or stored, kept so tier saves can rewrite the whole file. */
+    @Nullable
+    private static CompoundTag categoriesTag;
+
+    private ClassificationCache() {}
+
+    // ==================== Fingerprint ====================
+
+    /**
+     * Hash of everything classification depends on: cache format, item registry
+     * contents and order, mod ids with versions, and the override files.
+     */
+    public static String computeFingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+        update(digest, "format:" + FORMAT_VERSION);
+
+        for (Item item : ForgeRegistries.ITEMS) {
+            ResourceLocation rl = ForgeRegistries.ITEMS.getKey(item);
+            if (rl != null) update(digest, rl.toString());
+        }
+
+        List<String> mods = new ArrayList<>();
+        ModList.get().getMods().forEach(info -> mods.add(info.getModId() + "@" + info.getVersion()));
+        Collections.sort(mods);
+        for (String mod : mods) update(digest, mod);
+
+        File[] overrides = ModdedItemConfig.getConfigPath().toFile()
+                .listFiles((dir, name) -> name.endsWith(".json"));
+        if (overrides != null) {
+            Arrays.sort(overrides, Comparator.comparing(File::getName));
+            for (File file : overrides) {
+                update(digest, file.getName());
+                try {
+                    digest.update(Files.readAllBytes(file.toPath()));
+                } catch (IOException e) {
+                    // Unreadable override: make the fingerprint unique so nothing stale is trusted
+                    update(digest, "unreadable:" + System.nanoTime());
+                }
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    // ==================== Categories ====================
+
+    /**
+     * Load cached categories (item id → category bitmask) if the file matches
+     * the given fingerprint. Also seeds {@link PriceCalculator}'s tier cache.
+     * Returns null on a missing, unreadable or mismatched cache.
+     */
+    @Nullable
+    public static Map<ResourceLocation, Long> load(String currentFingerprint) {
+        fingerprint = currentFingerprint;
+        categoriesTag = null;
+        File file = cacheFile().toFile();
+        if (!file.exists()) return null;
+
+        CompoundTag root;
+        try {
+            root = NbtIo.readCompressed(file);
+        } catch (IOException | RuntimeException e) {
+            OffToMarket.LOGGER.warn("[ModCompat] Classification cache unreadable, rebuilding: {}", e.toString());
+            return null;
+        }
+        if (!currentFingerprint.equals(root.getString("Fingerprint"))) {
+            OffToMarket.LOGGER.info("[ModCompat] Classification cache is stale (registry, mods or overrides changed), rebuilding");
+            return null;
+        }
+
+        CompoundTag cats = root.getCompound("Categories");
+        Map<ResourceLocation, Long> masks = new HashMap<>(cats.size());
+        for (String key : cats.getAllKeys()) {
+            ResourceLocation rl = ResourceLocation.tryParse(key);
+            if (rl != null) masks.put(rl, cats.getLong(key));
+        }
+        categoriesTag = cats;
+
+        CompoundTag tiersTag = root.getCompound("Tiers");
+        Map<Item, PriceCalculator.ValueTier> tiers = new HashMap<>(tiersTag.size());
+        for (String key : tiersTag.getAllKeys()) {
+            ResourceLocation rl = ResourceLocation.tryParse(key);
+            Item item = rl != null ? ForgeRegistries.ITEMS.getValue(rl) : null;
+            int[] values = tiersTag.getIntArray(key);
+            if (item != null && values.length == 2) {
+                tiers.put(item, new PriceCalculator.ValueTier(values[0], values[1]));
+            }
+        }
+        PriceCalculator.preloadBaseTiers(tiers);
+        OffToMarket.LOGGER.info("[ModCompat] Loaded classification cache ({} items, {} price tiers)",
+                masks.size(), tiers.size());
+        return masks;
+    }
+
+    /** Store freshly computed categories and rewrite the cache file. */
+    public static void storeCategories(Map<ResourceLocation, Long> masks) {
+        CompoundTag cats = new CompoundTag();
+        for (Map.Entry<ResourceLocation, Long> e : masks.entrySet()) {
+            cats.putLong(e.getKey().toString(), e.getValue());
+        }
+        categoriesTag = cats;
+        write();
+    }
+
+    /**
+     * Rewrite the cache with the price tiers computed so far this session.
+     * Called when the server stops, after most items have been priced.
+     */
+    public static void saveTiers() {
+        if (fingerprint == null || categoriesTag == null) return;
+        write();
+    }
+
+    public static long toMask(Set<ModCompatibility.ItemCategory> categories) {
+        long mask = 0;
+        for (ModCompatibility.ItemCategory cat : categories) mask |= 1L << cat.ordinal();
+        return mask;
+    }
+
+    public static EnumSet<ModCompatibility.ItemCategory> fromMask(long mask) {
+        EnumSet<ModCompatibility.ItemCategory> set = EnumSet.noneOf(ModCompatibility.ItemCategory.class);
+        for (ModCompatibility.ItemCategory cat : ModCompatibility.ItemCategory.values()) {
+            if ((mask & (1L << cat.ordinal())) != 0) set.add(cat);
+        }
+        return set;
+    }
+
+    // ==================== File IO ====================
+
+    private static void write() {
+        CompoundTag root = new CompoundTag();
+        root.putString("Fingerprint", fingerprint);
+        root.put("Categories", categoriesTag);
+
+        CompoundTag tiersTag = new CompoundTag();
+        for (Map.Entry<Item, PriceCalculator.ValueTier> e : PriceCalculator.snapshotBaseTiers().entrySet()) {
+            ResourceLocation rl = ForgeRegistries.ITEMS.getKey(e.getKey());
+            if (rl == null) continue;
+            tiersTag.put(rl.toString(), new IntArrayTag(new int[]{e.getValue().basePrice(), e.getValue().maxPrice()}));
+        }
+        root.put("Tiers", tiersTag);
+
+        Path path = cacheFile();
+        try {
+            Files.createDirectories(path.getParent());
+            // Write to a temp file first so a crash mid-write can't leave a truncated cache
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            NbtIo.writeCompressed(root, tmp.toFile());
+            Files.move(tmp, path, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            OffToMarket.LOGGER.warn("[ModCompat] Failed to write classification cache: {}", e.toString());
+        }
+    }
+
+    private static Path cacheFile() {
+        return FMLPaths.CONFIGDIR.get().resolve(CACHE_FILE);
+    }
+}
@@ -74,9 +74,30 @@ public class DemandTracker {
     }
 
     /**
-     * Decay all supply counts by DECAY_FACTOR.
+     * Advance the decay timer by several ticks at once, exactly as that many
+     * {@link #tick()} calls would. Returns true if decay was applied.
      */
-    private void decay() {
+    public boolean advance(long ticks) {
+        boolean decayed = false;
+        long timer = decayTimer + ticks;
+        while (timer >= DECAY_INTERVAL) {
+            timer -= DECAY_INTERVAL;
+            decay();
+            decayed = true;
+        }
+        decayTimer = (int) timer;
+        return decayed;
+    }
+
+    /** Ticks until the next decay ({@link #tick()} calls including the one that decays). */
+    public int ticksUntilDecay() {
+        return DECAY_INTERVAL - decayTimer;
+    }
+
+    /**
+     * Decay all supply counts by DECAY_FACTOR (package-private for the JMH benchmarks).
+     */
+    void decay() {
         for (Map<String, Integer> townSupply : supplyMap.values()) {
             townSupply.replaceAll((item, count) -> Math.max(0, (int) (count * DECAY_FACTOR)));
             townSupply.values().removeIf(c -> c <= 0);
@@ -0,0 +1,189 @@
+package com.offtomarket.mod.data;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Earnings totals kept in ranked order (highest total first).
+ *
+ * Each {@link #add} or {@link #subtract} moves the changed row only as far as
+ * its new total requires, so the ranking never needs a full sort after it has
+ * been built. Screens read {@link #top(int)} directly instead of sorting maps
+ * every frame, and the server ships just the top rows to clients.
+ */
+public class EarningsRanking {
+
+    /** One ranked entry: a key (town id or item name) with its running totals. */
+    public static final class Row {
+        private final String key;
+        private long total;
+        private int shipments;
+        private int items;
+        private int rank; // position in the ranked list
+
+        private Row(String key) {
+            this.key = key;
+        }
+
+        public String getKey() { return key; }
+        public long getTotal() { return total; }
+        public int getShipments() { return shipments; }
+        public int getItems() { return items; }
+
+        /** Average earnings per shipment (0 when no shipments are recorded). */
+        public long getAverage() {
+            return shipments > 0 ? total / shipments : total;
+        }
+    }
+
+    private final Map<String, Row> byKey = new HashMap<>();
+    private final List<Row> ranked = new ArrayList<>();
+
+    // Totals across every row (not just the top ones)
+    private long grandTotal = 0;
+    private int grandShipments = 0;
+    private int grandItems = 0;
+
+    /**
+     * Add earnings to a key and move it up the ranking as needed.
+     */
+    public void add(String key, long amount, int shipments, int items) {
+        Row row = byKey.get(key);
+        if (row == null) {
+            row = new Row(key);
+            row.rank = ranked.size();
+            ranked.add(row);
+            byKey.put(key, row);
+        }
+        row.total += amount;
+        row.shipments += shipments;
+        row.items += items;
+        grandTotal += amount;
+        grandShipments += shipments;
+        grandItems += items;
+        bubbleUp(row);
+    }
+
+    /**
+     * Remove earnings from a key (e.g. a record falling out of a history window)
+     * and move it down the ranking. Rows with nothing left are dropped.
+     */
+    public void subtract(String key, long amount, int shipments, int items) {
+        Row row = byKey.get(key);
+        if (row == null) return;
+        row.total -= amount;
+        row.shipments -= shipments;
+        row.items -= items;
+        grandTotal -= amount;
+        grandShipments -= shipments;
+        grandItems -= items;
+        if (row.total <= 0 && row.shipments <= 0) {
+            removeRow(row);
+        } else {
+            bubbleDown(row);
+        }
+    }
+
+    public void clear() {
+        byKey.clear();
+        ranked.clear();
+        grandTotal = 0;
+        grandShipments = 0;
+        grandItems = 0;
+    }
+
+    /** The highest-earning rows, best first. The returned list is read-only. */
+    public List<Row> top(int limit) {
+        List<Row> view = ranked.size() <= limit ? ranked : ranked.subList(0, limit);
+        return Collections.unmodifiableList(view);
+    }
+
+    public int size() { return ranked.size(); }
+    public long getGrandTotal() { return grandTotal; }
+    public int getGrandShipments() { return grandShipments; }
+    public int getGrandItems() { return grandItems; }
+
+    // ==================== Ordering ====================
+
+    private void bubbleUp(Row row) {
+        int i = row.rank;
+        while (i > 0 && ranked.get(i - 1).total < row.total) {
+            Row prev = ranked.get(i - 1);
+            ranked.set(i, prev);
+            prev.rank = i;
+            i--;
+        }
+        ranked.set(i, row);
+        row.rank = i;
+    }
+
+    private void bubbleDown(Row row) {
+        int i = row.rank;
+        while (i + 1 < ranked.size() && ranked.get(i + 1).total > row.total) {
+            Row next = ranked.get(i + 1);
+            ranked.set(i, next);
+            next.rank = i;
+            i++;
+        }
+        ranked.set(i, row);
+        row.rank = i;
+    }
+
+    private void removeRow(Row row) {
+        ranked.remove(row.rank);
+        for (int i = row.rank; i < ranked.size(); i++) {
+            ranked.get(i).rank = i;
+        }
+        byKey.remove(row.key);
+    }
+
+    // ==================== Sync ====================
+
+    /**
+     * Save the top rows plus the grand totals for client sync.
+     * Not used for world saves — the server rebuilds rankings from its earnings maps.
+     */
+    public CompoundTag saveTop(int limit) {
+        CompoundTag tag = new CompoundTag();
+        ListTag rows = new ListTag();
+        for (Row row : top(limit)) {
+            CompoundTag rowTag = new CompoundTag();
+            rowTag.putString("Key", row.key);
+            rowTag.putLong("Total", row.total);
+            rowTag.putInt("Ships", row.shipments);
+            rowTag.putInt("Items", row.items);
+            rows.add(rowTag);
+        }
+        tag.put("Rows", rows);
+        tag.putLong("Total", grandTotal);
+        tag.putInt("Ships", grandShipments);
+        tag.putInt("Items", grandItems);
+        return tag;
+    }
+
+    /** Replace the contents with rows written by {@link #saveTop(int)}, keeping their order. */
+    public void loadTop(CompoundTag tag) {
+        clear();
+        ListTag rows = tag.getList("Rows", Tag.TAG_COMPOUND);
+        for (int i = 0; i < rows.size(); i++) {
+            CompoundTag rowTag = rows.getCompound(i);
+            Row row = new Row(rowTag.getString("Key"));
+            row.total = rowTag.getLong("Total");
+            row.shipments = rowTag.getInt("Ships");
+            row.items = rowTag.getInt("Items");
+            row.rank = ranked.size();
+            ranked.add(row);
+            byKey.put(row.key, row);
+        }
+        grandTotal = tag.getLong("Total");
+        grandShipments = tag.getInt("Ships");
+        grandItems = tag.getInt("Items");
+    }
+}
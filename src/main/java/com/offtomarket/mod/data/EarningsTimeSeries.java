@@ -0,0 +1,223 @@
+package com.offtomarket.mod.data;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Earnings over time, bucketed per Minecraft day and rolled up into weeks and
+ * months.
+ *
+ * Each resolution is a fixed ring of buckets. Recording into a period whose
+ * slot still holds an older period recycles the slot, so memory is bounded by
+ * retention × distinct keys no matter how old the world gets. Keys (town ids,
+ * item registry ids) are interned to small ints once, and buckets store
+ * int → long maps instead of string-keyed ones.
+ *
+ * Amounts are recorded into all three resolutions at once; a week or month
+ * bucket therefore outlives the daily buckets it covers.
+ */
+public class EarningsTimeSeries {
+
+    public static final long TICKS_PER_DAY = 24000L;
+
+    /** Bucket width in days and how many buckets are kept. */
+    public enum Resolution {
+        DAY("Day", 1, 14),
+        WEEK("Week", 7, 12),
+        MONTH("Month", 28, 12);
+
+        private final String tagName;
+        private final int days;
+        private final int retention;
+
+        Resolution(String tagName, int days, int retention) {
+            this.tagName = tagName;
+            this.days = days;
+            this.retention = retention;
+        }
+
+        public String getTagName() { return tagName; }
+        public int getDays() { return days; }
+        public int getRetention() { return retention; }
+
+        /** Period index containing the given day. */
+        public long periodOf(long day) {
+            return Math.floorDiv(day, days);
+        }
+    }
+
+    private static final class Bucket {
+        long period = Long.MIN_VALUE;
+        long total;
+        final Int2LongOpenHashMap amounts = new Int2LongOpenHashMap();
+
+        void reset(long period) {
+            this.period = period;
+            total = 0;
+            amounts.clear();
+        }
+    }
+
+    private final Object2IntOpenHashMap<String> keyIds = new Object2IntOpenHashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Bucket[][] rings = new Bucket[Resolution.values().length][];
+
+    public EarningsTimeSeries() {
+        keyIds.defaultReturnValue(-1);
+        for (Resolution res : Resolution.values()) {
+            Bucket[] ring = new Bucket[res.retention];
+            for (int i = 0; i < ring.length; i++) ring[i] = new Bucket();
+            rings[res.ordinal()] = ring;
+        }
+    }
+
+    /** Day number for a game time. */
+    public static long dayOf(long gameTime) {
+        return Math.floorDiv(gameTime, TICKS_PER_DAY);
+    }
+
+    // ==================== Recording ====================
+
+    /** Add earnings for a key on the given day. */
+    public void record(long day, String key, long amount) {
+        int id = intern(key);
+        for (Resolution res : Resolution.values()) {
+            Bucket bucket = bucketFor(res, res.periodOf(day), true);
+            bucket.total += amount;
+            bucket.amounts.addTo(id, amount);
+        }
+    }
+
+    public void clear() {
+        keyIds.clear();
+        keys.clear();
+        for (Bucket[] ring : rings) {
+            for (Bucket bucket : ring) bucket.reset(Long.MIN_VALUE);
+        }
+    }
+
+    private int intern(String key) {
+        int id = keyIds.getInt(key);
+        if (id < 0) {
+            id = keys.size();
+            keys.add(key);
+            keyIds.put(key, id);
+        }
+        return id;
+    }
+
+    /** The bucket for a period, or null if it has been recycled (unless {@code create}). */
+    private Bucket bucketFor(Resolution res, long period, boolean create) {
+        Bucket[] ring = rings[res.ordinal()];
+        Bucket bucket = ring[(int) Math.floorMod(period, (long) ring.length)];
+        if (bucket.period != period) {
+            if (!create) return null;
+            bucket.reset(period);
+        }
+        return bucket;
+    }
+
+    // ==================== Queries ====================
+
+    /** Total earnings in the period containing {@code day}. */
+    public long total(Resolution res, long day) {
+        Bucket bucket = bucketFor(res, res.periodOf(day), false);
+        return bucket != null ? bucket.total : 0;
+    }
+
+    /** Earnings for one key in the period containing {@code day}. */
+    public long amount(Resolution res, long day, String key) {
+        int id = keyIds.getInt(key);
+        if (id < 0) return 0;
+        Bucket bucket = bucketFor(res, res.periodOf(day), false);
+        return bucket != null ? bucket.amounts.get(id) : 0;
+    }
+
+    /**
+     * Totals for the last {@code count} periods ending with the one containing
+     * {@code day}, oldest first. Periods outside the retention window are 0.
+     */
+    public long[] totals(Resolution res, long day, int count) {
+        long[] out = new long[Math.max(0, count)];
+        long current = res.periodOf(day);
+        for (int i = 0; i < out.length; i++) {
+            Bucket bucket = bucketFor(res, current - (out.length - 1 - i), false);
+            out[i] = bucket != null ? bucket.total : 0;
+        }
+        return out;
+    }
+
+    // ==================== NBT ====================
+
+    public CompoundTag save() {
+        CompoundTag tag = new CompoundTag();
+        ListTag keyList = new ListTag();
+        for (String key : keys) keyList.add(StringTag.valueOf(key));
+        tag.put("Keys", keyList);
+
+        for (Resolution res : Resolution.values()) {
+            ListTag buckets = new ListTag();
+            for (Bucket bucket : rings[res.ordinal()]) {
+                if (bucket.period == Long.MIN_VALUE) continue;
+                CompoundTag b = new CompoundTag();
+                b.putLong("Period", bucket.period);
+                int[] ids = new int[bucket.amounts.size()];
+                long[] amounts = new long[ids.length];
+                int i = 0;
+                for (Int2LongMap.Entry e : bucket.amounts.int2LongEntrySet()) {
+                    ids[i] = e.getIntKey();
+                    amounts[i] = e.getLongValue();
+                    i++;
+                }
+                b.putIntArray("Ids", ids);
+                b.put("Amounts", new LongArrayTag(amounts));
+                buckets.add(b);
+            }
+            tag.put(res.tagName, buckets);
+        }
+        return tag;
+    }
+
+    public void load(CompoundTag tag) {
+        clear();
+        ListTag keyList = tag.getList("Keys", Tag.TAG_STRING);
+        for (int i = 0; i < keyList.size(); i++) intern(keyList.getString(i));
+
+        for (Resolution res : Resolution.values()) {
+            ListTag buckets = tag.getList(res.tagName, Tag.TAG_COMPOUND);
+            for (int i = 0; i < buckets.size(); i++) {
+                CompoundTag b = buckets.getCompound(i);
+                Bucket bucket = bucketFor(res, b.getLong("Period"), true);
+                int[] ids = b.getIntArray("Ids");
+                long[] amounts = b.getLongArray("Amounts");
+                for (int j = 0; j < Math.min(ids.length, amounts.length); j++) {
+                    if (ids[j] < 0 || ids[j] >= keys.size()) continue;
+                    bucket.amounts.addTo(ids[j], amounts[j]);
+                    bucket.total += amounts[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-period totals only (no keys), oldest first, ending with the period
+     * containing {@code day}. This is what clients get for trend displays.
+     */
+    public CompoundTag saveTrend(long day) {
+        CompoundTag tag = new CompoundTag();
+        tag.putLong("Day", day);
+        for (Resolution res : Resolution.values()) {
+            tag.putLongArray(res.tagName, totals(res, day, res.retention));
+        }
+        return tag;
+    }
+}
@@ -2,21 +2,40 @@ package com.offtomarket.mod.data;
 
 import net.minecraft.nbt.CompoundTag;
 
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 /**
  * Represents a single mail note/letter stored in a Mailbox.
  * Notes are generated from various trading events and stored for the player to read.
+ *
+ * A note made by {@link NoteTemplates#createNote} only stores which template it
+ * uses and the values for its placeholders; the subject, body and sender are
+ * filled in the first time something reads them, which in practice is the
+ * mailbox screen. Saves and sync packets carry a few short strings rather
+ * than the whole letter. Notes saved before templates were stored keep their
+ * text as-is.
  */
 public class MailNote {
     private final UUID id;
     private final NoteType type;
-    private final String subject;
-    private final String body;
-    private final String sender;
+    /** Index into {@link NoteTemplates}' pool for this type, or -1 for a note stored as text. */
+    private final int template;
+    @Nullable
+    private final Args args;
+    // Stored text, or rendered from the template on first use
+    @Nullable
+    private String subject;
+    @Nullable
+    private String body;
+    @Nullable
+    private String sender;
     private final long timestamp; // game time when created
     private boolean read;
 
+    /** Placeholder values for a templated note (empty / 0 where the template does not use one). */
+    public record Args(String town, String item, int count, String coins, String reward, String player) {}
+
     public enum NoteType {
         DIPLOMAT_FAILURE("Diplomat"),
         QUEST_COMPLETED("Quest"),
@@ -31,19 +50,21 @@ public class MailNote {
     }
 
     public MailNote(NoteType type, String subject, String body, String sender, long timestamp) {
-        this.id = UUID.randomUUID();
-        this.type = type;
-        this.subject = subject;
-        this.body = body;
-        this.sender = sender;
-        this.timestamp = timestamp;
-        this.read = false;
+        this(UUID.randomUUID(), type, -1, null, subject, body, sender, timestamp, false);
+    }
+
+    /** A note rendered from template {@code template} of its type's pool. */
+    public MailNote(NoteType type, int template, Args args, long timestamp) {
+        this(UUID.randomUUID(), type, template, args, null, null, null, timestamp, false);
     }
 
-    private MailNote(UUID id, NoteType type, String subject, String body, String sender,
+    private MailNote(UUID id, NoteType type, int template, @Nullable Args args,
+                     @Nullable String subject, @Nullable String body, @Nullable String sender,
                      long timestamp, boolean read) {
         this.id = id;
         this.type = type;
+        this.template = template;
+        this.args = args;
         this.subject = subject;
         this.body = body;
         this.sender = sender;
@@ -54,23 +75,50 @@ public class MailNote {
     // Getters
     public UUID getId() { return id; }
     public NoteType getType() { return type; }
-    public String getSubject() { return subject; }
-    public String getBody() { return body; }
-    public String getSender() { return sender; }
+    public String getSubject() { render(); return subject; }
+    public String getBody() { render(); return body; }
+    public String getSender() { render(); return sender; }
     public long getTimestamp() { return timestamp; }
     public boolean isRead() { return read; }
 
     public void markRead() { this.read = true; }
 
+    /** A separate copy with the same id, for delivering one note to several mailboxes. */
+    public MailNote copy() {
+        return template >= 0
+                ? new MailNote(id, type, template, args, null, null, null, timestamp, read)
+                : new MailNote(id, type, -1, null, subject, body, sender, timestamp, read);
+    }
+
+    private void render() {
+        if (subject != null || args == null) return;
+        NoteTemplates.Template t = NoteTemplates.getTemplate(type, template);
+        subject = NoteTemplates.fill(t.subject(), args);
+        body = NoteTemplates.fill(t.body(), args);
+        sender = NoteTemplates.fill(t.sender(), args);
+    }
+
     // ==================== NBT ====================
 
     public CompoundTag save() {
         CompoundTag tag = new CompoundTag();
         tag.putUUID("Id", id);
         tag.putString("Type", type.name());
-        tag.putString("Subject", subject);
-        tag.putString("Body", body);
-        tag.putString("Sender", sender);
+        if (template >= 0 && args != null) {
+            tag.putInt("Template", template);
+            CompoundTag argTag = new CompoundTag();
+            putIfSet(argTag, "Town", args.town());
+            putIfSet(argTag, "Item", args.item());
+            if (args.count() != 0) argTag.putInt("Count", args.count());
+            putIfSet(argTag, "Coins", args.coins());
+            putIfSet(argTag, "Reward", args.reward());
+            putIfSet(argTag, "Player", args.player());
+            tag.put("Args", argTag);
+        } else {
+            tag.putString("Subject", getSubject());
+            tag.putString("Body", getBody());
+            tag.putString("Sender", getSender());
+        }
         tag.putLong("Timestamp", timestamp);
         tag.putBoolean("Read", read);
         return tag;
@@ -79,11 +127,19 @@ public class MailNote {
     public static MailNote load(CompoundTag tag) {
         UUID id = tag.getUUID("Id");
         NoteType type = NoteType.valueOf(tag.getString("Type"));
-        String subject = tag.getString("Subject");
-        String body = tag.getString("Body");
-        String sender = tag.getString("Sender");
         long timestamp = tag.getLong("Timestamp");
         boolean read = tag.getBoolean("Read");
-        return new MailNote(id, type, subject, body, sender, timestamp, read);
+        if (tag.contains("Template")) {
+            CompoundTag argTag = tag.getCompound("Args");
+            Args args = new Args(argTag.getString("Town"), argTag.getString("Item"), argTag.getInt("Count"),
+                    argTag.getString("Coins"), argTag.getString("Reward"), argTag.getString("Player"));
+            return new MailNote(id, type, tag.getInt("Template"), args, null, null, null, timestamp, read);
+        }
+        return new MailNote(id, type, -1, null, tag.getString("Subject"), tag.getString("Body"),
+                tag.getString("Sender"), timestamp, read);
+    }
+
+    private static void putIfSet(CompoundTag tag, String key, String value) {
+        if (!value.isEmpty()) tag.putString(key, value);
     }
 }
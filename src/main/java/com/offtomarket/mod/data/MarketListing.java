@@ -10,8 +10,13 @@ import java.util.*;
 /**
  * Represents a market listing from a town that appears on the Market Board.
  * These are items that towns are currently selling.
+ *
+ * Each listing has a stable id. Only its stock changes after it is listed
+ * ({@link #withCount(int)} keeps the id), so purchases refer to listings by
+ * id rather than by their position on the board.
  */
 public class MarketListing {
+    private final UUID id;
     private final String townId;
     private final ResourceLocation itemId;
     private final String itemDisplayName;
@@ -36,6 +41,14 @@ public class MarketListing {
     public MarketListing(String townId, ResourceLocation itemId, String itemDisplayName,
                          int count, int pricePerItem, long listedTime, boolean onSale, int saleDiscount,
                          @javax.annotation.Nullable CompoundTag itemNbt) {
+        this(UUID.randomUUID(), townId, itemId, itemDisplayName, count, pricePerItem, listedTime,
+                onSale, saleDiscount, itemNbt);
+    }
+
+    public MarketListing(UUID id, String townId, ResourceLocation itemId, String itemDisplayName,
+                         int count, int pricePerItem, long listedTime, boolean onSale, int saleDiscount,
+                         @javax.annotation.Nullable CompoundTag itemNbt) {
+        this.id = id;
         this.townId = townId;
         this.itemId = itemId;
         this.itemDisplayName = itemDisplayName;
@@ -47,6 +60,7 @@ public class MarketListing {
         this.itemNbt = itemNbt;
     }
 
+    public UUID getId() { return id; }
     public String getTownId() { return townId; }
     public ResourceLocation getItemId() { return itemId; }
     public String getItemDisplayName() { return itemDisplayName; }
@@ -59,6 +73,12 @@ public class MarketListing {
     @javax.annotation.Nullable
     public CompoundTag getItemNbt() { return itemNbt; }
 
+    /** The same listing with {@code newCount} left in stock. */
+    public MarketListing withCount(int newCount) {
+        return new MarketListing(id, townId, itemId, itemDisplayName, newCount, pricePerItem, listedTime,
+                onSale, saleDiscount, itemNbt);
+    }
+
     /**
      * Create an ItemStack for this listing (applies NBT if present, e.g. enchanted books).
      */
@@ -72,6 +92,7 @@ public class MarketListing {
 
     public CompoundTag save() {
         CompoundTag tag = new CompoundTag();
+        tag.putUUID("Id", id);
         tag.putString("Town", townId);
         tag.putString("Item", itemId.toString());
         tag.putString("Name", itemDisplayName);
@@ -86,6 +107,7 @@ public class MarketListing {
 
     public static MarketListing load(CompoundTag tag) {
         return new MarketListing(
+                tag.hasUUID("Id") ? tag.getUUID("Id") : UUID.randomUUID(), // older saves have no id
                 tag.getString("Town"),
                 new ResourceLocation(tag.getString("Item")),
                 tag.getString("Name"),
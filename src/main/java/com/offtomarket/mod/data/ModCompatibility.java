@@ -2,9 +2,9 @@ package com.offtomarket.mod.data;
 
 import com.offtomarket.mod.OffToMarket;
 import com.offtomarket.mod.config.ModConfig;
+import net.minecraft.core.Holder;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.tags.ItemTags;
-import net.minecraft.tags.TagKey;
 import net.minecraft.world.entity.EquipmentSlot;
 import net.minecraft.world.food.FoodProperties;
 import net.minecraft.world.item.*;
@@ -299,8 +299,10 @@ public class ModCompatibility {
 
     // ==================== Cached Data ====================
 
+    // Built once by initialize() and never mutated afterwards
     private static Map<String, Set<Item>> itemsByMod = null;
-    private static Map<ItemCategory, Set<Item>> itemsByCategory = null;
+    private static Map<ItemCategory, Set<Item>> itemsByCategory = null;   // reverse index
+    private static Map<Item, Set<ItemCategory>> categoriesByItem = null;  // forward table
     private static Map<String, TownData> dynamicTowns = null;
     private static boolean initialized = false;
 
@@ -309,153 +311,198 @@ public class ModCompatibility {
     /**
      * Initialize the mod compatibility system.
      * Call this after registries are frozen (e.g., in FMLCommonSetupEvent).
+     *
+     * Runs in phases: snapshot the registry, classify every modded item in a
+     * single pass (or load the cached result), then build the immutable forward and reverse
+     * indexes. Each phase's time is logged.
      */
     public static void initialize() {
         if (initialized) return;
-        
-        itemsByMod = new HashMap<>();
-        itemsByCategory = new EnumMap<>(ItemCategory.class);
-        dynamicTowns = new LinkedHashMap<>();
-
-        // Initialize category maps
-        for (ItemCategory cat : ItemCategory.values()) {
-            itemsByCategory.put(cat, new HashSet<>());
-        }
 
-        // Scan all items in the registry
-        int modItemCount = 0;
-        Set<String> discoveredMods = new HashSet<>();
-        
+        // Phase 1: snapshot modded items from the registry (registry order)
+        long start = System.nanoTime();
+        List<Item> items = new ArrayList<>();
+        List<ResourceLocation> ids = new ArrayList<>();
         for (Item item : ForgeRegistries.ITEMS) {
             ResourceLocation rl = ForgeRegistries.ITEMS.getKey(item);
             if (rl == null) continue;
-
-            String modId = rl.getNamespace();
-            
             // Skip minecraft items (already handled)
-            if (modId.equals("minecraft")) continue;
-
-            // Add to mod map
-            itemsByMod.computeIfAbsent(modId, k -> new HashSet<>()).add(item);
-            discoveredMods.add(modId);
-            modItemCount++;
-
-            // Categorize item (wrapped in try-catch so one bad modded item can't crash everything)
-            try {
-                categorizeItem(item, rl);
-            } catch (Exception e) {
-                OffToMarket.LOGGER.warn("[ModCompat] Failed to categorize item {}: {}", rl, e.getMessage());
+            if (rl.getNamespace().equals("minecraft")) continue;
+            items.add(item);
+            ids.add(rl);
+        }
+        int n = items.size();
+        long snapshotDone = System.nanoTime();
+
+        // Phase 2: classify — from the on-disk cache when the registry, mods and overrides
+        // are unchanged, otherwise one per-item pass into a position-indexed array
+        @SuppressWarnings("unchecked")
+        Set<ItemCategory>[] results = new Set[n];
+        String source;
+        Map<ResourceLocation, Long> cached = ClassificationCache.load(ClassificationCache.computeFingerprint());
+        if (cached != null) {
+            source = "cached";
+            for (int i = 0; i < n; i++) {
+                results[i] = Collections.unmodifiableSet(
+                        ClassificationCache.fromMask(cached.getOrDefault(ids.get(i), 0L)));
+            }
+        } else {
+            // On this thread: classify builds ItemStacks and calls into other mods' item code,
+            // which fires capability attachment and is not safe off the main thread
+            source = "fresh";
+            for (int i = 0; i < n; i++) results[i] = classifySafely(items.get(i), ids.get(i));
+            Map<ResourceLocation, Long> masks = new HashMap<>(n);
+            for (int i = 0; i < n; i++) {
+                // Failed items are left out and load back as uncategorized
+                if (results[i] != null) masks.put(ids.get(i), ClassificationCache.toMask(results[i]));
+            }
+            ClassificationCache.storeCategories(masks);
+        }
+        long classifyDone = System.nanoTime();
+
+        // Phase 3: build the forward table and the reverse/mod indexes
+        Map<String, Set<Item>> byMod = new HashMap<>();
+        Map<ItemCategory, Set<Item>> byCategory = new EnumMap<>(ItemCategory.class);
+        for (ItemCategory cat : ItemCategory.values()) {
+            byCategory.put(cat, new LinkedHashSet<>());
+        }
+        Map<Item, Set<ItemCategory>> forward = new IdentityHashMap<>(n);
+        int failed = 0;
+        for (int i = 0; i < n; i++) {
+            Item item = items.get(i);
+            ResourceLocation rl = ids.get(i);
+            byMod.computeIfAbsent(rl.getNamespace(), k -> new LinkedHashSet<>()).add(item);
+
+            Set<ItemCategory> cats = results[i];
+            if (cats == null) {
+                failed++;
                 continue;
             }
-            
-            // Log if enabled
+            forward.put(item, cats);
+            for (ItemCategory cat : cats) {
+                byCategory.get(cat).add(item);
+            }
+
             if (ModConfig.logDiscoveredItems) {
-                OffToMarket.LOGGER.info("[ModCompat] Discovered: {} (category: {})", 
-                    rl, getCategoryFor(item));
+                OffToMarket.LOGGER.info("[ModCompat] Discovered: {} (category: {})",
+                    rl, cats.isEmpty() ? "uncategorized" : cats.iterator().next().getId());
             }
         }
+        byMod.replaceAll((mod, set) -> Collections.unmodifiableSet(set));
+        byCategory.replaceAll((cat, set) -> Collections.unmodifiableSet(set));
+        itemsByMod = Collections.unmodifiableMap(byMod);
+        itemsByCategory = Collections.unmodifiableMap(byCategory);
+        categoriesByItem = Collections.unmodifiableMap(forward);
+        long indexDone = System.nanoTime();
 
         // Log summary
-        OffToMarket.LOGGER.info("[ModCompat] Discovered {} items from {} mods", modItemCount, discoveredMods.size());
-        
-        // Generate dynamic towns for loaded mods (if enabled)
+        OffToMarket.LOGGER.info("[ModCompat] Discovered {} items from {} mods", n, itemsByMod.size());
+        if (failed > 0) {
+            OffToMarket.LOGGER.warn("[ModCompat] {} items could not be categorized", failed);
+        }
+
+        // Phase 4: generate dynamic towns for loaded mods (if enabled)
+        dynamicTowns = new LinkedHashMap<>();
         if (ModConfig.enableDynamicTowns) {
             generateDynamicTowns();
             OffToMarket.LOGGER.info("[ModCompat] Generated {} dynamic mod towns", dynamicTowns.size());
         } else {
             OffToMarket.LOGGER.info("[ModCompat] Dynamic towns disabled in config");
         }
+        dynamicTowns = Collections.unmodifiableMap(dynamicTowns);
+        TownRegistry.publishDynamic(dynamicTowns);
+        long townsDone = System.nanoTime();
+
+        OffToMarket.LOGGER.info("[ModCompat] Timings: snapshot {} ms, classify {} ms ({}), index {} ms, towns {} ms",
+                millis(snapshotDone - start), millis(classifyDone - snapshotDone),
+                source, millis(indexDone - classifyDone), millis(townsDone - indexDone));
 
         initialized = true;
     }
-    
-    /**
-     * Get the primary category for an item.
-     */
-    private static String getCategoryFor(Item item) {
-        for (Map.Entry<ItemCategory, Set<Item>> entry : itemsByCategory.entrySet()) {
-            if (entry.getValue().contains(item)) {
-                return entry.getKey().id;
-            }
-        }
-        return "uncategorized";
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
     }
 
     // ==================== Item Categorization ====================
 
-    private static void categorizeItem(Item item, ResourceLocation rl) {
-        String path = rl.getPath().toLowerCase();
-        ItemStack stack = new ItemStack(item);
+    /** Classify one item, wrapped so one bad modded item can't crash everything. Null on failure. */
+    private static Set<ItemCategory> classifySafely(Item item, ResourceLocation rl) {
+        try {
+            return Collections.unmodifiableSet(classify(item, rl));
+        } catch (Exception e) {
+            OffToMarket.LOGGER.warn("[ModCompat] Failed to categorize item {}: {}", rl, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Work out every category an item belongs to. Reads only the item and its
+     * registry id, so it is safe to call from worker threads.
+     */
+    private static EnumSet<ItemCategory> classify(Item item, ResourceLocation rl) {
+        EnumSet<ItemCategory> cats = EnumSet.noneOf(ItemCategory.class);
+        String path = rl.getPath().toLowerCase(Locale.ROOT);
+        @SuppressWarnings("deprecation")
+        Holder.Reference<Item> holder = item.builtInRegistryHolder();
 
         // Check tags first (most reliable for mod compat)
-        if (isTagged(stack, Tags.Items.INGOTS)) {
-            itemsByCategory.get(ItemCategory.INGOTS).add(item);
-        }
-        if (isTagged(stack, Tags.Items.GEMS)) {
-            itemsByCategory.get(ItemCategory.GEMS).add(item);
-        }
-        if (isTagged(stack, Tags.Items.ORES)) {
-            itemsByCategory.get(ItemCategory.ORES).add(item);
-        }
-        if (isTagged(stack, Tags.Items.DUSTS)) {
-            itemsByCategory.get(ItemCategory.DUSTS).add(item);
-        }
-        if (isTagged(stack, Tags.Items.NUGGETS)) {
-            itemsByCategory.get(ItemCategory.NUGGETS).add(item);
-        }
-        if (isTagged(stack, Tags.Items.DYES)) {
-            itemsByCategory.get(ItemCategory.DYES).add(item);
-        }
+        if (holder.is(Tags.Items.INGOTS)) cats.add(ItemCategory.INGOTS);
+        if (holder.is(Tags.Items.GEMS)) cats.add(ItemCategory.GEMS);
+        if (holder.is(Tags.Items.ORES)) cats.add(ItemCategory.ORES);
+        if (holder.is(Tags.Items.DUSTS)) cats.add(ItemCategory.DUSTS);
+        if (holder.is(Tags.Items.NUGGETS)) cats.add(ItemCategory.NUGGETS);
+        if (holder.is(Tags.Items.DYES)) cats.add(ItemCategory.DYES);
 
         // Check item type
         if (item instanceof SwordItem) {
-            itemsByCategory.get(ItemCategory.SWORDS).add(item);
+            cats.add(ItemCategory.SWORDS);
         } else if (item instanceof AxeItem) {
-            itemsByCategory.get(ItemCategory.AXES).add(item);
+            cats.add(ItemCategory.AXES);
         } else if (item instanceof PickaxeItem) {
-            itemsByCategory.get(ItemCategory.PICKAXES).add(item);
+            cats.add(ItemCategory.PICKAXES);
         } else if (item instanceof ShovelItem) {
-            itemsByCategory.get(ItemCategory.SHOVELS).add(item);
+            cats.add(ItemCategory.SHOVELS);
         } else if (item instanceof HoeItem) {
-            itemsByCategory.get(ItemCategory.HOES).add(item);
+            cats.add(ItemCategory.HOES);
         } else if (item instanceof BowItem || item instanceof CrossbowItem) {
-            itemsByCategory.get(ItemCategory.BOWS).add(item);
+            cats.add(ItemCategory.BOWS);
         } else if (item instanceof ArmorItem armor) {
             // Get equipment slot from a stack of the item (may be null for some modded armor)
             EquipmentSlot slot = armor.getEquipmentSlot(new ItemStack(armor));
             if (slot != null) {
                 switch (slot) {
-                    case HEAD -> itemsByCategory.get(ItemCategory.HELMETS).add(item);
-                    case CHEST -> itemsByCategory.get(ItemCategory.CHESTPLATES).add(item);
-                    case LEGS -> itemsByCategory.get(ItemCategory.LEGGINGS).add(item);
-                    case FEET -> itemsByCategory.get(ItemCategory.BOOTS).add(item);
+                    case HEAD -> cats.add(ItemCategory.HELMETS);
+                    case CHEST -> cats.add(ItemCategory.CHESTPLATES);
+                    case LEGS -> cats.add(ItemCategory.LEGGINGS);
+                    case FEET -> cats.add(ItemCategory.BOOTS);
                     default -> {} // Ignore non-standard slots
                 }
             }
         } else if (item instanceof PotionItem || item instanceof TippedArrowItem) {
-            itemsByCategory.get(ItemCategory.POTIONS).add(item);
+            cats.add(ItemCategory.POTIONS);
         } else if (item instanceof EnchantedBookItem) {
-            itemsByCategory.get(ItemCategory.ENCHANTED_BOOKS).add(item);
+            cats.add(ItemCategory.ENCHANTED_BOOKS);
         } else if (item instanceof SpawnEggItem) {
-            itemsByCategory.get(ItemCategory.SPAWN_EGGS).add(item);
+            cats.add(ItemCategory.SPAWN_EGGS);
         } else if (item instanceof RecordItem) {
-            itemsByCategory.get(ItemCategory.MUSIC_DISCS).add(item);
+            cats.add(ItemCategory.MUSIC_DISCS);
         } else if (item instanceof BlockItem) {
             // Check for decoration/building blocks
             if (path.contains("brick") || path.contains("stone") || path.contains("wood") ||
                 path.contains("plank") || path.contains("slab") || path.contains("stair") ||
                 path.contains("wall") || path.contains("fence") || path.contains("pillar")) {
-                itemsByCategory.get(ItemCategory.BUILDING_BLOCKS).add(item);
+                cats.add(ItemCategory.BUILDING_BLOCKS);
             } else if (path.contains("lamp") || path.contains("lantern") || path.contains("light") ||
                        path.contains("candle") || path.contains("torch")) {
-                itemsByCategory.get(ItemCategory.LIGHTS).add(item);
+                cats.add(ItemCategory.LIGHTS);
             } else if (path.contains("chair") || path.contains("table") || path.contains("bench") ||
                        path.contains("shelf") || path.contains("cabinet") || path.contains("bed") ||
                        path.contains("desk") || path.contains("stool")) {
-                itemsByCategory.get(ItemCategory.FURNITURE).add(item);
+                cats.add(ItemCategory.FURNITURE);
             } else if (path.contains("flower") || path.contains("pot") || path.contains("banner") ||
                        path.contains("carpet") || path.contains("painting") || path.contains("statue")) {
-                itemsByCategory.get(ItemCategory.DECORATION).add(item);
+                cats.add(ItemCategory.DECORATION);
             }
         }
 
@@ -465,34 +512,31 @@ public class ModCompatibility {
             // Check if it's cooked (higher nutrition usually means cooked)
             if (path.contains("cooked") || path.contains("baked") || path.contains("fried") ||
                 path.contains("roast") || path.contains("grilled") || food.getNutrition() >= 6) {
-                itemsByCategory.get(ItemCategory.COOKED_FOOD).add(item);
+                cats.add(ItemCategory.COOKED_FOOD);
             } else {
-                itemsByCategory.get(ItemCategory.RAW_FOOD).add(item);
+                cats.add(ItemCategory.RAW_FOOD);
             }
         }
 
         // Path-based categorization for remaining items
         if (path.contains("seed") || path.contains("sapling")) {
-            itemsByCategory.get(ItemCategory.CROPS).add(item);
+            cats.add(ItemCategory.CROPS);
         }
         if (path.contains("spell") || path.contains("scroll") || path.contains("wand") ||
             path.contains("staff") || path.contains("tome") || path.contains("grimoire")) {
-            itemsByCategory.get(ItemCategory.SPELL_ITEMS).add(item);
+            cats.add(ItemCategory.SPELL_ITEMS);
         }
         if (path.contains("hide") || path.contains("pelt") || path.contains("fur") ||
             path.contains("feather") || path.contains("scale") || path.contains("horn") ||
             path.contains("fang") || path.contains("claw") || path.contains("talon")) {
-            itemsByCategory.get(ItemCategory.ANIMAL_DROPS).add(item);
+            cats.add(ItemCategory.ANIMAL_DROPS);
         }
         if (path.contains("bone") || path.contains("skull") || path.contains("heart") ||
             path.contains("eye") || path.contains("essence") || path.contains("soul") ||
             path.contains("tooth") || path.contains("slime")) {
-            itemsByCategory.get(ItemCategory.MOB_DROPS).add(item);
+            cats.add(ItemCategory.MOB_DROPS);
         }
-    }
-
-    private static boolean isTagged(ItemStack stack, TagKey<Item> tag) {
-        return stack.is(tag);
+        return cats;
     }
 
     // ==================== Dynamic Town Generation ====================
@@ -590,7 +634,7 @@ public class ModCompatibility {
      */
     public static Map<String, TownData> getDynamicTowns() {
         if (!initialized) initialize();
-        return Collections.unmodifiableMap(dynamicTowns);
+        return dynamicTowns;
     }
 
     /**
@@ -625,18 +669,11 @@ public class ModCompatibility {
     }
 
     /**
-     * Categorize a single item and return its categories.
+     * Get the categories of a single item (empty for vanilla or unknown items).
      */
     public static Set<ItemCategory> getCategoriesForItem(Item item) {
         if (!initialized) initialize();
-        
-        Set<ItemCategory> result = EnumSet.noneOf(ItemCategory.class);
-        for (Map.Entry<ItemCategory, Set<Item>> entry : itemsByCategory.entrySet()) {
-            if (entry.getValue().contains(item)) {
-                result.add(entry.getKey());
-            }
-        }
-        return result;
+        return categoriesByItem.getOrDefault(item, Collections.emptySet());
     }
 
     /**
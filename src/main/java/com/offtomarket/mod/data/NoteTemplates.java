@@ -676,22 +676,37 @@ public class NoteTemplates {
 
         // ==================== Template Selection ====================
 
-        /**
-         * Get a random template for the given note type.
-         */
-        public static Template getRandomTemplate(MailNote.NoteType type) {
-                List<Template> templates = switch (type) {
+        private static List<Template> pool(MailNote.NoteType type) {
+                return switch (type) {
                         case DIPLOMAT_FAILURE -> DIPLOMAT_FAILURE_POOL;
                         case QUEST_COMPLETED -> QUEST_COMPLETED_POOL;
                         case QUEST_EXPIRED -> QUEST_EXPIRED_POOL;
                         case SHIPMENT_RECEIVED -> SHIPMENT_RECEIVED_POOL;
                         case PURCHASE_MADE -> PURCHASE_MADE_POOL;
                 };
+        }
+
+        /**
+         * Get a random template for the given note type.
+         */
+        public static Template getRandomTemplate(MailNote.NoteType type) {
+                List<Template> templates = pool(type);
                 return templates.get(RANDOM.nextInt(templates.size()));
         }
 
         /**
-         * Create a MailNote from a template, substituting placeholders.
+         * Get a template by its index in the type's pool, as stored in a
+         * {@link MailNote}. Notes keep only this index, so templates should be
+         * added at the end of a list; an index past the end wraps around.
+         */
+        public static Template getTemplate(MailNote.NoteType type, int index) {
+                List<Template> templates = pool(type);
+                return templates.get(Math.floorMod(index, templates.size()));
+        }
+
+        /**
+         * Create a MailNote from a template. The note stores the template index
+         * and the placeholder values; its text is filled in when first read.
          *
          * @param type      The note type
          * @param town      Town name (or empty string if N/A)
@@ -701,26 +716,24 @@ public class NoteTemplates {
          * @param reward    Formatted reward string (or empty string if N/A)
          * @param player    Player name (or empty string if N/A)
          * @param gameTime  Current game time for timestamp
-         * @return A new MailNote with all placeholders replaced
+         * @return A new templated MailNote
          */
         public static MailNote createNote(MailNote.NoteType type, String town, String item,
                                                                           int count, String coins, String reward,
                                                                           String player, long gameTime) {
-                Template template = getRandomTemplate(type);
-                String subject = applyReplacements(template.subject(), town, item, count, coins, reward, player);
-                String body = applyReplacements(template.body(), town, item, count, coins, reward, player);
-                String sender = applyReplacements(template.sender(), town, item, count, coins, reward, player);
-                return new MailNote(type, subject, body, sender, gameTime);
+                int template = RANDOM.nextInt(pool(type).size());
+                return new MailNote(type, template,
+                                new MailNote.Args(town, item, count, coins, reward, player), gameTime);
         }
 
-        private static String applyReplacements(String text, String town, String item,
-                                                                                        int count, String coins, String reward, String player) {
+        /** Replace a template's placeholders with a note's values. */
+        public static String fill(String text, MailNote.Args args) {
                 return text
-                                .replace("{town}", town)
-                                .replace("{item}", item)
-                                .replace("{count}", String.valueOf(count))
-                                .replace("{coins}", coins)
-                                .replace("{reward}", reward)
-                                .replace("{player}", player);
+                                .replace("{town}", args.town())
+                                .replace("{item}", args.item())
+                                .replace("{count}", String.valueOf(args.count()))
+                                .replace("{coins}", args.coins())
+                                .replace("{reward}", args.reward())
+                                .replace("{player}", args.player());
         }
 }
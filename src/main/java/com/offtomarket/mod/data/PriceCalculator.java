@@ -88,7 +88,7 @@ public class PriceCalculator {
 
     private static final Map<Item, ValueTier> ITEM_OVERRIDES = new LinkedHashMap<>();
 
-    /** Cache: Item → base (non-enchanted) ValueTier. Populated on first lookup; never invalidated (items are immutable). */
+    /** Cache: Item → base (non-enchanted) ValueTier. Populated on first lookup; cleared on datapack reload (tags may change). */
     private static final Map<Item, ValueTier> BASE_TIER_CACHE = new HashMap<>(1024);
     static {
         // ---- Junk / ultra-common ----
@@ -855,6 +855,24 @@ public class PriceCalculator {
         return stack.isEnchanted() ? applyEnchantBonus(base, stack) : base;
     }
 
+    /** Copy of the per-item base tier cache, for the on-disk {@link ClassificationCache}. */
+    public static Map<Item, ValueTier> snapshotBaseTiers() {
+        return new HashMap<>(BASE_TIER_CACHE);
+    }
+
+    /** Seed the per-item base tier cache with tiers loaded from the on-disk cache. */
+    public static void preloadBaseTiers(Map<Item, ValueTier> tiers) {
+        BASE_TIER_CACHE.putAll(tiers);
+    }
+
+    /**
+     * Drop every cached base tier. Called after a datapack reload, since the
+     * tag-based rules may resolve differently once tags are rebound.
+     */
+    public static void clearBaseTiers() {
+        BASE_TIER_CACHE.clear();
+    }
+
     /**
      * Compute the base (non-enchanted) value tier for an item, resolving the full
      * classification pipeline.  Called exactly once per distinct {@link Item} type;
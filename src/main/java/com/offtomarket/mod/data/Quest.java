@@ -211,88 +211,83 @@ public class Quest {
         "Support the community."
     };
 
+    /** An item a town can ask for, with what quests need to know about it worked out once. */
+    public record Candidate(ResourceLocation itemId, String displayName, int baseValue) {}
+
     /**
-     * Generate random quests for a town based on its characteristics.
-     * Now generates varied quest types with appropriate rewards.
+     * A town's quest candidates, built by {@link TownData#getQuestPool()} and
+     * reused until the town's needs change, so generating quests only samples.
+     *
+     * @param needs         items the town wants (immutable)
+     * @param surplusCount  number of surplus items (for the quest generation watch)
      */
-    public static List<Quest> generateQuests(TownData town, long gameTime, Random rand, int maxQuests) {
-        List<Quest> quests = new ArrayList<>();
-        List<ResourceLocation> needs = new ArrayList<>(town.getNeeds());
-        List<ResourceLocation> surplus = new ArrayList<>(town.getSurplus());
-
-        // Fallback: JSON towns use needLevels map rather than the legacy needs/surplus sets.
-        // Build needs/surplus lists from needLevels entries so JSON-only towns get quests.
-        if (needs.isEmpty()) {
-            for (Map.Entry<String, NeedLevel> entry : town.getNeedLevels().entrySet()) {
-                if (entry.getValue().isInDemand()) {
-                    ResourceLocation rl = ResourceLocation.tryParse(entry.getKey());
-                    if (rl != null) needs.add(rl);
+    public record Pool(List<Candidate> needs, int surplusCount) {
+
+        static Pool build(TownData town) {
+            Set<ResourceLocation> needIds = new LinkedHashSet<>(town.getNeeds());
+            int surplusCount = town.getSurplus().size();
+
+            // Fallback: JSON towns use needLevels map rather than the legacy needs/surplus sets.
+            // Build needs/surplus lists from needLevels entries so JSON-only towns get quests.
+            if (needIds.isEmpty() || surplusCount == 0) {
+                boolean fillNeeds = needIds.isEmpty();
+                boolean countSurplus = surplusCount == 0;
+                for (Map.Entry<String, NeedLevel> entry : town.getNeedLevels().entrySet()) {
+                    NeedLevel level = entry.getValue();
+                    if (fillNeeds && level.isInDemand()) {
+                        ResourceLocation rl = ResourceLocation.tryParse(entry.getKey());
+                        if (rl != null) needIds.add(rl);
+                    } else if (countSurplus && level.isOversupplied()
+                            && ResourceLocation.tryParse(entry.getKey()) != null) {
+                        surplusCount++;
+                    }
                 }
             }
-        }
-        if (surplus.isEmpty()) {
-            for (Map.Entry<String, NeedLevel> entry : town.getNeedLevels().entrySet()) {
-                if (entry.getValue().isOversupplied()) {
-                    ResourceLocation rl = ResourceLocation.tryParse(entry.getKey());
-                    if (rl != null) surplus.add(rl);
-                }
+
+            List<Candidate> needs = new ArrayList<>(needIds.size());
+            for (ResourceLocation itemId : needIds) {
+                Item item = ForgeRegistries.ITEMS.getValue(itemId);
+                if (item == null) continue;
+                ItemStack refStack = new ItemStack(item);
+                needs.add(new Candidate(itemId, refStack.getHoverName().getString(),
+                        PriceCalculator.getBaseValue(refStack)));
             }
+            return new Pool(List.copyOf(needs), surplusCount);
         }
+    }
 
-        if (needs.isEmpty() && surplus.isEmpty()) return quests;
+    // Determine quest type distribution
+    // Villages: more charity/bulk, Towns: balanced, Cities: more specialty/rush
+    private static final Map<TownData.TownType, List<QuestType>> QUEST_TYPES = new EnumMap<>(Map.of(
+            TownData.TownType.VILLAGE, List.of(QuestType.STANDARD, QuestType.STANDARD, QuestType.BULK, QuestType.CHARITY),
+            TownData.TownType.TOWN, List.of(QuestType.STANDARD, QuestType.BULK, QuestType.RUSH, QuestType.SPECIALTY),
+            TownData.TownType.CITY, List.of(QuestType.STANDARD, QuestType.RUSH, QuestType.SPECIALTY, QuestType.SPECIALTY),
+            TownData.TownType.MARKET, List.of(QuestType.STANDARD, QuestType.BULK, QuestType.BULK, QuestType.SPECIALTY),
+            TownData.TownType.OUTPOST, List.of(QuestType.STANDARD, QuestType.STANDARD, QuestType.BULK, QuestType.RUSH)
+    ));
+
+    /**
+     * Generate random quests for a town based on its characteristics.
+     * Now generates varied quest types with appropriate rewards.
+     */
+    public static List<Quest> generateQuests(TownData town, long gameTime, Random rand, int maxQuests) {
+        List<Quest> quests = new ArrayList<>();
+        Pool pool = town.getQuestPool();
+        List<Candidate> needs = pool.needs();
+
+        if (needs.isEmpty() && pool.surplusCount() == 0) return quests;
 
         DebugConfig.WATCH_QUEST_GEN_TOWN    = town.getId();
         DebugConfig.WATCH_QUEST_GEN_NEEDS   = needs.size();
-        DebugConfig.WATCH_QUEST_GEN_SURPLUS = surplus.size();
-
-        // Determine quest type distribution
-        // Villages: more charity/bulk, Towns: balanced, Cities: more specialty/rush
-        List<QuestType> possibleTypes = new ArrayList<>();
-        switch (town.getType()) {
-            case VILLAGE -> {
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.BULK);
-                possibleTypes.add(QuestType.CHARITY);
-            }
-            case TOWN -> {
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.BULK);
-                possibleTypes.add(QuestType.RUSH);
-                possibleTypes.add(QuestType.SPECIALTY);
-            }
-            case CITY -> {
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.RUSH);
-                possibleTypes.add(QuestType.SPECIALTY);
-                possibleTypes.add(QuestType.SPECIALTY);
-            }
-            case MARKET -> {
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.BULK);
-                possibleTypes.add(QuestType.BULK);
-                possibleTypes.add(QuestType.SPECIALTY);
-            }
-            case OUTPOST -> {
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.STANDARD);
-                possibleTypes.add(QuestType.BULK);
-                possibleTypes.add(QuestType.RUSH);
-            }
-        }
-
-        Collections.shuffle(needs, rand);
-        int count = Math.min(maxQuests, needs.size());
+        DebugConfig.WATCH_QUEST_GEN_SURPLUS = pool.surplusCount();
 
-        for (int i = 0; i < count; i++) {
-            ResourceLocation itemId = needs.get(i);
-            Item item = ForgeRegistries.ITEMS.getValue(itemId);
-            if (item == null) continue;
+        List<QuestType> possibleTypes = QUEST_TYPES.get(town.getType());
+        for (int index : sample(needs.size(), maxQuests, rand)) {
+            Candidate candidate = needs.get(index);
+            ResourceLocation itemId = candidate.itemId();
+            String displayName = candidate.displayName();
+            int itemBaseValue = candidate.baseValue();
 
-            ItemStack refStack = new ItemStack(item);
-            String displayName = refStack.getHoverName().getString();
-            int itemBaseValue = PriceCalculator.getBaseValue(refStack);
-            
             // Choose quest type
             QuestType questType = possibleTypes.get(rand.nextInt(possibleTypes.size()));
             
@@ -370,6 +365,27 @@ public class Quest {
         return quests;
     }
     
+    /** Up to {@code k} distinct indices below {@code n}, in random order (Floyd's algorithm). */
+    private static int[] sample(int n, int k, Random rand) {
+        k = Math.max(0, Math.min(k, n));
+        int[] picked = new int[k];
+        Set<Integer> seen = new HashSet<>(k * 2);
+        for (int i = 0, j = n - k; i < k; i++, j++) {
+            int t = rand.nextInt(j + 1);
+            int pick = seen.add(t) ? t : j;
+            if (pick == j) seen.add(j);
+            picked[i] = pick;
+        }
+        // Floyd's picks are a uniform set, but their order is not; shuffle it
+        for (int i = k - 1; i > 0; i--) {
+            int r = rand.nextInt(i + 1);
+            int tmp = picked[i];
+            picked[i] = picked[r];
+            picked[r] = tmp;
+        }
+        return picked;
+    }
+
     private static int calculateBaseQuantity(int itemBaseValue, Random rand) {
         if (itemBaseValue <= 8) {
             return 16 + rand.nextInt(33);      // 16-48 for junk/basic
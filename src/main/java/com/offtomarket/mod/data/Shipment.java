@@ -167,6 +167,8 @@ public class Shipment {
         public String getDisplayName() { return displayName; }
         public boolean isSold() { return sold; }
         public void setSold(boolean sold) { this.sold = sold; }
+        @javax.annotation.Nullable
+        public CompoundTag getItemNbt() { return itemNbt; }
 
         public Item getItem() {
             return ForgeRegistries.ITEMS.getValue(itemId);
@@ -1,6 +1,7 @@
 package com.offtomarket.mod.data;
 
 import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.debug.TickProfiler;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 
@@ -53,8 +54,10 @@ public class SupplyDemandManager {
         long currentDay = dayTime / TICKS_PER_DAY;
 
         if (currentDay > lastRefreshDay) {
+            long start = TickProfiler.start();
             lastRefreshDay = currentDay;
             refreshAllTowns();
+            TickProfiler.stop(TickProfiler.SUPPLY_DEMAND, start);
         }
     }
 
@@ -63,8 +66,16 @@ public class SupplyDemandManager {
      * Each supply level has a random chance to drift toward equilibrium.
      */
     private static void refreshAllTowns() {
-        for (TownData town : TownRegistry.getAllTowns()) {
-            refreshTown(town);
+        refreshTowns(TownRegistry.getAllTowns(), RANDOM);
+    }
+
+    /**
+     * Run one day's supply drift for the given towns. Used directly by the
+     * economy simulator, which passes its own seeded random.
+     */
+    public static void refreshTowns(Iterable<TownData> towns, Random random) {
+        for (TownData town : towns) {
+            refreshTown(town, random);
         }
     }
 
@@ -72,7 +83,7 @@ public class SupplyDemandManager {
      * Drift supply levels for a single town toward BALANCED (60).
      * Snapshots supply levels first so trend arrows can compare before/after.
      */
-    private static void refreshTown(TownData town) {
+    private static void refreshTown(TownData town, Random random) {
         Map<String, Integer> supplyLevels = town.getSupplyLevels();
         if (supplyLevels.isEmpty()) return;
 
@@ -80,7 +91,7 @@ public class SupplyDemandManager {
         town.snapshotSupplyLevels();
 
         for (Map.Entry<String, Integer> entry : supplyLevels.entrySet()) {
-            if (RANDOM.nextDouble() < dailyRefreshChance) {
+            if (random.nextDouble() < dailyRefreshChance) {
                 int current = entry.getValue();
                 if (current < EQUILIBRIUM) {
                     // Supply is low → drift up (demand eases)
@@ -33,6 +33,9 @@ public class TownData {
 
     /** Per-item NeedLevel overrides (keyed by item registry name string). */
     private final Map<String, NeedLevel> needLevels;
+    /** Quest candidates, built on first use; dropped whenever needs, surplus or need levels change. */
+    @javax.annotation.Nullable
+    private Quest.Pool questPool;
 
     /**
      * Dynamic supply counts per item category (keyed by item registry name string).
@@ -168,6 +171,28 @@ public class TownData {
      */
     public void setNeedLevel(String itemKey, NeedLevel level) {
         needLevels.put(itemKey, level);
+        invalidateQuestPool();
+    }
+
+    /**
+     * The items this town can ask for in quests, with display names and base
+     * values worked out once. Rebuilt after {@link #invalidateQuestPool()}.
+     */
+    public Quest.Pool getQuestPool() {
+        Quest.Pool pool = questPool;
+        if (pool == null) {
+            pool = Quest.Pool.build(this);
+            questPool = pool;
+        }
+        return pool;
+    }
+
+    /**
+     * Drop the cached quest pool. {@link #setNeedLevel} does this itself; call it
+     * after adding to {@link #getNeeds()} or {@link #getSurplus()} directly.
+     */
+    public void invalidateQuestPool() {
+        questPool = null;
     }
 
     /**
@@ -278,6 +303,36 @@ public class TownData {
         return 1.0 + (distance - 1) * 0.1; // +10% per distance unit over 1
     }
 
+    /**
+     * Copy this town with its own needs, surplus, specialty and need-level
+     * collections, so they can be changed without touching the published town.
+     * Supply levels and letters are shared: they are not part of the
+     * definition and must not fork between the old and new copy.
+     */
+    public TownData copyDefinition() {
+        return new TownData(id, displayName, description, distance, type,
+                new HashSet<>(needs), new HashSet<>(surplus), new LinkedHashSet<>(specialtyItems),
+                minTraderLevel, new HashMap<>(needLevels), supplyLevels, previousSupplyLevels, letters);
+    }
+
+    /**
+     * Whether two towns have the same definition (everything loaded from JSON or
+     * config except letters). Runtime supply levels are ignored, so this is what
+     * decides if a reload changed a town and clients need the new copy.
+     */
+    public boolean sameDefinition(TownData other) {
+        return id.equals(other.id)
+                && displayName.equals(other.displayName)
+                && description.equals(other.description)
+                && distance == other.distance
+                && type == other.type
+                && minTraderLevel == other.minTraderLevel
+                && needs.equals(other.needs)
+                && surplus.equals(other.surplus)
+                && specialtyItems.equals(other.specialtyItems)
+                && needLevels.equals(other.needLevels);
+    }
+
     public CompoundTag save() {
         CompoundTag tag = new CompoundTag();
         tag.putString("Id", id);
@@ -3,7 +3,8 @@ package com.offtomarket.mod.data;
 import net.minecraft.resources.ResourceLocation;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Default town definitions. These are the fictional towns/villages available
@@ -11,24 +12,35 @@ import java.util.concurrent.ConcurrentHashMap;
  * distance, and minimum trader level requirements.
  */
 public class TownRegistry {
-    private static final Map<String, TownData> TOWNS = new LinkedHashMap<>();
-
-    // ------------------------------------------------------------------
-    // List caches: populated lazily, never invalidated (towns are static
-    // after mod-load and dynamic towns are populated once at startup).
-    // ------------------------------------------------------------------
-    private static volatile Collection<TownData> cachedAllTowns = null;
-    private static final ConcurrentHashMap<Integer, List<TownData>> cachedAvailableTowns = new ConcurrentHashMap<>();
-
-    /** Invalidate list caches (call if dynamic towns change after startup). */
-    public static void invalidateTownCaches() {
-        cachedAllTowns = null;
-        cachedAvailableTowns.clear();
+    /**
+     * Every known town with its lookup indexes. Never mutated: each change
+     * builds a new snapshot and swaps the reference, so readers on any thread
+     * see a complete, consistent set without locking.
+     */
+    private static volatile TownSnapshot snapshot = new TownSnapshot(createDefaultTowns(), Map.of());
+
+    /** The current snapshot. Hold on to it to read several lookups from the same town set. */
+    public static TownSnapshot getSnapshot() {
+        return snapshot;
     }
 
-    static {
+    /**
+     * Rebuild the snapshot from its current towns. Only needed if a caller
+     * changed a town's distance or level in place; prefer {@link #modifyTowns}.
+     */
+    public static synchronized void invalidateTownCaches() {
+        TownSnapshot current = snapshot;
+        snapshot = new TownSnapshot(current.staticTowns(), current.dynamicTowns());
+    }
+
+    /**
+     * Build a fresh copy of the hardcoded towns. JSON towns from datapacks are
+     * layered on top of these by id, so they act as fallbacks only.
+     */
+    public static Map<String, TownData> createDefaultTowns() {
+        Map<String, TownData> towns = new LinkedHashMap<>();
         // Close farming village - Level 1
-        register(new TownData(
+        add(towns, new TownData(
                 "greenhollow",
                 "Greenhollow Village",
                 "A peaceful farming hamlet nestled in rolling hills. Known for wheat and produce.",
@@ -59,7 +71,7 @@ public class TownRegistry {
         ));
 
         // Nearby mining village - Level 1
-        register(new TownData(
+        add(towns, new TownData(
                 "irondeep",
                 "Irondeep Settlement",
                 "A hardy mining community at the base of craggy mountains. Rich in ores.",
@@ -90,7 +102,7 @@ public class TownRegistry {
         ));
 
         // Mid-distance fishing town - Level 1
-        register(new TownData(
+        add(towns, new TownData(
                   "saltmere",
                   "Saltmere Harbor",
                   "A bustling fishing town on the coast. Fresh catch daily.",
@@ -121,7 +133,7 @@ public class TownRegistry {
         ));
 
         // Mid-distance lumber town - Level 2
-        register(new TownData(
+        add(towns, new TownData(
                 "timberwatch",
                 "Timberwatch",
                 "A frontier logging town surrounded by ancient forests. Expert woodworkers.",
@@ -154,7 +166,7 @@ public class TownRegistry {
         ));
 
         // Far trading town - Level 2
-        register(new TownData(
+        add(towns, new TownData(
                 "crossroads",
                 "Crossroads Market",
                 "A major trade hub where many roads converge. Everything has a price.",
@@ -183,7 +195,7 @@ public class TownRegistry {
         ));
 
         // Distant fortress city - Level 3
-        register(new TownData(
+        add(towns, new TownData(
                 "basaltkeep",
                 "Basaltkeep Fortress",
                 "An imposing fortress city of blackstone and iron. Skilled armorers and weaponsmiths.",
@@ -219,7 +231,7 @@ public class TownRegistry {
         ));
 
         // Very far enchanting city - Level 4
-        register(new TownData(
+        add(towns, new TownData(
                 "arcaneveil",
                 "Arcaneveil Spire",
                 "A mysterious city of scholars and enchanters. Knowledge is currency here.",
@@ -254,7 +266,7 @@ public class TownRegistry {
         ));
 
         // Farthest exotic city - Level 5
-        register(new TownData(
+        add(towns, new TownData(
                 "goldspire",
                 "Goldspire Capital",
                 "The legendary capital of trade. Only the most accomplished merchants reach its golden gates.",
@@ -287,7 +299,7 @@ public class TownRegistry {
         ));
 
         // Peenam Animal Market - Specialized animal trader - Level 1
-        register(new TownData(
+        add(towns, new TownData(
                 "peenam",
                 "Peenam Animal Market",
                 "A lively marketplace famous for trading livestock and exotic creatures. If it walks, flies, or swims, Peenam has it.",
@@ -322,125 +334,170 @@ public class TownRegistry {
 
         // ── Greenhollow (farming village) ──
         // Desperate for tools they can't craft; oversaturated on produce
-        setNeed("greenhollow", "minecraft:iron_ingot", NeedLevel.DESPERATE);
-        setNeed("greenhollow", "minecraft:iron_hoe", NeedLevel.DESPERATE);
-        setNeed("greenhollow", "minecraft:shears", NeedLevel.MODERATE_NEED);
-        setNeed("greenhollow", "minecraft:bucket", NeedLevel.MODERATE_NEED);
-        setNeed("greenhollow", "minecraft:wheat", NeedLevel.OVERSATURATED);
-        setNeed("greenhollow", "minecraft:carrot", NeedLevel.OVERSATURATED);
-        setNeed("greenhollow", "minecraft:potato", NeedLevel.OVERSATURATED);
-        setNeed("greenhollow", "minecraft:hay_block", NeedLevel.OVERSATURATED);
-        setNeed("greenhollow", "minecraft:melon_slice", NeedLevel.SURPLUS);
-        setNeed("greenhollow", "minecraft:pumpkin", NeedLevel.SURPLUS);
+        setNeed(towns, "greenhollow", "minecraft:iron_ingot", NeedLevel.DESPERATE);
+        setNeed(towns, "greenhollow", "minecraft:iron_hoe", NeedLevel.DESPERATE);
+        setNeed(towns, "greenhollow", "minecraft:shears", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "greenhollow", "minecraft:bucket", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "greenhollow", "minecraft:wheat", NeedLevel.OVERSATURATED);
+        setNeed(towns, "greenhollow", "minecraft:carrot", NeedLevel.OVERSATURATED);
+        setNeed(towns, "greenhollow", "minecraft:potato", NeedLevel.OVERSATURATED);
+        setNeed(towns, "greenhollow", "minecraft:hay_block", NeedLevel.OVERSATURATED);
+        setNeed(towns, "greenhollow", "minecraft:melon_slice", NeedLevel.SURPLUS);
+        setNeed(towns, "greenhollow", "minecraft:pumpkin", NeedLevel.SURPLUS);
 
         // ── Irondeep (mining settlement) ──
         // Desperate for food and wood; oversaturated on ores and stone
-        setNeed("irondeep", "minecraft:bread", NeedLevel.DESPERATE);
-        setNeed("irondeep", "minecraft:cooked_beef", NeedLevel.DESPERATE);
-        setNeed("irondeep", "minecraft:oak_planks", NeedLevel.DESPERATE);
-        setNeed("irondeep", "minecraft:torch", NeedLevel.MODERATE_NEED);
-        setNeed("irondeep", "minecraft:lantern", NeedLevel.MODERATE_NEED);
-        setNeed("irondeep", "minecraft:iron_ingot", NeedLevel.OVERSATURATED);
-        setNeed("irondeep", "minecraft:coal", NeedLevel.OVERSATURATED);
-        setNeed("irondeep", "minecraft:cobblestone", NeedLevel.OVERSATURATED);
-        setNeed("irondeep", "minecraft:raw_iron", NeedLevel.SURPLUS);
-        setNeed("irondeep", "minecraft:raw_copper", NeedLevel.SURPLUS);
+        setNeed(towns, "irondeep", "minecraft:bread", NeedLevel.DESPERATE);
+        setNeed(towns, "irondeep", "minecraft:cooked_beef", NeedLevel.DESPERATE);
+        setNeed(towns, "irondeep", "minecraft:oak_planks", NeedLevel.DESPERATE);
+        setNeed(towns, "irondeep", "minecraft:torch", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "irondeep", "minecraft:lantern", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "irondeep", "minecraft:iron_ingot", NeedLevel.OVERSATURATED);
+        setNeed(towns, "irondeep", "minecraft:coal", NeedLevel.OVERSATURATED);
+        setNeed(towns, "irondeep", "minecraft:cobblestone", NeedLevel.OVERSATURATED);
+        setNeed(towns, "irondeep", "minecraft:raw_iron", NeedLevel.SURPLUS);
+        setNeed(towns, "irondeep", "minecraft:raw_copper", NeedLevel.SURPLUS);
 
         // ── Saltmere (fishing harbor) ──
         // Desperate for building materials; oversaturated on seafood
-        setNeed("saltmere", "minecraft:oak_planks", NeedLevel.DESPERATE);
-        setNeed("saltmere", "minecraft:iron_ingot", NeedLevel.MODERATE_NEED);
-        setNeed("saltmere", "minecraft:lead", NeedLevel.MODERATE_NEED);
-        setNeed("saltmere", "minecraft:cod", NeedLevel.OVERSATURATED);
-        setNeed("saltmere", "minecraft:salmon", NeedLevel.OVERSATURATED);
-        setNeed("saltmere", "minecraft:tropical_fish", NeedLevel.OVERSATURATED);
-        setNeed("saltmere", "minecraft:kelp", NeedLevel.SURPLUS);
-        setNeed("saltmere", "minecraft:pufferfish", NeedLevel.SURPLUS);
+        setNeed(towns, "saltmere", "minecraft:oak_planks", NeedLevel.DESPERATE);
+        setNeed(towns, "saltmere", "minecraft:iron_ingot", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "saltmere", "minecraft:lead", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "saltmere", "minecraft:cod", NeedLevel.OVERSATURATED);
+        setNeed(towns, "saltmere", "minecraft:salmon", NeedLevel.OVERSATURATED);
+        setNeed(towns, "saltmere", "minecraft:tropical_fish", NeedLevel.OVERSATURATED);
+        setNeed(towns, "saltmere", "minecraft:kelp", NeedLevel.SURPLUS);
+        setNeed(towns, "saltmere", "minecraft:pufferfish", NeedLevel.SURPLUS);
 
         // ── Timberwatch (lumber town) ──
         // Desperate for good axes and food; oversaturated on wood
-        setNeed("timberwatch", "minecraft:iron_axe", NeedLevel.DESPERATE);
-        setNeed("timberwatch", "minecraft:diamond_axe", NeedLevel.DESPERATE);
-        setNeed("timberwatch", "minecraft:cooked_porkchop", NeedLevel.MODERATE_NEED);
-        setNeed("timberwatch", "minecraft:bread", NeedLevel.MODERATE_NEED);
-        setNeed("timberwatch", "minecraft:oak_log", NeedLevel.OVERSATURATED);
-        setNeed("timberwatch", "minecraft:spruce_log", NeedLevel.OVERSATURATED);
-        setNeed("timberwatch", "minecraft:birch_log", NeedLevel.OVERSATURATED);
-        setNeed("timberwatch", "minecraft:oak_planks", NeedLevel.OVERSATURATED);
-        setNeed("timberwatch", "minecraft:stick", NeedLevel.OVERSATURATED);
-        setNeed("timberwatch", "minecraft:charcoal", NeedLevel.SURPLUS);
+        setNeed(towns, "timberwatch", "minecraft:iron_axe", NeedLevel.DESPERATE);
+        setNeed(towns, "timberwatch", "minecraft:diamond_axe", NeedLevel.DESPERATE);
+        setNeed(towns, "timberwatch", "minecraft:cooked_porkchop", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "timberwatch", "minecraft:bread", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "timberwatch", "minecraft:oak_log", NeedLevel.OVERSATURATED);
+        setNeed(towns, "timberwatch", "minecraft:spruce_log", NeedLevel.OVERSATURATED);
+        setNeed(towns, "timberwatch", "minecraft:birch_log", NeedLevel.OVERSATURATED);
+        setNeed(towns, "timberwatch", "minecraft:oak_planks", NeedLevel.OVERSATURATED);
+        setNeed(towns, "timberwatch", "minecraft:stick", NeedLevel.OVERSATURATED);
+        setNeed(towns, "timberwatch", "minecraft:charcoal", NeedLevel.SURPLUS);
 
         // ── Crossroads (trade hub) ──
         // Moderate demand for valuables; surplus of common trade goods
-        setNeed("crossroads", "minecraft:diamond", NeedLevel.MODERATE_NEED);
-        setNeed("crossroads", "minecraft:emerald", NeedLevel.MODERATE_NEED);
-        setNeed("crossroads", "minecraft:ender_pearl", NeedLevel.MODERATE_NEED);
-        setNeed("crossroads", "minecraft:apple", NeedLevel.OVERSATURATED);
-        setNeed("crossroads", "minecraft:arrow", NeedLevel.SURPLUS);
-        setNeed("crossroads", "minecraft:glass", NeedLevel.SURPLUS);
-        setNeed("crossroads", "minecraft:paper", NeedLevel.SURPLUS);
+        setNeed(towns, "crossroads", "minecraft:diamond", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "crossroads", "minecraft:emerald", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "crossroads", "minecraft:ender_pearl", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "crossroads", "minecraft:apple", NeedLevel.OVERSATURATED);
+        setNeed(towns, "crossroads", "minecraft:arrow", NeedLevel.SURPLUS);
+        setNeed(towns, "crossroads", "minecraft:glass", NeedLevel.SURPLUS);
+        setNeed(towns, "crossroads", "minecraft:paper", NeedLevel.SURPLUS);
 
         // ── Basaltkeep (fortress city) ──
         // Desperate for rare combat materials; surplus of iron equipment
-        setNeed("basaltkeep", "minecraft:diamond", NeedLevel.DESPERATE);
-        setNeed("basaltkeep", "minecraft:netherite_scrap", NeedLevel.DESPERATE);
-        setNeed("basaltkeep", "minecraft:obsidian", NeedLevel.MODERATE_NEED);
-        setNeed("basaltkeep", "minecraft:leather", NeedLevel.MODERATE_NEED);
-        setNeed("basaltkeep", "minecraft:iron_sword", NeedLevel.OVERSATURATED);
-        setNeed("basaltkeep", "minecraft:iron_chestplate", NeedLevel.OVERSATURATED);
-        setNeed("basaltkeep", "minecraft:chainmail_chestplate", NeedLevel.SURPLUS);
-        setNeed("basaltkeep", "minecraft:arrow", NeedLevel.SURPLUS);
-        setNeed("basaltkeep", "minecraft:shield", NeedLevel.SURPLUS);
+        setNeed(towns, "basaltkeep", "minecraft:diamond", NeedLevel.DESPERATE);
+        setNeed(towns, "basaltkeep", "minecraft:netherite_scrap", NeedLevel.DESPERATE);
+        setNeed(towns, "basaltkeep", "minecraft:obsidian", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "basaltkeep", "minecraft:leather", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "basaltkeep", "minecraft:iron_sword", NeedLevel.OVERSATURATED);
+        setNeed(towns, "basaltkeep", "minecraft:iron_chestplate", NeedLevel.OVERSATURATED);
+        setNeed(towns, "basaltkeep", "minecraft:chainmail_chestplate", NeedLevel.SURPLUS);
+        setNeed(towns, "basaltkeep", "minecraft:arrow", NeedLevel.SURPLUS);
+        setNeed(towns, "basaltkeep", "minecraft:shield", NeedLevel.SURPLUS);
 
         // ── Arcaneveil (enchanting city) ──
         // Desperate for rare reagents; surplus of potions and enchanted books
-        setNeed("arcaneveil", "minecraft:blaze_rod", NeedLevel.DESPERATE);
-        setNeed("arcaneveil", "minecraft:ghast_tear", NeedLevel.DESPERATE);
-        setNeed("arcaneveil", "minecraft:echo_shard", NeedLevel.DESPERATE);
-        setNeed("arcaneveil", "minecraft:lapis_lazuli", NeedLevel.MODERATE_NEED);
-        setNeed("arcaneveil", "minecraft:ender_pearl", NeedLevel.MODERATE_NEED);
-        setNeed("arcaneveil", "minecraft:nether_wart", NeedLevel.MODERATE_NEED);
-        setNeed("arcaneveil", "minecraft:enchanted_book", NeedLevel.OVERSATURATED);
-        setNeed("arcaneveil", "minecraft:glass_bottle", NeedLevel.OVERSATURATED);
-        setNeed("arcaneveil", "minecraft:potion", NeedLevel.SURPLUS);
-        setNeed("arcaneveil", "minecraft:redstone", NeedLevel.SURPLUS);
+        setNeed(towns, "arcaneveil", "minecraft:blaze_rod", NeedLevel.DESPERATE);
+        setNeed(towns, "arcaneveil", "minecraft:ghast_tear", NeedLevel.DESPERATE);
+        setNeed(towns, "arcaneveil", "minecraft:echo_shard", NeedLevel.DESPERATE);
+        setNeed(towns, "arcaneveil", "minecraft:lapis_lazuli", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "arcaneveil", "minecraft:ender_pearl", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "arcaneveil", "minecraft:nether_wart", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "arcaneveil", "minecraft:enchanted_book", NeedLevel.OVERSATURATED);
+        setNeed(towns, "arcaneveil", "minecraft:glass_bottle", NeedLevel.OVERSATURATED);
+        setNeed(towns, "arcaneveil", "minecraft:potion", NeedLevel.SURPLUS);
+        setNeed(towns, "arcaneveil", "minecraft:redstone", NeedLevel.SURPLUS);
 
         // ── Goldspire (legendary capital) ──
         // Desperate for endgame treasures; nothing oversaturated (exclusive market)
-        setNeed("goldspire", "minecraft:nether_star", NeedLevel.DESPERATE);
-        setNeed("goldspire", "minecraft:dragon_egg", NeedLevel.DESPERATE);
-        setNeed("goldspire", "minecraft:elytra", NeedLevel.DESPERATE);
-        setNeed("goldspire", "minecraft:beacon", NeedLevel.DESPERATE);
-        setNeed("goldspire", "minecraft:netherite_ingot", NeedLevel.HIGH_NEED);
-        setNeed("goldspire", "minecraft:diamond_block", NeedLevel.HIGH_NEED);
-        setNeed("goldspire", "minecraft:emerald_block", NeedLevel.MODERATE_NEED);
-        setNeed("goldspire", "minecraft:totem_of_undying", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "goldspire", "minecraft:nether_star", NeedLevel.DESPERATE);
+        setNeed(towns, "goldspire", "minecraft:dragon_egg", NeedLevel.DESPERATE);
+        setNeed(towns, "goldspire", "minecraft:elytra", NeedLevel.DESPERATE);
+        setNeed(towns, "goldspire", "minecraft:beacon", NeedLevel.DESPERATE);
+        setNeed(towns, "goldspire", "minecraft:netherite_ingot", NeedLevel.HIGH_NEED);
+        setNeed(towns, "goldspire", "minecraft:diamond_block", NeedLevel.HIGH_NEED);
+        setNeed(towns, "goldspire", "minecraft:emerald_block", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "goldspire", "minecraft:totem_of_undying", NeedLevel.MODERATE_NEED);
 
         // ── Peenam (animal market) ──
         // Desperate for animal feed and equipment; surplus of animal products
-        setNeed("peenam", "minecraft:wheat", NeedLevel.DESPERATE);
-        setNeed("peenam", "minecraft:hay_block", NeedLevel.DESPERATE);
-        setNeed("peenam", "minecraft:golden_carrot", NeedLevel.HIGH_NEED);
-        setNeed("peenam", "minecraft:lead", NeedLevel.MODERATE_NEED);
-        setNeed("peenam", "minecraft:saddle", NeedLevel.MODERATE_NEED);
-        setNeed("peenam", "minecraft:name_tag", NeedLevel.MODERATE_NEED);
-        setNeed("peenam", "minecraft:leather", NeedLevel.OVERSATURATED);
-        setNeed("peenam", "minecraft:feather", NeedLevel.OVERSATURATED);
-        setNeed("peenam", "minecraft:egg", NeedLevel.OVERSATURATED);
-        setNeed("peenam", "minecraft:white_wool", NeedLevel.OVERSATURATED);
-        setNeed("peenam", "minecraft:beef", NeedLevel.SURPLUS);
-        setNeed("peenam", "minecraft:porkchop", NeedLevel.SURPLUS);
-        setNeed("peenam", "minecraft:chicken", NeedLevel.SURPLUS);
+        setNeed(towns, "peenam", "minecraft:wheat", NeedLevel.DESPERATE);
+        setNeed(towns, "peenam", "minecraft:hay_block", NeedLevel.DESPERATE);
+        setNeed(towns, "peenam", "minecraft:golden_carrot", NeedLevel.HIGH_NEED);
+        setNeed(towns, "peenam", "minecraft:lead", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "peenam", "minecraft:saddle", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "peenam", "minecraft:name_tag", NeedLevel.MODERATE_NEED);
+        setNeed(towns, "peenam", "minecraft:leather", NeedLevel.OVERSATURATED);
+        setNeed(towns, "peenam", "minecraft:feather", NeedLevel.OVERSATURATED);
+        setNeed(towns, "peenam", "minecraft:egg", NeedLevel.OVERSATURATED);
+        setNeed(towns, "peenam", "minecraft:white_wool", NeedLevel.OVERSATURATED);
+        setNeed(towns, "peenam", "minecraft:beef", NeedLevel.SURPLUS);
+        setNeed(towns, "peenam", "minecraft:porkchop", NeedLevel.SURPLUS);
+        setNeed(towns, "peenam", "minecraft:chicken", NeedLevel.SURPLUS);
+        return towns;
+    }
+
+    /**
+     * Register a town. Called by TownLoader (JSON files) at startup.
+     * Overwrites any existing town with the same ID, so JSON definitions
+     * always take priority over hardcoded fallbacks.
+     */
+    public static synchronized void register(TownData town) {
+        Map<String, TownData> next = new LinkedHashMap<>(snapshot.staticTowns());
+        next.put(town.getId(), town);
+        publish(next);
+    }
+
+    /**
+     * Replace the whole static town set in one step (datapack reload or a
+     * server → client sync). Readers see either the old or the new set, never
+     * a mix. Dynamic mod towns are kept.
+     */
+    public static synchronized void publish(Map<String, TownData> newTowns) {
+        snapshot = new TownSnapshot(newTowns, snapshot.dynamicTowns());
+    }
+
+    /** Replace the dynamic mod towns (called by ModCompatibility once they are generated). */
+    public static synchronized void publishDynamic(Map<String, TownData> newTowns) {
+        snapshot = new TownSnapshot(snapshot.staticTowns(), newTowns);
     }
 
     /**
-     * Register a town. Called by TownLoader (JSON files), ModCompatibility (dynamic towns),
-     * or the static initializer. Overwrites any existing town with the same ID,
-     * so JSON definitions always take priority over hardcoded fallbacks.
+     * Change towns without mutating the published ones: every town matching
+     * {@code filter} is copied, {@code change} is applied to the copy, and the
+     * copies are published together in a new snapshot.
      */
-    public static void register(TownData town) {
-        TOWNS.put(town.getId(), town);
-        invalidateTownCaches();
+    public static synchronized void modifyTowns(Predicate<TownData> filter, Consumer<TownData> change) {
+        TownSnapshot current = snapshot;
+        snapshot = new TownSnapshot(modified(current.staticTowns(), filter, change),
+                modified(current.dynamicTowns(), filter, change));
+    }
+
+    private static Map<String, TownData> modified(Map<String, TownData> towns,
+                                                  Predicate<TownData> filter, Consumer<TownData> change) {
+        Map<String, TownData> next = new LinkedHashMap<>(towns);
+        for (Map.Entry<String, TownData> e : next.entrySet()) {
+            if (filter.test(e.getValue())) {
+                TownData copy = e.getValue().copyDefinition();
+                change.accept(copy);
+                e.setValue(copy);
+            }
+        }
+        return next;
+    }
+
+    /** The current static towns by id (read-only). Excludes dynamic mod towns. */
+    public static Map<String, TownData> getStaticTowns() {
+        return snapshot.staticTowns();
     }
 
     /**
@@ -448,13 +505,17 @@ public class TownRegistry {
      * Use this to override the default binary HIGH_NEED/SURPLUS
      * with more granular levels like DESPERATE or MODERATE_NEED.
      */
-    private static void setNeed(String townId, String itemId, NeedLevel level) {
-        TownData town = TOWNS.get(townId);
+    private static void setNeed(Map<String, TownData> towns, String townId, String itemId, NeedLevel level) {
+        TownData town = towns.get(townId);
         if (town != null) {
             town.setNeedLevel(itemId, level);
         }
     }
 
+    private static void add(Map<String, TownData> towns, TownData town) {
+        towns.put(town.getId(), town);
+    }
+
     private static Set<ResourceLocation> setOf(String... items) {
         Set<ResourceLocation> set = new HashSet<>();
         for (String item : items) {
@@ -464,67 +525,24 @@ public class TownRegistry {
     }
 
     public static TownData getTown(String id) {
-        // Check static towns first
-        TownData town = TOWNS.get(id);
-        if (town != null) return town;
-        
-        // Check dynamic towns from mods
-        return ModCompatibility.getDynamicTowns().get(id);
+        return snapshot.get(id);
     }
 
     public static Collection<TownData> getAllTowns() {
-        Collection<TownData> cached = cachedAllTowns;
-        if (cached == null) {
-            // Combine static and dynamic towns
-            List<TownData> allTowns = new ArrayList<>(TOWNS.values());
-            allTowns.addAll(ModCompatibility.getDynamicTowns().values());
-            cached = Collections.unmodifiableCollection(allTowns);
-            cachedAllTowns = cached;
-        }
-        return cached;
+        return snapshot.all();
     }
 
     /**
      * Get towns available for a given trader level.
      */
     public static List<TownData> getAvailableTowns(int traderLevel) {
-        return cachedAvailableTowns.computeIfAbsent(traderLevel, level -> {
-            List<TownData> available = new ArrayList<>();
-            // Add static towns
-            for (TownData town : TOWNS.values()) {
-                if (town.getMinTraderLevel() <= level) {
-                    available.add(town);
-                }
-            }
-            // Add dynamic mod towns
-            for (TownData town : ModCompatibility.getDynamicTowns().values()) {
-                if (town.getMinTraderLevel() <= level) {
-                    available.add(town);
-                }
-            }
-            return Collections.unmodifiableList(available);
-        });
+        return snapshot.available(traderLevel);
     }
 
     /**
-     * Get towns within a distance range.
+     * Get towns within a distance range, nearest first (read-only).
      */
     public static List<TownData> getTownsInRange(int minDist, int maxDist, int traderLevel) {
-        List<TownData> towns = new ArrayList<>();
-        // Add static towns
-        for (TownData town : TOWNS.values()) {
-            if (town.getDistance() >= minDist && town.getDistance() <= maxDist
-                    && town.getMinTraderLevel() <= traderLevel) {
-                towns.add(town);
-            }
-        }
-        // Add dynamic mod towns
-        for (TownData town : ModCompatibility.getDynamicTowns().values()) {
-            if (town.getDistance() >= minDist && town.getDistance() <= maxDist
-                    && town.getMinTraderLevel() <= traderLevel) {
-                towns.add(town);
-            }
-        }
-        return towns;
+        return snapshot.inRange(minDist, maxDist, traderLevel);
     }
 }
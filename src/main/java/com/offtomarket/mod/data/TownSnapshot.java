@@ -0,0 +1,142 @@
+package com.offtomarket.mod.data;
+
+import java.util.*;
+
+/**
+ * Immutable view of every known town (static + dynamic) with precomputed lookups.
+ *
+ * {@link TownRegistry} builds a new snapshot whenever the town set changes and
+ * publishes it through a single volatile field. Readers on any thread get a
+ * consistent set without locking, and the lookups below return prebuilt
+ * read-only lists, so hot paths (screens, market refresh) allocate nothing.
+ *
+ * Static towns (hardcoded, JSON, datapack) shadow dynamic mod towns with the
+ * same id.
+ */
+public final class TownSnapshot {
+
+    private final Map<String, TownData> staticTowns;
+    private final Map<String, TownData> dynamicTowns;
+    private final Map<String, TownData> byId;
+    private final List<TownData> all;
+    /** availableByLevel[L] = towns with minTraderLevel <= L, in registry order. */
+    private final List<TownData>[] availableByLevel;
+    /** byDistance[d] = towns exactly d distance units away, in registry order. */
+    private final List<TownData>[] byDistance;
+    /**
+     * 2-D (trader level, distance) index: rangeByLevel[L] holds the towns
+     * available at level L sorted by distance (ties keep registry order), and
+     * distanceStart[L][d] is the index of the first of them at distance >= d.
+     * A distance range is then one contiguous slice.
+     */
+    private final List<TownData>[] rangeByLevel;
+    private final int[][] distanceStart;
+
+    @SuppressWarnings("unchecked")
+    TownSnapshot(Map<String, TownData> staticTowns, Map<String, TownData> dynamicTowns) {
+        this.staticTowns = Collections.unmodifiableMap(new LinkedHashMap<>(staticTowns));
+        this.dynamicTowns = Collections.unmodifiableMap(new LinkedHashMap<>(dynamicTowns));
+
+        Map<String, TownData> ids = new HashMap<>(this.dynamicTowns);
+        ids.putAll(this.staticTowns);
+        this.byId = Collections.unmodifiableMap(ids);
+
+        List<TownData> ordered = new ArrayList<>(ids.size());
+        ordered.addAll(this.staticTowns.values());
+        for (TownData town : this.dynamicTowns.values()) {
+            if (!this.staticTowns.containsKey(town.getId())) ordered.add(town);
+        }
+        this.all = Collections.unmodifiableList(ordered);
+
+        int maxLevel = 0;
+        int maxDistance = 0;
+        for (TownData town : ordered) {
+            maxLevel = Math.max(maxLevel, town.getMinTraderLevel());
+            maxDistance = Math.max(maxDistance, town.getDistance());
+        }
+
+        availableByLevel = new List[maxLevel + 1];
+        for (int level = 0; level <= maxLevel; level++) {
+            List<TownData> available = new ArrayList<>();
+            for (TownData town : ordered) {
+                if (town.getMinTraderLevel() <= level) available.add(town);
+            }
+            availableByLevel[level] = Collections.unmodifiableList(available);
+        }
+
+        List<TownData>[] distances = new List[maxDistance + 1];
+        for (int d = 0; d <= maxDistance; d++) distances[d] = new ArrayList<>();
+        for (TownData town : ordered) {
+            if (town.getDistance() >= 0) distances[town.getDistance()].add(town);
+        }
+        for (int d = 0; d <= maxDistance; d++) distances[d] = Collections.unmodifiableList(distances[d]);
+        byDistance = distances;
+
+        rangeByLevel = new List[maxLevel + 1];
+        distanceStart = new int[maxLevel + 1][];
+        for (int level = 0; level <= maxLevel; level++) {
+            List<TownData> sorted = new ArrayList<>(availableByLevel[level]);
+            sorted.sort(Comparator.comparingInt(TownData::getDistance)); // stable
+            int[] starts = new int[maxDistance + 2];
+            int i = 0;
+            for (int d = 0; d <= maxDistance + 1; d++) {
+                while (i < sorted.size() && sorted.get(i).getDistance() < d) i++;
+                starts[d] = i;
+            }
+            rangeByLevel[level] = Collections.unmodifiableList(sorted);
+            distanceStart[level] = starts;
+        }
+    }
+
+    /** Town by id, or null. */
+    public TownData get(String id) {
+        return byId.get(id);
+    }
+
+    /** Every town, static towns first. */
+    public List<TownData> all() {
+        return all;
+    }
+
+    /** Towns a trader of the given level can trade with. */
+    public List<TownData> available(int traderLevel) {
+        if (traderLevel < 0) return List.of();
+        return availableByLevel[Math.min(traderLevel, availableByLevel.length - 1)];
+    }
+
+    /** Towns at exactly the given distance. */
+    public List<TownData> atDistance(int distance) {
+        if (distance < 0 || distance >= byDistance.length) return List.of();
+        return byDistance[distance];
+    }
+
+    /**
+     * Towns a trader of the given level can reach within [minDist, maxDist],
+     * nearest first. Returns a read-only slice of a prebuilt list, so the cost
+     * is independent of how many towns fall outside the range.
+     */
+    public List<TownData> inRange(int minDist, int maxDist, int traderLevel) {
+        if (traderLevel < 0 || minDist > maxDist) return List.of();
+        int level = Math.min(traderLevel, rangeByLevel.length - 1);
+        int[] starts = distanceStart[level];
+        int last = starts.length - 1;
+        int from = starts[Math.max(0, Math.min(minDist, last))];
+        int to = maxDist >= last - 1 ? starts[last] : starts[Math.max(0, maxDist + 1)];
+        return rangeByLevel[level].subList(from, to);
+    }
+
+    /** Largest distance of any town (0 when there are none). */
+    public int getMaxDistance() {
+        return byDistance.length - 1;
+    }
+
+    /** Static towns only (hardcoded, JSON, datapack), by id. */
+    public Map<String, TownData> staticTowns() {
+        return staticTowns;
+    }
+
+    /** Dynamic mod towns only, by id. */
+    public Map<String, TownData> dynamicTowns() {
+        return dynamicTowns;
+    }
+}
@@ -0,0 +1,314 @@
+package com.offtomarket.mod.data;
+
+import com.offtomarket.mod.OffToMarket;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only journal of every completed shipment in a world
+ * (&lt;world&gt;/data/offtomarket_journal.dat).
+ *
+ * The Trading Post only keeps a short recent window of history for sync and
+ * saves; the full record lives here. The file is memory-mapped, so appends are
+ * plain buffer writes and pages are read straight from the mapping. An
+ * in-memory table of record offsets (8 bytes per record) makes any page a
+ * direct seek, newest first.
+ *
+ * Layout: a 32-byte header (magic, version, record count, end offset) followed
+ * by length-prefixed records. The header is updated after each record is
+ * written, so a crash mid-append loses at most that record.
+ *
+ * Mappings are unmapped explicitly when the journal grows or closes; otherwise
+ * they pin the file until GC, which on Windows stops the world folder from
+ * being deleted or reopened in the same session.
+ *
+ * Server thread only.
+ */
+public final class TradeJournal {
+
+    private static final int MAGIC = 0x4F544D4A; // "OTMJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int OFFSET_COUNT = 8;
+    private static final int OFFSET_END = 16;
+    private static final long INITIAL_CAPACITY = 1L << 20; // 1 MiB, doubled as needed
+    private static final int MAX_STRING_BYTES = 1024;
+    private static final String FILE_NAME = "offtomarket_journal.dat";
+
+    /** Entries per page sent to clients. */
+    public static final int PAGE_SIZE = 15;
+
+    /** Outcome of a shipment, as stored in the journal. */
+    public enum Outcome { SOLD, PARTIAL, RETURNED }
+
+    /** One completed shipment. */
+    public record Entry(long gameTime, String townId, String townName, int items, int earnings, Outcome outcome) {}
+
+    /** A page of entries, newest first, plus the journal size when it was read. */
+    public record Page(int page, long total, List<Entry> entries) {}
+
+    @Nullable
+    private static TradeJournal instance;
+    @Nullable
+    private static MinecraftServer instanceServer;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private final LongArrayList offsets = new LongArrayList();
+    private long end = HEADER_SIZE;
+    private boolean failed = false;
+
+    private TradeJournal(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        mapCapacity(Math.max(size, INITIAL_CAPACITY));
+        if (size < HEADER_SIZE || map.getInt(0) != MAGIC) {
+            writeHeader();
+        } else {
+            scan();
+        }
+    }
+
+    /** The journal for the given server's world, opened on first use. */
+    public static TradeJournal get(MinecraftServer server) {
+        if (instance == null || instanceServer != server) {
+            close();
+            Path file = server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(FILE_NAME);
+            try {
+                instance = new TradeJournal(file);
+            } catch (IOException e) {
+                OffToMarket.LOGGER.error("[TradeJournal] Could not open {}: {}", file, e.toString());
+                instance = new TradeJournal(file, true);
+            }
+            instanceServer = server;
+        }
+        return instance;
+    }
+
+    /** A journal that ignores appends and returns empty pages (file could not be opened). */
+    private TradeJournal(Path path, boolean failed) {
+        this.path = path;
+        this.failed = failed;
+    }
+
+    // ==================== Writing ====================
+
+    /** Append a completed shipment. */
+    public void append(Entry entry) {
+        if (failed) return;
+        byte[] townId = utf(entry.townId());
+        byte[] townName = utf(entry.townName());
+        int payload = 8 + 4 + 4 + 1 + 2 + townId.length + 2 + townName.length;
+        long start = end;
+        long needed = start + 4 + payload;
+        try {
+            if (needed > map.capacity()) grow(needed);
+        } catch (IOException | IllegalArgumentException e) {
+            OffToMarket.LOGGER.error("[TradeJournal] Could not grow {}, journaling stopped: {}", path, e.toString());
+            failed = true;
+            return;
+        }
+
+        int pos = (int) start;
+        map.putInt(pos, payload);
+        pos += 4;
+        map.putLong(pos, entry.gameTime());
+        pos += 8;
+        map.putInt(pos, entry.items());
+        pos += 4;
+        map.putInt(pos, entry.earnings());
+        pos += 4;
+        map.put(pos, (byte) entry.outcome().ordinal());
+        pos += 1;
+        pos = putString(pos, townId);
+        putString(pos, townName);
+
+        offsets.add(start);
+        end = needed;
+        map.putLong(OFFSET_COUNT, offsets.size());
+        map.putLong(OFFSET_END, end);
+    }
+
+    /** Flush the mapping to disk (world save). */
+    public void flush() {
+        if (!failed && map != null) map.force();
+    }
+
+    /** Flush the open journal, if any, without opening one (world save). */
+    public static void flushOpen() {
+        if (instance != null) instance.flush();
+    }
+
+    /** Flush and release the open journal (server stop). */
+    public static void close() {
+        TradeJournal journal = instance;
+        instance = null;
+        instanceServer = null;
+        if (journal == null || journal.channel == null) return;
+        try {
+            journal.flush();
+            MappedByteBuffer mapping = journal.map;
+            journal.map = null;
+            unmap(mapping);
+            journal.channel.close();
+        } catch (IOException e) {
+            OffToMarket.LOGGER.warn("[TradeJournal] Error closing {}: {}", journal.path, e.toString());
+        }
+    }
+
+    // ==================== Reading ====================
+
+    public long size() {
+        return offsets.size();
+    }
+
+    /** Number of pages of {@code pageSize} entries; at least 1, so page 0 always exists. */
+    public int pageCount(int pageSize) {
+        if (pageSize <= 0) return 1;
+        return (int) Math.max(1, (offsets.size() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Read one page, newest first. Page 0 holds the latest {@code pageSize}
+     * entries; pages past the end are empty.
+     */
+    public Page readPage(int page, int pageSize) {
+        long total = offsets.size();
+        long first = total - 1 - (long) page * pageSize; // newest index on this page
+        if (page < 0 || pageSize <= 0 || first < 0) return new Page(page, total, Collections.emptyList());
+        long last = Math.max(0, first - pageSize + 1);
+        List<Entry> entries = new ArrayList<>((int) (first - last + 1));
+        for (long i = first; i >= last; i--) {
+            entries.add(read(offsets.getLong((int) i)));
+        }
+        return new Page(page, total, entries);
+    }
+
+    private Entry read(long offset) {
+        int pos = (int) offset + 4;
+        long gameTime = map.getLong(pos);
+        pos += 8;
+        int items = map.getInt(pos);
+        pos += 4;
+        int earnings = map.getInt(pos);
+        pos += 4;
+        int outcome = map.get(pos);
+        pos += 1;
+        String townId = getString(pos);
+        pos += 2 + (map.getShort(pos) & 0xFFFF);
+        String townName = getString(pos);
+        Outcome[] outcomes = Outcome.values();
+        return new Entry(gameTime, townId, townName, items, earnings,
+                outcome >= 0 && outcome < outcomes.length ? outcomes[outcome] : Outcome.SOLD);
+    }
+
+    // ==================== File Layout ====================
+
+    private void writeHeader() {
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putLong(OFFSET_COUNT, 0);
+        map.putLong(OFFSET_END, HEADER_SIZE);
+        end = HEADER_SIZE;
+        offsets.clear();
+    }
+
+    /** Rebuild the offset table from the records up to the header's end offset. */
+    private void scan() {
+        long headerEnd = map.getLong(OFFSET_END);
+        long limit = Math.min(headerEnd, map.capacity());
+        long pos = HEADER_SIZE;
+        try {
+            while (pos + 4 <= limit) {
+                int length = map.getInt((int) pos);
+                if (length <= 0 || pos + 4 + length > limit) break;
+                offsets.add(pos);
+                pos += 4 + length;
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            // Truncated tail: keep everything before it
+        }
+        if (pos != headerEnd) {
+            OffToMarket.LOGGER.warn("[TradeJournal] {} ends early; recovered {} record(s)", path, offsets.size());
+        }
+        end = pos;
+        map.putLong(OFFSET_COUNT, offsets.size());
+        map.putLong(OFFSET_END, end);
+    }
+
+    private void grow(long needed) throws IOException {
+        long capacity = map.capacity();
+        while (capacity < needed) capacity *= 2;
+        if (capacity > Integer.MAX_VALUE) throw new IllegalArgumentException("journal exceeds 2 GiB");
+        map.force();
+        mapCapacity(capacity);
+    }
+
+    private void mapCapacity(long capacity) throws IOException {
+        MappedByteBuffer previous = map;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        unmap(previous);
+    }
+
+    /**
+     * Release a mapping now instead of at GC. The buffer must not be touched
+     * afterwards. Falls back to leaving it for GC if the JDK hides the cleaner.
+     */
+    private static void unmap(@Nullable MappedByteBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            OffToMarket.LOGGER.debug("[TradeJournal] Could not unmap journal buffer: {}", e.toString());
+        }
+    }
+
+    private int putString(int pos, byte[] bytes) {
+        map.putShort(pos, (short) bytes.length);
+        map.put(pos + 2, bytes);
+        return pos + 2 + bytes.length;
+    }
+
+    private String getString(int pos) {
+        int length = map.getShort(pos) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        map.get(pos + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf(String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) return bytes;
+        // Trim on a character boundary
+        String trimmed = value;
+        while (bytes.length > MAX_STRING_BYTES) {
+            trimmed = trimmed.substring(0, trimmed.length() / 2);
+            bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+}
@@ -8,7 +8,9 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.saveddata.SavedData;
 
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -18,10 +20,33 @@ import java.util.Set;
  *
  * Each Trading Post registers/unregisters itself, and any change
  * to the shared state is pushed here so that all posts stay in sync.
+ *
+ * The state is split into {@link Section}s that change at different rates.
+ * Posts only re-encode and push the sections they changed, and the tags are
+ * stored as handed over: nothing here is deep-copied on read, write or save.
+ * Section tags must be treated as read-only once pushed.
  */
 public class TradingData extends SavedData {
 
-    private CompoundTag sharedState = new CompoundTag();
+    /** Independently stored and pushed parts of the shared state. */
+    public enum Section {
+        /** Trader progress, timers, shipments, listings, orders, quests, workers, diplomats, demand. */
+        HOT("Hot"),
+        /** Recent shipment history records (newest first). */
+        HISTORY("History"),
+        /** Lifetime totals, earnings maps and town reputation. */
+        STATS("Stats");
+
+        private final String key;
+
+        Section(String key) {
+            this.key = key;
+        }
+    }
+
+    private final EnumMap<Section, CompoundTag> sections = new EnumMap<>(Section.class);
+    /** Loaded from the old single-tag format; the first post to load re-pushes every section. */
+    private boolean legacy = false;
     private final Set<BlockPos> registeredPosts = new HashSet<>();
     private long lastTickedGameTime = -1;
 
@@ -38,17 +63,35 @@ public class TradingData extends SavedData {
 
     // ==================== Shared State ====================
 
-    public CompoundTag getSharedState() {
-        return sharedState.copy();
+    /** The stored tag for a section (empty if never pushed). Read-only: it is not copied. */
+    public CompoundTag getSection(Section section) {
+        CompoundTag tag = sections.get(section);
+        return tag != null ? tag : new CompoundTag();
+    }
+
+    /** All stored sections, for a post that needs the full state. Read-only. */
+    public Map<Section, CompoundTag> getSections() {
+        return Collections.unmodifiableMap(sections);
     }
 
-    public void setSharedState(CompoundTag tag) {
-        this.sharedState = tag.copy();
+    /**
+     * Store freshly encoded sections. The tags are kept as-is, so the caller
+     * must not modify them afterwards.
+     */
+    public void putSections(Map<Section, CompoundTag> changed) {
+        if (changed.isEmpty()) return;
+        sections.putAll(changed);
+        if (changed.size() == Section.values().length) legacy = false;
         setDirty();
     }
 
+    /** Whether the sections still hold the old combined tag and should be re-pushed in full. */
+    public boolean isLegacy() {
+        return legacy;
+    }
+
     public boolean isEmpty() {
-        return sharedState.isEmpty();
+        return sections.isEmpty();
     }
 
     // ==================== Post Registration ====================
@@ -84,7 +127,9 @@ public class TradingData extends SavedData {
 
     @Override
     public CompoundTag save(CompoundTag tag) {
-        tag.put("SharedState", sharedState.copy());
+        for (Map.Entry<Section, CompoundTag> e : sections.entrySet()) {
+            tag.put(e.getKey().key, e.getValue());
+        }
 
         ListTag positionList = new ListTag();
         for (BlockPos pos : registeredPosts) {
@@ -101,8 +146,18 @@ public class TradingData extends SavedData {
 
     public static TradingData load(CompoundTag tag) {
         TradingData data = new TradingData();
-        if (tag.contains("SharedState")) {
-            data.sharedState = tag.getCompound("SharedState").copy();
+        for (Section section : Section.values()) {
+            if (tag.contains(section.key)) {
+                data.sections.put(section, tag.getCompound(section.key));
+            }
+        }
+        if (data.sections.isEmpty() && tag.contains("SharedState")) {
+            // Older worlds kept one combined tag; every section loader reads its own keys from it
+            CompoundTag legacy = tag.getCompound("SharedState");
+            for (Section section : Section.values()) {
+                data.sections.put(section, legacy);
+            }
+            data.legacy = true;
         }
         if (tag.contains("RegisteredPosts")) {
             ListTag positions = tag.getList("RegisteredPosts", Tag.TAG_COMPOUND);
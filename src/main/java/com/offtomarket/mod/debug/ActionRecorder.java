@@ -0,0 +1,99 @@
+package com.offtomarket.mod.debug;
+
+import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.sim.ActionLog;
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Records the economy actions taken on this server to an {@link ActionLog},
+ * toggled with /otm record. Replay a log headlessly with
+ * {@code ./gradlew simulate -PsimArgs="replay=<file>"}.
+ *
+ * Call sites guard with {@link #isRecording()} before building the action, so
+ * while recording is off each one costs a single volatile read.
+ *
+ * Server thread only.
+ */
+public final class ActionRecorder {
+
+    @Nullable
+    private static volatile ActionLog.Writer writer;
+    @Nullable
+    private static Path file;
+
+    private ActionRecorder() {}
+
+    public static boolean isRecording() {
+        return writer != null;
+    }
+
+    /**
+     * Start a new log at &lt;game dir&gt;/debug/offtomarket-actions-&lt;time&gt;.otmr
+     * (closing any open one) and return the file.
+     */
+    public static Path start(long gameTime, long seed) throws IOException {
+        stop();
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss"));
+        Path target = FMLPaths.GAMEDIR.get().resolve("debug").resolve("offtomarket-actions-" + stamp + ".otmr");
+        writer = new ActionLog.Writer(target, gameTime, seed);
+        file = target;
+        return target;
+    }
+
+    /** Close the open log, if any, and return its file. */
+    @Nullable
+    public static Path stop() {
+        ActionLog.Writer open = writer;
+        Path closed = file;
+        writer = null;
+        file = null;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (IOException e) {
+                OffToMarket.LOGGER.warn("[ActionRecorder] Error closing {}: {}", closed, e.toString());
+            }
+        }
+        return closed;
+    }
+
+    /** Append an action; a write error stops recording. */
+    public static void record(ActionLog.Action action) {
+        ActionLog.Writer open = writer;
+        if (open == null) return;
+        try {
+            open.write(action);
+        } catch (IOException e) {
+            OffToMarket.LOGGER.error("[ActionRecorder] Could not write {}, recording stopped: {}", file, e.toString());
+            stop();
+        }
+    }
+
+    /** Push buffered actions to disk (world save). */
+    public static void flush() {
+        ActionLog.Writer open = writer;
+        if (open == null) return;
+        try {
+            open.flush();
+        } catch (IOException e) {
+            OffToMarket.LOGGER.warn("[ActionRecorder] Could not flush {}: {}", file, e.toString());
+        }
+    }
+
+    /** Actions written to the open log (0 when not recording). */
+    public static long getCount() {
+        ActionLog.Writer open = writer;
+        return open != null ? open.getCount() : 0;
+    }
+
+    @Nullable
+    public static Path getFile() {
+        return file;
+    }
+}
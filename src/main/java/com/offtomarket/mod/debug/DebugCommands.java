@@ -4,15 +4,19 @@ import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
 import com.offtomarket.mod.config.ModConfig;
 import com.offtomarket.mod.content.CustomMenuRegistry;
 import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.data.Worker;
+import com.offtomarket.mod.network.MarketSyncCodec;
 import com.offtomarket.mod.network.ModNetwork;
 import com.offtomarket.mod.network.OpenCustomMenuPacket;
 import net.minecraft.ChatFormatting;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
@@ -22,6 +26,8 @@ import com.offtomarket.mod.data.TownRegistry;
 import com.offtomarket.mod.data.TownData;
 import com.offtomarket.mod.data.NeedLevel;
 
+import java.util.List;
+
 /**
  * In-game debug commands under /otm.
  * Requires OP level 2 (cheats enabled).
@@ -98,10 +104,13 @@ public class DebugCommands {
                         .then(Commands.literal("coins")
                                 .then(Commands.argument("amount", IntegerArgumentType.integer(1))
                                         .executes(ctx -> {
+                                            TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                                            if (post == null) return 0;
                                             int amount = IntegerArgumentType.getInteger(ctx, "amount");
-                                            DebugConfig.GRANT_COINS = amount;
+                                            post.adminGrantCoins(amount);
+                                            DebugHooks.event("Granted " + amount + " CP to pending coins");
                                             ctx.getSource().sendSuccess(Component.literal(
-                                                    "Granting " + amount + " CP on next tick...")
+                                                    "Granted " + amount + " CP to pending coins.")
                                                     .withStyle(ChatFormatting.GOLD), true);
                                             return 1;
                                         })))
@@ -110,10 +119,13 @@ public class DebugCommands {
                         .then(Commands.literal("xp")
                                 .then(Commands.argument("amount", IntegerArgumentType.integer(1))
                                         .executes(ctx -> {
+                                            TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                                            if (post == null) return 0;
                                             int amount = IntegerArgumentType.getInteger(ctx, "amount");
-                                            DebugConfig.GRANT_XP = amount;
+                                            post.addTraderXp(amount);
+                                            DebugHooks.event("Granted " + amount + " XP");
                                             ctx.getSource().sendSuccess(Component.literal(
-                                                    "Granting " + amount + " XP on next tick...")
+                                                    "Granted " + amount + " trader XP.")
                                                     .withStyle(ChatFormatting.GREEN), true);
                                             return 1;
                                         })))
@@ -123,10 +135,13 @@ public class DebugCommands {
                 .then(Commands.literal("setlevel")
                         .then(Commands.argument("level", IntegerArgumentType.integer(1, 20))
                                 .executes(ctx -> {
+                                    TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                                    if (post == null) return 0;
                                     int lvl = IntegerArgumentType.getInteger(ctx, "level");
-                                    DebugConfig.SET_TRADER_LEVEL = lvl;
+                                    post.adminSetTraderLevel(lvl);
+                                    DebugHooks.event("Set trader level to " + lvl);
                                     ctx.getSource().sendSuccess(Component.literal(
-                                            "Setting trader level to " + lvl + " on next tick...")
+                                            "Trader level set to " + lvl + ".")
                                             .withStyle(ChatFormatting.AQUA), true);
                                     return 1;
                                 })))
@@ -134,21 +149,27 @@ public class DebugCommands {
                 // /otm deliver
                 .then(Commands.literal("deliver")
                         .executes(ctx -> {
-                            DebugConfig.INSTANT_DELIVERY = true;
+                            TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                            if (post == null) return 0;
+                            int count = post.adminDeliverAll(ctx.getSource().getLevel().getGameTime());
+                            if (count > 0) DebugHooks.event("Instant delivery: " + count + " shipments arrived");
                             ctx.getSource().sendSuccess(Component.literal(
-                                    "Forcing instant delivery of all in-transit shipments...")
+                                    "Instant delivery: " + count + " shipment(s) arrived at market.")
                                     .withStyle(ChatFormatting.GREEN), true);
-                            return 1;
+                            return count;
                         }))
 
                 // /otm sell
                 .then(Commands.literal("sell")
                         .executes(ctx -> {
-                            DebugConfig.INSTANT_SELL = true;
+                            TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                            if (post == null) return 0;
+                            int count = post.adminSellAll(ctx.getSource().getLevel().getGameTime());
+                            if (count > 0) DebugHooks.event("Instant sell: " + count + " shipments sold");
                             ctx.getSource().sendSuccess(Component.literal(
-                                    "Forcing instant sale of all at-market items...")
+                                    "Instant sell: " + count + " shipment(s) sold.")
                                     .withStyle(ChatFormatting.GOLD), true);
-                            return 1;
+                            return count;
                         }))
 
                 // /otm set <key> <value> — override a config value at runtime
@@ -168,6 +189,11 @@ public class DebugCommands {
                 .then(Commands.literal("status")
                         .executes(ctx -> {
                             CommandSourceStack src = ctx.getSource();
+                            // Read the nearest post now rather than relying on the last debug tick
+                            if (src.getEntity() instanceof ServerPlayer player) {
+                                TradingPostBlockEntity post = DebugHooks.findNearestTradingPost(player);
+                                if (post != null) DebugHooks.watchPost(post);
+                            }
                             src.sendSuccess(Component.literal("=== Off to Market Debug Status ===")
                                     .withStyle(ChatFormatting.GOLD), false);
                             src.sendSuccess(Component.literal("Debug: " + (DebugConfig.DEBUG_ENABLED ? "ON" : "OFF")), false);
@@ -305,6 +331,120 @@ public class DebugCommands {
                             return 1;
                         }))
 
+                // /otm syncsize — compare market sync payload (NBT vs binary codec)
+                .then(Commands.literal("syncsize")
+                        .executes(ctx -> {
+                            TradingPostBlockEntity post = nearestPost(ctx.getSource());
+                            if (post == null) return 0;
+                            MarketSyncCodec.PayloadSize size = MarketSyncCodec.measure(
+                                    post.getMarketListings(), post.getActiveShipments());
+                            ctx.getSource().sendSuccess(Component.literal(
+                                    "=== Market Sync Payload (" + post.getMarketListings().size() + " listings, "
+                                    + post.getActiveShipments().size() + " shipments) ===")
+                                    .withStyle(ChatFormatting.GOLD), false);
+                            ctx.getSource().sendSuccess(Component.literal("  " + MarketSyncCodec.describe(size))
+                                    .withStyle(ChatFormatting.YELLOW), false);
+                            return 1;
+                        }))
+
+                // /otm perf [start|stop|reset|csv] — sectioned server-side timings
+                .then(Commands.literal("perf")
+                        .executes(ctx -> {
+                            printPerf(ctx.getSource());
+                            return 1;
+                        })
+                        .then(Commands.literal("start")
+                                .executes(ctx -> {
+                                    TickProfiler.reset();
+                                    TickProfiler.setEnabled(true);
+                                    ctx.getSource().sendSuccess(Component.literal(
+                                            "Profiler started. Run /otm perf to see timings.")
+                                            .withStyle(ChatFormatting.GREEN), true);
+                                    return 1;
+                                }))
+                        .then(Commands.literal("stop")
+                                .executes(ctx -> {
+                                    TickProfiler.setEnabled(false);
+                                    ctx.getSource().sendSuccess(Component.literal(
+                                            "Profiler stopped (timings kept).")
+                                            .withStyle(ChatFormatting.YELLOW), true);
+                                    return 1;
+                                }))
+                        .then(Commands.literal("reset")
+                                .executes(ctx -> {
+                                    TickProfiler.reset();
+                                    ctx.getSource().sendSuccess(Component.literal("Profiler timings cleared.")
+                                            .withStyle(ChatFormatting.YELLOW), true);
+                                    return 1;
+                                }))
+                        .then(Commands.literal("csv")
+                                .executes(ctx -> {
+                                    try {
+                                        java.nio.file.Path file = TickProfiler.dumpCsv();
+                                        ctx.getSource().sendSuccess(Component.literal(
+                                                "Wrote " + file.toAbsolutePath())
+                                                .withStyle(ChatFormatting.GREEN), false);
+                                        return 1;
+                                    } catch (java.io.IOException e) {
+                                        ctx.getSource().sendFailure(Component.literal(
+                                                "[OTM] Could not write CSV: " + e.getMessage()));
+                                        return 0;
+                                    }
+                                })))
+
+                // /otm record [start|stop] — log economy actions for headless replay
+                .then(Commands.literal("record")
+                        .executes(ctx -> {
+                            if (ActionRecorder.isRecording()) {
+                                ctx.getSource().sendSuccess(Component.literal("Recording: "
+                                        + ActionRecorder.getCount() + " action(s) to " + ActionRecorder.getFile())
+                                        .withStyle(ChatFormatting.YELLOW), false);
+                            } else {
+                                ctx.getSource().sendSuccess(Component.literal(
+                                        "Not recording. Start with /otm record start")
+                                        .withStyle(ChatFormatting.GRAY), false);
+                            }
+                            return 1;
+                        })
+                        .then(Commands.literal("start")
+                                .executes(ctx -> {
+                                    ServerLevel level = ctx.getSource().getLevel();
+                                    try {
+                                        java.nio.file.Path file = ActionRecorder.start(level.getGameTime(),
+                                                level.getRandom().nextLong());
+                                        // Replays start from the nearest post's workers, if there is one
+                                        if (ctx.getSource().getEntity() instanceof ServerPlayer player) {
+                                            TradingPostBlockEntity post = DebugHooks.findNearestTradingPost(player);
+                                            if (post != null) {
+                                                for (Worker.WorkerType type : Worker.WorkerType.values()) {
+                                                    post.recordWorker(post.getWorker(type));
+                                                }
+                                            }
+                                        }
+                                        ctx.getSource().sendSuccess(Component.literal(
+                                                "Recording economy actions to " + file.toAbsolutePath())
+                                                .withStyle(ChatFormatting.GREEN), true);
+                                        return 1;
+                                    } catch (java.io.IOException e) {
+                                        ctx.getSource().sendFailure(Component.literal(
+                                                "[OTM] Could not start recording: " + e.getMessage()));
+                                        return 0;
+                                    }
+                                }))
+                        .then(Commands.literal("stop")
+                                .executes(ctx -> {
+                                    long count = ActionRecorder.getCount();
+                                    java.nio.file.Path file = ActionRecorder.stop();
+                                    if (file == null) {
+                                        ctx.getSource().sendFailure(Component.literal("[OTM] Not recording."));
+                                        return 0;
+                                    }
+                                    ctx.getSource().sendSuccess(Component.literal("Recorded " + count
+                                            + " action(s) to " + file.toAbsolutePath())
+                                            .withStyle(ChatFormatting.YELLOW), true);
+                                    return 1;
+                                })))
+
                 // /otm menu open <id> — open a custom menu screen on the requesting player's client
                 .then(Commands.literal("menu")
                         .then(Commands.literal("open")
@@ -333,6 +473,19 @@ public class DebugCommands {
         );
     }
 
+    /** The Trading Post nearest the command's player, or null after telling them why. */
+    private static TradingPostBlockEntity nearestPost(CommandSourceStack src) {
+        if (!(src.getEntity() instanceof ServerPlayer player)) {
+            src.sendFailure(Component.literal("[OTM] Must be a player."));
+            return null;
+        }
+        TradingPostBlockEntity post = DebugHooks.findNearestTradingPost(player);
+        if (post == null) {
+            src.sendFailure(Component.literal("[OTM] No Trading Post within 32 blocks."));
+        }
+        return post;
+    }
+
     private static String applySet(String key, double val) {
         return switch (key.toLowerCase()) {
             case "pickupdelay" -> { DebugConfig.OVERRIDE_PICKUP_DELAY = (int) val; yield "pickupDelay → " + (int) val; }
@@ -369,6 +522,30 @@ public class DebugCommands {
         };
     }
 
+    // ==================== Perf ====================
+
+    private static void printPerf(CommandSourceStack src) {
+        List<TickProfiler.Stats> stats = TickProfiler.snapshot();
+        String state = TickProfiler.isEnabled()
+                ? "running " + TickProfiler.getRunningSeconds() + "s" : "stopped";
+        src.sendSuccess(Component.literal("=== Off to Market Perf (" + state + ", \u00B5s, last "
+                + TickProfiler.WINDOW + " samples) ===").withStyle(ChatFormatting.GOLD), false);
+        if (stats.isEmpty()) {
+            src.sendSuccess(Component.literal(TickProfiler.isEnabled()
+                    ? "  No samples yet." : "  No samples. Start with /otm perf start")
+                    .withStyle(ChatFormatting.GRAY), false);
+            return;
+        }
+        src.sendSuccess(Component.literal("  section: count | p50 / p90 / p99 | max")
+                .withStyle(ChatFormatting.GRAY), false);
+        for (TickProfiler.Stats s : stats) {
+            src.sendSuccess(Component.literal("  " + s.name() + ": " + s.count() + " | "
+                    + TickProfiler.micros(s.p50()) + " / " + TickProfiler.micros(s.p90()) + " / "
+                    + TickProfiler.micros(s.p99()) + " | " + TickProfiler.micros(s.max()))
+                    .withStyle(ChatFormatting.YELLOW), false);
+        }
+    }
+
     // ==================== Help ====================
 
     private static void printHelp(CommandSourceStack src) {
@@ -379,6 +556,9 @@ public class DebugCommands {
         src.sendSuccess(Component.literal("  /otm help [topic]       - This help list. Topics: debug, grant, settings, town, price, menu"), false);
         src.sendSuccess(Component.literal("  /otm status             - Show live debug watch values (coins, XP, shipments)"), false);
         src.sendSuccess(Component.literal("  /otm balancetest        - Run item price tier accuracy test"), false);
+        src.sendSuccess(Component.literal("  /otm syncsize           - Compare nearest post's sync payload (NBT vs binary)"), false);
+        src.sendSuccess(Component.literal("  /otm perf [start|stop|reset|csv] - Server-side timings per subsystem"), false);
+        src.sendSuccess(Component.literal("  /otm record [start|stop] - Log economy actions for headless replay"), false);
 
         src.sendSuccess(Component.literal("[Grant & Trader]").withStyle(ChatFormatting.YELLOW), false);
         src.sendSuccess(Component.literal("  /otm grant coins <n>    - Give yourself n copper pieces (100 CP = 1g)"), false);
@@ -86,20 +86,8 @@ public class DebugConfig {
     public static int OVERRIDE_GOLD_ONLY_MODE = -1;
 
     // ===================== Instant Cheats =====================
-    /** When set > 0, grants this many coins on next tick then resets to 0 */
-    public static int GRANT_COINS = 0;
-
-    /** When set > 0, grants this much trader XP on next tick then resets to 0 */
-    public static int GRANT_XP = 0;
-
-    /** When set > 0, sets trader level directly on next tick then resets to 0 */
-    public static int SET_TRADER_LEVEL = 0;
-
-    /** When set true, forces instant delivery of all in-transit shipments */
-    public static boolean INSTANT_DELIVERY = false;
-
-    /** When set true, forces all at-market items to sell immediately */
-    public static boolean INSTANT_SELL = false;
+    // Grants, level changes and instant delivery/sale are /otm commands that
+    // act on the nearest Trading Post directly (see DebugCommands).
 
     /** When set true, skip pickup delay (items ship immediately) */
     public static boolean SKIP_PICKUP_DELAY = false;
@@ -259,11 +247,6 @@ public class DebugConfig {
         OVERRIDE_MAX_TRADER_LEVEL = 0;
         OVERRIDE_BIN_SEARCH_RADIUS = 0;
         OVERRIDE_GOLD_ONLY_MODE = -1;
-        GRANT_COINS = 0;
-        GRANT_XP = 0;
-        SET_TRADER_LEVEL = 0;
-        INSTANT_DELIVERY = false;
-        INSTANT_SELL = false;
         SKIP_PICKUP_DELAY = false;
 
         WATCH_LAST_EVENT = "All overrides reset";
@@ -80,8 +80,6 @@ public class DebugOverlay {
         // Cheats status
         StringBuilder cheats = new StringBuilder();
         if (DebugConfig.SKIP_PICKUP_DELAY) cheats.append("NoPick ");
-        if (DebugConfig.INSTANT_DELIVERY) cheats.append("InstDlv ");
-        if (DebugConfig.INSTANT_SELL) cheats.append("InstSell ");
         font.drawShadow(ps, "Cheats: " + (cheats.length() > 0 ? cheats.toString() : "none"), x, y, 0xFF5555);
         y += lineH;
 
@@ -0,0 +1,174 @@
+package com.offtomarket.mod.debug;
+
+import net.minecraftforge.fml.loading.FMLPaths;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sectioned timer for Off to Market's server-side work, reported by /otm perf.
+ *
+ * Call sites bracket a section with {@link #start()} and
+ * {@link #stop(Section, long)}. While the profiler is off, {@code start()}
+ * returns 0 and {@code stop} returns immediately, so the instrumentation costs
+ * one volatile read per section. While on, each section keeps the last
+ * {@value #WINDOW} samples in a ring (for percentiles) plus lifetime count,
+ * total and max.
+ *
+ * Samples are recorded on the server thread only.
+ */
+public final class TickProfiler {
+
+    /** Samples kept per section for percentiles. */
+    public static final int WINDOW = 1024;
+
+    /** One timed section. */
+    public static final class Section {
+        private final String name;
+        private final long[] samples = new long[WINDOW];
+        private int next = 0;
+        private long count = 0;
+        private long totalNanos = 0;
+        private long maxNanos = 0;
+
+        private Section(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        private void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count++;
+            totalNanos += nanos;
+            if (nanos > maxNanos) maxNanos = nanos;
+        }
+
+        private void reset() {
+            next = 0;
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+        }
+
+        /** Current figures; percentiles cover the last {@value #WINDOW} samples. */
+        public Stats stats() {
+            int n = (int) Math.min(count, WINDOW);
+            long[] window = Arrays.copyOf(samples, n);
+            Arrays.sort(window);
+            return new Stats(name, count, count > 0 ? totalNanos / count : 0,
+                    percentile(window, 0.50), percentile(window, 0.90), percentile(window, 0.99), maxNanos);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /** Snapshot of one section, all times in nanoseconds. */
+    public record Stats(String name, long count, long mean, long p50, long p90, long p99, long max) {}
+
+    private static final Map<String, Section> sections = new LinkedHashMap<>();
+    private static volatile boolean enabled = false;
+    private static long enabledAtMillis = 0;
+
+    // Trading Post tick phases
+    public static final Section POST_SHIPMENTS = section("post/shipments");
+    public static final Section POST_SALES = section("post/sales");
+    public static final Section POST_DEMAND = section("post/demand_decay");
+    public static final Section POST_REFRESH = section("post/market_refresh");
+    public static final Section POST_BUY_ORDERS = section("post/buy_orders");
+    public static final Section POST_DIPLOMATS = section("post/diplomats");
+    public static final Section POST_QUESTS = section("post/quests");
+    public static final Section POST_SYNC = section("post/sync");
+    // Other blocks and managers
+    public static final Section LEDGER_SYNC = section("ledger/sync");
+    public static final Section MAILBOX_DELIVERY = section("mailbox/delivery");
+    public static final Section SUPPLY_DEMAND = section("supply_demand/tick");
+
+    private TickProfiler() {}
+
+    /** The section with the given name, created on first use (e.g. one per packet type). */
+    public static synchronized Section section(String name) {
+        return sections.computeIfAbsent(name, Section::new);
+    }
+
+    // ==================== Timing ====================
+
+    /** Start timestamp for a section, or 0 while profiling is off. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /** Record the time since {@code start} (no-op if it was taken while off). */
+    public static void stop(Section section, long start) {
+        if (start != 0L) section.record(System.nanoTime() - start);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void setEnabled(boolean on) {
+        if (on && !enabled) enabledAtMillis = System.currentTimeMillis();
+        enabled = on;
+    }
+
+    /** Seconds since profiling was last switched on (0 when off). */
+    public static long getRunningSeconds() {
+        return enabled ? (System.currentTimeMillis() - enabledAtMillis) / 1000 : 0;
+    }
+
+    public static synchronized void reset() {
+        for (Section section : sections.values()) section.reset();
+    }
+
+    // ==================== Reporting ====================
+
+    /** Stats for every section that has samples, slowest p99 first. */
+    public static synchronized List<Stats> snapshot() {
+        List<Stats> out = new ArrayList<>();
+        for (Section section : sections.values()) {
+            Stats stats = section.stats();
+            if (stats.count() > 0) out.add(stats);
+        }
+        out.sort((a, b) -> Long.compare(b.p99(), a.p99()));
+        return out;
+    }
+
+    /**
+     * Write the current stats to &lt;game dir&gt;/debug/offtomarket-perf-&lt;time&gt;.csv
+     * (microseconds) and return the file.
+     */
+    public static Path dumpCsv() throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss"));
+        Path file = FMLPaths.GAMEDIR.get().resolve("debug").resolve("offtomarket-perf-" + stamp + ".csv");
+        Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("section,count,mean_us,p50_us,p90_us,p99_us,max_us\n");
+            for (Stats s : snapshot()) {
+                out.write(s.name() + "," + s.count() + "," + micros(s.mean()) + "," + micros(s.p50()) + ","
+                        + micros(s.p90()) + "," + micros(s.p99()) + "," + micros(s.max()) + "\n");
+            }
+        }
+        return file;
+    }
+
+    /** Nanoseconds as microseconds with one decimal. */
+    public static String micros(long nanos) {
+        return String.format(java.util.Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+}
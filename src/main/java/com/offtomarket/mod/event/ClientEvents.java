@@ -7,10 +7,12 @@ import com.offtomarket.mod.client.screen.MailboxScreen;
 import com.offtomarket.mod.client.screen.MarketBoardScreen;
 import com.offtomarket.mod.client.screen.TradingLedgerScreen;
 import com.offtomarket.mod.client.screen.TradingPostScreen;
+import com.offtomarket.mod.content.ContentReloadListener;
 import com.offtomarket.mod.debug.DebugOverlay;
 import com.offtomarket.mod.registry.ModMenuTypes;
 import net.minecraft.client.gui.screens.MenuScreens;
 import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
@@ -33,4 +35,15 @@ public class ClientEvents {
             MinecraftForge.EVENT_BUS.register(new DebugOverlay());
         });
     }
+
+    /** Game (FORGE bus) events on the client. */
+    @Mod.EventBusSubscriber(modid = OffToMarket.MODID, value = Dist.CLIENT)
+    public static class ForgeEvents {
+
+        @SubscribeEvent
+        public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+            // Towns and menus pushed by a dedicated server must not leak into the next world
+            ContentReloadListener.onClientLoggedOut();
+        }
+    }
 }
@@ -0,0 +1,271 @@
+package com.offtomarket.mod.gametest;
+
+import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.block.entity.MailboxBlockEntity;
+import com.offtomarket.mod.block.entity.TradingLedgerBlockEntity;
+import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
+import com.offtomarket.mod.data.Quest;
+import com.offtomarket.mod.data.Shipment;
+import com.offtomarket.mod.data.TownData;
+import com.offtomarket.mod.data.TownRegistry;
+import com.offtomarket.mod.debug.TickProfiler;
+import com.offtomarket.mod.registry.ModBlocks;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.ChestBlockEntity;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Load tests for the trading blocks, run by the gameTestServer run config (or
+ * {@code /test runall} in a dev world).
+ *
+ * Each test builds its setup in an empty 48×10×48 arena, lets the mod's tick
+ * handlers run, checks the outcome, and reports ms-per-tick for the
+ * {@link TickProfiler} sections it exercised. Each test runs in its own batch,
+ * so the (global) profiler only sees one test at a time. The per-tick budget
+ * defaults to {@value #DEFAULT_BUDGET_MS} ms and can be changed with
+ * {@code -Dofftomarket.gametest.budgetMs=...}.
+ */
+@GameTestHolder(OffToMarket.MODID)
+@PrefixGameTestTemplate(false)
+public class TradingLoadTests {
+
+    private static final String ARENA = "load_arena";
+    private static final double DEFAULT_BUDGET_MS = 10.0;
+
+    private static final int POSTS = 16;
+    private static final int SHIPMENTS = 4000;
+    private static final int QUESTS = 2000;
+    private static final int LEDGERS = 8;
+    private static final int MAILBOXES = 100;
+    private static final int QUEST_NOTES = 3;
+
+    /** Sections timed inside another section; left out of budgets so they are not counted twice. */
+    private static final Set<String> NESTED_SECTIONS = Set.of(TickProfiler.POST_SALES.getName());
+
+    // ==================== Trading Posts ====================
+
+    /**
+     * {@value #POSTS} posts sharing {@value #SHIPMENTS} shipments and
+     * {@value #QUESTS} quests. Only one post may run the shared tick per game
+     * tick, every post must end up with the same state, due shipments must
+     * reach market, and nothing may be lost.
+     */
+    @GameTest(template = ARENA, batch = "otm_load_posts", timeoutTicks = 600)
+    public static void postsWithThousandsOfShipments(GameTestHelper helper) {
+        List<BlockPos> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            BlockPos pos = new BlockPos(4 + (i % 4) * 12, 1, 4 + (i / 4) * 12);
+            helper.setBlock(pos, ModBlocks.TRADING_POST.get());
+            posts.add(pos);
+        }
+
+        long start = helper.getLevel().getGameTime();
+        TradingPostBlockEntity first = helper.getBlockEntity(posts.get(0));
+        resetSharedState(first);
+        Random rand = new Random(43L);
+        List<TownData> towns = new ArrayList<>(TownRegistry.getAllTowns());
+        for (int i = 0; i < SHIPMENTS; i++) {
+            TownData town = towns.get(i % towns.size());
+            // Half arrive during the test, half long after it
+            long arrival = start + (i % 2 == 0 ? 20 + rand.nextInt(100) : 1_000_000L);
+            first.getActiveShipments().add(new Shipment(new UUID(rand.nextLong(), rand.nextLong()),
+                    town.getId(), shipmentItems(rand), start, arrival));
+        }
+        for (int i = 0; i < QUESTS; i++) {
+            TownData town = towns.get(i % towns.size());
+            first.getActiveQuests().add(new Quest(new UUID(rand.nextLong(), rand.nextLong()), town.getId(),
+                    new ResourceLocation("minecraft:iron_ingot"), "Iron Ingot", 16, 100, 10,
+                    start, start + 1_000_000L));
+        }
+        first.syncToClient();
+        startProfiling();
+
+        helper.startSequence()
+                .thenIdle(300)
+                .thenExecute(() -> {
+                    long now = helper.getLevel().getGameTime();
+                    for (BlockPos pos : posts) {
+                        TradingPostBlockEntity post = helper.getBlockEntity(pos);
+                        helper.assertTrue(post.getActiveShipments().size() == SHIPMENTS,
+                                "Post at " + pos + " has " + post.getActiveShipments().size()
+                                        + " shipments, expected " + SHIPMENTS);
+                        helper.assertTrue(post.getActiveQuests().size() == QUESTS,
+                                "Post at " + pos + " has " + post.getActiveQuests().size()
+                                        + " quests, expected " + QUESTS);
+                    }
+                    // post/shipments is timed once per shared tick, so more samples than ticks
+                    // means several posts ran it in the same game tick
+                    long sharedTicks = TickProfiler.POST_SHIPMENTS.stats().count();
+                    helper.assertTrue(sharedTicks <= now - start + 1, sharedTicks
+                            + " shared ticks ran in " + (now - start + 1) + " game ticks");
+                    int overdue = 0;
+                    for (Shipment shipment : first.getActiveShipments()) {
+                        if (shipment.getStatus() == Shipment.Status.IN_TRANSIT && now >= shipment.getArrivalTime()) {
+                            overdue++;
+                        }
+                    }
+                    helper.assertTrue(overdue == 0, overdue + " shipments are past arrival but still in transit");
+                })
+                .thenExecute(() -> finishProfiling(helper, "postsWithThousandsOfShipments", 300, "post/"))
+                .thenSucceed();
+    }
+
+    // ==================== Ledgers ====================
+
+    /**
+     * {@value #LEDGERS} ledgers, each with a full chest on all four sides. After
+     * one sync interval every chest slot must show up as a virtual ledger slot.
+     */
+    @GameTest(template = ARENA, batch = "otm_load_ledgers", timeoutTicks = 400)
+    public static void ledgersWithFullChests(GameTestHelper helper) {
+        Item[] stock = {Items.COBBLESTONE, Items.OAK_LOG, Items.WHEAT, Items.IRON_INGOT, Items.COAL, Items.BREAD};
+        List<BlockPos> ledgers = new ArrayList<>();
+        int chestSlots = 0;
+        for (int i = 0; i < LEDGERS; i++) {
+            BlockPos pos = new BlockPos(6 + (i % 4) * 10, 1, 10 + (i / 4) * 20);
+            helper.setBlock(pos, ModBlocks.TRADING_LEDGER.get());
+            ledgers.add(pos);
+            for (Direction dir : Direction.Plane.HORIZONTAL) {
+                BlockPos chestPos = pos.relative(dir);
+                helper.setBlock(chestPos, Blocks.CHEST);
+                ChestBlockEntity chest = helper.getBlockEntity(chestPos);
+                for (int slot = 0; slot < chest.getContainerSize(); slot++) {
+                    Item item = stock[(slot + i) % stock.length];
+                    chest.setItem(slot, new ItemStack(item, item.getMaxStackSize()));
+                }
+                chestSlots = chest.getContainerSize() * 4;
+            }
+        }
+        int expected = Math.min(chestSlots, TradingLedgerBlockEntity.BIN_SIZE);
+        startProfiling();
+
+        int ticks = TradingLedgerBlockEntity.SYNC_INTERVAL_TICKS * 3;
+        helper.startSequence()
+                .thenIdle(ticks)
+                .thenExecute(() -> {
+                    for (BlockPos pos : ledgers) {
+                        TradingLedgerBlockEntity ledger = helper.getBlockEntity(pos);
+                        int virtual = 0;
+                        for (int slot = 0; slot < TradingLedgerBlockEntity.BIN_SIZE; slot++) {
+                            if (ledger.isVirtualSlot(slot) && !ledger.getItem(slot).isEmpty()) virtual++;
+                        }
+                        helper.assertTrue(virtual == expected,
+                                "Ledger at " + pos + " shows " + virtual + " chest slots, expected " + expected);
+                    }
+                })
+                .thenExecute(() -> finishProfiling(helper, "ledgersWithFullChests", ticks, "ledger/"))
+                .thenSucceed();
+    }
+
+    // ==================== Mailboxes ====================
+
+    /**
+     * {@value #MAILBOXES} mailboxes around one post. {@value #QUEST_NOTES}
+     * quest rewards arrive; every mailbox must receive every completion note.
+     */
+    @GameTest(template = ARENA, batch = "otm_load_mailboxes", timeoutTicks = 300)
+    public static void hundredMailboxes(GameTestHelper helper) {
+        BlockPos postPos = new BlockPos(24, 1, 24);
+        helper.setBlock(postPos, ModBlocks.TRADING_POST.get());
+        List<BlockPos> mailboxes = new ArrayList<>();
+        for (int i = 0; i < MAILBOXES; i++) {
+            BlockPos pos = new BlockPos(4 + (i % 10) * 4, 1 + (i % 10 == 5 ? 1 : 0), 4 + (i / 10) * 4);
+            helper.setBlock(pos, ModBlocks.MAILBOX.get());
+            mailboxes.add(pos);
+        }
+
+        long now = helper.getLevel().getGameTime();
+        TradingPostBlockEntity post = helper.getBlockEntity(postPos);
+        resetSharedState(post);
+        TownData town = TownRegistry.getAllTowns().iterator().next();
+        for (int i = 0; i < QUEST_NOTES; i++) {
+            Quest quest = new Quest(UUID.randomUUID(), town.getId(), new ResourceLocation("minecraft:bread"),
+                    "Bread", 8, 50, 5, now, now + 1_000_000L);
+            quest.setStatus(Quest.Status.DELIVERING);
+            quest.setRewardArrivalTime(now + 10 + i * 10);
+            post.getActiveQuests().add(quest);
+        }
+        post.syncToClient();
+        startProfiling();
+
+        helper.startSequence()
+                .thenIdle(60)
+                .thenExecute(() -> {
+                    for (BlockPos pos : mailboxes) {
+                        MailboxBlockEntity mailbox = helper.getBlockEntity(pos);
+                        helper.assertTrue(mailbox.getNotes().size() == QUEST_NOTES,
+                                "Mailbox at " + pos + " has " + mailbox.getNotes().size()
+                                        + " notes, expected " + QUEST_NOTES);
+                    }
+                })
+                .thenExecute(() -> finishProfiling(helper, "hundredMailboxes", 60, "mailbox/"))
+                .thenSucceed();
+    }
+
+    // ==================== Helpers ====================
+
+    /** The world's shared trading state outlives each test; start from a clean slate. */
+    private static void resetSharedState(TradingPostBlockEntity post) {
+        post.getActiveShipments().clear();
+        post.getActiveQuests().clear();
+    }
+
+    private static List<Shipment.ShipmentItem> shipmentItems(Random rand) {
+        Item[] items = {Items.WHEAT, Items.IRON_INGOT, Items.DIAMOND, Items.LEATHER, Items.BREAD};
+        List<Shipment.ShipmentItem> out = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            Item item = items[rand.nextInt(items.length)];
+            // Far above any fair value, so nothing sells and the shipment count stays fixed
+            out.add(new Shipment.ShipmentItem(ForgeRegistries.ITEMS.getKey(item), 1 + rand.nextInt(16),
+                    1_000_000, item.getDescriptionId()));
+        }
+        return out;
+    }
+
+    private static void startProfiling() {
+        TickProfiler.reset();
+        TickProfiler.setEnabled(true);
+    }
+
+    /**
+     * Log ms-per-tick for every profiled section and fail if the sections under
+     * {@code budgetPrefix} together exceed the budget. Nested sections are logged
+     * but not added, since their parent's time already includes them.
+     */
+    private static void finishProfiling(GameTestHelper helper, String test, int ticks, String budgetPrefix) {
+        TickProfiler.setEnabled(false);
+        double budget = Double.parseDouble(System.getProperty("offtomarket.gametest.budgetMs",
+                String.valueOf(DEFAULT_BUDGET_MS)));
+        double budgeted = 0;
+        OffToMarket.LOGGER.info("[GameTest] {}: ms per tick over {} ticks", test, ticks);
+        for (TickProfiler.Stats stats : TickProfiler.snapshot()) {
+            double msPerTick = stats.mean() * (double) stats.count() / ticks / 1_000_000.0;
+            OffToMarket.LOGGER.info("[GameTest]   {} {} ms/tick (n={}, p99={} us, max={} us)",
+                    String.format(Locale.ROOT, "%-24s", stats.name()),
+                    String.format(Locale.ROOT, "%.3f", msPerTick), stats.count(),
+                    TickProfiler.micros(stats.p99()), TickProfiler.micros(stats.max()));
+            if (stats.name().startsWith(budgetPrefix) && !NESTED_SECTIONS.contains(stats.name())) {
+                budgeted += msPerTick;
+            }
+        }
+        helper.assertTrue(budgeted <= budget, String.format(Locale.ROOT,
+                "%s sections took %.3f ms/tick, budget %.1f ms", budgetPrefix, budgeted, budget));
+    }
+}
@@ -4,6 +4,9 @@ import com.offtomarket.mod.block.entity.MarketBoardBlockEntity;
 import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
 import com.offtomarket.mod.block.entity.FinanceTableBlockEntity;
 import com.offtomarket.mod.data.MarketListing;
+import com.offtomarket.mod.debug.ActionRecorder;
+import com.offtomarket.mod.sim.ActionLog;
+import com.offtomarket.mod.util.Wallet;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.FriendlyByteBuf;
@@ -13,30 +16,34 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraftforge.network.NetworkEvent;
 
-import java.util.List;
+import java.util.UUID;
 import java.util.function.Supplier;
 
 /**
  * Sent from client when the player clicks "Buy" on a market listing.
- * Contains the Market Board block position and the index of the listing to purchase.
+ * Contains the Market Board block position, the id of the listing to purchase
+ * and the stock the player saw; the whole stock is bought only if it is unchanged.
  */
 public class BuyMarketItemPacket {
 
     private final BlockPos pos;
-    private final int listingIndex;
+    private final UUID listingId;
+    private final int expectedCount;
 
-    public BuyMarketItemPacket(BlockPos pos, int listingIndex) {
+    public BuyMarketItemPacket(BlockPos pos, UUID listingId, int expectedCount) {
         this.pos = pos;
-        this.listingIndex = listingIndex;
+        this.listingId = listingId;
+        this.expectedCount = expectedCount;
     }
 
     public static void encode(BuyMarketItemPacket msg, FriendlyByteBuf buf) {
         buf.writeBlockPos(msg.pos);
-        buf.writeInt(msg.listingIndex);
+        buf.writeUUID(msg.listingId);
+        buf.writeVarInt(msg.expectedCount);
     }
 
     public static BuyMarketItemPacket decode(FriendlyByteBuf buf) {
-        return new BuyMarketItemPacket(buf.readBlockPos(), buf.readInt());
+        return new BuyMarketItemPacket(buf.readBlockPos(), buf.readUUID(), buf.readVarInt());
     }
 
     public static void handle(BuyMarketItemPacket msg, Supplier<NetworkEvent.Context> ctx) {
@@ -52,33 +59,37 @@ public class BuyMarketItemPacket {
             if (player.distanceToSqr(msg.pos.getX() + 0.5, msg.pos.getY() + 0.5,
                     msg.pos.getZ() + 0.5) > 64.0) return;
 
-            List<MarketListing> listings = marketBoard.getListings();
-
-            // Validate listing index
-            if (msg.listingIndex < 0 || msg.listingIndex >= listings.size()) {
+            // The listing must still be there with the stock the player saw
+            MarketListing listing = marketBoard.getListing(msg.listingId);
+            if (listing == null || listing.getCount() != msg.expectedCount) {
                 player.displayClientMessage(
                         Component.literal("That listing is no longer available.")
                                 .withStyle(ChatFormatting.RED), true);
                 return;
             }
 
-            MarketListing listing = listings.get(msg.listingIndex);
             int totalCost = listing.getTotalPrice();
 
             // Find a connected Finance Table near the Market Board (optional)
             FinanceTableBlockEntity financeTable = TradingPostBlockEntity.findNearbyFinanceTable(
                     player.level, msg.pos);
 
-            // Check if player has enough coins (including Finance Table balance)
-            if (!TradingPostBlockEntity.hasEnoughCoins(player, totalCost, financeTable)) {
+            // Pay, drawing from the Finance Table if player inventory runs short
+            Wallet wallet = Wallet.of(player, financeTable);
+            if (!wallet.canAfford(totalCost)) {
                 player.displayClientMessage(
                         Component.literal("Not enough coins! Need " + formatCoinValue(totalCost))
                                 .withStyle(ChatFormatting.RED), true);
                 return;
             }
+            if (!marketBoard.takeStock(listing.getId(), listing.getCount())) return;
+            wallet.pay(totalCost);
 
-            // Deduct coins (draws from Finance Table if player inventory runs short)
-            TradingPostBlockEntity.deductCoins(player, totalCost, financeTable);
+            if (ActionRecorder.isRecording()) {
+                long gameTime = player.level.getGameTime();
+                ActionRecorder.record(new ActionLog.Purchase(gameTime, listing.getTownId(),
+                        listing.getItemId().toString(), listing.getCount(), totalCost, gameTime));
+            }
 
             // Give the purchased item to the player
             ItemStack stack = listing.createItemStack(listing.getCount());
@@ -88,10 +99,6 @@ public class BuyMarketItemPacket {
                 }
             }
 
-            // Remove the listing
-            listings.remove(msg.listingIndex);
-            marketBoard.syncToClient();
-
             // Update player's container view
             player.inventoryMenu.broadcastChanges();
 
@@ -2,12 +2,6 @@ package com.offtomarket.mod.network;
 
 import com.offtomarket.mod.block.entity.MarketBoardBlockEntity;
 import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
-import com.offtomarket.mod.block.entity.FinanceTableBlockEntity;
-import com.offtomarket.mod.data.BuyOrder;
-import com.offtomarket.mod.data.MarketListing;
-import com.offtomarket.mod.data.TownData;
-import com.offtomarket.mod.data.TownRegistry;
-import com.offtomarket.mod.debug.DebugConfig;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.FriendlyByteBuf;
@@ -24,8 +18,9 @@ import java.util.function.Supplier;
 
 /**
  * Sent from client when the player clicks "Checkout" on their cart
- * in the Market Board screen. Contains a list of listing indices and
- * quantities to purchase. Creates buy orders at the nearest Trading Post.
+ * in the Market Board screen. Contains a list of listing ids and
+ * quantities to purchase. The nearest Trading Post buys the whole cart in
+ * one {@link TradingPostBlockEntity#checkoutCart}.
  */
 public class CartCheckoutPacket {
 
@@ -33,11 +28,11 @@ public class CartCheckoutPacket {
     private final List<CartEntry> entries;
 
     public static class CartEntry {
-        public final int listingIndex;
+        public final UUID listingId;
         public final int quantity;
 
-        public CartEntry(int listingIndex, int quantity) {
-            this.listingIndex = listingIndex;
+        public CartEntry(UUID listingId, int quantity) {
+            this.listingId = listingId;
             this.quantity = quantity;
         }
     }
@@ -51,7 +46,7 @@ public class CartCheckoutPacket {
         buf.writeBlockPos(msg.marketBoardPos);
         buf.writeInt(msg.entries.size());
         for (CartEntry entry : msg.entries) {
-            buf.writeInt(entry.listingIndex);
+            buf.writeUUID(entry.listingId);
             buf.writeInt(entry.quantity);
         }
     }
@@ -61,7 +56,7 @@ public class CartCheckoutPacket {
         int count = buf.readInt();
         List<CartEntry> entries = new ArrayList<>();
         for (int i = 0; i < count; i++) {
-            entries.add(new CartEntry(buf.readInt(), buf.readInt()));
+            entries.add(new CartEntry(buf.readUUID(), buf.readInt()));
         }
         return new CartCheckoutPacket(pos, entries);
     }
@@ -88,94 +83,30 @@ public class CartCheckoutPacket {
                 return;
             }
 
-            // Find nearby Finance Table (optional — supplements player coins if connected)
-            FinanceTableBlockEntity financeTable = TradingPostBlockEntity.findNearbyFinanceTable(
-                    player.level, tradingPost.getBlockPos());
-
-            List<MarketListing> listings = marketBoard.getListings();
-
-            // Validate all entries and calculate total cost
-            int totalCost = 0;
-            List<ValidatedEntry> validated = new ArrayList<>();
-
+            List<TradingPostBlockEntity.CartLine> lines = new ArrayList<>(msg.entries.size());
             for (CartEntry entry : msg.entries) {
-                if (entry.listingIndex < 0 || entry.listingIndex >= listings.size()) continue;
-                MarketListing listing = listings.get(entry.listingIndex);
-                int qty = Math.min(entry.quantity, listing.getCount());
-                if (qty <= 0) continue;
-                totalCost += listing.getPricePerItem() * qty;
-                validated.add(new ValidatedEntry(entry.listingIndex, qty, listing));
+                lines.add(new TradingPostBlockEntity.CartLine(
+                        entry.listingId, entry.quantity));
             }
 
-            if (validated.isEmpty()) {
-                player.displayClientMessage(
+            TradingPostBlockEntity.CheckoutResult result = tradingPost.checkoutCart(player, marketBoard, lines);
+            switch (result.outcome()) {
+                case OK -> {
+                    player.inventoryMenu.broadcastChanges();
+                    player.displayClientMessage(
+                            Component.literal(result.orderCount() + " order(s) placed! Check Trading Post for delivery.")
+                                    .withStyle(ChatFormatting.GREEN), true);
+                }
+                case EMPTY -> player.displayClientMessage(
                         Component.literal("No valid items in cart!")
                                 .withStyle(ChatFormatting.RED), true);
-                return;
-            }
-
-            if (!TradingPostBlockEntity.hasEnoughCoins(player, totalCost, financeTable)) {
-                player.displayClientMessage(
+                case STALE -> player.displayClientMessage(
+                        Component.literal("Some items in your cart sold out or are no longer listed. Please review your cart.")
+                                .withStyle(ChatFormatting.RED), true);
+                case NOT_ENOUGH_COINS -> player.displayClientMessage(
                         Component.literal("Not enough coins for this purchase!")
                                 .withStyle(ChatFormatting.RED), true);
-                return;
             }
-
-            // Deduct coins with change-making (draws from Finance Table if needed)
-            TradingPostBlockEntity.deductCoins(player, totalCost, financeTable);
-
-            // Create buy orders for each item
-            long gameTime = player.level.getGameTime();
-            int orderCount = 0;
-
-            for (ValidatedEntry entry : validated) {
-                MarketListing listing = entry.listing;
-                TownData town = TownRegistry.getTown(listing.getTownId());
-                int travelTicks = town != null
-                        ? town.getTravelTimeTicks(DebugConfig.getTicksPerDistance())
-                        : 200;
-
-                BuyOrder order = new BuyOrder(
-                        UUID.randomUUID(),
-                        listing.getTownId(),
-                        listing.getItemId(),
-                        listing.getItemDisplayName(),
-                        entry.qty,
-                        listing.getPricePerItem() * entry.qty,
-                        gameTime,
-                        gameTime + travelTicks,
-                        listing.getItemNbt()
-                );
-                tradingPost.addBuyOrder(order);
-                orderCount++;
-            }
-
-            // Update listings: remove fully purchased, reduce partial purchases
-            // Process in reverse index order to avoid index shifting issues
-            validated.sort((a, b) -> Integer.compare(b.index, a.index));
-            for (ValidatedEntry entry : validated) {
-                MarketListing listing = listings.get(entry.index);
-                if (entry.qty >= listing.getCount()) {
-                    listings.remove(entry.index);
-                } else {
-                    listings.set(entry.index, new MarketListing(
-                            listing.getTownId(), listing.getItemId(),
-                            listing.getItemDisplayName(),
-                            listing.getCount() - entry.qty,
-                            listing.getPricePerItem(), listing.getListedTime(),
-                            listing.isOnSale(), listing.getSaleDiscount(),
-                            listing.getItemNbt()
-                    ));
-                }
-            }
-
-            marketBoard.syncToClient();
-            tradingPost.syncToClient();
-            player.inventoryMenu.broadcastChanges();
-
-            player.displayClientMessage(
-                    Component.literal(orderCount + " order(s) placed! Check Trading Post for delivery.")
-                            .withStyle(ChatFormatting.GREEN), true);
         });
         ctx.get().setPacketHandled(true);
     }
@@ -193,16 +124,4 @@ public class CartCheckoutPacket {
         }
         return null;
     }
-
-    private static class ValidatedEntry {
-        final int index;
-        final int qty;
-        final MarketListing listing;
-
-        ValidatedEntry(int index, int qty, MarketListing listing) {
-            this.index = index;
-            this.qty = qty;
-            this.listing = listing;
-        }
-    }
 }
@@ -0,0 +1,109 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.content.ContentReloadListener;
+import com.offtomarket.mod.content.CustomMenuDefinition;
+import com.offtomarket.mod.content.CustomMenuLoader;
+import com.offtomarket.mod.data.TownData;
+import net.minecraft.client.Minecraft;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Server → Client packet carrying town and custom menu definitions that
+ * changed after a datapack reload (or that differ from the built-in ones,
+ * for a player who just logged in), plus the ids that were removed.
+ *
+ * Towns are sent without supply levels or letters; both are server-side state.
+ */
+public class ContentSyncPacket {
+
+    private static final int MAX_MENU_JSON = 262144;
+
+    private final List<TownData> towns;
+    private final List<String> removedTowns;
+    private final List<String> menus; // menu definitions as JSON
+    private final List<String> removedMenus;
+
+    public ContentSyncPacket(List<TownData> towns, List<String> removedTowns,
+                             List<String> menus, List<String> removedMenus) {
+        this.towns = towns;
+        this.removedTowns = removedTowns;
+        this.menus = menus;
+        this.removedMenus = removedMenus;
+    }
+
+    public boolean isEmpty() {
+        return towns.isEmpty() && removedTowns.isEmpty() && menus.isEmpty() && removedMenus.isEmpty();
+    }
+
+    public int getTownChangeCount() { return towns.size() + removedTowns.size(); }
+    public int getMenuChangeCount() { return menus.size() + removedMenus.size(); }
+
+    public static void encode(ContentSyncPacket msg, FriendlyByteBuf buf) {
+        buf.writeVarInt(msg.towns.size());
+        for (TownData town : msg.towns) {
+            CompoundTag tag = town.save();
+            tag.remove("SupplyLevels");
+            tag.remove("PrevSupplyLevels");
+            buf.writeNbt(tag);
+        }
+        buf.writeCollection(msg.removedTowns, FriendlyByteBuf::writeUtf);
+        buf.writeVarInt(msg.menus.size());
+        for (String json : msg.menus) buf.writeUtf(json, MAX_MENU_JSON);
+        buf.writeCollection(msg.removedMenus, FriendlyByteBuf::writeUtf);
+    }
+
+    public static ContentSyncPacket decode(FriendlyByteBuf buf) {
+        int townCount = buf.readVarInt();
+        List<TownData> towns = new ArrayList<>(townCount);
+        for (int i = 0; i < townCount; i++) {
+            CompoundTag tag = buf.readNbt();
+            if (tag != null) towns.add(TownData.load(tag));
+        }
+        List<String> removedTowns = buf.readList(FriendlyByteBuf::readUtf);
+        int menuCount = buf.readVarInt();
+        List<String> menus = new ArrayList<>(menuCount);
+        for (int i = 0; i < menuCount; i++) menus.add(buf.readUtf(MAX_MENU_JSON));
+        List<String> removedMenus = buf.readList(FriendlyByteBuf::readUtf);
+        return new ContentSyncPacket(towns, removedTowns, menus, removedMenus);
+    }
+
+    public static void handle(ContentSyncPacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() ->
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> applyOnClient(msg))
+        );
+        ctx.get().setPacketHandled(true);
+    }
+
+    /** Called only on the physical client. */
+    private static void applyOnClient(ContentSyncPacket msg) {
+        // The integrated server shares the registries with the client and has already published them
+        if (Minecraft.getInstance().isLocalServer()) return;
+
+        List<CustomMenuDefinition> menus = new ArrayList<>(msg.menus.size());
+        for (String json : msg.menus) {
+            CustomMenuDefinition def = CustomMenuLoader.fromJson(json);
+            if (def != null && def.id != null) menus.add(def);
+        }
+        ContentReloadListener.applyRemote(msg.towns, msg.removedTowns, menus, msg.removedMenus);
+    }
+
+    // ==================== Sending ====================
+
+    public static void sendToAll(ContentSyncPacket msg) {
+        ModNetwork.CHANNEL.send(PacketDistributor.ALL.noArg(), msg);
+    }
+
+    public static void sendTo(ServerPlayer player, ContentSyncPacket msg) {
+        ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), msg);
+    }
+}
@@ -0,0 +1,59 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.client.screen.JournalPageCache;
+import com.offtomarket.mod.data.TradeJournal;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Server → Client packet carrying one page of the trade journal (newest
+ * first) and the journal's total size, in answer to a
+ * {@link RequestJournalPagePacket}.
+ */
+public class JournalPagePacket {
+
+    private final TradeJournal.Page page;
+
+    public JournalPagePacket(TradeJournal.Page page) {
+        this.page = page;
+    }
+
+    public static void encode(JournalPagePacket msg, FriendlyByteBuf buf) {
+        buf.writeVarInt(msg.page.page());
+        buf.writeVarLong(msg.page.total());
+        buf.writeVarInt(msg.page.entries().size());
+        for (TradeJournal.Entry e : msg.page.entries()) {
+            buf.writeLong(e.gameTime());
+            buf.writeUtf(e.townId());
+            buf.writeUtf(e.townName());
+            buf.writeVarInt(e.items());
+            buf.writeVarInt(e.earnings());
+            buf.writeEnum(e.outcome());
+        }
+    }
+
+    public static JournalPagePacket decode(FriendlyByteBuf buf) {
+        int page = buf.readVarInt();
+        long total = buf.readVarLong();
+        int count = Math.min(buf.readVarInt(), TradeJournal.PAGE_SIZE);
+        List<TradeJournal.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new TradeJournal.Entry(buf.readLong(), buf.readUtf(), buf.readUtf(),
+                    buf.readVarInt(), buf.readVarInt(), buf.readEnum(TradeJournal.Outcome.class)));
+        }
+        return new JournalPagePacket(new TradeJournal.Page(page, total, entries));
+    }
+
+    public static void handle(JournalPagePacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() ->
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> JournalPageCache.accept(msg.page))
+        );
+        ctx.get().setPacketHandled(true);
+    }
+}
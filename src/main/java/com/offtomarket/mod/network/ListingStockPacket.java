@@ -0,0 +1,83 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.block.entity.MarketBoardBlockEntity;
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Server → Client packet with the new stock of the Market Board listings a
+ * purchase changed, stamped with the board version after the purchase.
+ * Sent instead of a full {@link MarketSyncPacket} so that players buying at
+ * the same board do not resend each other the whole list.
+ */
+public class ListingStockPacket {
+
+    /** New stock of one listing; 0 means it sold out and leaves the board. */
+    public record Stock(UUID listingId, int count) {}
+
+    private final BlockPos pos;
+    private final int version;
+    private final List<Stock> changes;
+
+    public ListingStockPacket(BlockPos pos, int version, List<Stock> changes) {
+        this.pos = pos;
+        this.version = version;
+        this.changes = changes;
+    }
+
+    public static void encode(ListingStockPacket msg, FriendlyByteBuf buf) {
+        buf.writeBlockPos(msg.pos);
+        buf.writeVarInt(msg.version);
+        buf.writeVarInt(msg.changes.size());
+        for (Stock change : msg.changes) {
+            buf.writeUUID(change.listingId());
+            buf.writeVarInt(change.count());
+        }
+    }
+
+    public static ListingStockPacket decode(FriendlyByteBuf buf) {
+        BlockPos pos = buf.readBlockPos();
+        int version = buf.readVarInt();
+        int size = buf.readVarInt();
+        List<Stock> changes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            changes.add(new Stock(buf.readUUID(), buf.readVarInt()));
+        }
+        return new ListingStockPacket(pos, version, changes);
+    }
+
+    public static void handle(ListingStockPacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() ->
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> applyOnClient(msg))
+        );
+        ctx.get().setPacketHandled(true);
+    }
+
+    /** Called only on the physical client. */
+    private static void applyOnClient(ListingStockPacket msg) {
+        if (Minecraft.getInstance().level == null) return;
+        BlockEntity be = Minecraft.getInstance().level.getBlockEntity(msg.pos);
+        if (be instanceof MarketBoardBlockEntity board) {
+            board.applyStockUpdate(msg.version, msg.changes);
+        }
+    }
+
+    /** Send to every player tracking the chunk at pos. */
+    public static void sendToTracking(ServerLevel level, BlockPos pos, int version, List<Stock> changes) {
+        ModNetwork.CHANNEL.send(PacketDistributor.TRACKING_CHUNK.with(() -> level.getChunkAt(pos)),
+                new ListingStockPacket(pos, version, changes));
+    }
+}
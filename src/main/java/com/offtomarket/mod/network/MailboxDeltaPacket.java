@@ -0,0 +1,111 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.block.entity.MailboxBlockEntity;
+import com.offtomarket.mod.data.MailNote;
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Server → Client packet with one change to a Mailbox: a note added, read or
+ * deleted. Sent instead of the whole mailbox, which only travels in the block
+ * entity update tag when a client starts tracking the chunk.
+ */
+public class MailboxDeltaPacket {
+
+    public enum Op { ADDED, READ, DELETED }
+
+    private final BlockPos pos;
+    private final Op op;
+    /** The new note (ADDED only). */
+    @Nullable
+    private final MailNote note;
+    /** Notes read or deleted (READ, DELETED). */
+    private final List<UUID> noteIds;
+
+    private MailboxDeltaPacket(BlockPos pos, Op op, @Nullable MailNote note, List<UUID> noteIds) {
+        this.pos = pos;
+        this.op = op;
+        this.note = note;
+        this.noteIds = noteIds;
+    }
+
+    public static void encode(MailboxDeltaPacket msg, FriendlyByteBuf buf) {
+        buf.writeBlockPos(msg.pos);
+        buf.writeEnum(msg.op);
+        if (msg.op == Op.ADDED) {
+            buf.writeNbt(msg.note.save());
+        } else {
+            buf.writeVarInt(msg.noteIds.size());
+            for (UUID id : msg.noteIds) buf.writeUUID(id);
+        }
+    }
+
+    public static MailboxDeltaPacket decode(FriendlyByteBuf buf) {
+        BlockPos pos = buf.readBlockPos();
+        Op op = buf.readEnum(Op.class);
+        if (op == Op.ADDED) {
+            CompoundTag tag = buf.readNbt();
+            return new MailboxDeltaPacket(pos, op, tag != null ? MailNote.load(tag) : null, List.of());
+        }
+        int size = buf.readVarInt();
+        List<UUID> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) ids.add(buf.readUUID());
+        return new MailboxDeltaPacket(pos, op, null, ids);
+    }
+
+    public static void handle(MailboxDeltaPacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() ->
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> applyOnClient(msg))
+        );
+        ctx.get().setPacketHandled(true);
+    }
+
+    /** Called only on the physical client. */
+    private static void applyOnClient(MailboxDeltaPacket msg) {
+        if (Minecraft.getInstance().level == null) return;
+        BlockEntity be = Minecraft.getInstance().level.getBlockEntity(msg.pos);
+        if (!(be instanceof MailboxBlockEntity mailbox)) return;
+        switch (msg.op) {
+            case ADDED -> {
+                if (msg.note != null) mailbox.applyAdded(msg.note);
+            }
+            case READ -> msg.noteIds.forEach(mailbox::applyRead);
+            case DELETED -> mailbox.applyDeleted(msg.noteIds);
+        }
+    }
+
+    // ==================== Sending ====================
+
+    public static void sendAdded(MailboxBlockEntity mailbox, MailNote note) {
+        send(mailbox, new MailboxDeltaPacket(mailbox.getBlockPos(), Op.ADDED, note, List.of()));
+    }
+
+    public static void sendRead(MailboxBlockEntity mailbox, UUID noteId) {
+        send(mailbox, new MailboxDeltaPacket(mailbox.getBlockPos(), Op.READ, null, List.of(noteId)));
+    }
+
+    public static void sendDeleted(MailboxBlockEntity mailbox, List<UUID> noteIds) {
+        send(mailbox, new MailboxDeltaPacket(mailbox.getBlockPos(), Op.DELETED, null, noteIds));
+    }
+
+    /** Send to every player tracking the mailbox's chunk (no-op on the client). */
+    private static void send(MailboxBlockEntity mailbox, MailboxDeltaPacket msg) {
+        Level level = mailbox.getLevel();
+        if (level == null || level.isClientSide()) return;
+        ModNetwork.CHANNEL.send(PacketDistributor.TRACKING_CHUNK.with(() -> level.getChunkAt(msg.pos)), msg);
+    }
+}
@@ -0,0 +1,274 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.data.MarketListing;
+import com.offtomarket.mod.data.Shipment;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.Registry;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.Items;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.*;
+
+/**
+ * Compact binary codec for market listings and shipments.
+ *
+ * Replaces the string-keyed NBT that used to ride along in every block entity
+ * update tag. Items are written as registry int ids, numbers as varints and
+ * town ids / display names go through a per-connection {@link StringTable}, so
+ * a string is only sent in full the first time a given client sees it.
+ *
+ * The on-disk format is unchanged — {@link MarketListing#save()} and
+ * {@link Shipment#save()} are still used for world saves.
+ */
+public final class MarketSyncCodec {
+
+    /** Maximum number of interned strings per connection. Both sides stop adding at this size. */
+    static final int MAX_TABLE_SIZE = 4096;
+
+    private static final int MAX_STRING_LENGTH = 256;
+
+    /** Server-side tables, one per connected player. */
+    private static final Map<UUID, StringTable> SERVER_TABLES = new HashMap<>();
+
+    /** Client-side mirror of the server's table for this connection. */
+    private static final List<String> CLIENT_TABLE = new ArrayList<>();
+
+    private MarketSyncCodec() {}
+
+    // ==================== String Table ====================
+
+    /**
+     * Server-side view of the strings a single client already knows.
+     * A fresh table tells the client to drop its mirror on the next packet,
+     * which keeps the two sides in step across reconnects.
+     */
+    public static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private boolean fresh = true;
+
+        void writeHeader(FriendlyByteBuf buf) {
+            buf.writeBoolean(fresh);
+            fresh = false;
+        }
+
+        void write(FriendlyByteBuf buf, String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                buf.writeVarInt(id + 1);
+                return;
+            }
+            buf.writeVarInt(0);
+            buf.writeUtf(value, MAX_STRING_LENGTH);
+            if (ids.size() < MAX_TABLE_SIZE) {
+                ids.put(value, ids.size());
+            }
+        }
+
+        public int size() { return ids.size(); }
+    }
+
+    /** Get (or create) the string table for a player's connection. Server thread only. */
+    public static StringTable tableFor(UUID playerId) {
+        return SERVER_TABLES.computeIfAbsent(playerId, id -> new StringTable());
+    }
+
+    /** Forget a player's table when they disconnect. */
+    public static void forget(UUID playerId) {
+        SERVER_TABLES.remove(playerId);
+    }
+
+    /** Forget every table (server stopping). */
+    public static void clearAll() {
+        SERVER_TABLES.clear();
+    }
+
+    static void readHeader(FriendlyByteBuf buf) {
+        if (buf.readBoolean()) {
+            CLIENT_TABLE.clear();
+        }
+    }
+
+    static String readString(FriendlyByteBuf buf) {
+        int ref = buf.readVarInt();
+        if (ref > 0) {
+            int index = ref - 1;
+            return index < CLIENT_TABLE.size() ? CLIENT_TABLE.get(index) : "";
+        }
+        String value = buf.readUtf(MAX_STRING_LENGTH);
+        if (CLIENT_TABLE.size() < MAX_TABLE_SIZE) {
+            CLIENT_TABLE.add(value);
+        }
+        return value;
+    }
+
+    // ==================== Items ====================
+
+    /**
+     * Items are written as (registry id + 1). Zero is reserved for ids that are
+     * not in the registry (e.g. a removed mod), which fall back to the full string.
+     */
+    private static void writeItemId(FriendlyByteBuf buf, ResourceLocation itemId) {
+        Item item = ForgeRegistries.ITEMS.getValue(itemId);
+        if (item == null || (item == Items.AIR && !itemId.equals(ForgeRegistries.ITEMS.getKey(Items.AIR)))) {
+            buf.writeVarInt(0);
+            buf.writeResourceLocation(itemId);
+            return;
+        }
+        buf.writeVarInt(Registry.ITEM.getId(item) + 1);
+    }
+
+    private static ResourceLocation readItemId(FriendlyByteBuf buf) {
+        int ref = buf.readVarInt();
+        if (ref == 0) return buf.readResourceLocation();
+        Item item = Registry.ITEM.byId(ref - 1);
+        ResourceLocation key = ForgeRegistries.ITEMS.getKey(item);
+        return key != null ? key : new ResourceLocation("minecraft", "air");
+    }
+
+    // ==================== Listings ====================
+
+    public static void writeListing(FriendlyByteBuf buf, StringTable table, MarketListing listing) {
+        buf.writeUUID(listing.getId());
+        table.write(buf, listing.getTownId());
+        writeItemId(buf, listing.getItemId());
+        table.write(buf, listing.getItemDisplayName());
+        buf.writeVarInt(listing.getCount());
+        buf.writeVarInt(listing.getPricePerItem());
+        buf.writeVarLong(listing.getListedTime());
+        // Sale flag folded into the discount: 0 = not on sale
+        buf.writeVarInt(listing.isOnSale() ? listing.getSaleDiscount() + 1 : 0);
+        buf.writeNbt(listing.getItemNbt());
+    }
+
+    public static MarketListing readListing(FriendlyByteBuf buf) {
+        UUID id = buf.readUUID();
+        String townId = readString(buf);
+        ResourceLocation itemId = readItemId(buf);
+        String displayName = readString(buf);
+        int count = buf.readVarInt();
+        int price = buf.readVarInt();
+        long listed = buf.readVarLong();
+        int sale = buf.readVarInt();
+        CompoundTag nbt = buf.readNbt();
+        return new MarketListing(id, townId, itemId, displayName, count, price, listed,
+                sale > 0, Math.max(0, sale - 1), nbt);
+    }
+
+    // ==================== Shipments ====================
+
+    public static void writeShipment(FriendlyByteBuf buf, StringTable table, Shipment shipment) {
+        buf.writeUUID(shipment.getId());
+        table.write(buf, shipment.getTownId());
+        buf.writeEnum(shipment.getStatus());
+        buf.writeVarLong(shipment.getDepartureTime());
+        // Arrival is always after departure, so the delta stays small
+        buf.writeVarLong(shipment.getArrivalTime() - shipment.getDepartureTime());
+        buf.writeVarLong(shipment.getMarketListedTime());
+        buf.writeVarLong(shipment.getSoldTime());
+        buf.writeVarLong(shipment.getReturnArrivalTime());
+        buf.writeVarInt(shipment.getTotalEarnings());
+
+        List<Shipment.ShipmentItem> items = shipment.getItems();
+        buf.writeVarInt(items.size());
+        for (Shipment.ShipmentItem item : items) {
+            writeItemId(buf, item.getItemId());
+            buf.writeVarInt(item.getCount());
+            buf.writeVarInt(item.getPricePerItem());
+            table.write(buf, item.getDisplayName());
+            buf.writeBoolean(item.isSold());
+            buf.writeNbt(item.getItemNbt());
+        }
+    }
+
+    public static Shipment readShipment(FriendlyByteBuf buf) {
+        UUID id = buf.readUUID();
+        String townId = readString(buf);
+        Shipment.Status status = buf.readEnum(Shipment.Status.class);
+        long departure = buf.readVarLong();
+        long arrival = departure + buf.readVarLong();
+        long listed = buf.readVarLong();
+        long sold = buf.readVarLong();
+        long returnArrival = buf.readVarLong();
+        int earnings = buf.readVarInt();
+
+        int itemCount = buf.readVarInt();
+        List<Shipment.ShipmentItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            ResourceLocation itemId = readItemId(buf);
+            int count = buf.readVarInt();
+            int price = buf.readVarInt();
+            String name = readString(buf);
+            boolean itemSold = buf.readBoolean();
+            CompoundTag nbt = buf.readNbt();
+            Shipment.ShipmentItem item = new Shipment.ShipmentItem(itemId, count, price, name, nbt);
+            item.setSold(itemSold);
+            items.add(item);
+        }
+
+        Shipment shipment = new Shipment(id, townId, items, departure, arrival);
+        shipment.setStatus(status);
+        shipment.setMarketListedTime(listed);
+        shipment.setSoldTime(sold);
+        shipment.setReturnArrivalTime(returnArrival);
+        shipment.setTotalEarnings(earnings);
+        return shipment;
+    }
+
+    // ==================== Measurement ====================
+
+    /**
+     * Byte sizes of one sync payload under the old NBT path and the binary codec.
+     * {@code coldBytes} is the first packet to a client (every string sent in full),
+     * {@code warmBytes} a repeat packet once the strings are interned.
+     */
+    public record PayloadSize(int nbtBytes, int coldBytes, int warmBytes) {
+        public double warmReduction() {
+            return nbtBytes == 0 ? 0.0 : 1.0 - (double) warmBytes / nbtBytes;
+        }
+    }
+
+    /** Measure the sync payload for the given lists without sending anything. */
+    public static PayloadSize measure(List<MarketListing> listings, List<Shipment> shipments) {
+        CompoundTag tag = new CompoundTag();
+        ListTag listingTags = new ListTag();
+        for (MarketListing ml : listings) listingTags.add(ml.save());
+        tag.put("Listings", listingTags);
+        ListTag shipmentTags = new ListTag();
+        for (Shipment s : shipments) shipmentTags.add(s.save());
+        tag.put("Shipments", shipmentTags);
+
+        FriendlyByteBuf nbtBuf = new FriendlyByteBuf(Unpooled.buffer());
+        nbtBuf.writeNbt(tag);
+
+        StringTable table = new StringTable();
+        int cold = encodedSize(table, listings, shipments);
+        int warm = encodedSize(table, listings, shipments);
+        return new PayloadSize(nbtBuf.readableBytes(), cold, warm);
+    }
+
+    private static int encodedSize(StringTable table, List<MarketListing> listings, List<Shipment> shipments) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        writeAll(buf, table, listings, shipments);
+        return buf.readableBytes();
+    }
+
+    static void writeAll(FriendlyByteBuf buf, StringTable table,
+                         List<MarketListing> listings, List<Shipment> shipments) {
+        table.writeHeader(buf);
+        buf.writeVarInt(listings.size());
+        for (MarketListing ml : listings) writeListing(buf, table, ml);
+        buf.writeVarInt(shipments.size());
+        for (Shipment s : shipments) writeShipment(buf, table, s);
+    }
+
+    /** One-line summary used by the /otm syncsize command. */
+    public static String describe(PayloadSize size) {
+        return size.nbtBytes() + " B NBT -> " + size.coldBytes() + " B first sync, "
+                + size.warmBytes() + " B repeat (" + Math.round(size.warmReduction() * 100) + "% smaller)";
+    }
+}
@@ -0,0 +1,126 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.block.entity.MarketBoardBlockEntity;
+import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
+import com.offtomarket.mod.data.MarketListing;
+import com.offtomarket.mod.data.Shipment;
+import net.minecraft.client.Minecraft;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Server → Client packet carrying the market listings (and, for Trading Posts,
+ * the active shipments) of a block entity in the compact {@link MarketSyncCodec} format.
+ *
+ * These lists are no longer part of the block entity update tag, so a timer
+ * tick or an XP change no longer re-sends every listing as NBT.
+ */
+public class MarketSyncPacket {
+
+    private final BlockPos pos;
+    /** Market Board version ({@link MarketBoardBlockEntity#getVersion()}); 0 for Trading Posts. */
+    private final int version;
+    private final List<MarketListing> listings;
+    private final List<Shipment> shipments;
+    /** Encoding table for the receiving connection (server side only). */
+    @Nullable
+    private final MarketSyncCodec.StringTable table;
+
+    private MarketSyncPacket(BlockPos pos, int version, List<MarketListing> listings, List<Shipment> shipments,
+                             @Nullable MarketSyncCodec.StringTable table) {
+        this.pos = pos;
+        this.version = version;
+        this.listings = listings;
+        this.shipments = shipments;
+        this.table = table;
+    }
+
+    public static void encode(MarketSyncPacket msg, FriendlyByteBuf buf) {
+        buf.writeBlockPos(msg.pos);
+        buf.writeVarInt(msg.version);
+        MarketSyncCodec.writeAll(buf, msg.table, msg.listings, msg.shipments);
+    }
+
+    public static MarketSyncPacket decode(FriendlyByteBuf buf) {
+        BlockPos pos = buf.readBlockPos();
+        int version = buf.readVarInt();
+        MarketSyncCodec.readHeader(buf);
+
+        int listingCount = buf.readVarInt();
+        List<MarketListing> listings = new ArrayList<>(listingCount);
+        for (int i = 0; i < listingCount; i++) {
+            listings.add(MarketSyncCodec.readListing(buf));
+        }
+
+        int shipmentCount = buf.readVarInt();
+        List<Shipment> shipments = new ArrayList<>(shipmentCount);
+        for (int i = 0; i < shipmentCount; i++) {
+            shipments.add(MarketSyncCodec.readShipment(buf));
+        }
+        return new MarketSyncPacket(pos, version, listings, shipments, null);
+    }
+
+    public static void handle(MarketSyncPacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() ->
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> applyOnClient(msg))
+        );
+        ctx.get().setPacketHandled(true);
+    }
+
+    /** Called only on the physical client. */
+    private static void applyOnClient(MarketSyncPacket msg) {
+        if (Minecraft.getInstance().level == null) return;
+        BlockEntity be = Minecraft.getInstance().level.getBlockEntity(msg.pos);
+        if (be instanceof TradingPostBlockEntity post) {
+            post.applyMarketSync(msg.listings, msg.shipments);
+        } else if (be instanceof MarketBoardBlockEntity board) {
+            board.applyMarketSync(msg.listings, msg.version);
+        }
+    }
+
+    // ==================== Sending ====================
+
+    /**
+     * Send the lists to every player tracking the chunk at pos.
+     * Each player gets their own packet because string tables are per connection.
+     */
+    public static void sendToTracking(ServerLevel level, BlockPos pos,
+                                      List<MarketListing> listings, List<Shipment> shipments) {
+        sendToTracking(level, pos, 0, listings, shipments);
+    }
+
+    /** As above, stamped with a Market Board version. */
+    public static void sendToTracking(ServerLevel level, BlockPos pos, int version,
+                                      List<MarketListing> listings, List<Shipment> shipments) {
+        for (ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(new ChunkPos(pos), false)) {
+            sendTo(player, pos, version, listings, shipments);
+        }
+    }
+
+    /** Send the lists to a single player (e.g. when they open the menu). */
+    public static void sendTo(ServerPlayer player, BlockPos pos,
+                              List<MarketListing> listings, List<Shipment> shipments) {
+        sendTo(player, pos, 0, listings, shipments);
+    }
+
+    /** As above, stamped with a Market Board version. */
+    public static void sendTo(ServerPlayer player, BlockPos pos, int version,
+                              List<MarketListing> listings, List<Shipment> shipments) {
+        ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player),
+                new MarketSyncPacket(pos, version, listings, shipments,
+                        MarketSyncCodec.tableFor(player.getUUID())));
+    }
+}
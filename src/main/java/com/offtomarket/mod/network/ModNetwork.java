@@ -1,15 +1,21 @@
 package com.offtomarket.mod.network;
 
 import com.offtomarket.mod.OffToMarket;
+import com.offtomarket.mod.debug.TickProfiler;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraftforge.network.NetworkDirection;
+import net.minecraftforge.network.NetworkEvent;
 import net.minecraftforge.network.NetworkRegistry;
 import net.minecraftforge.network.simple.SimpleChannel;
+import net.minecraftforge.server.ServerLifecycleHooks;
 
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 public class ModNetwork {
-    private static final String PROTOCOL_VERSION = "1";
+    private static final String PROTOCOL_VERSION = "3";
     public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
             new ResourceLocation(OffToMarket.MODID, "main"),
             () -> PROTOCOL_VERSION,
@@ -22,132 +28,132 @@ public class ModNetwork {
     public static void register() {
         CHANNEL.registerMessage(id++, SendShipmentPacket.class,
                 SendShipmentPacket::encode, SendShipmentPacket::decode,
-                SendShipmentPacket::handle,
+                profiled(SendShipmentPacket.class, SendShipmentPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, SelectTownPacket.class,
                 SelectTownPacket::encode, SelectTownPacket::decode,
-                SelectTownPacket::handle,
+                profiled(SelectTownPacket.class, SelectTownPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CollectCoinsPacket.class,
                 CollectCoinsPacket::encode, CollectCoinsPacket::decode,
-                CollectCoinsPacket::handle,
+                profiled(CollectCoinsPacket.class, CollectCoinsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, RequestReturnPacket.class,
                 RequestReturnPacket::encode, RequestReturnPacket::decode,
-                RequestReturnPacket::handle,
+                profiled(RequestReturnPacket.class, RequestReturnPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, SetDistancePacket.class,
                 SetDistancePacket::encode, SetDistancePacket::decode,
-                SetDistancePacket::handle,
+                profiled(SetDistancePacket.class, SetDistancePacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, SetPricePacket.class,
                 SetPricePacket::encode, SetPricePacket::decode,
-                SetPricePacket::handle,
+                profiled(SetPricePacket.class, SetPricePacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, RefreshMarketPacket.class,
                 RefreshMarketPacket::encode, RefreshMarketPacket::decode,
-                RefreshMarketPacket::handle,
+                profiled(RefreshMarketPacket.class, RefreshMarketPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CoinExchangePacket.class,
                 CoinExchangePacket::encode, CoinExchangePacket::decode,
-                CoinExchangePacket::handle,
+                profiled(CoinExchangePacket.class, CoinExchangePacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, BuyMarketItemPacket.class,
                 BuyMarketItemPacket::encode, BuyMarketItemPacket::decode,
-                BuyMarketItemPacket::handle,
+                profiled(BuyMarketItemPacket.class, BuyMarketItemPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CartCheckoutPacket.class,
                 CartCheckoutPacket::encode, CartCheckoutPacket::decode,
-                CartCheckoutPacket::handle,
+                profiled(CartCheckoutPacket.class, CartCheckoutPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CollectOrderPacket.class,
                 CollectOrderPacket::encode, CollectOrderPacket::decode,
-                CollectOrderPacket::handle,
+                profiled(CollectOrderPacket.class, CollectOrderPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CoinSlotConvertPacket.class,
                 CoinSlotConvertPacket::encode, CoinSlotConvertPacket::decode,
-                CoinSlotConvertPacket::handle,
+                profiled(CoinSlotConvertPacket.class, CoinSlotConvertPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, AcceptQuestPacket.class,
                 AcceptQuestPacket::encode, AcceptQuestPacket::decode,
-                AcceptQuestPacket::handle,
+                profiled(AcceptQuestPacket.class, AcceptQuestPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, DeliverQuestPacket.class,
                 DeliverQuestPacket::encode, DeliverQuestPacket::decode,
-                DeliverQuestPacket::handle,
+                profiled(DeliverQuestPacket.class, DeliverQuestPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, HireWorkerPacket.class,
                 HireWorkerPacket::encode, HireWorkerPacket::decode,
-                HireWorkerPacket::handle,
+                profiled(HireWorkerPacket.class, HireWorkerPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, FireWorkerPacket.class,
                 FireWorkerPacket::encode, FireWorkerPacket::decode,
-                FireWorkerPacket::handle,
+                profiled(FireWorkerPacket.class, FireWorkerPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, SendDiplomatPacket.class,
                 SendDiplomatPacket::encode, SendDiplomatPacket::decode,
-                SendDiplomatPacket::handle,
+                profiled(SendDiplomatPacket.class, SendDiplomatPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CollectDiplomatPacket.class,
                 CollectDiplomatPacket::encode, CollectDiplomatPacket::decode,
-                CollectDiplomatPacket::handle,
+                profiled(CollectDiplomatPacket.class, CollectDiplomatPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, AcceptDiplomatPacket.class,
                 AcceptDiplomatPacket::encode, AcceptDiplomatPacket::decode,
-                AcceptDiplomatPacket::handle,
+                profiled(AcceptDiplomatPacket.class, AcceptDiplomatPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, DeclineDiplomatPacket.class,
                 DeclineDiplomatPacket::encode, DeclineDiplomatPacket::decode,
-                DeclineDiplomatPacket::handle,
+                profiled(DeclineDiplomatPacket.class, DeclineDiplomatPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, UpdateBinSettingsPacket.class,
                 UpdateBinSettingsPacket::encode, UpdateBinSettingsPacket::decode,
-                UpdateBinSettingsPacket::handle,
+                profiled(UpdateBinSettingsPacket.class, UpdateBinSettingsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CollectShipmentCoinsPacket.class,
                 CollectShipmentCoinsPacket::encode, CollectShipmentCoinsPacket::decode,
-                CollectShipmentCoinsPacket::handle,
+                profiled(CollectShipmentCoinsPacket.class, CollectShipmentCoinsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CancelShipmentPacket.class,
                 CancelShipmentPacket::encode, CancelShipmentPacket::decode,
-                CancelShipmentPacket::handle,
+                profiled(CancelShipmentPacket.class, CancelShipmentPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CollectReturnedItemsPacket.class,
                 CollectReturnedItemsPacket::encode, CollectReturnedItemsPacket::decode,
-                CollectReturnedItemsPacket::handle,
+                profiled(CollectReturnedItemsPacket.class, CollectReturnedItemsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, AdjustShipmentPricePacket.class,
                 AdjustShipmentPricePacket::encode, AdjustShipmentPricePacket::decode,
-                AdjustShipmentPricePacket::handle,
+                profiled(AdjustShipmentPricePacket.class, AdjustShipmentPricePacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, CreateRequestPacket.class,
                 CreateRequestPacket::encode, CreateRequestPacket::decode,
-                CreateRequestPacket::handle,
+                profiled(CreateRequestPacket.class, CreateRequestPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, ShowToastPacket.class,
@@ -157,27 +163,27 @@ public class ModNetwork {
 
         CHANNEL.registerMessage(id++, MarkNoteReadPacket.class,
                 MarkNoteReadPacket::encode, MarkNoteReadPacket::decode,
-                MarkNoteReadPacket::handle,
+                profiled(MarkNoteReadPacket.class, MarkNoteReadPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, DeleteNotePacket.class,
                 DeleteNotePacket::encode, DeleteNotePacket::decode,
-                DeleteNotePacket::handle,
+                profiled(DeleteNotePacket.class, DeleteNotePacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, DeleteAllReadNotesPacket.class,
                 DeleteAllReadNotesPacket::encode, DeleteAllReadNotesPacket::decode,
-                DeleteAllReadNotesPacket::handle,
+                profiled(DeleteAllReadNotesPacket.class, DeleteAllReadNotesPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, WithdrawBinItemPacket.class,
                 WithdrawBinItemPacket::encode, WithdrawBinItemPacket::decode,
-                WithdrawBinItemPacket::handle,
+                profiled(WithdrawBinItemPacket.class, WithdrawBinItemPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, UpgradeCaravanWeightPacket.class,
                 UpgradeCaravanWeightPacket::encode, UpgradeCaravanWeightPacket::decode,
-                UpgradeCaravanWeightPacket::handle,
+                profiled(UpgradeCaravanWeightPacket.class, UpgradeCaravanWeightPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, OpenCustomMenuPacket.class,
@@ -187,12 +193,65 @@ public class ModNetwork {
 
         CHANNEL.registerMessage(id++, DepositCoinsPacket.class,
                 DepositCoinsPacket::encode, DepositCoinsPacket::decode,
-                DepositCoinsPacket::handle,
+                profiled(DepositCoinsPacket.class, DepositCoinsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
 
         CHANNEL.registerMessage(id++, WithdrawCoinsPacket.class,
                 WithdrawCoinsPacket::encode, WithdrawCoinsPacket::decode,
-                WithdrawCoinsPacket::handle,
+                profiled(WithdrawCoinsPacket.class, WithdrawCoinsPacket::handle),
                 Optional.of(NetworkDirection.PLAY_TO_SERVER));
+
+        CHANNEL.registerMessage(id++, MarketSyncPacket.class,
+                MarketSyncPacket::encode, MarketSyncPacket::decode,
+                MarketSyncPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        CHANNEL.registerMessage(id++, ListingStockPacket.class,
+                ListingStockPacket::encode, ListingStockPacket::decode,
+                ListingStockPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        CHANNEL.registerMessage(id++, MailboxDeltaPacket.class,
+                MailboxDeltaPacket::encode, MailboxDeltaPacket::decode,
+                MailboxDeltaPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        CHANNEL.registerMessage(id++, ContentSyncPacket.class,
+                ContentSyncPacket::encode, ContentSyncPacket::decode,
+                ContentSyncPacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+
+        CHANNEL.registerMessage(id++, RequestJournalPagePacket.class,
+                RequestJournalPagePacket::encode, RequestJournalPagePacket::decode,
+                profiled(RequestJournalPagePacket.class, RequestJournalPagePacket::handle),
+                Optional.of(NetworkDirection.PLAY_TO_SERVER));
+
+        CHANNEL.registerMessage(id++, JournalPagePacket.class,
+                JournalPagePacket::encode, JournalPagePacket::decode,
+                JournalPagePacket::handle,
+                Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+    }
+
+    /**
+     * Wrap a client → server handler so /otm perf can time it. Handlers do
+     * their work in enqueueWork, which runs inline on the server thread, so
+     * while profiling is on the whole handler is moved there and timed.
+     */
+    private static <M> BiConsumer<M, Supplier<NetworkEvent.Context>> profiled(
+            Class<M> type, BiConsumer<M, Supplier<NetworkEvent.Context>> handler) {
+        TickProfiler.Section section = TickProfiler.section("packet/" + type.getSimpleName());
+        return (msg, ctx) -> {
+            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+            if (!TickProfiler.isEnabled() || server == null) {
+                handler.accept(msg, ctx);
+                return;
+            }
+            ctx.get().setPacketHandled(true);
+            server.execute(() -> {
+                long start = TickProfiler.start();
+                handler.accept(msg, ctx);
+                TickProfiler.stop(section, start);
+            });
+        };
     }
 }
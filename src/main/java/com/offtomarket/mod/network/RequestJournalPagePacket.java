@@ -0,0 +1,46 @@
+package com.offtomarket.mod.network;
+
+import com.offtomarket.mod.data.TradeJournal;
+import com.offtomarket.mod.menu.TradingLedgerMenu;
+import com.offtomarket.mod.menu.TradingPostMenu;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.PacketDistributor;
+
+import java.util.function.Supplier;
+
+/**
+ * Sent from client when a screen needs a page of the trade journal that it
+ * has not cached yet. The server answers with a {@link JournalPagePacket}.
+ * Only served while the sender has a Trading Ledger or Trading Post open.
+ */
+public class RequestJournalPagePacket {
+    private final int page;
+
+    public RequestJournalPagePacket(int page) {
+        this.page = page;
+    }
+
+    public static void encode(RequestJournalPagePacket msg, FriendlyByteBuf buf) {
+        buf.writeVarInt(msg.page);
+    }
+
+    public static RequestJournalPagePacket decode(FriendlyByteBuf buf) {
+        return new RequestJournalPagePacket(buf.readVarInt());
+    }
+
+    public static void handle(RequestJournalPagePacket msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() -> {
+            ServerPlayer player = ctx.get().getSender();
+            if (player == null || msg.page < 0) return;
+            if (player.containerMenu instanceof TradingLedgerMenu || player.containerMenu instanceof TradingPostMenu) {
+                TradeJournal journal = TradeJournal.get(player.server);
+                int pageIndex = Math.min(msg.page, journal.pageCount(TradeJournal.PAGE_SIZE) - 1);
+                TradeJournal.Page page = journal.readPage(pageIndex, TradeJournal.PAGE_SIZE);
+                ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), new JournalPagePacket(page));
+            }
+        });
+        ctx.get().setPacketHandled(true);
+    }
+}
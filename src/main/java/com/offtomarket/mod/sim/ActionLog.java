@@ -0,0 +1,331 @@
+package com.offtomarket.mod.sim;
+
+import com.offtomarket.mod.data.Worker;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary log of the economy actions taken on a server, for replaying a real
+ * session through {@link EconomySimulator}.
+ *
+ * Each action is logged with its outcome as the server decided it (arrival
+ * times, prices paid, items actually delivered), so replaying needs neither
+ * the world nor the players' inventories. Together with the session seed,
+ * a replay of the same log always makes the same rolls.
+ *
+ * Layout: a header (magic, version, start game time, seed), then one record
+ * per action: a type byte, the game time as a varint delta from the previous
+ * record, and the action's fields. Strings go through a table, so each
+ * distinct town or item id is written once. A truncated tail (crash mid-write)
+ * is dropped on read.
+ */
+public final class ActionLog {
+
+    private static final int MAGIC = 0x4F544D52; // "OTMR"
+    private static final int VERSION = 1;
+
+    private static final int SHIPMENT_SENT = 1;
+    private static final int SHIPMENT_RETURNED = 2;
+    private static final int PRICE_ADJUSTED = 3;
+    private static final int PURCHASE = 4;
+    private static final int DIPLOMAT_SENT = 5;
+    private static final int QUEST_DELIVERED = 6;
+    private static final int WORKER_CHANGED = 7;
+
+    /** One logged action. */
+    public sealed interface Action permits ShipmentSent, ShipmentReturned, PriceAdjusted, Purchase,
+            DiplomatSent, QuestDelivered, WorkerChanged {
+        long gameTime();
+    }
+
+    /** One stack in a sent shipment. */
+    public record Stack(String itemId, int count, int price) {}
+
+    /** Items left a Trading Post for a town. */
+    public record ShipmentSent(long gameTime, UUID id, String townId, long arrivalTime, List<Stack> items)
+            implements Action {}
+
+    /** A shipment was recalled (return request or cancel). */
+    public record ShipmentReturned(long gameTime, UUID id, long returnArrivalTime) implements Action {}
+
+    /** The asking price of one unsold stack at market changed. */
+    public record PriceAdjusted(long gameTime, UUID id, int itemIndex, int price) implements Action {}
+
+    /**
+     * Goods bought from a town: a buy order arriving at {@code arrivalTime}, or
+     * an instant Market Board purchase ({@code arrivalTime == gameTime}).
+     */
+    public record Purchase(long gameTime, String townId, String itemId, int count, int totalPrice, long arrivalTime)
+            implements Action {}
+
+    /** A diplomat left to request goods, with the price the town will propose. */
+    public record DiplomatSent(long gameTime, String townId, String itemId, int count, int proposedPrice)
+            implements Action {}
+
+    /** Items handed in for a quest; {@code completed} when that filled it and rewards set off. */
+    public record QuestDelivered(long gameTime, String townId, String itemId, int delivered, boolean completed,
+                                 int rewardCoins, int rewardXp, int rewardReputation, long rewardArrivalTime)
+            implements Action {}
+
+    /** A worker was hired or fired (also logged for every worker when recording starts). */
+    public record WorkerChanged(long gameTime, Worker.WorkerType type, boolean hired, int level) implements Action {}
+
+    /** A whole log. */
+    public record Recording(long startTime, long seed, List<Action> actions) {}
+
+    private ActionLog() {}
+
+    // ==================== Writing ====================
+
+    /** Appends actions to a new log file. Not thread-safe. */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Object2IntOpenHashMap<String> strings = new Object2IntOpenHashMap<>();
+        private long lastTime;
+        private long count = 0;
+
+        public Writer(Path file, long startTime, long seed) throws IOException {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            strings.defaultReturnValue(-1);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(startTime);
+            out.writeLong(seed);
+            lastTime = startTime;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void write(Action action) throws IOException {
+            if (action instanceof ShipmentSent a) {
+                header(SHIPMENT_SENT, a.gameTime());
+                uuid(a.id());
+                string(a.townId());
+                varLong(a.arrivalTime() - a.gameTime());
+                varInt(a.items().size());
+                for (Stack stack : a.items()) {
+                    string(stack.itemId());
+                    varInt(stack.count());
+                    varInt(stack.price());
+                }
+            } else if (action instanceof ShipmentReturned a) {
+                header(SHIPMENT_RETURNED, a.gameTime());
+                uuid(a.id());
+                varLong(a.returnArrivalTime() - a.gameTime());
+            } else if (action instanceof PriceAdjusted a) {
+                header(PRICE_ADJUSTED, a.gameTime());
+                uuid(a.id());
+                varInt(a.itemIndex());
+                varInt(a.price());
+            } else if (action instanceof Purchase a) {
+                header(PURCHASE, a.gameTime());
+                string(a.townId());
+                string(a.itemId());
+                varInt(a.count());
+                varInt(a.totalPrice());
+                varLong(a.arrivalTime() - a.gameTime());
+            } else if (action instanceof DiplomatSent a) {
+                header(DIPLOMAT_SENT, a.gameTime());
+                string(a.townId());
+                string(a.itemId());
+                varInt(a.count());
+                varInt(a.proposedPrice());
+            } else if (action instanceof QuestDelivered a) {
+                header(QUEST_DELIVERED, a.gameTime());
+                string(a.townId());
+                string(a.itemId());
+                varInt(a.delivered());
+                out.writeBoolean(a.completed());
+                varInt(a.rewardCoins());
+                varInt(a.rewardXp());
+                varInt(a.rewardReputation());
+                varLong(a.rewardArrivalTime() - a.gameTime());
+            } else if (action instanceof WorkerChanged a) {
+                header(WORKER_CHANGED, a.gameTime());
+                out.writeByte(a.type().ordinal());
+                out.writeBoolean(a.hired());
+                varInt(a.level());
+            }
+            count++;
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void header(int type, long gameTime) throws IOException {
+            out.writeByte(type);
+            varLong(gameTime - lastTime);
+            lastTime = gameTime;
+        }
+
+        /** Table index, followed by the string itself the first time it appears. */
+        private void string(String value) throws IOException {
+            int id = strings.getInt(value);
+            if (id >= 0) {
+                varInt(id);
+            } else {
+                varInt(strings.size());
+                out.writeUTF(value);
+                strings.put(value, strings.size());
+            }
+        }
+
+        private void uuid(UUID id) throws IOException {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+        }
+
+        private void varInt(int value) throws IOException {
+            varLong(value);
+        }
+
+        /** Zigzag varint, so small negative numbers stay small too. */
+        private void varLong(long value) throws IOException {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+    }
+
+    // ==================== Reading ====================
+
+    /** Read a whole log into memory. */
+    public static Recording read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not an action log");
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException(file + " has unsupported version " + version);
+            long startTime = in.readLong();
+            long seed = in.readLong();
+
+            Reader reader = new Reader(in, startTime);
+            List<Action> actions = new ArrayList<>();
+            while (true) {
+                int type = in.read();
+                if (type < 0) break;
+                try {
+                    actions.add(reader.read(type));
+                } catch (EOFException e) {
+                    break; // Truncated tail: keep everything before it
+                }
+            }
+            return new Recording(startTime, seed, actions);
+        }
+    }
+
+    private static final class Reader {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private long time;
+
+        Reader(DataInputStream in, long startTime) {
+            this.in = in;
+            this.time = startTime;
+        }
+
+        Action read(int type) throws IOException {
+            time += varLong();
+            long t = time;
+            switch (type) {
+                case SHIPMENT_SENT -> {
+                    UUID id = uuid();
+                    String townId = string();
+                    long arrival = t + varLong();
+                    int size = varInt();
+                    List<Stack> items = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) items.add(new Stack(string(), varInt(), varInt()));
+                    return new ShipmentSent(t, id, townId, arrival, items);
+                }
+                case SHIPMENT_RETURNED -> {
+                    UUID id = uuid();
+                    return new ShipmentReturned(t, id, t + varLong());
+                }
+                case PRICE_ADJUSTED -> {
+                    UUID id = uuid();
+                    return new PriceAdjusted(t, id, varInt(), varInt());
+                }
+                case PURCHASE -> {
+                    String townId = string();
+                    String itemId = string();
+                    int count = varInt();
+                    int price = varInt();
+                    return new Purchase(t, townId, itemId, count, price, t + varLong());
+                }
+                case DIPLOMAT_SENT -> {
+                    String townId = string();
+                    String itemId = string();
+                    return new DiplomatSent(t, townId, itemId, varInt(), varInt());
+                }
+                case QUEST_DELIVERED -> {
+                    String townId = string();
+                    String itemId = string();
+                    int delivered = varInt();
+                    boolean completed = in.readBoolean();
+                    int coins = varInt();
+                    int xp = varInt();
+                    int rep = varInt();
+                    return new QuestDelivered(t, townId, itemId, delivered, completed, coins, xp, rep, t + varLong());
+                }
+                case WORKER_CHANGED -> {
+                    Worker.WorkerType[] types = Worker.WorkerType.values();
+                    int ordinal = in.readUnsignedByte();
+                    if (ordinal >= types.length) throw new IOException("Unknown worker type " + ordinal);
+                    return new WorkerChanged(t, types[ordinal], in.readBoolean(), varInt());
+                }
+                default -> throw new IOException("Unknown action type " + type);
+            }
+        }
+
+        private String string() throws IOException {
+            int id = varInt();
+            if (id == strings.size()) strings.add(in.readUTF());
+            if (id < 0 || id >= strings.size()) throw new IOException("Bad string index " + id);
+            return strings.get(id);
+        }
+
+        private UUID uuid() throws IOException {
+            return new UUID(in.readLong(), in.readLong());
+        }
+
+        private int varInt() throws IOException {
+            return (int) varLong();
+        }
+
+        private long varLong() throws IOException {
+            long v = 0;
+            int shift = 0;
+            while (true) {
+                int b = in.readUnsignedByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) break;
+                shift += 7;
+                if (shift > 63) throw new IOException("Varint too long");
+            }
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
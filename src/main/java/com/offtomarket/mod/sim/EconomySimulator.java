@@ -0,0 +1,685 @@
+package com.offtomarket.mod.sim;
+
+import com.offtomarket.mod.block.entity.TradingPostBlockEntity;
+import com.offtomarket.mod.data.DemandTracker;
+import com.offtomarket.mod.data.PriceCalculator;
+import com.offtomarket.mod.data.Quest;
+import com.offtomarket.mod.data.Shipment;
+import com.offtomarket.mod.data.SupplyDemandManager;
+import com.offtomarket.mod.data.TownData;
+import com.offtomarket.mod.data.TownRegistry;
+import com.offtomarket.mod.data.Worker;
+import com.offtomarket.mod.debug.DebugConfig;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Headless fast-forward of the trading economy, for tuning sale chances,
+ * escalation, supply drift and demand decay without playing for days.
+ *
+ * One simulated Trading Post runs the production rules: shipment sale checks
+ * and auto-returns ({@link TradingPostBlockEntity#resolveMarketSales}), worker
+ * bonuses and trip costs, {@link DemandTracker} supply and decay,
+ * {@link SupplyDemandManager} daily drift and {@link Quest} generation, over
+ * fresh copies of the built-in towns. A simple player model sends a shipment
+ * every {@code shipEvery} ticks, collects finished ones at once and fulfils a
+ * share of the quests.
+ *
+ * Instead of stepping every tick, the clock jumps straight to the next tick on
+ * which something can happen (an arrival, a sale check while anything is at
+ * market, a decay, a day boundary, a quest deadline, a report row), so a month
+ * of game time takes well under a second. Sold shipments are settled on the
+ * sale check that sells them rather than on the following tick.
+ *
+ * With {@code replay=<file>} the simulated player is replaced by an
+ * {@link ActionLog} recorded on a server (/otm record): the logged shipments,
+ * recalls, price changes, quest deliveries and worker changes are applied on
+ * the ticks they happened, seeded with the session's seed, and the run ends
+ * {@code days} days after the last action. Quests then come only from the log.
+ *
+ * Runs on a plain JVM (vanilla registry bootstrap, no FML, no client):
+ * {@code ./gradlew simulate -PsimArgs="days=56 baseSaleChance=0.15"}.
+ */
+public final class EconomySimulator {
+
+    private static final long TICKS_PER_DAY = 24000L;
+    /** The post checks quest deadlines every 200 ticks. */
+    private static final int QUEST_CHECK_INTERVAL = 200;
+    /** Open quests at once, at most one per town. */
+    private static final int MAX_QUESTS = 5;
+
+    /** Counters for one report period (or the whole run). */
+    private static final class Totals {
+        long shipmentsSent, shipmentsSold, shipmentsReturned;
+        long itemsSent, itemsSold;
+        long earnings, workerCosts;
+        long questsCompleted, questsExpired, questCoins;
+
+        void add(Totals other) {
+            shipmentsSent += other.shipmentsSent;
+            shipmentsSold += other.shipmentsSold;
+            shipmentsReturned += other.shipmentsReturned;
+            itemsSent += other.itemsSent;
+            itemsSold += other.itemsSold;
+            earnings += other.earnings;
+            workerCosts += other.workerCosts;
+            questsCompleted += other.questsCompleted;
+            questsExpired += other.questsExpired;
+            questCoins += other.questCoins;
+        }
+    }
+
+    private static final class TownStats {
+        long shipments, itemsSold, earnings;
+        int reputation;
+    }
+
+    /** What a replay did with the logged actions. */
+    private static final class ReplayStats {
+        long applied, skipped;
+        long purchases, purchaseCoins;
+        long diplomats, diplomatCoins;
+        long questDeliveries;
+    }
+
+    private final SimulationSettings settings;
+    @Nullable
+    private final ActionLog.Recording replay;
+    private final ReplayStats replayStats = new ReplayStats();
+    private int nextAction = 0;
+    private final Random rand;
+    private final List<TownData> towns;
+    private final DemandTracker demand = new DemandTracker();
+    private final Worker negotiator = new Worker(Worker.WorkerType.NEGOTIATOR);
+    private final Worker tradingCart = new Worker(Worker.WorkerType.TRADING_CART);
+    private final Worker bookkeeper = new Worker(Worker.WorkerType.BOOKKEEPER);
+
+    private final List<Shipment> shipments = new ArrayList<>();
+    private final List<Quest> quests = new ArrayList<>();
+    /** When the player will fulfil each quest they mean to. */
+    private final Map<Quest, Long> plannedDeliveries = new HashMap<>();
+    private final Map<String, TownStats> townStats = new LinkedHashMap<>();
+    /** Goods the simulated player has to hand besides what each town needs. */
+    private final Item[] stock;
+
+    private long gameTime = 0;
+    private long lastDay = -1;
+    private long nextShipment = 0;
+    private long nextReport;
+    private int traderLevel = 1;
+    private int traderXp = 0;
+    private long events = 0;
+
+    private Totals period = new Totals();
+    private final Totals total = new Totals();
+
+    public EconomySimulator(SimulationSettings settings) {
+        this(settings, null);
+    }
+
+    /** A run driven by a recorded session instead of the simulated player (when {@code replay} is set). */
+    public EconomySimulator(SimulationSettings settings, @Nullable ActionLog.Recording replay) {
+        this.settings = settings;
+        this.replay = replay;
+        this.rand = new Random(replay != null ? replay.seed() : settings.seed);
+        this.towns = new ArrayList<>(TownRegistry.createDefaultTowns().values());
+        for (TownData town : towns) townStats.put(town.getId(), new TownStats());
+        this.stock = new Item[] {
+                Items.WHEAT, Items.BREAD, Items.COBBLESTONE, Items.OAK_LOG, Items.COAL,
+                Items.IRON_INGOT, Items.GOLD_INGOT, Items.DIAMOND, Items.LEATHER, Items.STRING,
+                Items.BONE, Items.GUNPOWDER, Items.REDSTONE, Items.COOKED_BEEF, Items.WHITE_WOOL
+        };
+        hire(negotiator, settings.negotiator);
+        hire(tradingCart, settings.tradingCart);
+        hire(bookkeeper, settings.bookkeeper);
+    }
+
+    private void hire(Worker worker, boolean hired) {
+        worker.setHired(hired);
+        while (hired && worker.getLevel() < settings.workerLevel && worker.getLevel() < Worker.getMaxLevel()) {
+            worker.addXp(worker.getXpForNextLevel() - worker.getXp());
+        }
+    }
+
+    // ==================== Entry Point ====================
+
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                System.out.print(SimulationSettings.usage());
+                return;
+            }
+        }
+        SimulationSettings settings = SimulationSettings.parse(args);
+
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        ActionLog.Recording replay = settings.replay != null ? ActionLog.read(settings.replay) : null;
+
+        Files.createDirectories(settings.out);
+        Path timelineFile = settings.out.resolve("timeline.csv");
+        Path townsFile = settings.out.resolve("towns.csv");
+
+        EconomySimulator sim = new EconomySimulator(settings, replay);
+        long start = System.nanoTime();
+        long ticks;
+        try (Writer timeline = Files.newBufferedWriter(timelineFile, StandardCharsets.UTF_8)) {
+            ticks = sim.run(timeline);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        try (Writer townReport = Files.newBufferedWriter(townsFile, StandardCharsets.UTF_8)) {
+            sim.writeTowns(townReport);
+        }
+
+        System.out.printf(Locale.ROOT, "Simulated %.1f days (%,d ticks, %,d events) in %.2fs: %,.0f ticks/s%n",
+                ticks / (double) TICKS_PER_DAY, ticks, sim.events, seconds, ticks / Math.max(seconds, 1e-9));
+        System.out.print(sim.summary());
+        System.out.println("Reports: " + timelineFile + ", " + townsFile);
+    }
+
+    // ==================== Event Loop ====================
+
+    /**
+     * Run the whole simulation, writing one timeline row per report interval,
+     * and return the number of ticks simulated.
+     */
+    public long run(Writer timeline) throws IOException {
+        long start = 0;
+        long end = settings.days * TICKS_PER_DAY;
+        if (replay != null) {
+            List<ActionLog.Action> actions = replay.actions();
+            start = replay.startTime();
+            long last = actions.isEmpty() ? start : actions.get(actions.size() - 1).gameTime();
+            end = last + settings.days * TICKS_PER_DAY;
+            gameTime = start;
+            lastDay = start / TICKS_PER_DAY - 1;
+        }
+        nextReport = start + settings.reportEvery;
+        timeline.write("day,game_time,trader_level,shipments_sent,shipments_sold,shipments_returned,"
+                + "items_sent,items_sold,earnings,worker_costs,quests_completed,quests_expired,quest_coins,"
+                + "total_earnings,avg_demand,avg_supply\n");
+
+        step();
+        while (true) {
+            long next = nextEventTime();
+            if (next > end) break;
+            demand.advance(next - gameTime);
+            gameTime = next;
+            step();
+            events++;
+            if (gameTime >= nextReport) {
+                writeRow(timeline);
+                nextReport += settings.reportEvery;
+            }
+        }
+        return gameTime - start;
+    }
+
+    /** Earliest tick after now at which anything changes. */
+    private long nextEventTime() {
+        long next = Math.min(nextReport, (gameTime / TICKS_PER_DAY + 1) * TICKS_PER_DAY);
+        next = Math.min(next, gameTime + demand.ticksUntilDecay());
+        if (replay != null) {
+            if (nextAction < replay.actions().size()) {
+                next = Math.min(next, replay.actions().get(nextAction).gameTime());
+            }
+        } else if (canShip()) {
+            next = Math.min(next, Math.max(nextShipment, gameTime + 1));
+        }
+
+        boolean atMarket = false;
+        for (Shipment shipment : shipments) {
+            switch (shipment.getStatus()) {
+                case IN_TRANSIT -> next = Math.min(next, shipment.getArrivalTime());
+                case RETURNING -> next = Math.min(next, shipment.getReturnArrivalTime());
+                case AT_MARKET -> atMarket = true;
+                default -> { }
+            }
+        }
+        if (atMarket) {
+            int interval = DebugConfig.getSaleCheckInterval();
+            next = Math.min(next, (gameTime / interval + 1) * interval);
+        }
+
+        for (Quest quest : quests) {
+            switch (quest.getStatus()) {
+                case AVAILABLE, ACCEPTED -> {
+                    Long planned = plannedDeliveries.get(quest);
+                    if (planned != null) next = Math.min(next, planned);
+                    next = Math.min(next, roundUp(quest.getExpiryTime(), QUEST_CHECK_INTERVAL));
+                }
+                case DELIVERING -> next = Math.min(next, quest.getRewardArrivalTime());
+                default -> { }
+            }
+        }
+        return Math.max(next, gameTime + 1);
+    }
+
+    /** Everything that happens on the current tick, in the post's tick order. */
+    private void step() {
+        // Packets are handled before the post ticks
+        if (replay != null) applyRecorded();
+        boolean checkSales = gameTime % DebugConfig.getSaleCheckInterval() == 0;
+
+        Iterator<Shipment> it = shipments.iterator();
+        while (it.hasNext()) {
+            Shipment shipment = it.next();
+            switch (shipment.getStatus()) {
+                case IN_TRANSIT -> {
+                    if (gameTime >= shipment.getArrivalTime()) {
+                        shipment.setStatus(Shipment.Status.AT_MARKET);
+                        shipment.setMarketListedTime(gameTime);
+                    }
+                }
+                case AT_MARKET -> {
+                    if (checkSales) {
+                        TownData town = town(shipment.getTownId());
+                        if (town != null) {
+                            TradingPostBlockEntity.resolveMarketSales(shipment, town, demand, gameTime, rand);
+                            if (shipment.getStatus() == Shipment.Status.SOLD) {
+                                settle(shipment);
+                                it.remove();
+                            }
+                        }
+                    }
+                }
+                case RETURNING -> {
+                    if (gameTime >= shipment.getReturnArrivalTime()) {
+                        collectReturned(shipment);
+                        it.remove();
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        stepQuests();
+
+        long day = gameTime / TICKS_PER_DAY;
+        if (day > lastDay) {
+            lastDay = day;
+            SupplyDemandManager.refreshTowns(towns, rand);
+            if (replay == null) refreshQuests();
+        } else if (quests.isEmpty() && replay == null) {
+            refreshQuests();
+        }
+
+        if (replay == null && gameTime >= nextShipment && canShip()) {
+            dispatch();
+            nextShipment = gameTime + settings.shipEvery;
+        }
+    }
+
+    // ==================== Shipments ====================
+
+    private boolean canShip() {
+        return shipments.size() < settings.maxActiveShipments;
+    }
+
+    /** The simulated player ships a few stacks to a random reachable town at their asking price. */
+    private void dispatch() {
+        List<TownData> reachable = new ArrayList<>();
+        for (TownData town : towns) {
+            if (town.getMinTraderLevel() <= traderLevel) reachable.add(town);
+        }
+        if (reachable.isEmpty()) return;
+        TownData town = reachable.get(rand.nextInt(reachable.size()));
+
+        List<Shipment.ShipmentItem> items = new ArrayList<>(settings.stacksPerShipment);
+        int itemCount = 0;
+        for (int i = 0; i < settings.stacksPerShipment; i++) {
+            Item item = pickItem(town);
+            ResourceLocation id = ForgeRegistries.ITEMS.getKey(item);
+            if (id == null) continue;
+            int count = 1 + rand.nextInt(Math.max(1, item.getMaxStackSize()));
+            ItemStack stack = new ItemStack(item, count);
+            int fair = PriceCalculator.calculateFinalValue(stack, PriceCalculator.getBaseValue(stack), town);
+            int price = Math.max(1, (int) Math.round(fair * settings.priceFactor));
+            items.add(new Shipment.ShipmentItem(id, count, price, id.getPath()));
+            itemCount += count;
+        }
+        if (items.isEmpty()) return;
+
+        long arrival = gameTime + DebugConfig.getPickupDelay() + travelTicks(town);
+        shipments.add(new Shipment(new UUID(rand.nextLong(), rand.nextLong()), town.getId(), items, gameTime, arrival));
+        for (Shipment.ShipmentItem si : items) {
+            demand.recordSupply(town.getId(), si.getItemId().toString(), si.getCount());
+        }
+        period.shipmentsSent++;
+        period.itemsSent += itemCount;
+        townStats.get(town.getId()).shipments++;
+    }
+
+    /** Half the stacks are something the town needs (when it names any), the rest general stock. */
+    private Item pickItem(TownData town) {
+        if (!town.getNeeds().isEmpty() && rand.nextBoolean()) {
+            int pick = rand.nextInt(town.getNeeds().size());
+            for (ResourceLocation id : town.getNeeds()) {
+                if (pick-- == 0) {
+                    Item item = ForgeRegistries.ITEMS.getValue(id);
+                    if (item != null && item != Items.AIR) return item;
+                    break;
+                }
+            }
+        }
+        return stock[rand.nextInt(stock.length)];
+    }
+
+    /** SOLD → COMPLETED and collected, as the post's tick and the player's click would. */
+    private void settle(Shipment shipment) {
+        int raw = shipment.getTotalEarnings();
+        int negotiated = (int) (raw * (negotiator.isHired() ? 1.0 + negotiator.getNegotiationBonus() : 1.0));
+        if (negotiated > raw && negotiator.isHired()) negotiator.addLifetimeBonusValue(negotiated - raw);
+        int net = TradingPostBlockEntity.applyWorkerCosts(negotiated, negotiator, tradingCart, bookkeeper);
+
+        int soldCount = 0;
+        long itemsSold = 0;
+        for (Shipment.ShipmentItem item : shipment.getItems()) {
+            if (item.isSold()) {
+                soldCount++;
+                itemsSold += item.getCount();
+            }
+        }
+        addTraderXp(DebugConfig.getXpPerSale());
+        if (soldCount > 0) addReputation(shipment.getTownId(), soldCount * 5);
+
+        period.shipmentsSold++;
+        period.itemsSold += itemsSold;
+        period.earnings += net;
+        period.workerCosts += negotiated - net;
+        TownStats stats = townStats.get(shipment.getTownId());
+        stats.itemsSold += itemsSold;
+        stats.earnings += net;
+    }
+
+    /** Unsold goods are back; anything that sold before the return is paid out without worker costs. */
+    private void collectReturned(Shipment shipment) {
+        long itemsSold = 0;
+        for (Shipment.ShipmentItem item : shipment.getItems()) {
+            if (item.isSold()) itemsSold += item.getCount();
+        }
+        period.shipmentsReturned++;
+        period.itemsSold += itemsSold;
+        period.earnings += shipment.getTotalEarnings();
+        TownStats stats = townStats.get(shipment.getTownId());
+        stats.itemsSold += itemsSold;
+        stats.earnings += shipment.getTotalEarnings();
+    }
+
+    private int travelTicks(TownData town) {
+        double multiplier = tradingCart.isHired() ? 1.0 - tradingCart.getSpeedBonus() : 1.0;
+        return (int) (town.getTravelTimeTicks(DebugConfig.getTicksPerDistance()) * multiplier);
+    }
+
+    // ==================== Replay ====================
+
+    /** Apply every logged action up to now, in log order. */
+    private void applyRecorded() {
+        List<ActionLog.Action> actions = replay.actions();
+        while (nextAction < actions.size() && actions.get(nextAction).gameTime() <= gameTime) {
+            if (apply(actions.get(nextAction++))) {
+                replayStats.applied++;
+            } else {
+                replayStats.skipped++;
+            }
+        }
+    }
+
+    /** False if the action no longer applies here (unknown town or item, shipment already gone). */
+    private boolean apply(ActionLog.Action action) {
+        if (action instanceof ActionLog.ShipmentSent a) {
+            TownData town = town(a.townId());
+            if (town == null) return false;
+            List<Shipment.ShipmentItem> items = new ArrayList<>(a.items().size());
+            int itemCount = 0;
+            for (ActionLog.Stack stack : a.items()) {
+                ResourceLocation id = ResourceLocation.tryParse(stack.itemId());
+                if (id == null) continue;
+                items.add(new Shipment.ShipmentItem(id, stack.count(), stack.price(), id.getPath()));
+                demand.recordSupply(town.getId(), stack.itemId(), stack.count());
+                itemCount += stack.count();
+            }
+            if (items.isEmpty()) return false;
+            shipments.add(new Shipment(a.id(), town.getId(), items, a.gameTime(), a.arrivalTime()));
+            period.shipmentsSent++;
+            period.itemsSent += itemCount;
+            townStats.get(town.getId()).shipments++;
+            return true;
+        }
+        if (action instanceof ActionLog.ShipmentReturned a) {
+            Shipment shipment = shipment(a.id());
+            if (shipment == null || (shipment.getStatus() != Shipment.Status.IN_TRANSIT
+                    && shipment.getStatus() != Shipment.Status.AT_MARKET)) return false;
+            shipment.setReturnArrivalTime(a.returnArrivalTime());
+            shipment.setStatus(Shipment.Status.RETURNING);
+            return true;
+        }
+        if (action instanceof ActionLog.PriceAdjusted a) {
+            Shipment shipment = shipment(a.id());
+            if (shipment == null || shipment.getStatus() != Shipment.Status.AT_MARKET
+                    || a.itemIndex() < 0 || a.itemIndex() >= shipment.getItems().size()) return false;
+            Shipment.ShipmentItem item = shipment.getItems().get(a.itemIndex());
+            if (item.isSold()) return false;
+            item.setPricePerItem(a.price());
+            return true;
+        }
+        if (action instanceof ActionLog.Purchase a) {
+            replayStats.purchases++;
+            replayStats.purchaseCoins += a.totalPrice();
+            return true;
+        }
+        if (action instanceof ActionLog.DiplomatSent a) {
+            replayStats.diplomats++;
+            replayStats.diplomatCoins += a.proposedPrice();
+            return true;
+        }
+        if (action instanceof ActionLog.QuestDelivered a) {
+            ResourceLocation itemId = ResourceLocation.tryParse(a.itemId());
+            if (town(a.townId()) == null || itemId == null) return false;
+            replayStats.questDeliveries++;
+            if (a.completed()) {
+                // Rewards are on their way; stepQuests pays them out on arrival
+                Quest quest = new Quest(new UUID(a.gameTime(), nextAction), a.townId(), itemId, itemId.getPath(),
+                        a.delivered(), a.rewardCoins(), a.rewardXp(), a.rewardReputation(),
+                        a.gameTime(), Long.MAX_VALUE, Quest.QuestType.STANDARD, "");
+                quest.setStatus(Quest.Status.DELIVERING);
+                quest.setRewardArrivalTime(a.rewardArrivalTime());
+                quests.add(quest);
+            }
+            return true;
+        }
+        if (action instanceof ActionLog.WorkerChanged a) {
+            Worker worker = switch (a.type()) {
+                case NEGOTIATOR -> negotiator;
+                case TRADING_CART -> tradingCart;
+                case BOOKKEEPER -> bookkeeper;
+            };
+            worker.setHired(a.hired());
+            while (worker.getLevel() < a.level() && worker.getLevel() < Worker.getMaxLevel()) {
+                worker.addXp(worker.getXpForNextLevel() - worker.getXp());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private Shipment shipment(UUID id) {
+        for (Shipment shipment : shipments) {
+            if (shipment.getId().equals(id)) return shipment;
+        }
+        return null;
+    }
+
+    // ==================== Quests ====================
+
+    private void stepQuests() {
+        Iterator<Quest> it = quests.iterator();
+        while (it.hasNext()) {
+            Quest quest = it.next();
+            Long planned = plannedDeliveries.get(quest);
+            if (planned != null && gameTime >= planned && !quest.isExpired(gameTime)) {
+                plannedDeliveries.remove(quest);
+                quest.setStatus(Quest.Status.ACCEPTED);
+                quest.deliver(quest.getRemainingCount());
+                TownData town = town(quest.getTownId());
+                quest.setRewardArrivalTime(gameTime + (town != null ? travelTicks(town) : 1200));
+            }
+            if (quest.getStatus() == Quest.Status.DELIVERING && gameTime >= quest.getRewardArrivalTime()) {
+                quest.setStatus(Quest.Status.COMPLETED);
+                period.questsCompleted++;
+                period.questCoins += quest.getRewardCoins();
+                period.earnings += quest.getRewardCoins();
+                addTraderXp(quest.getRewardXp());
+                addReputation(quest.getTownId(), quest.getRewardReputation());
+                it.remove();
+            } else if (gameTime % QUEST_CHECK_INTERVAL == 0 && quest.isExpired(gameTime)
+                    && (quest.getStatus() == Quest.Status.AVAILABLE || quest.getStatus() == Quest.Status.ACCEPTED)) {
+                plannedDeliveries.remove(quest);
+                period.questsExpired++;
+                it.remove();
+            }
+        }
+    }
+
+    /** Top up to {@value #MAX_QUESTS} quests, one per reachable town, as the post's dawn refresh does. */
+    private void refreshQuests() {
+        if (quests.size() >= MAX_QUESTS) return;
+        List<TownData> reachable = new ArrayList<>();
+        for (TownData town : towns) {
+            if (town.getMinTraderLevel() <= traderLevel) reachable.add(town);
+        }
+        Collections.shuffle(reachable, rand);
+        for (TownData town : reachable) {
+            if (quests.size() >= MAX_QUESTS) break;
+            boolean hasTownQuest = false;
+            for (Quest quest : quests) {
+                if (quest.getTownId().equals(town.getId())) {
+                    hasTownQuest = true;
+                    break;
+                }
+            }
+            if (hasTownQuest) continue;
+            for (Quest quest : Quest.generateQuests(town, gameTime, rand, 1)) {
+                quests.add(quest);
+                if (rand.nextDouble() < settings.questCompletion) {
+                    long window = Math.max(1, quest.getExpiryTime() - gameTime - 1);
+                    plannedDeliveries.put(quest, gameTime + 1 + (long) (rand.nextDouble() * window));
+                }
+            }
+        }
+    }
+
+    // ==================== Trader ====================
+
+    private void addTraderXp(int amount) {
+        traderXp += amount;
+        while (traderXp >= TradingPostBlockEntity.getXpForNextLevel(traderLevel)
+                && traderLevel < DebugConfig.getMaxTraderLevel()) {
+            traderXp -= TradingPostBlockEntity.getXpForNextLevel(traderLevel);
+            traderLevel++;
+        }
+    }
+
+    private void addReputation(String townId, int amount) {
+        TownStats stats = townStats.get(townId);
+        if (stats != null) stats.reputation = Math.max(-1000, Math.min(1000, stats.reputation + amount));
+    }
+
+    private TownData town(String id) {
+        for (TownData town : towns) {
+            if (town.getId().equals(id)) return town;
+        }
+        return null;
+    }
+
+    private static long roundUp(long value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+
+    // ==================== Reports ====================
+
+    private void writeRow(Writer out) throws IOException {
+        total.add(period);
+        double demandSum = 0;
+        double supplySum = 0;
+        int supplyTowns = 0;
+        for (TownData town : towns) {
+            demandSum += demand.getTownDemandLevel(town.getId());
+            double avg = averageSupply(town);
+            if (!Double.isNaN(avg)) {
+                supplySum += avg;
+                supplyTowns++;
+            }
+        }
+        out.write(String.format(Locale.ROOT, "%.2f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.4f,%s%n",
+                gameTime / (double) TICKS_PER_DAY, gameTime, traderLevel,
+                period.shipmentsSent, period.shipmentsSold, period.shipmentsReturned,
+                period.itemsSent, period.itemsSold, period.earnings, period.workerCosts,
+                period.questsCompleted, period.questsExpired, period.questCoins,
+                total.earnings, demandSum / towns.size(),
+                supplyTowns > 0 ? String.format(Locale.ROOT, "%.2f", supplySum / supplyTowns) : ""));
+        period = new Totals();
+    }
+
+    private void writeTowns(Writer out) throws IOException {
+        out.write("town,distance,min_level,shipments,items_sold,earnings,reputation,demand_level,avg_supply\n");
+        for (TownData town : towns) {
+            TownStats stats = townStats.get(town.getId());
+            double avg = averageSupply(town);
+            out.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%.4f,%s%n",
+                    town.getId(), town.getDistance(), town.getMinTraderLevel(),
+                    stats.shipments, stats.itemsSold, stats.earnings, stats.reputation,
+                    demand.getTownDemandLevel(town.getId()),
+                    Double.isNaN(avg) ? "" : String.format(Locale.ROOT, "%.2f", avg)));
+        }
+    }
+
+    private static double averageSupply(TownData town) {
+        Map<String, Integer> levels = town.getSupplyLevels();
+        if (levels.isEmpty()) return Double.NaN;
+        long sum = 0;
+        for (int level : levels.values()) sum += level;
+        return sum / (double) levels.size();
+    }
+
+    private String summary() {
+        Totals all = new Totals();
+        all.add(total);
+        all.add(period);
+        double sellThrough = all.itemsSent > 0 ? 100.0 * all.itemsSold / all.itemsSent : 0;
+        String replayLine = replay == null ? "" : String.format(Locale.ROOT,
+                "  Replayed %d of %d actions (%d skipped) | %d purchases (%d CP) | %d diplomats (%d CP proposed)"
+                + " | %d quest deliveries%n",
+                replayStats.applied, replay.actions().size(), replayStats.skipped,
+                replayStats.purchases, replayStats.purchaseCoins, replayStats.diplomats,
+                replayStats.diplomatCoins, replayStats.questDeliveries);
+        return replayLine + String.format(Locale.ROOT,
+                "  Trader level %d | shipments %d sent, %d sold, %d returned | sell-through %.1f%%%n"
+                + "  Earnings %d CP (worker costs %d CP) | quests %d completed, %d expired (%d CP)%n",
+                traderLevel, all.shipmentsSent, all.shipmentsSold, all.shipmentsReturned, sellThrough,
+                all.earnings, all.workerCosts, all.questsCompleted, all.questsExpired, all.questCoins);
+    }
+}
@@ -0,0 +1,160 @@
+package com.offtomarket.mod.sim;
+
+import com.offtomarket.mod.config.ModConfig;
+import com.offtomarket.mod.data.SupplyDemandManager;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Run settings for {@link EconomySimulator}, parsed from {@code key=value}
+ * arguments.
+ *
+ * Simulation keys shape the run and the simulated player. Every other key
+ * must name a tunable from {@link #TUNABLES}; those are written straight into
+ * {@link ModConfig} (and {@link SupplyDemandManager}) before the run, so the
+ * production code reads them exactly as it would from the config file.
+ */
+public final class SimulationSettings {
+
+    /** Simulated game days (with {@link #replay}: days run on after the last logged action). */
+    public int days = 28;
+    /** Seed for every random roll in the run. */
+    public long seed = 1L;
+    /** Directory the CSV reports are written to. */
+    public Path out = Path.of("build", "sim");
+    /** Report interval in ticks (one timeline row each). */
+    public long reportEvery = 24000L;
+    /** Action log to replay instead of the simulated player (null = simulate). */
+    @Nullable
+    public Path replay = null;
+
+    /** Ticks between shipments sent by the simulated player. */
+    public int shipEvery = 2400;
+    /** Item stacks per shipment. */
+    public int stacksPerShipment = 6;
+    /** Asking price as a multiple of the town's fair value. */
+    public double priceFactor = 1.0;
+    /** Chance that the player fulfils a quest before it expires. */
+    public double questCompletion = 0.5;
+    /** Cap on shipments in flight or at market; the player waits when it is reached. */
+    public int maxActiveShipments = 8;
+
+    public boolean negotiator = false;
+    public boolean tradingCart = false;
+    public boolean bookkeeper = false;
+    /** Starting level of hired workers. */
+    public int workerLevel = 1;
+
+    /** Config keys the simulator may override, with a short description for --help. */
+    public static final Map<String, String> TUNABLES = new LinkedHashMap<>();
+
+    static {
+        TUNABLES.put("baseSaleChance", "chance per sale check that an item sells (0-1)");
+        TUNABLES.put("saleChanceEscalation", "sale chance multiplier reached at max market time");
+        TUNABLES.put("saleCheckInterval", "ticks between sale checks");
+        TUNABLES.put("maxMarketTime", "ticks at market before unsold items return");
+        TUNABLES.put("overpriceThreshold", "fair-value multiple above which sales slow down");
+        TUNABLES.put("ticksPerDistance", "travel ticks per distance unit");
+        TUNABLES.put("pickupDelay", "ticks before a shipment leaves");
+        TUNABLES.put("xpPerSale", "trader XP per completed shipment");
+        TUNABLES.put("baseXpToLevel", "trader XP per level (times current level)");
+        TUNABLES.put("maxTraderLevel", "highest trader level");
+        TUNABLES.put("dailyRefreshChance", "chance per item per day that supply drifts toward balanced");
+        TUNABLES.put("supplyDriftAmount", "supply units moved per drift");
+    }
+
+    public static SimulationSettings parse(String[] args) {
+        SimulationSettings settings = new SimulationSettings();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got '" + arg + "'");
+            settings.set(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        return settings;
+    }
+
+    private void set(String key, String value) {
+        try {
+            switch (key) {
+                case "days" -> days = Integer.parseInt(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "out" -> out = Path.of(value);
+                case "reportEvery" -> reportEvery = Math.max(1L, Long.parseLong(value));
+                case "replay" -> replay = Path.of(value);
+                case "shipEvery" -> shipEvery = Math.max(1, Integer.parseInt(value));
+                case "stacks" -> stacksPerShipment = Math.max(1, Integer.parseInt(value));
+                case "priceFactor" -> priceFactor = Double.parseDouble(value);
+                case "questCompletion" -> questCompletion = Double.parseDouble(value);
+                case "maxShipments" -> maxActiveShipments = Math.max(1, Integer.parseInt(value));
+                case "workers" -> {
+                    for (String worker : value.split(",")) {
+                        switch (worker.trim()) {
+                            case "negotiator" -> negotiator = true;
+                            case "cart" -> tradingCart = true;
+                            case "bookkeeper" -> bookkeeper = true;
+                            case "", "none" -> { }
+                            default -> throw new IllegalArgumentException("Unknown worker '" + worker + "'");
+                        }
+                    }
+                }
+                case "workerLevel" -> workerLevel = Math.max(1, Integer.parseInt(value));
+                default -> applyTunable(key, value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad number for " + key + ": '" + value + "'");
+        }
+    }
+
+    private static void applyTunable(String key, String value) {
+        switch (key) {
+            case "baseSaleChance" -> ModConfig.baseSaleChance = Double.parseDouble(value);
+            case "saleChanceEscalation" -> ModConfig.saleChanceEscalation = Double.parseDouble(value);
+            case "saleCheckInterval" -> ModConfig.saleCheckInterval = Math.max(1, Integer.parseInt(value));
+            case "maxMarketTime" -> ModConfig.maxMarketTimeTicks = Math.max(1, Integer.parseInt(value));
+            case "overpriceThreshold" -> ModConfig.overpriceThreshold = Double.parseDouble(value);
+            case "ticksPerDistance" -> ModConfig.ticksPerDistance = Integer.parseInt(value);
+            case "pickupDelay" -> ModConfig.pickupDelayTicks = Integer.parseInt(value);
+            case "xpPerSale" -> ModConfig.xpPerSale = Integer.parseInt(value);
+            case "baseXpToLevel" -> ModConfig.baseXpToLevel = Integer.parseInt(value);
+            case "maxTraderLevel" -> ModConfig.maxTraderLevel = Integer.parseInt(value);
+            case "dailyRefreshChance" -> {
+                ModConfig.dailyRefreshChance = Double.parseDouble(value);
+                SupplyDemandManager.setDailyRefreshChance(ModConfig.dailyRefreshChance);
+            }
+            case "supplyDriftAmount" -> {
+                ModConfig.supplyDriftAmount = Integer.parseInt(value);
+                SupplyDemandManager.setDriftAmount(ModConfig.supplyDriftAmount);
+            }
+            default -> throw new IllegalArgumentException("Unknown setting '" + key + "'");
+        }
+    }
+
+    /** Usage text for --help. */
+    public static String usage() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Usage: EconomySimulator [key=value ...]\n\n");
+        sb.append("Run:\n");
+        sb.append("  days=28              simulated game days\n");
+        sb.append("  seed=1               random seed\n");
+        sb.append("  out=build/sim        report directory\n");
+        sb.append("  reportEvery=24000    ticks per timeline row\n");
+        sb.append("  replay=<file>        replay an /otm record log instead of the simulated player;\n");
+        sb.append("                       days then counts from the last logged action\n\n");
+        sb.append("Simulated player:\n");
+        sb.append("  shipEvery=2400       ticks between shipments\n");
+        sb.append("  stacks=6             item stacks per shipment\n");
+        sb.append("  priceFactor=1.0      asking price / fair value\n");
+        sb.append("  questCompletion=0.5  chance a quest gets fulfilled\n");
+        sb.append("  maxShipments=8       shipments in flight before the player waits\n");
+        sb.append("  workers=none         comma list of negotiator,cart,bookkeeper\n");
+        sb.append("  workerLevel=1        starting level of hired workers\n\n");
+        sb.append("Config overrides:\n");
+        for (Map.Entry<String, String> e : TUNABLES.entrySet()) {
+            sb.append("  ").append(String.format("%-21s", e.getKey())).append(e.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,246 @@
+package com.offtomarket.mod.util;
+
+import com.offtomarket.mod.block.entity.FinanceTableBlockEntity;
+import com.offtomarket.mod.item.CoinBagItem;
+import com.offtomarket.mod.item.CoinItem;
+import com.offtomarket.mod.item.CoinType;
+import com.offtomarket.mod.registry.ModItems;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.ItemStack;
+
+import javax.annotation.Nullable;
+
+/**
+ * Everything a player can pay with, read in one pass: coin stacks in the
+ * inventory, the first coin bag, and optionally a connected Finance Table.
+ *
+ * {@link #pay(int)} works out the whole payment first ({@link #plan(int)}) and
+ * only then touches the inventory, so a payment either goes through in full or
+ * changes nothing. Coins are spent before the bag, and the bag before the
+ * Finance Table. Among the coins, the plan pays the exact amount if any mix of
+ * the player's coins can, otherwise with the least change; ties go to the mix
+ * with the fewest gold coins.
+ *
+ * A wallet is a snapshot: use it right away, on the server thread, and take a
+ * new one after anything else changes the inventory.
+ */
+public final class Wallet {
+
+    private static final String BAG_TAG = "CoinBag";
+
+    /** How a payment is split; coin counts are per denomination. */
+    public record Plan(int gold, int silver, int copper, int change, int fromBag, int fromBank) {
+        public static final Plan NONE = new Plan(0, 0, 0, 0, 0, 0);
+    }
+
+    private final Player player;
+    @Nullable
+    private final FinanceTableBlockEntity financeTable;
+    /** Inventory slots holding each denomination, by {@link CoinType} ordinal. */
+    private final IntArrayList[] slots = new IntArrayList[CoinType.values().length];
+    private final int[] counts = new int[CoinType.values().length];
+    private int bagSlot = -1;
+    private int bagValue = 0;
+
+    private Wallet(Player player, @Nullable FinanceTableBlockEntity financeTable) {
+        this.player = player;
+        this.financeTable = financeTable;
+        for (int i = 0; i < slots.length; i++) slots[i] = new IntArrayList();
+
+        Inventory inventory = player.getInventory();
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.getItem(i);
+            if (stack.getItem() instanceof CoinItem coin) {
+                int type = coin.getCoinType().ordinal();
+                slots[type].add(i);
+                counts[type] += stack.getCount();
+            } else if (bagSlot < 0 && stack.getItem() instanceof CoinBagItem) {
+                bagSlot = i;
+                bagValue = readBag(stack);
+            }
+        }
+    }
+
+    /** Snapshot a player's coins, plus a Finance Table's balance when one is given. */
+    public static Wallet of(Player player, @Nullable FinanceTableBlockEntity financeTable) {
+        return new Wallet(player, financeTable);
+    }
+
+    /** Snapshot a player's own coins. */
+    public static Wallet of(Player player) {
+        return new Wallet(player, null);
+    }
+
+    // ==================== Balances ====================
+
+    public int getCount(CoinType type) {
+        return counts[type.ordinal()];
+    }
+
+    /** CP held as coin items. */
+    public int getCoinValue() {
+        int total = 0;
+        for (CoinType type : CoinType.values()) total += counts[type.ordinal()] * type.getValue();
+        return total;
+    }
+
+    /** CP in the first coin bag (0 without one). */
+    public int getBagValue() {
+        return bagValue;
+    }
+
+    public int getBankBalance() {
+        return financeTable != null ? financeTable.getBalance() : 0;
+    }
+
+    /** CP the player carries (coins and bag). */
+    public int getPlayerTotal() {
+        return getCoinValue() + bagValue;
+    }
+
+    /** CP available for a payment, Finance Table included. */
+    public int getTotal() {
+        return getPlayerTotal() + getBankBalance();
+    }
+
+    public boolean canAfford(int copperAmount) {
+        return getTotal() >= copperAmount;
+    }
+
+    // ==================== Payments ====================
+
+    /** How {@code copperAmount} would be paid, or null if the wallet cannot cover it. */
+    @Nullable
+    public Plan plan(int copperAmount) {
+        if (copperAmount <= 0) return Plan.NONE;
+        if (!canAfford(copperAmount)) return null;
+
+        int fromCoins = Math.min(copperAmount, getCoinValue());
+        int gold = counts[CoinType.GOLD.ordinal()];
+        int silver = counts[CoinType.SILVER.ordinal()];
+        int copper = counts[CoinType.COPPER.ordinal()];
+        int goldValue = CoinType.GOLD.getValue();
+        int silverValue = CoinType.SILVER.getValue();
+
+        int bestG = 0, bestS = 0, bestC = 0, bestChange = Integer.MAX_VALUE;
+        int maxGold = Math.min(gold, ceilDiv(fromCoins, goldValue));
+        for (int g = 0; g <= maxGold; g++) {
+            int rem = fromCoins - g * goldValue;
+            int s, c, change;
+            if (rem <= 0) {
+                s = 0;
+                c = 0;
+                change = -rem;
+            } else {
+                // Fewest silver the copper allows, then only the copper still needed
+                s = ceilDiv(rem - Math.min(copper, rem), silverValue);
+                if (s > silver) continue;
+                c = Math.max(0, rem - s * silverValue);
+                change = s * silverValue + c - rem;
+            }
+            if (change < bestChange) {
+                bestG = g;
+                bestS = s;
+                bestC = c;
+                bestChange = change;
+                if (change == 0) break;
+            }
+            if (rem <= 0) break; // More gold only adds change
+        }
+
+        int fromBag = Math.min(copperAmount - fromCoins, bagValue);
+        int fromBank = copperAmount - fromCoins - fromBag;
+        return new Plan(bestG, bestS, bestC, bestChange, fromBag, fromBank);
+    }
+
+    /**
+     * Pay {@code copperAmount} in one go. Returns false, changing nothing, if the
+     * wallet cannot cover it.
+     */
+    public boolean pay(int copperAmount) {
+        Plan plan = plan(copperAmount);
+        if (plan == null) return false;
+        apply(plan);
+        return true;
+    }
+
+    private void apply(Plan plan) {
+        take(CoinType.GOLD, plan.gold());
+        take(CoinType.SILVER, plan.silver());
+        take(CoinType.COPPER, plan.copper());
+        if (plan.fromBag() > 0 && bagSlot >= 0) {
+            bagValue -= plan.fromBag();
+            writeBag(player.getInventory().getItem(bagSlot), bagValue);
+        }
+        if (plan.fromBank() > 0 && financeTable != null) {
+            financeTable.setBalance(Math.max(0, financeTable.getBalance() - plan.fromBank()));
+        }
+        if (plan.change() > 0) giveCoins(player, plan.change());
+    }
+
+    /** Remove {@code amount} coins of one denomination, from the first slots holding it. */
+    private void take(CoinType type, int amount) {
+        IntArrayList typeSlots = slots[type.ordinal()];
+        int left = amount;
+        for (int i = 0; i < typeSlots.size() && left > 0; i++) {
+            ItemStack stack = player.getInventory().getItem(typeSlots.getInt(i));
+            int taken = Math.min(left, stack.getCount());
+            stack.shrink(taken);
+            left -= taken;
+        }
+        counts[type.ordinal()] -= amount - left;
+    }
+
+    // ==================== Coins & Bags ====================
+
+    /** Give a CP amount as the fewest coins; whatever does not fit is dropped at the player's feet. */
+    public static void giveCoins(Player player, int copperAmount) {
+        if (copperAmount <= 0) return;
+        int gp = copperAmount / CoinType.GOLD.getValue();
+        copperAmount %= CoinType.GOLD.getValue();
+        int sp = copperAmount / CoinType.SILVER.getValue();
+        copperAmount %= CoinType.SILVER.getValue();
+
+        if (gp > 0) give(player, new ItemStack(ModItems.GOLD_COIN.get(), gp));
+        if (sp > 0) give(player, new ItemStack(ModItems.SILVER_COIN.get(), sp));
+        if (copperAmount > 0) give(player, new ItemStack(ModItems.COPPER_COIN.get(), copperAmount));
+    }
+
+    private static void give(Player player, ItemStack stack) {
+        while (stack.getCount() > stack.getMaxStackSize()) {
+            give(player, stack.split(stack.getMaxStackSize()));
+        }
+        if (!player.getInventory().add(stack)) player.drop(stack, false);
+    }
+
+    /** CP stored in a coin bag stack. */
+    public static int readBag(ItemStack bag) {
+        CompoundTag tag = bag.getTag();
+        if (tag == null || !tag.contains(BAG_TAG)) return 0;
+        CompoundTag bagTag = tag.getCompound(BAG_TAG);
+        return bagTag.getInt("Gold") * CoinType.GOLD.getValue()
+                + bagTag.getInt("Silver") * CoinType.SILVER.getValue()
+                + bagTag.getInt("Copper");
+    }
+
+    /** Store a CP total in a coin bag stack, repacked into the fewest coins. */
+    private static void writeBag(ItemStack bag, int copper) {
+        copper = Math.max(0, copper);
+        int gold = copper / CoinType.GOLD.getValue();
+        int silver = (copper % CoinType.GOLD.getValue()) / CoinType.SILVER.getValue();
+        int rest = copper % CoinType.SILVER.getValue();
+
+        CompoundTag bagTag = new CompoundTag();
+        if (gold > 0) bagTag.putInt("Gold", gold);
+        if (silver > 0) bagTag.putInt("Silver", silver);
+        if (rest > 0) bagTag.putInt("Copper", rest);
+        bag.getOrCreateTag().put(BAG_TAG, bagTag);
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return a <= 0 ? 0 : (a + b - 1) / b;
+    }
+}